@@ -0,0 +1,134 @@
+package ADTPackage;
+
+import java.util.Arrays;
+
+/**
+ * A class that implements disjoint sets of int elements (a union-find
+ * structure) by using arrays.
+ *
+ * Each set is a tree whose root names the set. find compresses the path
+ * it walks so that every element on it points straight at the root, and
+ * union hangs the tree of lower rank below the other, so any sequence of
+ * operations costs O(alpha(n)) amortized per operation, where alpha is
+ * the inverse Ackermann function.
+ */
+public final class DisjointSets
+{
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] parent;   // Element -> parent, or itself if it is a root
+    private int[] rank;     // Root -> upper bound on the height of its tree
+    private int[] size;     // Root -> number of elements in its set
+
+    /**
+     * Constructor for an empty collection of sets.
+     */
+    public DisjointSets()
+    {
+        parent = new int[DEFAULT_CAPACITY];
+        rank = new int[DEFAULT_CAPACITY];
+        size = new int[DEFAULT_CAPACITY];
+    } // end default constructor
+
+    /**
+     * Makes an element a set of its own. The element must not be in a set
+     * with any other element, or it must be made a set of its own along
+     * with every other element of its set.
+     * Runtime: O(1) amortized.
+     * @param element a non-negative element.
+     * @throws IllegalArgumentException if element is negative.
+     */
+    public void makeSet(int element)
+    {
+        if (element < 0)
+            throw new IllegalArgumentException("Elements cannot be negative.");
+
+        if (element >= parent.length)
+        {
+            int newLength = Math.max(element + 1, 2 * parent.length);
+            parent = Arrays.copyOf(parent, newLength);
+            rank = Arrays.copyOf(rank, newLength);
+            size = Arrays.copyOf(size, newLength);
+        } // end if
+
+        parent[element] = element;
+        rank[element] = 0;
+        size[element] = 1;
+    } // end makeSet
+
+    /**
+     * Finds the root that names an element's set.
+     * Runtime: O(alpha(n)) amortized.
+     * @param element an element given to makeSet.
+     * @return the root of the element's set.
+     */
+    public int find(int element)
+    {
+        int root = element;
+        while (parent[root] != root)
+            root = parent[root];
+
+        // Point every element on the path straight at the root
+        while (parent[element] != root)
+        {
+            int next = parent[element];
+            parent[element] = root;
+            element = next;
+        } // end while
+
+        return root;
+    } // end find
+
+    /**
+     * Merges the sets of two elements.
+     * Runtime: O(alpha(n)) amortized.
+     * @param first an element given to makeSet.
+     * @param second an element given to makeSet.
+     * @return true if the sets were merged, or false if the elements were
+     *         already in the same set.
+     */
+    public boolean union(int first, int second)
+    {
+        int firstRoot = find(first);
+        int secondRoot = find(second);
+        if (firstRoot == secondRoot)
+            return false;
+
+        if (rank[firstRoot] < rank[secondRoot])
+        {
+            int swap = firstRoot;
+            firstRoot = secondRoot;
+            secondRoot = swap;
+        } // end if
+
+        parent[secondRoot] = firstRoot;
+        size[firstRoot] += size[secondRoot];
+        if (rank[firstRoot] == rank[secondRoot])
+            rank[firstRoot]++;
+
+        return true;
+    } // end union
+
+    /**
+     * Sees whether two elements are in the same set.
+     * Runtime: O(alpha(n)) amortized.
+     * @param first an element given to makeSet.
+     * @param second an element given to makeSet.
+     * @return true if the elements are in the same set.
+     */
+    public boolean isConnected(int first, int second)
+    {
+        return find(first) == find(second);
+    } // end isConnected
+
+    /**
+     * Gets the number of elements in an element's set.
+     * Runtime: O(alpha(n)) amortized.
+     * @param element an element given to makeSet.
+     * @return the size of the element's set.
+     */
+    public int getSize(int element)
+    {
+        return size[find(element)];
+    } // end getSize
+} // end DisjointSets
@@ -0,0 +1,469 @@
+package ADTPackage;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A class that implements the ADT dictionary by using open addressing
+ * with linear probing.
+ *
+ * Entries live in parallel arrays and the hash table holds only the
+ * index of each entry, so a removal closes its probe sequence by shifting
+ * later table slots backward instead of leaving a "removed" marker behind.
+ * The table doubles whenever it becomes more than half full.
+ *
+ * The iterators return the most recently added entry first, which is the
+ * same order that UnsortedLinkedDictionary uses, so the two classes can be
+ * swapped without changing the order of any traversal built on top of them.
+ *
+ * @param <K> data type for the key.
+ * @param <V> data type for the value.
+ */
+public class HashedDictionary<K, V> implements DictionaryInterface<K, V>
+{
+    private static final int DEFAULT_CAPACITY = 16;   // Must be a power of 2
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int NONE = -1;               // Marks the end of a chain of entry indices
+
+    private int[] hashTable;   // Slot -> entry index + 1, or 0 if the slot is empty
+    private K[] keys;          // Entry index -> key
+    private V[] values;        // Entry index -> value
+    private int[] hashCodes;   // Entry index -> spread hash code of its key
+    private int[] newer;       // Entry index -> entry added just after it
+    private int[] older;       // Entry index -> entry added just before it (or next free entry)
+    private int newestEntry;
+    private int oldestEntry;
+    private int freeEntry;     // First entry index on the free chain
+    private int usedEntries;   // Entry indices below this value have been handed out
+    private int numberOfEntries;
+
+    /**
+     * Constructor for the hashed dictionary.
+     */
+    public HashedDictionary()
+    {
+        this(DEFAULT_CAPACITY);
+    } // end default constructor
+
+    /**
+     * Constructor for the hashed dictionary with an expected number of entries.
+     * @param initialCapacity the number of entries the dictionary can hold before it resizes.
+     * @throws IllegalArgumentException if initialCapacity is negative or too large.
+     */
+    public HashedDictionary(int initialCapacity)
+    {
+        if ((initialCapacity < 0) || (initialCapacity > MAX_CAPACITY / 2))
+            throw new IllegalArgumentException("Dictionary capacity must be between 0 and " + MAX_CAPACITY / 2 + ".");
+
+        int tableSize = DEFAULT_CAPACITY;
+        while (tableSize / 2 < initialCapacity)
+            tableSize = tableSize * 2;
+
+        initializeDataFields(tableSize);
+    } // end constructor
+
+    /** {@inheritDoc} */
+    public V add(K key, V value)
+    {
+        if ((key == null) || (value == null))
+            throw new IllegalArgumentException("Cannot add null to a dictionary.");
+
+        V result = null;
+        int hashCode = hash(key);
+        int slot = locate(key, hashCode);
+
+        if (slot != NONE)
+        {
+            // Key in dictionary; replace corresponding value
+            int entry = hashTable[slot] - 1;
+            result = values[entry];
+            values[entry] = value;
+        }
+        else
+        {
+            // Key not in dictionary; add a new entry as the newest one
+            ensureCapacity();
+            int entry = allocateEntry();
+            keys[entry] = key;
+            values[entry] = value;
+            hashCodes[entry] = hashCode;
+            linkAsNewest(entry);
+            insertIntoTable(entry);
+            numberOfEntries++;
+        } // end if
+
+        return result;
+    } // end add
+
+    /** {@inheritDoc} */
+    public V remove(K key)
+    {
+        V result = null;
+        int slot = locate(key, hash(key));
+
+        if (slot != NONE)
+        {
+            int entry = hashTable[slot] - 1;
+            result = values[entry];
+
+            closeGap(slot);
+            unlink(entry);
+
+            // Release the entry so its key and value can be collected
+            keys[entry] = null;
+            values[entry] = null;
+            older[entry] = freeEntry;
+            freeEntry = entry;
+            numberOfEntries--;
+        } // end if
+
+        return result;
+    } // end remove
+
+    /** {@inheritDoc} */
+    public V getValue(K key)
+    {
+        V result = null;
+        int slot = locate(key, hash(key));
+
+        if (slot != NONE)
+            result = values[hashTable[slot] - 1];
+
+        return result;
+    } // end getValue
+
+    /** {@inheritDoc} */
+    public boolean contains(K key)
+    {
+        return locate(key, hash(key)) != NONE;
+    } // end contains
+
+    /** {@inheritDoc} */
+    public boolean isEmpty()
+    {
+        return numberOfEntries == 0;
+    } // end isEmpty
+
+    /** {@inheritDoc} */
+    public int getSize()
+    {
+        return numberOfEntries;
+    } // end getSize
+
+    /** {@inheritDoc} */
+    public final void clear()
+    {
+        initializeDataFields(DEFAULT_CAPACITY);
+    } // end clear
+
+    /** {@inheritDoc} */
+    public Iterator<K> getKeyIterator()
+    {
+        return new KeyIterator();
+    } // end getKeyIterator
+
+    /** {@inheritDoc} */
+    public Iterator<V> getValueIterator()
+    {
+        return new ValueIterator();
+    } // end getValueIterator
+
+    /**
+     * Initializes the class's data fields to indicate an empty dictionary.
+     * @param tableSize the number of slots in the hash table; a power of 2.
+     */
+    private void initializeDataFields(int tableSize)
+    {
+        int entryCapacity = tableSize / 2;
+
+        // The casts are safe because the new arrays contain null entries
+        @SuppressWarnings("unchecked")
+        K[] tempKeys = (K[]) new Object[entryCapacity];
+        @SuppressWarnings("unchecked")
+        V[] tempValues = (V[]) new Object[entryCapacity];
+
+        hashTable = new int[tableSize];
+        keys = tempKeys;
+        values = tempValues;
+        hashCodes = new int[entryCapacity];
+        newer = new int[entryCapacity];
+        older = new int[entryCapacity];
+        newestEntry = NONE;
+        oldestEntry = NONE;
+        freeEntry = NONE;
+        usedEntries = 0;
+        numberOfEntries = 0;
+    } // end initializeDataFields
+
+    /**
+     * Spreads the high bits of a key's hash code into the low bits,
+     * since the table index only uses the low bits.
+     * @param key the search key.
+     * @return the spread hash code.
+     */
+    private static int hash(Object key)
+    {
+        int hashCode = key.hashCode();
+        return hashCode ^ (hashCode >>> 16);
+    } // end hash
+
+    /**
+     * Finds the table slot that refers to the given key.
+     * Runtime: O(1) expected, since the table is never more than half full.
+     * @param key the search key.
+     * @param hashCode the spread hash code of key.
+     * @return the slot of the key, or NONE if the key is not in the dictionary.
+     */
+    private int locate(K key, int hashCode)
+    {
+        int mask = hashTable.length - 1;
+        int slot = hashCode & mask;
+
+        while (hashTable[slot] != 0)
+        {
+            int entry = hashTable[slot] - 1;
+            if ((hashCodes[entry] == hashCode) && key.equals(keys[entry]))
+                return slot;
+            slot = (slot + 1) & mask;
+        } // end while
+
+        return NONE;
+    } // end locate
+
+    /**
+     * Places an entry in the first empty slot of its probe sequence.
+     * @param entry the entry index.
+     */
+    private void insertIntoTable(int entry)
+    {
+        int mask = hashTable.length - 1;
+        int slot = hashCodes[entry] & mask;
+
+        while (hashTable[slot] != 0)
+            slot = (slot + 1) & mask;
+
+        hashTable[slot] = entry + 1;
+    } // end insertIntoTable
+
+    /**
+     * Empties a table slot and shifts later slots of the same cluster
+     * backward so that every remaining key can still be found by probing
+     * from its home slot. No "removed" markers are ever left behind.
+     * Runtime: O(cluster length).
+     * @param slot the slot to empty.
+     */
+    private void closeGap(int slot)
+    {
+        int mask = hashTable.length - 1;
+        int gap = slot;
+        int next = (slot + 1) & mask;
+
+        while (hashTable[next] != 0)
+        {
+            int home = hashCodes[hashTable[next] - 1] & mask;
+
+            // The entry at next may move into the gap only if its home slot
+            // is not cyclically within (gap, next]
+            boolean homeBetween = (gap <= next) ? ((gap < home) && (home <= next))
+                                                : ((gap < home) || (home <= next));
+            if (!homeBetween)
+            {
+                hashTable[gap] = hashTable[next];
+                gap = next;
+            } // end if
+
+            next = (next + 1) & mask;
+        } // end while
+
+        hashTable[gap] = 0;
+    } // end closeGap
+
+    /**
+     * Hands out an unused entry index, preferring one freed by a removal.
+     * Precondition: ensureCapacity has been called.
+     * @return the entry index.
+     */
+    private int allocateEntry()
+    {
+        int entry;
+
+        if (freeEntry != NONE)
+        {
+            entry = freeEntry;
+            freeEntry = older[entry];
+        }
+        else
+        {
+            entry = usedEntries;
+            usedEntries++;
+        } // end if
+
+        return entry;
+    } // end allocateEntry
+
+    /**
+     * Links an entry at the newest end of the insertion order.
+     * @param entry the entry index.
+     */
+    private void linkAsNewest(int entry)
+    {
+        older[entry] = newestEntry;
+        newer[entry] = NONE;
+
+        if (newestEntry == NONE)
+            oldestEntry = entry;
+        else
+            newer[newestEntry] = entry;
+
+        newestEntry = entry;
+    } // end linkAsNewest
+
+    /**
+     * Unlinks an entry from the insertion order.
+     * @param entry the entry index.
+     */
+    private void unlink(int entry)
+    {
+        int before = older[entry];
+        int after = newer[entry];
+
+        if (before == NONE)
+            oldestEntry = after;
+        else
+            newer[before] = after;
+
+        if (after == NONE)
+            newestEntry = before;
+        else
+            older[after] = before;
+    } // end unlink
+
+    /**
+     * Doubles the size of the hash table if adding one more entry would
+     * make it more than half full. Entries are compacted in insertion order.
+     * Runtime: O(n) when it resizes, O(1) otherwise.
+     */
+    private void ensureCapacity()
+    {
+        if ((freeEntry == NONE) && (usedEntries == keys.length))
+        {
+            int newTableSize = 2 * hashTable.length;
+            if (newTableSize > MAX_CAPACITY)
+                throw new IllegalStateException("Attempt to create a dictionary whose capacity is larger than "
+                                                + MAX_CAPACITY / 2);
+
+            int newEntryCapacity = newTableSize / 2;
+            K[] oldKeys = keys;
+            V[] oldValues = values;
+            int[] oldHashCodes = hashCodes;
+            int[] oldNewer = newer;
+            int entry = oldestEntry;
+
+            keys = Arrays.copyOf(keys, newEntryCapacity);
+            values = Arrays.copyOf(values, newEntryCapacity);
+            hashCodes = new int[newEntryCapacity];
+            newer = new int[newEntryCapacity];
+            older = new int[newEntryCapacity];
+            hashTable = new int[newTableSize];
+            newestEntry = NONE;
+            oldestEntry = NONE;
+            freeEntry = NONE;
+            usedEntries = 0;
+
+            // Re-add the entries from oldest to newest so the order is kept
+            while (entry != NONE)
+            {
+                int newEntry = usedEntries;
+                usedEntries++;
+                keys[newEntry] = oldKeys[entry];
+                values[newEntry] = oldValues[entry];
+                hashCodes[newEntry] = oldHashCodes[entry];
+                linkAsNewest(newEntry);
+                insertIntoTable(newEntry);
+                entry = oldNewer[entry];
+            } // end while
+        } // end if
+    } // end ensureCapacity
+
+    /**
+     * Iterator that walks the entries from newest to oldest.
+     */
+    private abstract class EntryIterator
+    {
+        private int nextEntry;
+
+        /**
+         * Constructor for the entry iterator.
+         */
+        private EntryIterator()
+        {
+            nextEntry = newestEntry;
+        } // end default constructor
+
+        /**
+         * Checking if there is a next entry.
+         * @return true if there is a next entry, false if not.
+         */
+        public boolean hasNext()
+        {
+            return nextEntry != NONE;
+        } // end hasNext
+
+        /**
+         * Advancing to the next entry.
+         * @return the index of the entry that was current.
+         * @throws NoSuchElementException if there is no next entry.
+         */
+        protected int nextEntryIndex()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            int result = nextEntry;
+            nextEntry = older[nextEntry];
+            return result;
+        } // end nextEntryIndex
+
+        /**
+         * Remove the entry.
+         * @throws UnsupportedOperationException if called.
+         */
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        } // end remove
+    } // end EntryIterator
+
+    /**
+     * Iterator that iterates over the keys.
+     */
+    private class KeyIterator extends EntryIterator implements Iterator<K>
+    {
+        /**
+         * Returning the next key.
+         * @return the next key.
+         * @throws NoSuchElementException if there is no next key.
+         */
+        public K next()
+        {
+            return keys[nextEntryIndex()];
+        } // end next
+    } // end KeyIterator
+
+    /**
+     * Iterator that iterates over the values.
+     */
+    private class ValueIterator extends EntryIterator implements Iterator<V>
+    {
+        /**
+         * Returning the next value.
+         * @return the next value.
+         * @throws NoSuchElementException if there is no next value.
+         */
+        public V next()
+        {
+            return values[nextEntryIndex()];
+        } // end next
+    } // end ValueIterator
+} // end HashedDictionary
@@ -0,0 +1,242 @@
+package ADTPackage;
+
+import java.util.Arrays;
+
+/**
+ * A class that implements a min heap of int indices, each with a double
+ * key, by using arrays.
+ *
+ * Every index in [0, capacity) may be in the heap at most once. Because
+ * the heap remembers where each index sits, the key of an index already in
+ * the heap can be lowered in place (decrease-key) rather than by adding a
+ * second entry. The heap therefore never holds more than capacity entries,
+ * and no operation allocates memory.
+ */
+public final class IndexedMinHeap
+{
+    private static final int ABSENT = -1;
+
+    private int[] heap;        // Heap position -> index; the minimum is at position 0
+    private int[] position;    // Index -> heap position, or ABSENT
+    private double[] keys;     // Index -> key, valid while the index is in the heap
+    private int numberOfEntries;
+
+    /**
+     * Constructor for a heap of the indices [0, capacity).
+     * @param capacity the number of indices the heap can hold.
+     * @throws IllegalArgumentException if capacity is negative.
+     */
+    public IndexedMinHeap(int capacity)
+    {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Heap capacity cannot be negative.");
+
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(position, ABSENT);
+        numberOfEntries = 0;
+    } // end constructor
+
+    /**
+     * Gets the number of indices the heap can hold.
+     * @return the upper bound (exclusive) of the indices.
+     */
+    public int getCapacity()
+    {
+        return heap.length;
+    } // end getCapacity
+
+    /**
+     * Sees whether an index is in the heap.
+     * @param index an index in [0, capacity).
+     * @return true if the index is in the heap.
+     */
+    public boolean contains(int index)
+    {
+        return position[index] != ABSENT;
+    } // end contains
+
+    /**
+     * Adds an index with a key.
+     * Runtime: O(log n).
+     * @param index an index in [0, capacity) that is not in the heap.
+     * @param key the key of the index.
+     * @throws IllegalStateException if the index is already in the heap.
+     */
+    public void add(int index, double key)
+    {
+        if (contains(index))
+            throw new IllegalStateException("Index " + index + " is already in the heap.");
+
+        keys[index] = key;
+        siftUp(index, numberOfEntries);
+        numberOfEntries++;
+    } // end add
+
+    /**
+     * Lowers the key of an index in the heap.
+     * Runtime: O(log n).
+     * @param index an index in the heap.
+     * @param key the new key, which must not be larger than the current one.
+     * @throws IllegalStateException if the index is not in the heap or the
+     *         new key is larger than the current one.
+     */
+    public void decreaseKey(int index, double key)
+    {
+        if (!contains(index))
+            throw new IllegalStateException("Index " + index + " is not in the heap.");
+        if (key > keys[index])
+            throw new IllegalStateException("The new key is larger than the current key.");
+
+        keys[index] = key;
+        siftUp(index, position[index]);
+    } // end decreaseKey
+
+    /**
+     * Gets the key of an index in the heap.
+     * @param index an index in the heap.
+     * @return the key of the index.
+     * @throws IllegalStateException if the index is not in the heap.
+     */
+    public double getKey(int index)
+    {
+        if (!contains(index))
+            throw new IllegalStateException("Index " + index + " is not in the heap.");
+
+        return keys[index];
+    } // end getKey
+
+    /**
+     * Gets the index with the smallest key.
+     * @return the index at the top of the heap.
+     * @throws IllegalStateException if the heap is empty.
+     */
+    public int peekMin()
+    {
+        checkNotEmpty();
+        return heap[0];
+    } // end peekMin
+
+    /**
+     * Gets the smallest key.
+     * @return the key of the index at the top of the heap.
+     * @throws IllegalStateException if the heap is empty.
+     */
+    public double getMinKey()
+    {
+        checkNotEmpty();
+        return keys[heap[0]];
+    } // end getMinKey
+
+    /**
+     * Removes the index with the smallest key.
+     * Runtime: O(log n).
+     * @return the removed index.
+     * @throws IllegalStateException if the heap is empty.
+     */
+    public int removeMin()
+    {
+        checkNotEmpty();
+        int root = heap[0];
+        position[root] = ABSENT;
+        numberOfEntries--;
+
+        if (numberOfEntries > 0)
+            siftDown(heap[numberOfEntries], 0);
+
+        return root;
+    } // end removeMin
+
+    /**
+     * Sees whether the heap is empty.
+     * @return true if the heap holds no index.
+     */
+    public boolean isEmpty()
+    {
+        return numberOfEntries == 0;
+    } // end isEmpty
+
+    /**
+     * Gets the number of indices in the heap.
+     * @return the number of entries.
+     */
+    public int getSize()
+    {
+        return numberOfEntries;
+    } // end getSize
+
+    /**
+     * Removes every index from the heap.
+     * Runtime: O(n), where n is the number of indices in the heap.
+     */
+    public void clear()
+    {
+        for (int heapPosition = 0; heapPosition < numberOfEntries; heapPosition++)
+            position[heap[heapPosition]] = ABSENT;
+
+        numberOfEntries = 0;
+    } // end clear
+
+    /**
+     * Moves an index from a heap position toward the root until its parent's
+     * key is no larger than its own, shifting parents down into the gap.
+     * @param index the index to place.
+     * @param hole the heap position to start from.
+     */
+    private void siftUp(int index, int hole)
+    {
+        double key = keys[index];
+        while (hole > 0)
+        {
+            int parent = (hole - 1) / 2;
+            if (keys[heap[parent]] <= key)
+                break;
+
+            heap[hole] = heap[parent];
+            position[heap[hole]] = hole;
+            hole = parent;
+        } // end while
+
+        heap[hole] = index;
+        position[index] = hole;
+    } // end siftUp
+
+    /**
+     * Moves an index from a heap position toward the leaves until neither
+     * child has a smaller key, shifting children up into the gap.
+     * @param index the index to place.
+     * @param hole the heap position to start from.
+     */
+    private void siftDown(int index, int hole)
+    {
+        double key = keys[index];
+        int half = numberOfEntries / 2;   // Positions below this have a child
+        while (hole < half)
+        {
+            int child = 2 * hole + 1;
+            int right = child + 1;
+            if ((right < numberOfEntries) && (keys[heap[right]] < keys[heap[child]]))
+                child = right;
+            if (key <= keys[heap[child]])
+                break;
+
+            heap[hole] = heap[child];
+            position[heap[hole]] = hole;
+            hole = child;
+        } // end while
+
+        heap[hole] = index;
+        position[index] = hole;
+    } // end siftDown
+
+    /**
+     * Throws an exception if the heap is empty.
+     * @throws IllegalStateException if the heap is empty.
+     */
+    private void checkNotEmpty()
+    {
+        if (numberOfEntries == 0)
+            throw new IllegalStateException("The heap is empty.");
+    } // end checkNotEmpty
+} // end IndexedMinHeap
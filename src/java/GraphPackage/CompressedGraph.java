@@ -0,0 +1,298 @@
+package GraphPackage;
+
+import ADTPackage.DictionaryInterface;
+import ADTPackage.HashedDictionary;
+import ADTPackage.QueueInterface;
+import ADTPackage.StackInterface;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.Predicate;
+
+/**
+ * An immutable snapshot of a graph in compressed sparse row (CSR) form.
+ *
+ * Each vertex gets a dense index in [0, n). The neighbors of vertex v are
+ * targets[offsets[v]] through targets[offsets[v + 1] - 1], with matching
+ * edge weights in weights (null when every weight is zero). The edges
+ * that end at each vertex are kept the same way in inOffsets, inSources
+ * and inWeights; an undirected snapshot shares the forward arrays for
+ * this. Traversals on the snapshot read these flat arrays instead of
+ * following Vertex and Edge references. Neighbors keep the order they
+ * have in the original graph, so traversals visit vertices in the same
+ * order.
+ *
+ * A snapshot does not change when the graph it was taken from changes.
+ *
+ * @param <T> The data type for the vertex label.
+ */
+public final class CompressedGraph<T> implements GraphAlgorithmsInterface<T>, IndexedGraph<T>
+{
+    private final T[] labels;                                  // Index -> label
+    private final DictionaryInterface<T, Integer> indices;     // Label -> index
+    private final int[] offsets;                               // Index -> first position in targets
+    private final int[] targets;                               // Neighbor indices, row by row
+    private final double[] weights;                            // Edge weights, or null if all zero
+    private final int[] inOffsets;                             // Index -> first position in inSources
+    private final int[] inSources;                             // Indices that edges begin at, row by row
+    private final double[] inWeights;                          // Weights matching inSources, or null if all zero
+    private final boolean directed;
+
+    /**
+     * Constructor that copies the vertices and edges of a graph.
+     * Runtime: O(V + E).
+     *
+     * @param graph    The graph to copy.
+     * @param directed False if every edge of the graph is stored in both directions.
+     */
+    CompressedGraph(DirectedGraph<T> graph, boolean directed)
+    {
+        int numberOfVertices = graph.getNumberOfVertices();
+
+        // The cast is safe because the new array contains null entries
+        @SuppressWarnings("unchecked")
+        T[] tempLabels = (T[]) new Object[numberOfVertices];
+        labels = tempLabels;
+        indices = new HashedDictionary<>(numberOfVertices);
+        offsets = new int[numberOfVertices + 1];
+        this.directed = directed;
+
+        // Number the vertices and count their edges
+        int index = 0;
+        Iterator<VertexInterface<T>> vertexIterator = graph.getVertexIterator();
+        while (vertexIterator.hasNext())
+        {
+            VertexInterface<T> vertex = vertexIterator.next();
+            labels[index] = vertex.getLabel();
+            indices.add(vertex.getLabel(), index);
+
+            int degree = 0;
+            Iterator<VertexInterface<T>> neighbors = vertex.getNeighborIterator();
+            while (neighbors.hasNext())
+            {
+                neighbors.next();
+                degree++;
+            } // end while
+
+            offsets[index + 1] = offsets[index] + degree;
+            index++;
+        } // end while
+
+        // Fill in the rows
+        targets = new int[offsets[numberOfVertices]];
+        double[] tempWeights = new double[targets.length];
+        boolean weighted = false;
+        for (index = 0; index < numberOfVertices; index++)
+        {
+            VertexInterface<T> vertex = graph.getVertex(labels[index]);
+            Iterator<VertexInterface<T>> neighbors = vertex.getNeighborIterator();
+            Iterator<Double> edgeWeights = vertex.getWeightIterator();
+
+            for (int position = offsets[index]; position < offsets[index + 1]; position++)
+            {
+                targets[position] = indices.getValue(neighbors.next().getLabel());
+                tempWeights[position] = edgeWeights.next();
+                weighted = weighted || (tempWeights[position] != 0);
+            } // end for
+        } // end for
+
+        weights = weighted ? tempWeights : null;
+
+        if (directed)
+        {
+            // Count the edges that end at each vertex, then place each
+            // edge's beginning in the row of its end
+            inOffsets = new int[numberOfVertices + 1];
+            inSources = new int[targets.length];
+            inWeights = weighted ? new double[targets.length] : null;
+            for (int position = 0; position < targets.length; position++)
+                inOffsets[targets[position] + 1]++;
+            for (index = 0; index < numberOfVertices; index++)
+                inOffsets[index + 1] += inOffsets[index];
+
+            int[] nextFree = Arrays.copyOf(inOffsets, numberOfVertices);
+            for (index = 0; index < numberOfVertices; index++)
+            {
+                for (int position = offsets[index]; position < offsets[index + 1]; position++)
+                {
+                    int end = targets[position];
+                    inSources[nextFree[end]] = index;
+                    if (weighted)
+                        inWeights[nextFree[end]] = weights[position];
+                    nextFree[end]++;
+                } // end for
+            } // end for
+        }
+        else
+        {
+            // Every edge is stored both ways, so the rows are the same
+            inOffsets = offsets;
+            inSources = targets;
+            inWeights = weights;
+        } // end if
+    } // end constructor
+
+    /**
+     * Gets the number of vertices in the snapshot.
+     *
+     * @return The number of vertices.
+     */
+    public int getNumberOfVertices()
+    {
+        return labels.length;
+    } // end getNumberOfVertices
+
+    /**
+     * Gets the number of edges in the snapshot.
+     *
+     * @return The number of edges; an undirected edge counts once.
+     */
+    public int getNumberOfEdges()
+    {
+        return directed ? targets.length : targets.length / 2;
+    } // end getNumberOfEdges
+
+    /**
+     * Sees whether the snapshot was taken from a directed graph.
+     *
+     * @return True if the snapshot is directed.
+     */
+    public boolean isDirected()
+    {
+        return directed;
+    } // end isDirected
+
+    /**
+     * Sees whether an edge exists between two given vertices.
+     * Runtime: O(out-degree of begin).
+     *
+     * @param begin An object that labels the origin vertex of the edge.
+     * @param end   An object that labels the end vertex of the edge.
+     * @return      True if an edge exists.
+     */
+    public boolean hasEdge(T begin, T end)
+    {
+        boolean found = false;
+        int beginIndex = getIndex(begin);
+        int endIndex = getIndex(end);
+
+        if ((beginIndex != -1) && (endIndex != -1))
+        {
+            for (int position = offsets[beginIndex]; !found && (position < offsets[beginIndex + 1]); position++)
+                found = (targets[position] == endIndex);
+        } // end if
+
+        return found;
+    } // end hasEdge
+
+    /** {@inheritDoc} */
+    public long getNumberOfArcs()
+    {
+        return targets.length;
+    } // end getNumberOfArcs
+
+    /** {@inheritDoc} */
+    public int getIndexCapacity()
+    {
+        return labels.length;
+    } // end getIndexCapacity
+
+    /** {@inheritDoc} */
+    public int getIndex(T label)
+    {
+        Integer index = indices.getValue(label);
+        return (index == null) ? -1 : index;
+    } // end getIndex
+
+    /** {@inheritDoc} */
+    public T getLabel(int index)
+    {
+        return labels[index];
+    } // end getLabel
+
+    /** {@inheritDoc} */
+    public int getOutDegree(int index)
+    {
+        return offsets[index + 1] - offsets[index];
+    } // end getOutDegree
+
+    /** {@inheritDoc} */
+    public int getOutNeighbor(int index, int position)
+    {
+        return targets[offsets[index] + position];
+    } // end getOutNeighbor
+
+    /** {@inheritDoc} */
+    public double getOutWeight(int index, int position)
+    {
+        return (weights == null) ? 0 : weights[offsets[index] + position];
+    } // end getOutWeight
+
+    /** {@inheritDoc} */
+    public int getInDegree(int index)
+    {
+        return inOffsets[index + 1] - inOffsets[index];
+    } // end getInDegree
+
+    /** {@inheritDoc} */
+    public int getInNeighbor(int index, int position)
+    {
+        return inSources[inOffsets[index] + position];
+    } // end getInNeighbor
+
+    /** {@inheritDoc} */
+    public double getInWeight(int index, int position)
+    {
+        return (inWeights == null) ? 0 : inWeights[inOffsets[index] + position];
+    } // end getInWeight
+
+    /**
+     * {@inheritDoc}
+     *
+     * On large graphs the traversal may expand a level bottom-up, which
+     * keeps the levels in order but can change the order within a level.
+     */
+    public QueueInterface<T> getBreadthFirstTraversal(T origin)
+    {
+        return GraphSearch.getBreadthFirstTraversal(this, origin);
+    } // end getBreadthFirstTraversal
+
+    /** {@inheritDoc} */
+    public Iterator<T> getNeighborhood(T origin, int maxDepth, int maxResults, Predicate<? super T> filter)
+    {
+        return GraphSearch.getNeighborhood(this, origin, maxDepth, maxResults, filter);
+    } // end getNeighborhood
+
+    /** {@inheritDoc} */
+    public QueueInterface<T> getDepthFirstTraversal(T origin)
+    {
+        return GraphSearch.getDepthFirstTraversal(this, origin);
+    } // end getDepthFirstTraversal
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException if the snapshot is undirected.
+     * @throws IllegalStateException if the snapshot contains a cycle; the
+     *         message lists the vertices of one cycle.
+     */
+    public StackInterface<T> getTopologicalOrder()
+    {
+        if (!directed)
+            throw new UnsupportedOperationException("Topological sort is illegal in an undirected graph.");
+
+        return GraphSearch.getTopologicalOrder(this);
+    } // end getTopologicalOrder
+
+    /** {@inheritDoc} */
+    public int getShortestPath(T begin, T end, StackInterface<T> path)
+    {
+        return GraphSearch.getShortestPath(this, begin, end, path);
+    } // end getShortestPath
+
+    /** {@inheritDoc} */
+    public double getCheapestPath(T begin, T end, StackInterface<T> path)
+    {
+        return GraphSearch.getCheapestPath(this, begin, end, path);
+    } // end getCheapestPath
+} // end CompressedGraph
@@ -0,0 +1,404 @@
+package GraphPackage;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The neighbor ids of one vertex, for a vertex that many threads add
+ * neighbors to at once. No lock is taken: readers are wait-free, and
+ * adding a neighbor is lock-free, so threads adding to the same vertex
+ * never wait for one another.
+ *
+ * The neighbors are appended to a chunked array whose chunks double in
+ * size, so the array grows without copying and a slot never moves once
+ * written. A writer claims a slot with one atomic increment and writes
+ * its id there. The published length then advances over every slot
+ * written without a gap, by compare-and-set, and whichever writer fills
+ * a gap carries it over the slots written after it. Readers see the
+ * published prefix only, which never shrinks or changes.
+ *
+ * A lock-free hash set of the ids keeps each neighbor from being added
+ * twice. It uses open addressing and never removes an id. When it fills
+ * up, the next table is made, and each slot of the old one is sealed as
+ * it is copied, so that a writer that finds a sealed slot moves on to the
+ * next table; every writer that sees the copy under way helps finish it.
+ *
+ * Neighbors are kept in the order they were added and cannot be removed.
+ * contains may report an id slightly before it is published to readers
+ * of the list.
+ */
+public final class ConcurrentAdjacencyList
+{
+    private static final int FIRST_CHUNK_BITS = 4;                // The first chunk holds 16 ids
+    private static final int FIRST_CHUNK_SIZE = 1 << FIRST_CHUNK_BITS;
+    private static final int MAX_CHUNKS = 32 - FIRST_CHUNK_BITS;
+    private static final int MIN_TABLE_SIZE = 32;
+
+    private final AtomicReferenceArray<AtomicIntegerArray> chunks;  // Chunk k holds FIRST_CHUNK_SIZE << k slots
+    private final AtomicInteger claimed;                           // The number of slots given to writers
+    private final AtomicInteger published;                         // The length readers may see
+    private final AtomicReference<IdTable> members;                // The newest table of the id set
+
+    /** Constructor for a list without neighbors. */
+    public ConcurrentAdjacencyList()
+    {
+        chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+        chunks.set(0, new AtomicIntegerArray(FIRST_CHUNK_SIZE));
+        claimed = new AtomicInteger(0);
+        published = new AtomicInteger(0);
+        members = new AtomicReference<>(new IdTable(MIN_TABLE_SIZE));
+    } // end default constructor
+
+    /**
+     * Adds a neighbor, unless it is already in the list.
+     * Runtime: O(1) expected.
+     *
+     * @param id The neighbor's id.
+     * @return   True if the id was added, or false if it was already there.
+     * @throws IllegalArgumentException if the id is negative.
+     */
+    public boolean add(int id)
+    {
+        if (id < 0)
+            throw new IllegalArgumentException("Neighbor ids cannot be negative.");
+        if (!addMember(id))
+            return false;
+
+        // Claims a slot and writes the id there, stored as id + 1 so that 0 means unwritten
+        int position = claimed.getAndIncrement();
+        if (position < 0)
+            throw new IllegalStateException("The adjacency list is full.");
+        getChunk(position).set(offsetOf(position), id + 1);
+        publish();
+        return true;
+    } // end add
+
+    /**
+     * Sees whether an id is a neighbor.
+     * Runtime: O(1) expected.
+     *
+     * @param id The id.
+     * @return   True if the id has been added.
+     */
+    public boolean contains(int id)
+    {
+        IdTable table = members.get();
+        while (true)
+        {
+            int found = table.find(id);
+            if (found != IdTable.SEALED)
+                return found == IdTable.PRESENT;
+            table = table.next.get();
+        } // end while
+    } // end contains
+
+    /**
+     * Gets the number of neighbors that readers can see.
+     * Runtime: O(1).
+     *
+     * @return The published length, which only grows.
+     */
+    public int size()
+    {
+        return published.get();
+    } // end size
+
+    /**
+     * Gets a published neighbor.
+     * Runtime: O(1).
+     *
+     * @param position The position, in the order the neighbors were added.
+     * @return         The neighbor's id.
+     * @throws IndexOutOfBoundsException if the position is not below size().
+     */
+    public int get(int position)
+    {
+        if ((position < 0) || (position >= published.get()))
+            throw new IndexOutOfBoundsException("Position " + position + " is not published.");
+        return chunks.get(chunkOf(position)).get(offsetOf(position)) - 1;
+    } // end get
+
+    /**
+     * Copies the published neighbors.
+     * Runtime: O(size()).
+     *
+     * @return The ids, in the order they were added.
+     */
+    public int[] toArray()
+    {
+        int length = published.get();
+        int[] ids = new int[length];
+        int position = 0;
+        for (int chunk = 0; position < length; chunk++)
+        {
+            AtomicIntegerArray slots = chunks.get(chunk);
+            int end = Math.min(length, position + slots.length());
+            for (int offset = 0; position < end; offset++, position++)
+                ids[position] = slots.get(offset) - 1;
+        } // end for
+
+        return ids;
+    } // end toArray
+
+    /** {@inheritDoc} */
+    public String toString()
+    {
+        return Arrays.toString(toArray());
+    } // end toString
+
+    /**
+     * Adds an id to the set, helping finish any copy of the table under way.
+     *
+     * @param id The id.
+     * @return   True if this call added it.
+     */
+    private boolean addMember(int id)
+    {
+        IdTable table = members.get();
+        while (true)
+        {
+            IdTable next = table.next.get();
+            if (next != null)
+            {
+                // Finishes the copy before using the next table, so no id is left behind
+                table.copyTo(next);
+                members.compareAndSet(table, next);
+                table = next;
+                continue;
+            } // end if
+
+            int result = table.insert(id);
+            if (result == IdTable.PRESENT)
+                return false;
+            if (result == IdTable.ADDED)
+            {
+                if (table.isCrowded(claimed.get() + 1))
+                    grow(table);
+                return true;
+            } // end if
+
+            // The table is sealed or full, so it must be copied to a larger one
+            grow(table);
+        } // end while
+    } // end addMember
+
+    /**
+     * Starts or joins copying a table to one twice its size.
+     *
+     * @param table The table to replace.
+     */
+    private void grow(IdTable table)
+    {
+        if (table.next.get() == null)
+            table.next.compareAndSet(null, new IdTable(2 * table.length()));
+        IdTable next = table.next.get();
+        table.copyTo(next);
+        members.compareAndSet(table, next);
+    } // end grow
+
+    /** Advances the published length over every slot written without a gap. */
+    private void publish()
+    {
+        while (true)
+        {
+            int length = published.get();
+            if ((length == claimed.get()) || (getChunk(length).get(offsetOf(length)) == 0))
+                return;
+            published.compareAndSet(length, length + 1);
+        } // end while
+    } // end publish
+
+    /**
+     * Gets the chunk that holds a position, making it if no writer has yet.
+     *
+     * @param position A claimed position.
+     * @return         The chunk.
+     */
+    private AtomicIntegerArray getChunk(int position)
+    {
+        int chunk = chunkOf(position);
+        AtomicIntegerArray slots = chunks.get(chunk);
+        if (slots == null)
+        {
+            chunks.compareAndSet(chunk, null, new AtomicIntegerArray(FIRST_CHUNK_SIZE << chunk));
+            slots = chunks.get(chunk);
+        } // end if
+
+        return slots;
+    } // end getChunk
+
+    /**
+     * Finds the chunk of a position: chunk k starts at
+     * FIRST_CHUNK_SIZE * (2^k - 1).
+     */
+    private static int chunkOf(int position)
+    {
+        int shifted = position + FIRST_CHUNK_SIZE;
+        return (31 - Integer.numberOfLeadingZeros(shifted)) - FIRST_CHUNK_BITS;
+    } // end chunkOf
+
+    /** Finds a position's offset within its chunk. */
+    private static int offsetOf(int position)
+    {
+        int shifted = position + FIRST_CHUNK_SIZE;
+        return shifted - Integer.highestOneBit(shifted);
+    } // end offsetOf
+
+    /**
+     * One open-addressing table of the id set. A slot is EMPTY, holds a
+     * live id as id + 1, is sealed empty once the table is being copied,
+     * or holds an id that has been copied, as -(id + 2).
+     */
+    private static final class IdTable
+    {
+        static final int ADDED = 0;
+        static final int PRESENT = 1;
+        static final int SEALED = 2;      // The id belongs in the next table
+        static final int FULL = 3;
+        static final int ABSENT = 4;
+
+        private static final int EMPTY = 0;
+        private static final int SEALED_EMPTY = -1;
+
+        private final AtomicIntegerArray slots;
+        private final int mask;
+        final AtomicReference<IdTable> next;  // The table being copied to, or null
+
+        IdTable(int size)
+        {
+            slots = new AtomicIntegerArray(size);
+            mask = size - 1;
+            next = new AtomicReference<>(null);
+        } // end constructor
+
+        int length()
+        {
+            return slots.length();
+        } // end length
+
+        /**
+         * Sees whether the table is too full for fast probing.
+         *
+         * @param count About how many ids the set holds.
+         */
+        boolean isCrowded(int count)
+        {
+            return 4L * count >= 3L * slots.length();
+        } // end isCrowded
+
+        /**
+         * Inserts an id, probing from its hash.
+         *
+         * @return ADDED, PRESENT, SEALED if a sealed slot ends the probe,
+         *         or FULL if no slot is free.
+         */
+        int insert(int id)
+        {
+            int live = id + 1;
+            int slot = hash(id) & mask;
+            for (int probes = 0; probes <= mask; probes++)
+            {
+                int value = slots.get(slot);
+                if (value == EMPTY)
+                {
+                    if (slots.compareAndSet(slot, EMPTY, live))
+                        return ADDED;
+                    value = slots.get(slot);
+                } // end if
+
+                if ((value == live) || (value == -(live + 1)))
+                    return PRESENT;
+                if (value == SEALED_EMPTY)
+                    return SEALED;
+                slot = (slot + 1) & mask;
+            } // end for
+
+            return FULL;
+        } // end insert
+
+        /**
+         * Looks an id up without changing the table.
+         *
+         * @return PRESENT, ABSENT, or SEALED if the next table must be searched.
+         */
+        int find(int id)
+        {
+            int live = id + 1;
+            int slot = hash(id) & mask;
+            for (int probes = 0; probes <= mask; probes++)
+            {
+                int value = slots.get(slot);
+                if (value == EMPTY)
+                    return ABSENT;
+                if ((value == live) || (value == -(live + 1)))
+                    return PRESENT;
+                if (value == SEALED_EMPTY)
+                    return SEALED;
+                slot = (slot + 1) & mask;
+            } // end for
+
+            return (next.get() == null) ? ABSENT : SEALED;
+        } // end find
+
+        /**
+         * Copies every id to the next table, sealing each slot once it is
+         * copied. Any number of threads may copy at once; each slot is
+         * copied before it is sealed, so the copy is complete when any of
+         * them returns.
+         */
+        void copyTo(IdTable target)
+        {
+            for (int slot = 0; slot <= mask; slot++)
+            {
+                while (true)
+                {
+                    int value = slots.get(slot);
+                    if (value < 0)
+                        break;
+                    if (value == EMPTY)
+                    {
+                        if (slots.compareAndSet(slot, EMPTY, SEALED_EMPTY))
+                            break;
+                    }
+                    else
+                    {
+                        target.copyIn(value - 1);
+                        if (slots.compareAndSet(slot, value, -(value + 1)))
+                            break;
+                    } // end if
+                } // end while
+            } // end for
+        } // end copyTo
+
+        /** Adds a copied id to this table or a later one. */
+        private void copyIn(int id)
+        {
+            IdTable table = this;
+            while (true)
+            {
+                IdTable following = table.next.get();
+                if (following != null)
+                {
+                    table.copyTo(following);
+                    table = following;
+                    continue;
+                } // end if
+
+                int result = table.insert(id);
+                if ((result == ADDED) || (result == PRESENT))
+                    return;
+                if (table.next.get() == null)
+                    table.next.compareAndSet(null, new IdTable(2 * table.length()));
+            } // end while
+        } // end copyIn
+
+        private static int hash(int id)
+        {
+            int h = id * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        } // end hash
+    } // end IdTable
+} // end ConcurrentAdjacencyList
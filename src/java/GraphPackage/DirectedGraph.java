@@ -2,90 +2,106 @@ package GraphPackage;
 
 import ADTPackage.*;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.function.Predicate;
 
 /**
  * Implements a directed graph.
  *
+ * Each vertex also gets a small int index, reused after the vertex is
+ * removed, so the graph algorithms can keep their bookkeeping in
+ * per-query arrays (see TraversalContext) instead of in the vertices.
+ * Queries never modify the graph, so any number of threads may run them
+ * at once as long as no thread modifies the graph at the same time.
+ *
  * @author Eric Lloyd
  * @author Aune Mitchell
  * @param <T> The data type for the vertices.
  */
-public class DirectedGraph<T> implements GraphInterface<T>
+public class DirectedGraph<T> implements GraphInterface<T>, IndexedGraph<T>
 {
+    private static final int DEFAULT_CAPACITY = 16;
+
     private DictionaryInterface<T, VertexInterface<T>> vertices;
     private int edgeCount;
+    private Vertex<T>[] vertexTable;  // Vertex index -> vertex, or null if the index is free
+    private int indexCapacity;        // Indices below this value have been handed out
+    private int[] freeIndices;        // Indices released by removeVertex
+    private int numberOfFreeIndices;
 
-    /** Default constructor. */
+    /** Default constructor; stores the vertices in a hashed dictionary. */
     public DirectedGraph()
     {
-        vertices = new UnsortedLinkedDictionary<>();
-        edgeCount = 0;
+        this(new HashedDictionary<>());
     } // end default constructor
 
+    /**
+     * Constructor with the dictionary that will hold the vertices.
+     *
+     * @param vertexDictionary An empty dictionary to store the vertices by label.
+     * @throws IllegalArgumentException if vertexDictionary is null or not empty.
+     */
+    public DirectedGraph(DictionaryInterface<T, VertexInterface<T>> vertexDictionary)
+    {
+        if ((vertexDictionary == null) || !vertexDictionary.isEmpty())
+            throw new IllegalArgumentException("The vertex dictionary must be empty.");
+
+        vertices = vertexDictionary;
+        edgeCount = 0;
+        initializeIndices();
+    } // end constructor
+
     /** {@inheritDoc} */
     public boolean addVertex(T vertexLabel)
     {
-        VertexInterface<T> addOutcome = vertices.add(vertexLabel, new Vertex<>(vertexLabel));
+        Vertex<T> newVertex = new Vertex<>(vertexLabel);
+        VertexInterface<T> addOutcome = vertices.add(vertexLabel, newVertex);
+
+        if (addOutcome == null)
+            assignIndex(newVertex);
+        else
+            vertices.add(vertexLabel, addOutcome); // Label in use; put the original vertex back
+
         return addOutcome == null; // Was addition to dictionary successful?
     } // end addVertex
 
     /**
      * Removes a vertex from the graph.
+     * Runtime: O(in-degree + out-degree) expected, since each vertex
+     * records the edges that end at it.
      *
      * @param vertexLabel The value for the vertex to remove.
      * @return True if the vertex was removed, false if vertex value is not in graph.
      */
     public boolean removeVertex(T vertexLabel) {
         // Gets the vertex to remove's value using its label
-        VertexInterface<T> vertexToRemove = vertices.getValue(vertexLabel);
+        Vertex<T> vertexToRemove = (Vertex<T>) vertices.getValue(vertexLabel);
 
         // If it's null, the vertex does not exist in the graph, so return false
         if (vertexToRemove == null) {
             return false;
         }
 
-        // Get a neighbor iterator for the vertex to be removed
-        Iterator<VertexInterface<T>> neighborIterator = vertexToRemove.getNeighborIterator();
-
-        // While there's a neighbor remaining
-        while (neighborIterator.hasNext()) {
-            // Get the next neighbor
-            VertexInterface<T> neighbor = neighborIterator.next();
-
-            // If there's an edge between the vertex to remove and the neighbor,
-            // remove the edge
-            if (hasEdge(vertexToRemove.getLabel(), neighbor.getLabel())) {
-                removeEdge(vertexToRemove.getLabel(), neighbor.getLabel());
-            }
+        // While the vertex to remove still has a neighbor,
+        // remove the edge to its last neighbor
+        while (vertexToRemove.getNumberOfNeighbors() > 0) {
+            VertexInterface<T> neighbor = vertexToRemove.getNeighbor(vertexToRemove.getNumberOfNeighbors() - 1);
+            vertexToRemove.disconnect(neighbor);
+            edgeCount--;
         }
 
-        // Get a vertices value iterator for all vertices
-        Iterator<VertexInterface<T>> verticesValueInterator = vertices.getValueIterator();
-
-        // While there's a vertex remaining
-        while (verticesValueInterator.hasNext()) {
-            // Get the next vertex
-            VertexInterface<T> vertex = verticesValueInterator.next();
-
-            // Get the neighbor iterator for the current vertex
-            Iterator<VertexInterface<T>> currentNeighborIterator = vertex.getNeighborIterator();
-
-            // While there's a neighbor remaining for the current vertex
-            while (currentNeighborIterator.hasNext()) {
-                // Get the next neighbor
-                VertexInterface<T> neighbor = currentNeighborIterator.next();
-
-                // If the neighbor is the vertex to remove
-                if (neighbor.equals(vertexToRemove)) {
-                    // Remove the edge between the current vertex and the neighbor
-                    removeEdge(vertex.getLabel(), neighbor.getLabel());
-                }
-            }
+        // While an edge still ends at the vertex to remove,
+        // remove the last such edge from the vertex it begins at
+        while (vertexToRemove.getNumberOfIncoming() > 0) {
+            Vertex<T> vertex = vertexToRemove.getIncoming(vertexToRemove.getNumberOfIncoming() - 1);
+            vertex.disconnect(vertexToRemove);
+            edgeCount--;
         }
 
-        // Remove the vertex from the dictionary of vertices and return true
+        // Remove the vertex from the dictionary of vertices, free its index and return true
         vertices.remove(vertexLabel);
+        releaseIndex(vertexToRemove);
         return true;
     }
 
@@ -143,15 +159,7 @@ public class DirectedGraph<T> implements GraphInterface<T>
         VertexInterface<T> beginVertex = vertices.getValue(begin);
         VertexInterface<T> endVertex = vertices.getValue(end);
         if ( (beginVertex != null) && (endVertex != null) )
-        {
-            Iterator<VertexInterface<T>> neighbors = beginVertex.getNeighborIterator();
-            while (!found && neighbors.hasNext())
-            {
-                VertexInterface<T> nextNeighbor = neighbors.next();
-                if (endVertex.equals(nextNeighbor))
-                    found = true;
-            } // end while
-        } // end if
+            found = beginVertex.hasNeighbor(endVertex);
 
         return found;
     } // end hasEdge
@@ -167,6 +175,7 @@ public class DirectedGraph<T> implements GraphInterface<T>
     {
         vertices.clear();
         edgeCount = 0;
+        initializeIndices();
     } // end clear
 
     /** {@inheritDoc} */
@@ -181,263 +190,154 @@ public class DirectedGraph<T> implements GraphInterface<T>
         return edgeCount;
     } // end getNumberOfEdges
 
-    /** Resets the vertices. */
-    protected void resetVertices()
+    /**
+     * Freezes the graph into an immutable compressed sparse row snapshot
+     * for read-heavy traversals. Later changes to this graph do not affect
+     * the snapshot.
+     * Runtime: O(V + E).
+     *
+     * @return A snapshot of the current vertices and edges.
+     */
+    public CompressedGraph<T> getSnapshot()
     {
-        Iterator<VertexInterface<T>> vertexIterator = vertices.getValueIterator();
-        while (vertexIterator.hasNext())
-        {
-            VertexInterface<T> nextVertex = vertexIterator.next();
-            nextVertex.unvisit();
-            nextVertex.setCost(0);
-            nextVertex.setPredecessor(null);
-        } // end while
-    } // end resetVertices
+        return new CompressedGraph<>(this, true);
+    } // end getSnapshot
 
-    /** {@inheritDoc} */
-    public QueueInterface<T> getBreadthFirstTraversal(T origin)
+    /**
+     * Gets the vertex with a given label.
+     *
+     * @param vertexLabel The label of the vertex.
+     * @return            The vertex, or null if there is no such vertex.
+     */
+    VertexInterface<T> getVertex(T vertexLabel)
     {
-        // Reset the vertices
-        resetVertices();
-
-        // Queue of vertices labels to represent the traversal order
-        QueueInterface<T> traversalOrder = new LinkedQueue<>();
-
-        // Queue of visited vertices
-        QueueInterface<VertexInterface<T>> visitedQueue = new LinkedQueue<>();
-
-        // Get the origin vertex from the provided value
-        VertexInterface<T> originVertex = vertices.getValue(origin);
-
-        // If the original vertex exists
-        if (originVertex != null) {
-
-            // Visit the original vertex
-            originVertex.visit();
-
-            // Enqueue the label to the traversal order queue
-            traversalOrder.enqueue(origin);
-
-            // Enqueue the vertex to the visited queue
-            visitedQueue.enqueue(originVertex);
-
-            // While the visited queue isn't empty
-            while (!visitedQueue.isEmpty()) {
-                // Dequeue the next vertex
-                VertexInterface<T> vertex = visitedQueue.dequeue();
-
-                // While the vertex has unvisited neighbors
-                while (vertex.getUnvisitedNeighbor() != null) {
-                    // Get the neighbor vertex
-                    VertexInterface<T> neighbor = vertex.getUnvisitedNeighbor();
-                    // If the neighbor isn't null and isn't visited
-                    if (!(neighbor == null) && !neighbor.isVisited()) {
-                        // Visit the neighbor vertex
-                        neighbor.visit();
-                        // Enqueue the vertex label to the traversal order queue
-                        traversalOrder.enqueue(neighbor.getLabel());
-                        // Enqueue the vertex to the visited queue
-                        visitedQueue.enqueue(neighbor);
-                    }
-                }
-            }
-        }
+        return vertices.getValue(vertexLabel);
+    } // end getVertex
 
-        // Return the traversal order
-        return traversalOrder;
-    } // end getBreadthFirstTraversal
+    /**
+     * Gets an iterator over the vertices of the graph.
+     *
+     * @return An iterator over the vertices.
+     */
+    Iterator<VertexInterface<T>> getVertexIterator()
+    {
+        return vertices.getValueIterator();
+    } // end getVertexIterator
 
     /** {@inheritDoc} */
-    public QueueInterface<T> getDepthFirstTraversal(T origin)
+    public int getIndexCapacity()
     {
-        // Assumes graph is not empty
-        resetVertices();
-        QueueInterface<T> traversalOrder = new LinkedQueue<T>();
-        StackInterface<VertexInterface<T>> vertexStack = new LinkedStack<>();
-
-        VertexInterface<T> originVertex = vertices.getValue(origin);
-        originVertex.visit();
-        traversalOrder.enqueue(origin); // Enqueue vertex label
-        vertexStack.push(originVertex); // Enqueue vertex
-
-        while (!vertexStack.isEmpty())
-        {
-            VertexInterface<T> topVertex = vertexStack.peek();
-            VertexInterface<T> nextNeighbor = topVertex.getUnvisitedNeighbor();
-
-            if (nextNeighbor != null)
-            {
-                nextNeighbor.visit();
-                traversalOrder.enqueue(nextNeighbor.getLabel());
-                vertexStack.push(nextNeighbor);
-            }
-            else // All neighbors are visited
-                vertexStack.pop();
-        } // end while
-
-        return traversalOrder;
-    } // end getDepthFirstTraversal
+        return indexCapacity;
+    } // end getIndexCapacity
 
     /** {@inheritDoc} */
-    public StackInterface<T> getTopologicalOrder()
+    public int getIndex(T label)
     {
-        resetVertices();
+        VertexInterface<T> vertex = vertices.getValue(label);
+        return (vertex == null) ? -1 : ((Vertex<T>) vertex).getIndex();
+    } // end getIndex
 
-        StackInterface<T> vertexStack = new LinkedStack<>();
-        int numberOfVertices = getNumberOfVertices();
-        for (int counter = 1; counter <= numberOfVertices; counter++)
-        {
-            VertexInterface<T> nextVertex = findTerminal();
-            nextVertex.visit();
-            vertexStack.push(nextVertex.getLabel());
-        } // end for
+    /** {@inheritDoc} */
+    public T getLabel(int index)
+    {
+        Vertex<T> vertex = vertexTable[index];
+        return (vertex == null) ? null : vertex.getLabel();
+    } // end getLabel
 
-        return vertexStack;
-    } // end getTopologicalOrder
+    /** {@inheritDoc} */
+    public int getOutDegree(int index)
+    {
+        return vertexTable[index].getNumberOfNeighbors();
+    } // end getOutDegree
 
     /** {@inheritDoc} */
-    public int getShortestPath(T begin, T end, StackInterface<T> path)
+    public int getOutNeighbor(int index, int position)
     {
-        resetVertices();
-        boolean done = false;
-        QueueInterface<VertexInterface<T>> vertexQueue = new LinkedQueue<>();
-        VertexInterface<T> originVertex = vertices.getValue(begin);
-        VertexInterface<T> endVertex = vertices.getValue(end);
-        originVertex.visit();
+        return vertexTable[index].getNeighborIndex(position);
+    } // end getOutNeighbor
 
-        // Assertion: resetVertices() has executed setCost(0)
-        // and setPredecessor(null) for originVertex
+    /** {@inheritDoc} */
+    public double getOutWeight(int index, int position)
+    {
+        return vertexTable[index].getNeighborWeight(position);
+    } // end getOutWeight
 
-        vertexQueue.enqueue(originVertex);
-        while (!done && !vertexQueue.isEmpty())
-        {
-            VertexInterface<T> frontVertex = vertexQueue.dequeue();
-            Iterator<VertexInterface<T>> neighbors = frontVertex.getNeighborIterator();
-            while (!done && neighbors.hasNext())
-            {
-                VertexInterface<T> nextNeighbor = neighbors.next();
-                if (!nextNeighbor.isVisited())
-                {
-                    nextNeighbor.visit();
-                    nextNeighbor.setCost(1 + frontVertex.getCost());
-                    nextNeighbor.setPredecessor(frontVertex);
-                    vertexQueue.enqueue(nextNeighbor);
-                } // end if
-
-                if (nextNeighbor.equals(endVertex))
-                    done = true;
-            } // end while
-        } // end while
+    /** {@inheritDoc} */
+    public int getInDegree(int index)
+    {
+        return vertexTable[index].getNumberOfIncoming();
+    } // end getInDegree
 
-        // Traversal ends; construct shortest path
-        int pathLength = (int)endVertex.getCost();
-        path.push(endVertex.getLabel());
+    /** {@inheritDoc} */
+    public int getInNeighbor(int index, int position)
+    {
+        return vertexTable[index].getIncomingIndex(position);
+    } // end getInNeighbor
 
-        VertexInterface<T> vertex = endVertex;
-        while (vertex.hasPredecessor())
-        {
-            vertex = vertex.getPredecessor();
-            path.push(vertex.getLabel());
-        } // end while
+    /** {@inheritDoc} */
+    public double getInWeight(int index, int position)
+    {
+        return vertexTable[index].getIncomingWeight(position);
+    } // end getInWeight
 
-        return pathLength;
-    } // end getShortestPath
+    /** {@inheritDoc} */
+    public long getNumberOfArcs()
+    {
+        return edgeCount;
+    } // end getNumberOfArcs
 
-    // Exercise 15, Chapter 29
     /**
      * {@inheritDoc}
      *
-     * Precondition: path is an empty stack (NOT null)
+     * On large graphs the traversal may expand a level bottom-up, which
+     * keeps the levels in order but can change the order within a level.
      */
-    public double getCheapestPath(T begin, T end, StackInterface<T> path) // STUDENT EXERCISE
+    public QueueInterface<T> getBreadthFirstTraversal(T origin)
     {
-        resetVertices();
-        boolean done = false;
-
-        // Use EntryPQ instead of Vertex because multiple entries contain
-        // the same vertex but different costs - cost of path to vertex is EntryPQ's priority value
-        PriorityQueueInterface<EntryPQ> priorityQueue = new HeapPriorityQueue<>();
-
-        VertexInterface<T> originVertex = vertices.getValue(begin);
-        VertexInterface<T> endVertex = vertices.getValue(end);
-
-        priorityQueue.add(new EntryPQ(originVertex, 0, null));
-
-        while (!done && !priorityQueue.isEmpty())
-        {
-            EntryPQ frontEntry = priorityQueue.remove();
-            VertexInterface<T> frontVertex = frontEntry.getVertex();
-
-            if (!frontVertex.isVisited())
-            {
-                frontVertex.visit();
-                frontVertex.setCost(frontEntry.getCost());
-                frontVertex.setPredecessor(frontEntry.getPredecessor());
-
-                if (frontVertex.equals(endVertex))
-                    done = true;
-                else
-                {
-                    Iterator<VertexInterface<T>> neighbors = frontVertex.getNeighborIterator();
-                    Iterator<Double> edgeWeights = frontVertex.getWeightIterator();
-                    while (neighbors.hasNext())
-                    {
-                        VertexInterface<T> nextNeighbor = neighbors.next();
-                        Double weightOfEdgeToNeighbor = edgeWeights.next();
-
-                        if (!nextNeighbor.isVisited())
-                        {
-                            double nextCost = weightOfEdgeToNeighbor + frontVertex.getCost();
-                            priorityQueue.add(new EntryPQ(nextNeighbor, nextCost, frontVertex));
-                        } // end if
-                    } // end while
-                } // end if
-            } // end if
-        } // end while
-
-        // Traversal ends, construct cheapest path
-        double pathCost = endVertex.getCost();
-        path.push(endVertex.getLabel());
+        return GraphSearch.getBreadthFirstTraversal(this, origin);
+    } // end getBreadthFirstTraversal
 
-        VertexInterface<T> vertex = endVertex;
-        while (vertex.hasPredecessor())
-        {
-            vertex = vertex.getPredecessor();
-            path.push(vertex.getLabel());
-        } // end while
+    /** {@inheritDoc} */
+    public Iterator<T> getNeighborhood(T origin, int maxDepth, int maxResults, Predicate<? super T> filter)
+    {
+        return GraphSearch.getNeighborhood(this, origin, maxDepth, maxResults, filter);
+    } // end getNeighborhood
 
-        return pathCost;
-    } // end getCheapestPath
+    /** {@inheritDoc} */
+    public QueueInterface<T> getDepthFirstTraversal(T origin)
+    {
+        return GraphSearch.getDepthFirstTraversal(this, origin);
+    } // end getDepthFirstTraversal
 
     /**
-     * Finds the last vertex.
+     * {@inheritDoc}
+     *
+     * Runtime: O(V + E).
      *
-     * @return The last vertex.
+     * @throws IllegalStateException if the graph contains a cycle; the
+     *         message lists the vertices of one cycle.
      */
-    protected VertexInterface<T> findTerminal()
+    public StackInterface<T> getTopologicalOrder()
     {
-        boolean found = false;
-        VertexInterface<T> result = null;
-
-        Iterator<VertexInterface<T>> vertexIterator = vertices.getValueIterator();
+        return GraphSearch.getTopologicalOrder(this);
+    } // end getTopologicalOrder
 
-        while (!found && vertexIterator.hasNext())
-        {
-            VertexInterface<T> nextVertex = vertexIterator.next();
-
-            // If nextVertex is unvisited AND has only visited neighbors)
-            if (!nextVertex.isVisited())
-            {
-                if (nextVertex.getUnvisitedNeighbor() == null )
-                {
-                    found = true;
-                    result = nextVertex;
-                } // end if
-            } // end if
-        } // end while
+    /** {@inheritDoc} */
+    public int getShortestPath(T begin, T end, StackInterface<T> path)
+    {
+        return GraphSearch.getShortestPath(this, begin, end, path);
+    } // end getShortestPath
 
-        return result;
-    } // end findTerminal
+    // Exercise 15, Chapter 29
+    /**
+     * {@inheritDoc}
+     *
+     * Precondition: path is an empty stack (NOT null)
+     */
+    public double getCheapestPath(T begin, T end, StackInterface<T> path) // STUDENT EXERCISE
+    {
+        return GraphSearch.getCheapestPath(this, begin, end, path);
+    } // end getCheapestPath
 
     /** Displays the edges for the vertices. */
     public void displayEdges()
@@ -451,76 +351,59 @@ public class DirectedGraph<T> implements GraphInterface<T>
         } // end while
     } // end displayEdges
 
-    /** Implements a priority queue entry for vertices. */
-    private class EntryPQ implements Comparable<EntryPQ>
-    {
-        private VertexInterface<T> vertex;
-        private VertexInterface<T> previousVertex;
-        private double cost; // cost to nextVertex
-
-        /**
-         * Constructor.
-         *
-         * @param vertex         The vertex.
-         * @param cost           The cost to the next vertex.
-         * @param previousVertex The previous vertex.
-         */
-        private EntryPQ(VertexInterface<T> vertex, double cost, VertexInterface<T> previousVertex)
-        {
-            this.vertex = vertex;
-            this.previousVertex = previousVertex;
-            this.cost = cost;
-        } // end constructor
-
-        /**
-         * Gets the vertex.
-         *
-         * @return The vertex.
-         */
-        public VertexInterface<T> getVertex()
-        {
-            return vertex;
-        } // end getVertex
-
-        /**
-         * Gets the previous vertex.
-         *
-         * @return The previous vertex.
-         */
-        public VertexInterface<T> getPredecessor()
-        {
-            return previousVertex;
-        } // end getPredecessor
-
-        /**
-         * Gets the cost to the next vertex.
-         *
-         * @return The cost to the next vertex.
-         */
-        public double getCost()
+    /** Gives every index back and empties the vertex table. */
+    private void initializeIndices()
+    {
+        // The cast is safe because the new array contains null entries
+        @SuppressWarnings("unchecked")
+        Vertex<T>[] tempTable = (Vertex<T>[]) new Vertex<?>[DEFAULT_CAPACITY];
+        vertexTable = tempTable;
+        indexCapacity = 0;
+        freeIndices = new int[DEFAULT_CAPACITY];
+        numberOfFreeIndices = 0;
+    } // end initializeIndices
+
+    /**
+     * Gives a new vertex an index, reusing a freed index if there is one.
+     * Runtime: O(1) amortized.
+     *
+     * @param vertex The vertex that was just added.
+     */
+    private void assignIndex(Vertex<T> vertex)
+    {
+        int index;
+
+        if (numberOfFreeIndices > 0)
         {
-            return cost;
-        } // end getCost
-
-        /**
-         * Compares priority queue entries.
-         *
-         * @param otherEntry the object to be compared.
-         * @return 1 if otherEntry's cost is greater than this cost,
-         *         -1 if otherEntry's cost is less than this cost,
-         *         or 0 if the costs are equal.
-         */
-        public int compareTo(EntryPQ otherEntry)
+            numberOfFreeIndices--;
+            index = freeIndices[numberOfFreeIndices];
+        }
+        else
         {
-            // Using opposite of reality since our priority queue uses a maxHeap;
-            // could revise using a minheap
-            return (int)Math.signum(otherEntry.cost - cost);
-        } // end compareTo
+            if (indexCapacity == vertexTable.length)
+                vertexTable = Arrays.copyOf(vertexTable, 2 * vertexTable.length);
+            index = indexCapacity;
+            indexCapacity++;
+        } // end if
 
-        /** {@inheritDoc} */
-        public String toString()
-        {
-            return vertex.toString() + " " + cost;
-        } // end toString
-    } // end EntryPQ
+        vertex.setIndex(index);
+        vertexTable[index] = vertex;
+    } // end assignIndex
+
+    /**
+     * Frees the index of a vertex that was just removed.
+     *
+     * @param vertex The removed vertex.
+     */
+    private void releaseIndex(Vertex<T> vertex)
+    {
+        int index = vertex.getIndex();
+        vertexTable[index] = null;
+        vertex.setIndex(-1);
+
+        if (numberOfFreeIndices == freeIndices.length)
+            freeIndices = Arrays.copyOf(freeIndices, 2 * freeIndices.length);
+        freeIndices[numberOfFreeIndices] = index;
+        numberOfFreeIndices++;
+    } // end releaseIndex
 } // end DirectedGraph
\ No newline at end of file
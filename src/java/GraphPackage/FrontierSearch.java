@@ -0,0 +1,187 @@
+package GraphPackage;
+
+/**
+ * A breadth-first search that runs one level at a time and picks, level by
+ * level, between two ways of finding the next level (Beamer, Asanovic and
+ * Patterson, "Direction-Optimizing Breadth-First Search").
+ *
+ * Top-down: every vertex of the frontier offers its unvisited neighbors.
+ * Bottom-up: every unvisited vertex looks through the vertices with edges
+ * to it for one on the frontier, and stops at the first one it finds.
+ *
+ * Top-down is cheap while the frontier is small. Small-world graphs have
+ * a few huge middle levels, where most edges out of the frontier lead to
+ * vertices that are already visited; there bottom-up checks far fewer
+ * edges. The search switches to bottom-up once the edges out of the
+ * frontier outnumber the edges into unvisited vertices divided by ALPHA,
+ * and back to top-down once the frontier holds fewer than 1/BETA of the
+ * vertices.
+ *
+ * Levels always come out in order. A bottom-up level lists its vertices by
+ * index instead of in top-down order, so small graphs, where the switch
+ * cannot pay off, always run top-down and keep the classic order.
+ */
+final class FrontierSearch
+{
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+    private static final int MIN_VERTICES_FOR_BOTTOM_UP = 256;
+
+    /** Prevents instantiation; all methods are static. */
+    private FrontierSearch()
+    {
+    } // end default constructor
+
+    /**
+     * Visits every vertex reachable from an origin.
+     * Runtime: O(V + E) in the worst case, usually far fewer edge checks.
+     *
+     * On return, context.vertexQueue[0, count) lists the reached vertices
+     * level by level, each reached vertex is visited in the context, and
+     * context.depth holds its distance from the origin.
+     *
+     * @param graph   The graph to search.
+     * @param origin  The index of the origin vertex.
+     * @param context A context acquired for this query.
+     * @return        The number of vertices reached, count.
+     */
+    static int search(IndexedGraph<?> graph, int origin, TraversalContext context)
+    {
+        int[] order = context.vertexQueue;
+        int[] depth = context.depth;
+        int numberOfVertices = graph.getNumberOfVertices();
+        boolean allowBottomUp = numberOfVertices >= MIN_VERTICES_FOR_BOTTOM_UP;
+        long unexploredArcs = graph.getNumberOfArcs() - graph.getInDegree(origin);
+        boolean bottomUp = false;
+
+        context.visit(origin);
+        depth[origin] = 0;
+        order[0] = origin;
+        int levelStart = 0;
+        int levelEnd = 1;
+        int level = 0;
+
+        while (levelStart < levelEnd)
+        {
+            if (allowBottomUp)
+            {
+                if (!bottomUp)
+                    bottomUp = countFrontierArcs(graph, order, levelStart, levelEnd) > unexploredArcs / ALPHA;
+                else
+                    bottomUp = (levelEnd - levelStart) >= numberOfVertices / BETA;
+            } // end if
+
+            int nextEnd;
+            if (bottomUp)
+                nextEnd = expandBottomUp(graph, context, level, levelEnd);
+            else
+                nextEnd = expandTopDown(graph, context, level, levelStart, levelEnd);
+
+            for (int position = levelEnd; position < nextEnd; position++)
+                unexploredArcs -= graph.getInDegree(order[position]);
+
+            levelStart = levelEnd;
+            levelEnd = nextEnd;
+            level++;
+        } // end while
+
+        return levelEnd;
+    } // end search
+
+    /**
+     * Finds the next level by letting each frontier vertex offer its
+     * unvisited neighbors.
+     *
+     * @param graph      The graph.
+     * @param context    The query's context.
+     * @param level      The depth of the frontier.
+     * @param levelStart The position of the frontier's first vertex in the order.
+     * @param levelEnd   The position just past the frontier's last vertex.
+     * @return           The position just past the new level's last vertex.
+     */
+    private static int expandTopDown(IndexedGraph<?> graph, TraversalContext context,
+                                     int level, int levelStart, int levelEnd)
+    {
+        int[] order = context.vertexQueue;
+        int[] depth = context.depth;
+        int nextEnd = levelEnd;
+
+        for (int position = levelStart; position < levelEnd; position++)
+        {
+            int vertex = order[position];
+            int degree = graph.getOutDegree(vertex);
+            for (int edge = 0; edge < degree; edge++)
+            {
+                int neighbor = graph.getOutNeighbor(vertex, edge);
+                if (!context.isVisited(neighbor))
+                {
+                    context.visit(neighbor);
+                    depth[neighbor] = level + 1;
+                    order[nextEnd++] = neighbor;
+                } // end if
+            } // end for
+        } // end for
+
+        return nextEnd;
+    } // end expandTopDown
+
+    /**
+     * Finds the next level by letting each unvisited vertex look for a
+     * frontier vertex among the vertices with edges to it.
+     *
+     * @param graph    The graph.
+     * @param context  The query's context.
+     * @param level    The depth of the frontier.
+     * @param levelEnd The position just past the frontier's last vertex.
+     * @return         The position just past the new level's last vertex.
+     */
+    private static int expandBottomUp(IndexedGraph<?> graph, TraversalContext context,
+                                      int level, int levelEnd)
+    {
+        int[] order = context.vertexQueue;
+        int[] depth = context.depth;
+        int capacity = graph.getIndexCapacity();
+        int nextEnd = levelEnd;
+
+        for (int vertex = 0; vertex < capacity; vertex++)
+        {
+            if (!context.isVisited(vertex) && (graph.getLabel(vertex) != null))
+            {
+                int degree = graph.getInDegree(vertex);
+                boolean found = false;
+                for (int edge = 0; !found && (edge < degree); edge++)
+                {
+                    int parent = graph.getInNeighbor(vertex, edge);
+                    found = context.isVisited(parent) && (depth[parent] == level);
+                } // end for
+
+                if (found)
+                {
+                    context.visit(vertex);
+                    depth[vertex] = level + 1;
+                    order[nextEnd++] = vertex;
+                } // end if
+            } // end if
+        } // end for
+
+        return nextEnd;
+    } // end expandBottomUp
+
+    /**
+     * Counts the edges that begin at frontier vertices.
+     *
+     * @param graph      The graph.
+     * @param order      The vertices in visiting order.
+     * @param levelStart The position of the frontier's first vertex.
+     * @param levelEnd   The position just past the frontier's last vertex.
+     * @return           The sum of the frontier's out-degrees.
+     */
+    private static long countFrontierArcs(IndexedGraph<?> graph, int[] order, int levelStart, int levelEnd)
+    {
+        long arcs = 0;
+        for (int position = levelStart; position < levelEnd; position++)
+            arcs += graph.getOutDegree(order[position]);
+
+        return arcs;
+    } // end countFrontierArcs
+} // end FrontierSearch
@@ -3,6 +3,9 @@ package GraphPackage;
 import ADTPackage.QueueInterface;
 import ADTPackage.StackInterface;
 
+import java.util.Iterator;
+import java.util.function.Predicate;
+
 /**
  * Interface for graph algorithms.
  *
@@ -17,6 +20,22 @@ public interface GraphAlgorithmsInterface<T>
      the label of the origin vertex at the queue's front. */
     public QueueInterface<T> getBreadthFirstTraversal(T origin);
 
+    /** Lists the vertices within a given number of edges of a vertex,
+     nearest first. The search runs only as far as the iterator is
+     advanced, so taking the first few results of a large neighborhood
+     does not visit the rest of it.
+     @param origin      An object that labels the origin vertex.
+     @param maxDepth    The largest number of edges from the origin.
+     @param maxResults  The largest number of labels to return.
+     @param filter      A test that a vertex must pass to be returned, or
+     null to return every vertex; vertices that fail are still
+     searched through.
+     @return  An iterator over the labels of the vertices other than the
+     origin that pass the filter, in breadth-first order; empty if the
+     origin is not in the graph.
+     @throws IllegalArgumentException if maxDepth or maxResults is negative. */
+    public Iterator<T> getNeighborhood(T origin, int maxDepth, int maxResults, Predicate<? super T> filter);
+
     /** Performs a depth-first traversal of this graph.
      @param origin  An object that labels the origin vertex of the traversal.
      @return  A queue of labels of the vertices in the traversal, with
@@ -0,0 +1,561 @@
+package GraphPackage;
+
+import ADTPackage.IndexedMinHeap;
+import ADTPackage.LinkedQueue;
+import ADTPackage.LinkedStack;
+import ADTPackage.QueueInterface;
+import ADTPackage.StackInterface;
+
+import java.util.Iterator;
+import java.util.function.Predicate;
+
+/**
+ * The GraphAlgorithmsInterface queries, written once against IndexedGraph.
+ * Each method keeps its bookkeeping in a TraversalContext rather than in
+ * the vertices themselves, so queries skip the O(V) reset and several
+ * threads may query the same graph at once as long as none modifies it.
+ *
+ * If a query names a vertex that is not in the graph, the traversals
+ * return an empty queue and the path methods leave the path empty and
+ * return 0.
+ */
+final class GraphSearch
+{
+    private static final int NONE = -1;
+
+    /** Prevents instantiation; all methods are static. */
+    private GraphSearch()
+    {
+    } // end default constructor
+
+    /**
+     * Performs a breadth-first traversal with FrontierSearch.
+     * Runtime: O(V + E).
+     *
+     * @param graph  The graph to traverse.
+     * @param origin The label of the origin vertex.
+     * @param <T>    The data type for the vertex label.
+     * @return       A queue of labels in traversal order, origin first.
+     */
+    static <T> QueueInterface<T> getBreadthFirstTraversal(IndexedGraph<T> graph, T origin)
+    {
+        QueueInterface<T> traversalOrder = new LinkedQueue<>();
+        int originIndex = graph.getIndex(origin);
+
+        if (originIndex != NONE)
+        {
+            TraversalContext context = TraversalContext.acquire(graph.getIndexCapacity());
+            int count = FrontierSearch.search(graph, originIndex, context);
+
+            for (int position = 0; position < count; position++)
+                traversalOrder.enqueue(graph.getLabel(context.vertexQueue[position]));
+
+            context.release();
+        } // end if
+
+        return traversalOrder;
+    } // end getBreadthFirstTraversal
+
+    /**
+     * Starts a lazy breadth-first search of a vertex's neighborhood.
+     *
+     * @param graph      The graph to search.
+     * @param origin     An object that labels the origin vertex.
+     * @param maxDepth   The largest number of edges from the origin.
+     * @param maxResults The largest number of labels to return.
+     * @param filter     A test that a vertex must pass to be returned, or null.
+     * @param <T>        The data type for the vertex label.
+     * @return           An iterator over the matching labels, nearest first.
+     * @throws IllegalArgumentException if maxDepth or maxResults is negative.
+     */
+    static <T> Iterator<T> getNeighborhood(IndexedGraph<T> graph, T origin, int maxDepth, int maxResults,
+                                           Predicate<? super T> filter)
+    {
+        return new NeighborhoodIterator<>(graph, graph.getIndex(origin), maxDepth, maxResults, filter);
+    } // end getNeighborhood
+
+    /**
+     * Performs a depth-first traversal. Each vertex on the stack remembers
+     * how far through its neighbors it has looked, so no neighbor is
+     * examined twice.
+     * Runtime: O(V + E).
+     *
+     * @param graph  The graph to traverse.
+     * @param origin The label of the origin vertex.
+     * @param <T>    The data type for the vertex label.
+     * @return       A queue of labels in traversal order, origin first.
+     */
+    static <T> QueueInterface<T> getDepthFirstTraversal(IndexedGraph<T> graph, T origin)
+    {
+        QueueInterface<T> traversalOrder = new LinkedQueue<>();
+        int originIndex = graph.getIndex(origin);
+
+        if (originIndex != NONE)
+        {
+            TraversalContext context = TraversalContext.acquire(graph.getIndexCapacity());
+            int[] vertexStack = context.vertexQueue;
+            int top = 0;
+
+            visitForDepthFirst(context, originIndex);
+            traversalOrder.enqueue(origin);
+            vertexStack[top] = originIndex;
+
+            while (top >= 0)
+            {
+                int topIndex = vertexStack[top];
+                int nextNeighbor = nextUnvisitedNeighbor(graph, topIndex, context);
+
+                if (nextNeighbor != NONE)
+                {
+                    visitForDepthFirst(context, nextNeighbor);
+                    traversalOrder.enqueue(graph.getLabel(nextNeighbor));
+                    vertexStack[++top] = nextNeighbor;
+                }
+                else // All neighbors are visited
+                    top--;
+            } // end while
+
+            context.release();
+        } // end if
+
+        return traversalOrder;
+    } // end getDepthFirstTraversal
+
+    /**
+     * Performs a topological sort with Kahn's algorithm, run from the
+     * sinks backward. Each vertex keeps a count of its out-neighbors that
+     * are not yet on the stack. A vertex whose count is 0 is pushed, and
+     * each vertex with an edge to it has its count lowered.
+     * Runtime: O(V + E).
+     *
+     * @param graph The graph to sort.
+     * @param <T>   The data type for the vertex label.
+     * @return      A stack of labels in topological order, beginning at the top.
+     * @throws IllegalStateException if the graph contains a cycle; the
+     *         message lists the vertices of one cycle.
+     */
+    static <T> StackInterface<T> getTopologicalOrder(IndexedGraph<T> graph)
+    {
+        StackInterface<T> vertexOrder = new LinkedStack<>();
+        int capacity = graph.getIndexCapacity();
+        TraversalContext context = TraversalContext.acquire(capacity);
+        int[] remaining = context.nextPosition;   // Vertex index -> out-neighbors not yet pushed
+        int[] readyQueue = context.vertexQueue;
+        int front = 0;
+        int back = 0;
+
+        for (int index = 0; index < capacity; index++)
+        {
+            if (graph.getLabel(index) != null)
+            {
+                remaining[index] = graph.getOutDegree(index);
+                if (remaining[index] == 0)
+                    readyQueue[back++] = index;
+            } // end if
+        } // end for
+
+        while (front < back)
+        {
+            int vertex = readyQueue[front++];
+            vertexOrder.push(graph.getLabel(vertex));
+
+            int degree = graph.getInDegree(vertex);
+            for (int position = 0; position < degree; position++)
+            {
+                int previous = graph.getInNeighbor(vertex, position);
+                remaining[previous]--;
+                if (remaining[previous] == 0)
+                    readyQueue[back++] = previous;
+            } // end for
+        } // end while
+
+        if (back < graph.getNumberOfVertices())
+        {
+            String cycle = describeCycle(graph, context);
+            context.release();
+            throw new IllegalStateException("Topological sort is illegal in a graph with a cycle: " + cycle + ".");
+        } // end if
+
+        context.release();
+        return vertexOrder;
+    } // end getTopologicalOrder
+
+    /**
+     * Finds a cycle among the vertices that a topological sort could not
+     * push. Each of them still has an out-neighbor that was not pushed, so
+     * following such neighbors must eventually repeat a vertex.
+     *
+     * @param graph   The graph being sorted.
+     * @param context The sort's context; nextPosition holds the counts of
+     *                out-neighbors not pushed, which are 0 for pushed vertices.
+     * @param <T>     The data type for the vertex label.
+     * @return        The cycle's labels, such as "A -> B -> A".
+     */
+    private static <T> String describeCycle(IndexedGraph<T> graph, TraversalContext context)
+    {
+        int[] remaining = context.nextPosition;
+        int vertex = 0;
+        while ((graph.getLabel(vertex) == null) || (remaining[vertex] == 0))
+            vertex++;
+
+        // Walk until a vertex repeats; the repeated vertex starts the cycle
+        while (!context.isVisited(vertex))
+        {
+            context.visit(vertex);
+            int next = NONE;
+            for (int position = 0; next == NONE; position++)
+            {
+                int neighbor = graph.getOutNeighbor(vertex, position);
+                if (remaining[neighbor] > 0)
+                    next = neighbor;
+            } // end for
+
+            context.successor[vertex] = next;
+            vertex = next;
+        } // end while
+
+        StringBuilder cycle = new StringBuilder(String.valueOf(graph.getLabel(vertex)));
+        int index = vertex;
+        do
+        {
+            index = context.successor[index];
+            cycle.append(" -> ").append(graph.getLabel(index));
+        } while (index != vertex);
+
+        return cycle.toString();
+    } // end describeCycle
+
+    /**
+     * Finds the shortest-length path with a bidirectional breadth-first
+     * search. One search runs forward from the origin along out-edges and
+     * another runs backward from the destination along in-edges; each round
+     * expands one whole level of whichever frontier is smaller. The first
+     * vertex reached by both searches lies on a shortest path: until then
+     * the two visited sets are disjoint, so the path cannot be shorter than
+     * both searches' depths plus the one edge just crossed.
+     * Runtime: O(V + E), but on small-world graphs it touches roughly the
+     * square root of what a one-sided search would.
+     *
+     * @param graph The graph to search.
+     * @param begin The label of the path's origin vertex.
+     * @param end   The label of the path's destination vertex.
+     * @param path  An empty stack that receives the path, origin on top.
+     * @param <T>   The data type for the vertex label.
+     * @return      The length of the path, or 0 if end is not reachable.
+     */
+    static <T> int getShortestPath(IndexedGraph<T> graph, T begin, T end, StackInterface<T> path)
+    {
+        int beginIndex = graph.getIndex(begin);
+        int endIndex = graph.getIndex(end);
+        int pathLength = 0;
+
+        if ((beginIndex != NONE) && (endIndex != NONE))
+        {
+            TraversalContext context = TraversalContext.acquire(graph.getIndexCapacity());
+            int[] predecessor = context.predecessor;
+            int[] successor = context.successor;
+            int[] forwardQueue = context.vertexQueue;
+            int[] backwardQueue = context.backwardQueue;
+
+            context.visit(beginIndex);
+            predecessor[beginIndex] = NONE;
+            forwardQueue[0] = beginIndex;
+            int forwardStart = 0;
+            int forwardEnd = 1;
+
+            context.visitBackward(endIndex);
+            successor[endIndex] = NONE;
+            backwardQueue[0] = endIndex;
+            int backwardStart = 0;
+            int backwardEnd = 1;
+
+            int meeting = (beginIndex == endIndex) ? beginIndex : NONE;
+
+            while ((meeting == NONE) && (forwardStart < forwardEnd) && (backwardStart < backwardEnd))
+            {
+                if (forwardEnd - forwardStart <= backwardEnd - backwardStart)
+                {
+                    int levelEnd = forwardEnd;
+                    for (int position = forwardStart; (meeting == NONE) && (position < levelEnd); position++)
+                    {
+                        int vertex = forwardQueue[position];
+                        int degree = graph.getOutDegree(vertex);
+                        for (int edge = 0; (meeting == NONE) && (edge < degree); edge++)
+                        {
+                            int neighbor = graph.getOutNeighbor(vertex, edge);
+                            if (!context.isVisited(neighbor))
+                            {
+                                context.visit(neighbor);
+                                predecessor[neighbor] = vertex;
+                                forwardQueue[forwardEnd++] = neighbor;
+                                if (context.isVisitedBackward(neighbor))
+                                    meeting = neighbor;
+                            } // end if
+                        } // end for
+                    } // end for
+
+                    forwardStart = levelEnd;
+                }
+                else
+                {
+                    int levelEnd = backwardEnd;
+                    for (int position = backwardStart; (meeting == NONE) && (position < levelEnd); position++)
+                    {
+                        int vertex = backwardQueue[position];
+                        int degree = graph.getInDegree(vertex);
+                        for (int edge = 0; (meeting == NONE) && (edge < degree); edge++)
+                        {
+                            int neighbor = graph.getInNeighbor(vertex, edge);
+                            if (!context.isVisitedBackward(neighbor))
+                            {
+                                context.visitBackward(neighbor);
+                                successor[neighbor] = vertex;
+                                backwardQueue[backwardEnd++] = neighbor;
+                                if (context.isVisited(neighbor))
+                                    meeting = neighbor;
+                            } // end if
+                        } // end for
+                    } // end for
+
+                    backwardStart = levelEnd;
+                } // end if
+            } // end while
+
+            if (meeting != NONE)
+            {
+                // The half from the meeting vertex to the end goes on the
+                // stack first, so it is collected and pushed in reverse
+                int halfLength = 0;
+                for (int index = meeting; index != NONE; index = successor[index])
+                    backwardQueue[halfLength++] = index;
+                for (int position = halfLength - 1; position >= 0; position--)
+                    path.push(graph.getLabel(backwardQueue[position]));
+
+                pathLength = halfLength - 1;
+                for (int index = predecessor[meeting]; index != NONE; index = predecessor[index])
+                {
+                    path.push(graph.getLabel(index));
+                    pathLength++;
+                } // end for
+            }
+            else
+                path.push(end);
+
+            context.release();
+        } // end if
+
+        return pathLength;
+    } // end getShortestPath
+
+    /**
+     * Finds the least-cost path with Dijkstra's algorithm on an indexed
+     * min-heap. Each vertex is in the heap at most once; relaxing an edge
+     * lowers its key in place, so the heap holds O(V) entries and a
+     * relaxation allocates nothing.
+     * Runtime: O(E log V).
+     *
+     * @param graph The graph to search.
+     * @param begin The label of the path's origin vertex.
+     * @param end   The label of the path's destination vertex.
+     * @param path  An empty stack that receives the path, origin on top.
+     * @param <T>   The data type for the vertex label.
+     * @return      The cost of the path, or 0 if end is not reachable.
+     */
+    static <T> double getCheapestPath(IndexedGraph<T> graph, T begin, T end, StackInterface<T> path)
+    {
+        return getCheapestPath(graph, begin, end, path, null);
+    } // end getCheapestPath
+
+    /**
+     * Finds the least-cost path with A* search, or with Dijkstra's
+     * algorithm if there is no lower bound.
+     * Runtime: O(E log V).
+     *
+     * @param graph The graph to search.
+     * @param begin The label of the path's origin vertex.
+     * @param end   The label of the path's destination vertex.
+     * @param path  An empty stack that receives the path, origin on top.
+     * @param bound A consistent lower bound on the cost to end, or null.
+     * @param <T>   The data type for the vertex label.
+     * @return      The cost of the path, or 0 if end is not reachable.
+     */
+    static <T> double getCheapestPath(IndexedGraph<T> graph, T begin, T end, StackInterface<T> path,
+                                      LowerBound bound)
+    {
+        int beginIndex = graph.getIndex(begin);
+        int endIndex = graph.getIndex(end);
+        double pathCost = 0;
+
+        if ((beginIndex != NONE) && (endIndex != NONE))
+        {
+            TraversalContext context = TraversalContext.acquire(graph.getIndexCapacity());
+            int[] predecessor = context.predecessor;
+
+            searchCheapest(graph, beginIndex, endIndex, bound, context);
+
+            if (context.isVisited(endIndex))
+                pathCost = context.cost[endIndex];
+            else
+                predecessor[endIndex] = NONE;
+
+            pushPath(graph, endIndex, predecessor, path);
+            context.release();
+        } // end if
+
+        return pathCost;
+    } // end getCheapestPath
+
+    /**
+     * Settles vertices in order of their path cost plus the lower bound of
+     * their remaining cost, until the end vertex is settled. With no bound
+     * this is Dijkstra's algorithm. A consistent bound never overestimates
+     * and never drops by more than an edge's weight along that edge, so
+     * every vertex is still settled at its cheapest cost, just with fewer
+     * vertices settled on the way to end. A vertex whose bound is infinite
+     * cannot reach end and is never added to the heap.
+     *
+     * On return, each settled vertex is visited in the context and has its
+     * cost and predecessor set.
+     *
+     * @param graph      The graph to search.
+     * @param beginIndex The index of the path's origin vertex.
+     * @param endIndex   The index of the path's destination vertex.
+     * @param bound      A consistent lower bound on the cost to end, or null.
+     * @param context    A context acquired for this query.
+     * @return           The number of vertices settled.
+     */
+    static int searchCheapest(IndexedGraph<?> graph, int beginIndex, int endIndex, LowerBound bound,
+                              TraversalContext context)
+    {
+        double[] cost = context.cost;
+        int[] predecessor = context.predecessor;
+        IndexedMinHeap heap = context.heap;
+        int settled = 0;
+        boolean done = false;
+
+        cost[beginIndex] = 0;
+        predecessor[beginIndex] = NONE;
+        heap.add(beginIndex, estimate(bound, beginIndex, endIndex));
+
+        while (!done && !heap.isEmpty())
+        {
+            int frontIndex = heap.removeMin();
+            context.visit(frontIndex);
+            settled++;
+
+            if (frontIndex == endIndex)
+                done = true;
+            else
+            {
+                int degree = graph.getOutDegree(frontIndex);
+                for (int position = 0; position < degree; position++)
+                {
+                    int neighbor = graph.getOutNeighbor(frontIndex, position);
+                    if (!context.isVisited(neighbor))
+                    {
+                        double nextCost = cost[frontIndex] + graph.getOutWeight(frontIndex, position);
+                        if (!heap.contains(neighbor))
+                        {
+                            double remaining = estimate(bound, neighbor, endIndex);
+                            if (remaining != Double.POSITIVE_INFINITY)
+                            {
+                                cost[neighbor] = nextCost;
+                                predecessor[neighbor] = frontIndex;
+                                heap.add(neighbor, nextCost + remaining);
+                            } // end if
+                        }
+                        else if (nextCost < cost[neighbor])
+                        {
+                            cost[neighbor] = nextCost;
+                            predecessor[neighbor] = frontIndex;
+                            heap.decreaseKey(neighbor, nextCost + estimate(bound, neighbor, endIndex));
+                        } // end if
+                    } // end if
+                } // end for
+            } // end if
+        } // end while
+
+        heap.clear();
+        return settled;
+    } // end searchCheapest
+
+    /**
+     * Gets a lower bound on the cost from a vertex to the end vertex.
+     *
+     * @param bound    The lower bound, or null for none.
+     * @param vertex   The vertex index.
+     * @param endIndex The index of the end vertex.
+     * @return         The bound, or 0 if there is none.
+     */
+    private static double estimate(LowerBound bound, int vertex, int endIndex)
+    {
+        return (bound == null) ? 0 : bound.estimate(vertex, endIndex);
+    } // end estimate
+
+    /**
+     * Marks a vertex as visited by a depth-first search, which starts its
+     * neighbor scan at the first neighbor.
+     *
+     * @param context The query's context.
+     * @param index   The vertex index.
+     */
+    private static void visitForDepthFirst(TraversalContext context, int index)
+    {
+        context.visit(index);
+        context.nextPosition[index] = 0;
+    } // end visitForDepthFirst
+
+    /**
+     * Finds the next unvisited neighbor of a vertex, resuming where the
+     * previous call for the same vertex stopped.
+     *
+     * @param graph   The graph.
+     * @param index   The vertex index; visited with visitForDepthFirst.
+     * @param context The query's context.
+     * @param <T>     The data type for the vertex label.
+     * @return        The index of an unvisited neighbor, or NONE.
+     */
+    private static <T> int nextUnvisitedNeighbor(IndexedGraph<T> graph, int index, TraversalContext context)
+    {
+        int[] nextPosition = context.nextPosition;
+        int degree = graph.getOutDegree(index);
+
+        while (nextPosition[index] < degree)
+        {
+            int neighbor = graph.getOutNeighbor(index, nextPosition[index]);
+            nextPosition[index]++;
+            if (!context.isVisited(neighbor))
+                return neighbor;
+        } // end while
+
+        return NONE;
+    } // end nextUnvisitedNeighbor
+
+    /**
+     * Pushes the labels along a predecessor chain, so the chain's first
+     * vertex ends up on top of the stack.
+     *
+     * @param graph       The graph.
+     * @param endIndex    The index of the last vertex on the path.
+     * @param predecessor The predecessor of each vertex, or NONE.
+     * @param path        The stack that receives the labels.
+     * @param <T>         The data type for the vertex label.
+     */
+    private static <T> void pushPath(IndexedGraph<T> graph, int endIndex, int[] predecessor,
+                                     StackInterface<T> path)
+    {
+        for (int index = endIndex; index != NONE; index = predecessor[index])
+            path.push(graph.getLabel(index));
+    } // end pushPath
+
+    /** A lower bound on the cost of the cheapest path between two vertices. */
+    interface LowerBound
+    {
+        /** Estimates the cost of the cheapest path from one vertex to another.
+         @param vertex  The index of the path's origin vertex.
+         @param target  The index of the path's destination vertex.
+         @return  A cost no larger than the cheapest path's, or
+         Double.POSITIVE_INFINITY if there is no path. */
+        public double estimate(int vertex, int target);
+    } // end LowerBound
+} // end GraphSearch
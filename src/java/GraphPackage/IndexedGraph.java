@@ -0,0 +1,71 @@
+package GraphPackage;
+
+/**
+ * A read-only view of a graph whose vertices are numbered by small,
+ * non-negative int indices. The search algorithms in this package work on
+ * this view so that they touch only ints and doubles on their hot paths.
+ *
+ * An index in [0, getIndexCapacity()) either belongs to exactly one vertex
+ * or is unused, in which case getLabel returns null.
+ *
+ * @param <T> The data type for the vertex label.
+ */
+interface IndexedGraph<T>
+{
+    /** Gets one more than the largest index that may belong to a vertex.
+     @return  The upper bound (exclusive) of the vertex indices. */
+    public int getIndexCapacity();
+
+    /** Gets the number of vertices in this graph.
+     @return  The number of vertices. */
+    public int getNumberOfVertices();
+
+    /** Gets the number of directed adjacencies in this graph, which is
+     the sum of the out-degrees. An undirected edge counts twice.
+     @return  The number of arcs. */
+    public long getNumberOfArcs();
+
+    /** Gets the index of the vertex with a given label.
+     @param label  An object that labels a vertex.
+     @return  The index of the vertex, or -1 if there is no such vertex. */
+    public int getIndex(T label);
+
+    /** Gets the label of the vertex at a given index.
+     @param index  A vertex index.
+     @return  The label of the vertex, or null if the index is unused. */
+    public T getLabel(int index);
+
+    /** Gets the number of edges that begin at a vertex.
+     @param index  The index of the vertex.
+     @return  The out-degree of the vertex. */
+    public int getOutDegree(int index);
+
+    /** Gets the end of one of the edges that begin at a vertex.
+     @param index     The index of the vertex.
+     @param position  A position in [0, getOutDegree(index)).
+     @return  The index of the neighbor at that position. */
+    public int getOutNeighbor(int index, int position);
+
+    /** Gets the weight of one of the edges that begin at a vertex.
+     @param index     The index of the vertex.
+     @param position  A position in [0, getOutDegree(index)).
+     @return  The weight of the edge at that position. */
+    public double getOutWeight(int index, int position);
+
+    /** Gets the number of edges that end at a vertex.
+     @param index  The index of the vertex.
+     @return  The in-degree of the vertex. */
+    public int getInDegree(int index);
+
+    /** Gets the beginning of one of the edges that end at a vertex.
+     @param index     The index of the vertex.
+     @param position  A position in [0, getInDegree(index)).
+     @return  The index of the vertex that the edge begins at. */
+    public int getInNeighbor(int index, int position);
+
+    /** Gets the weight of one of the edges that end at a vertex.
+     @param index     The index of the vertex.
+     @param position  A position in [0, getInDegree(index)).
+     @return  The weight of the edge at that position. */
+    public double getInWeight(int index, int position);
+} // end IndexedGraph
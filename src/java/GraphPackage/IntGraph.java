@@ -0,0 +1,1143 @@
+package GraphPackage;
+
+import ADTPackage.QueueInterface;
+import ADTPackage.StackInterface;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Implements a graph whose vertices are dense, non-negative int ids.
+ *
+ * Each vertex keeps its neighbors in a growable int array and, once any
+ * of its edges has a nonzero weight, their weights in a parallel double
+ * array; there are no Vertex or Edge objects and nothing is boxed. An
+ * unweighted edge costs 4 bytes at each end in a directed graph, and an
+ * undirected edge, stored as an arc in each direction, costs 8.
+ * A directed graph also keeps the ids of the vertices with edges to each
+ * vertex, so removing a vertex and searching backward are proportional
+ * to its degree.
+ *
+ * The int methods are the primitive form of the graph. The Integer
+ * methods of GraphInterface are also provided so that the graph can be
+ * used wherever a GraphInterface is expected; they unbox their arguments
+ * and then call the int methods.
+ *
+ * Every list of ids is kept sorted, so finding an edge is a binary search,
+ * O(log degree), while adding or removing one shifts the ids after it,
+ * O(degree). The sorted lists also let the common neighbors of two
+ * vertices be found without hashing: by a merge when the degrees are
+ * close and by a galloping search when one is much larger. A vertex whose
+ * degree passes a share of the number of ids also keeps its neighbors in
+ * a bitset, so that intersecting with it costs one bit test per id of the
+ * other list. The bitset is built by the edge insert that makes the vertex
+ * dense, so reading the graph, intersecting included, never changes it.
+ * An undirected graph does not allow an edge from a vertex to itself.
+ *
+ * The graph is not synchronized. Adding or removing an edge changes only
+ * the lists of its two vertices and the arc count, which is atomic, so
+ * threads that each lock the vertices they change may add and remove
+ * edges between different vertices at the same time, as long as no
+ * vertex is added or removed meanwhile.
+ */
+public class IntGraph implements GraphInterface<Integer>, IndexedGraph<Integer>
+{
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int DEFAULT_DEGREE = 4;
+    private static final int[] NO_NEIGHBORS = new int[0];
+    private static final int MIN_DENSE_DEGREE = 1024;    // Smallest degree that gets a bitset
+    private static final int DENSE_FRACTION = 32;        // A bitset is no larger than the list at this share
+    private static final int GALLOP_RATIO = 16;          // Degree skew at which galloping beats a merge
+
+    private final boolean directed;
+    private int[][] outNeighbors;   // Id -> neighbor ids, or null if there is no such vertex
+    private double[][] outWeights;  // Id -> weights of the edges to the neighbors, or null if all zero
+    private int[] outDegree;        // Id -> number of neighbor ids in use
+    private int[][] inNeighbors;    // Id -> ids with edges to this vertex (directed graphs only)
+    private double[][] inWeights;   // Id -> weights of those edges, or null if all zero
+    private int[] inDegree;         // Id -> number of incoming ids in use
+    private long[][] neighborBits;  // Id -> bitset of neighbor ids, or null if not built
+    private int indexCapacity;      // One more than the largest id in use
+    private int numberOfVertices;
+    private final AtomicInteger numberOfArcs;  // An undirected edge counts twice
+
+    /** Default constructor for a directed graph. */
+    public IntGraph()
+    {
+        this(true);
+    } // end default constructor
+
+    /**
+     * Constructor.
+     *
+     * @param directed True for a directed graph, false for an undirected one.
+     */
+    public IntGraph(boolean directed)
+    {
+        this.directed = directed;
+        this.numberOfArcs = new AtomicInteger();
+        initializeDataFields(DEFAULT_CAPACITY);
+    } // end constructor
+
+    /**
+     * Creates an unweighted graph from adjacency rows in compressed sparse
+     * row (CSR) form, such as a snapshot stores, without adding the edges
+     * one at a time. Each row is copied into its vertex's own list, so the
+     * arrays may be reused afterward. The rows are checked in one pass,
+     * which in an undirected graph also sums a hash of every arc that
+     * cancels out only when each arc has its reverse.
+     * Runtime: O(V + E).
+     *
+     * @param directed  True for a directed graph, false for an undirected one.
+     * @param vertices  Id -> whether the id is a vertex.
+     * @param offsets   Id -> position of the id's first neighbor in neighbors,
+     *                  plus one more entry marking the end of the last row.
+     * @param neighbors The neighbor ids of every vertex, row after row,
+     *                  each row sorted without repeats. An undirected edge
+     *                  appears in the rows of both of its vertices.
+     * @return          The graph.
+     * @throws IllegalArgumentException if the offsets do not describe the
+     *         neighbors, a row is not sorted, names a missing vertex or
+     *         belongs to one, or, in an undirected graph, holds a vertex's
+     *         own id or an arc whose reverse is missing.
+     */
+    public static IntGraph fromCompressedRows(boolean directed, boolean[] vertices, int[] offsets, int[] neighbors)
+    {
+        int capacity = vertices.length;
+        if ((offsets.length != capacity + 1) || (offsets[0] != 0) || (offsets[capacity] != neighbors.length))
+            throw new IllegalArgumentException("The row offsets do not match the neighbors.");
+
+        IntGraph graph = new IntGraph(directed);
+        graph.initializeDataFields(Math.max(capacity, DEFAULT_CAPACITY));
+        for (int id = 0; id < capacity; id++)
+        {
+            int start = offsets[id];
+            int end = offsets[id + 1];
+            if ((end < start) || (!vertices[id] && (end > start)))
+                throw new IllegalArgumentException("Row " + id + " has bad offsets.");
+
+            for (int i = start; i < end; i++)
+            {
+                int neighbor = neighbors[i];
+                if ((neighbor < 0) || (neighbor >= capacity) || !vertices[neighbor]
+                    || ((i > start) && (neighbor <= neighbors[i - 1])) || (!directed && (neighbor == id)))
+                    throw new IllegalArgumentException("Row " + id + " is not a sorted list of other vertices.");
+            } // end for
+
+            if (vertices[id])
+            {
+                graph.outNeighbors[id] = (start == end) ? NO_NEIGHBORS : Arrays.copyOfRange(neighbors, start, end);
+                graph.outDegree[id] = end - start;
+                graph.numberOfVertices++;
+                graph.indexCapacity = id + 1;
+            } // end if
+        } // end for
+        graph.numberOfArcs.set(neighbors.length);
+        for (int id = 0; id < graph.indexCapacity; id++)
+            graph.buildNeighborBitsIfDense(id);
+
+        if (directed)
+            graph.buildIncoming();
+        else
+            graph.checkReverseArcs();
+
+        return graph;
+    } // end fromCompressedRows
+
+    /**
+     * Sees whether the graph is directed.
+     *
+     * @return True if the graph is directed.
+     */
+    public boolean isDirected()
+    {
+        return directed;
+    } // end isDirected
+
+    /**
+     * Adds a vertex with a given id.
+     * Runtime: O(1) amortized.
+     *
+     * @param id A non-negative id that is not in use.
+     * @return   True if the vertex is added, or false if the id is in use.
+     * @throws IllegalArgumentException if id is negative.
+     */
+    public boolean addVertex(int id)
+    {
+        if (id < 0)
+            throw new IllegalArgumentException("Vertex ids cannot be negative.");
+
+        if (id >= outNeighbors.length)
+            ensureCapacity(id + 1);
+
+        boolean added = (outNeighbors[id] == null);
+        if (added)
+        {
+            outNeighbors[id] = NO_NEIGHBORS;
+            if (directed)
+                inNeighbors[id] = NO_NEIGHBORS;
+            numberOfVertices++;
+            indexCapacity = Math.max(indexCapacity, id + 1);
+        } // end if
+
+        return added;
+    } // end addVertex
+
+    /**
+     * Makes room for vertices with ids below a given capacity, so that
+     * adding them does not move the per-id arrays. A caller that lets
+     * other threads read the graph while it adds vertices can grow the
+     * arrays first, while no one is reading.
+     * Runtime: O(capacity) if the arrays grow, else O(1).
+     *
+     * @param capacity The number of ids to make room for.
+     */
+    public void ensureIndexCapacity(int capacity)
+    {
+        if (capacity > outNeighbors.length)
+            ensureCapacity(capacity);
+    } // end ensureIndexCapacity
+
+    /**
+     * Removes a vertex and every edge that begins or ends at it.
+     * Runtime: O(sum of the degrees of the vertex and its neighbors).
+     *
+     * @param id The id of the vertex.
+     * @return   True if the vertex was removed, or false if there is no such vertex.
+     */
+    public boolean removeVertex(int id)
+    {
+        boolean removed = contains(id);
+        if (removed)
+        {
+            while (outDegree[id] > 0)
+                removeEdge(id, outNeighbors[id][outDegree[id] - 1]);
+
+            if (directed)
+            {
+                while (inDegree[id] > 0)
+                    removeEdge(inNeighbors[id][inDegree[id] - 1], id);
+                inNeighbors[id] = null;
+                inWeights[id] = null;
+            } // end if
+
+            outNeighbors[id] = null;
+            outWeights[id] = null;
+            neighborBits[id] = null;
+            numberOfVertices--;
+            while ((indexCapacity > 0) && (outNeighbors[indexCapacity - 1] == null))
+                indexCapacity--;
+        } // end if
+
+        return removed;
+    } // end removeVertex
+
+    /**
+     * Sees whether a vertex with a given id is in the graph.
+     *
+     * @param id An id.
+     * @return   True if the graph has a vertex with that id.
+     */
+    public boolean contains(int id)
+    {
+        return (id >= 0) && (id < outNeighbors.length) && (outNeighbors[id] != null);
+    } // end contains
+
+    /**
+     * Adds a weighted edge between two vertices in the graph.
+     * Runtime: O(degree of begin + degree of end).
+     *
+     * @param begin      The id of the edge's origin vertex.
+     * @param end        The id of the edge's end vertex.
+     * @param edgeWeight The weight of the edge.
+     * @return           True if the edge is added, or false if either vertex
+     *                   is missing, the edge already exists, or the graph is
+     *                   undirected and begin equals end.
+     */
+    public boolean addEdge(int begin, int end, double edgeWeight)
+    {
+        boolean added = contains(begin) && contains(end) && (directed || (begin != end))
+                        && !hasEdge(begin, end);
+        if (added)
+        {
+            appendArc(begin, end, edgeWeight);
+            if (directed)
+                appendIncoming(end, begin, edgeWeight);
+            else
+                appendArc(end, begin, edgeWeight);
+        } // end if
+
+        return added;
+    } // end addEdge
+
+    /**
+     * Adds an unweighted edge between two vertices in the graph.
+     * Runtime: O(degree of begin + degree of end).
+     *
+     * @param begin The id of the edge's origin vertex.
+     * @param end   The id of the edge's end vertex.
+     * @return      True if the edge is added, or false if either vertex is
+     *              missing, the edge already exists, or the graph is
+     *              undirected and begin equals end.
+     */
+    public boolean addEdge(int begin, int end)
+    {
+        return addEdge(begin, end, 0);
+    } // end addEdge
+
+    /**
+     * Adds many unweighted edges at once. The edges are grouped by the
+     * vertex they begin at with a counting sort, each group is sorted and
+     * then merged into that vertex's list in one pass, so duplicates
+     * within the batch and edges that already exist are dropped without
+     * a search per edge, and each list grows at most once.
+     * Runtime: O(k log k + the degrees of the vertices touched) for k edges.
+     *
+     * @param begins The ids of the edges' origin vertices.
+     * @param ends   The ids of the edges' end vertices, matched by position.
+     * @return       The number of edges added; pairs with a missing vertex,
+     *               duplicates, existing edges and, in an undirected graph,
+     *               edges from a vertex to itself are skipped.
+     * @throws IllegalArgumentException if the arrays differ in length.
+     */
+    public int addEdges(int[] begins, int[] ends)
+    {
+        if (begins.length != ends.length)
+            throw new IllegalArgumentException("Every edge needs both a beginning and an end.");
+
+        int added = mergeArcs(outNeighbors, outWeights, outDegree, begins, ends, !directed, true);
+        if (directed)
+            mergeArcs(inNeighbors, inWeights, inDegree, ends, begins, false, false);
+        numberOfArcs.addAndGet(added);
+
+        return directed ? added : added / 2;
+    } // end addEdges
+
+    /**
+     * Adds one arc of an undirected edge, for a caller that locks the two
+     * ends' lists separately and adds the other arc, with addArcs, later.
+     * Until then the edge is seen from begin only, and
+     * getNumberOfEdges counts it as half an edge, rounded down.
+     * Runtime: O(degree of begin).
+     *
+     * @param begin The id whose list gets the arc.
+     * @param end   The id the arc leads to.
+     * @return      True if the arc is added, or false if either vertex is
+     *              missing, the arc already exists, or begin equals end.
+     * @throws IllegalStateException if the graph is directed.
+     */
+    public boolean addArc(int begin, int end)
+    {
+        checkUndirected();
+        boolean added = contains(begin) && contains(end) && (begin != end) && !hasEdge(begin, end);
+        if (added)
+            appendArc(begin, end, 0);
+
+        return added;
+    } // end addArc
+
+    /**
+     * Adds the arcs from one vertex of an undirected graph to many others,
+     * completing edges whose other arcs addArc added. The ids are sorted
+     * and merged into the vertex's list in one pass.
+     * Runtime: O(k log k + degree of begin) for k ids.
+     *
+     * @param begin The id whose list gets the arcs.
+     * @param ends  The ids the arcs lead to; missing vertices, begin itself
+     *              and arcs that already exist are skipped.
+     * @return      The number of arcs added.
+     * @throws IllegalStateException if the graph is directed.
+     */
+    public int addArcs(int begin, int[] ends)
+    {
+        checkUndirected();
+        if (!contains(begin))
+            return 0;
+
+        int[] run = new int[ends.length];
+        int length = 0;
+        for (int end : ends)
+        {
+            if (isNewArcCandidate(begin, end))
+                run[length++] = end;
+        } // end for
+        Arrays.sort(run, 0, length);
+
+        int merged = mergeInto(outNeighbors, outWeights, outDegree, begin, run, 0, length);
+        for (int i = 0; i < merged; i++)
+            updateNeighborBit(begin, run[i], true);
+        buildNeighborBitsIfDense(begin);
+        numberOfArcs.addAndGet(merged);
+
+        return merged;
+    } // end addArcs
+
+    /**
+     * Removes the edge between two vertices.
+     * Runtime: O(degree of begin + degree of end).
+     *
+     * @param begin The id of the edge's origin vertex.
+     * @param end   The id of the edge's end vertex.
+     * @return      True if the edge was removed, or false if there was no such edge.
+     */
+    public boolean removeEdge(int begin, int end)
+    {
+        boolean removed = contains(begin) && contains(end)
+                          && removeFrom(outNeighbors, outWeights, outDegree, begin, end);
+        if (removed)
+        {
+            updateNeighborBit(begin, end, false);
+            numberOfArcs.decrementAndGet();
+            if (directed)
+                removeFrom(inNeighbors, inWeights, inDegree, end, begin);
+            else
+            {
+                removeFrom(outNeighbors, outWeights, outDegree, end, begin);
+                updateNeighborBit(end, begin, false);
+                numberOfArcs.decrementAndGet();
+            } // end if
+        } // end if
+
+        return removed;
+    } // end removeEdge
+
+    /**
+     * Sees whether an edge exists between two vertices.
+     * Runtime: O(log(degree of begin)).
+     *
+     * @param begin The id of the edge's origin vertex.
+     * @param end   The id of the edge's end vertex.
+     * @return      True if the edge exists.
+     */
+    public boolean hasEdge(int begin, int end)
+    {
+        return contains(begin) && (positionOf(outNeighbors[begin], outDegree[begin], end) != -1);
+    } // end hasEdge
+
+    /**
+     * Gets the number of edges that begin at a vertex.
+     *
+     * @param id The id of the vertex.
+     * @return   Its out-degree, or 0 if there is no such vertex.
+     */
+    public int getDegree(int id)
+    {
+        return contains(id) ? outDegree[id] : 0;
+    } // end getDegree
+
+    /**
+     * Gets the ids of the neighbors of a vertex.
+     * Runtime: O(degree).
+     *
+     * @param id The id of the vertex.
+     * @return   A new array of the ids that the vertex's edges end at, in
+     *           increasing order; empty if there is no such vertex.
+     */
+    public int[] getNeighbors(int id)
+    {
+        return contains(id) ? Arrays.copyOf(outNeighbors[id], outDegree[id]) : NO_NEIGHBORS;
+    } // end getNeighbors
+
+    /**
+     * Gets the ids that two vertices both have edges to.
+     * Runtime: O(smaller degree * log(larger degree / smaller degree)),
+     * or O(smaller degree) if the larger one has a bitset.
+     *
+     * @param first  The id of one vertex.
+     * @param second The id of the other vertex.
+     * @return       A new array of the common neighbors in increasing order;
+     *               empty if either vertex is missing.
+     */
+    public int[] getCommonNeighbors(int first, int second)
+    {
+        if (!contains(first) || !contains(second))
+            return NO_NEIGHBORS;
+
+        int[] common = new int[Math.min(outDegree[first], outDegree[second])];
+        int count = intersectNeighbors(first, second, common);
+        return Arrays.copyOf(common, count);
+    } // end getCommonNeighbors
+
+    /**
+     * Counts the ids that two vertices both have edges to.
+     * Runtime: as for getCommonNeighbors, without allocating.
+     *
+     * @param first  The id of one vertex.
+     * @param second The id of the other vertex.
+     * @return       The number of common neighbors; 0 if either vertex is missing.
+     */
+    public int getCommonNeighborCount(int first, int second)
+    {
+        if (!contains(first) || !contains(second))
+            return 0;
+
+        return intersectNeighbors(first, second, null);
+    } // end getCommonNeighborCount
+
+    /**
+     * Performs a breadth-first traversal without boxing any id.
+     * Runtime: O(V + E).
+     *
+     * @param origin The id of the origin vertex.
+     * @return       The ids in traversal order, origin first; empty if
+     *               there is no such vertex.
+     */
+    public int[] getBreadthFirstOrder(int origin)
+    {
+        int[] order = NO_NEIGHBORS;
+        if (contains(origin))
+        {
+            TraversalContext context = TraversalContext.acquire(indexCapacity);
+            int count = FrontierSearch.search(this, origin, context);
+            order = Arrays.copyOf(context.vertexQueue, count);
+            context.release();
+        } // end if
+
+        return order;
+    } // end getBreadthFirstOrder
+
+    /** {@inheritDoc} */
+    public boolean addVertex(Integer vertexLabel)
+    {
+        return addVertex(vertexLabel.intValue());
+    } // end addVertex
+
+    /** {@inheritDoc} */
+    public boolean addEdge(Integer begin, Integer end, double edgeWeight)
+    {
+        return addEdge(begin.intValue(), end.intValue(), edgeWeight);
+    } // end addEdge
+
+    /** {@inheritDoc} */
+    public boolean addEdge(Integer begin, Integer end)
+    {
+        return addEdge(begin.intValue(), end.intValue(), 0);
+    } // end addEdge
+
+    /** {@inheritDoc} */
+    public boolean hasEdge(Integer begin, Integer end)
+    {
+        return hasEdge(begin.intValue(), end.intValue());
+    } // end hasEdge
+
+    /** {@inheritDoc} */
+    public boolean isEmpty()
+    {
+        return numberOfVertices == 0;
+    } // end isEmpty
+
+    /** {@inheritDoc} */
+    public int getNumberOfVertices()
+    {
+        return numberOfVertices;
+    } // end getNumberOfVertices
+
+    /** {@inheritDoc} */
+    public int getNumberOfEdges()
+    {
+        return directed ? numberOfArcs.get() : numberOfArcs.get() / 2;
+    } // end getNumberOfEdges
+
+    /** {@inheritDoc} */
+    public void clear()
+    {
+        initializeDataFields(DEFAULT_CAPACITY);
+    } // end clear
+
+    /** {@inheritDoc} */
+    public int getIndexCapacity()
+    {
+        return indexCapacity;
+    } // end getIndexCapacity
+
+    /** {@inheritDoc} */
+    public long getNumberOfArcs()
+    {
+        return numberOfArcs.get();
+    } // end getNumberOfArcs
+
+    /** {@inheritDoc} */
+    public int getIndex(Integer label)
+    {
+        return ((label != null) && contains(label)) ? label : -1;
+    } // end getIndex
+
+    /** {@inheritDoc} */
+    public Integer getLabel(int index)
+    {
+        return contains(index) ? Integer.valueOf(index) : null;
+    } // end getLabel
+
+    /** {@inheritDoc} */
+    public int getOutDegree(int index)
+    {
+        return outDegree[index];
+    } // end getOutDegree
+
+    /** {@inheritDoc} */
+    public int getOutNeighbor(int index, int position)
+    {
+        return outNeighbors[index][position];
+    } // end getOutNeighbor
+
+    /** {@inheritDoc} */
+    public double getOutWeight(int index, int position)
+    {
+        return (outWeights[index] == null) ? 0 : outWeights[index][position];
+    } // end getOutWeight
+
+    /** {@inheritDoc} */
+    public int getInDegree(int index)
+    {
+        return directed ? inDegree[index] : outDegree[index];
+    } // end getInDegree
+
+    /** {@inheritDoc} */
+    public int getInNeighbor(int index, int position)
+    {
+        return directed ? inNeighbors[index][position] : outNeighbors[index][position];
+    } // end getInNeighbor
+
+    /** {@inheritDoc} */
+    public double getInWeight(int index, int position)
+    {
+        double[] weights = directed ? inWeights[index] : outWeights[index];
+        return (weights == null) ? 0 : weights[position];
+    } // end getInWeight
+
+    /**
+     * {@inheritDoc}
+     *
+     * On large graphs the traversal may expand a level bottom-up, which
+     * keeps the levels in order but can change the order within a level.
+     */
+    public QueueInterface<Integer> getBreadthFirstTraversal(Integer origin)
+    {
+        return GraphSearch.getBreadthFirstTraversal(this, origin);
+    } // end getBreadthFirstTraversal
+
+    /** {@inheritDoc} */
+    public Iterator<Integer> getNeighborhood(Integer origin, int maxDepth, int maxResults, Predicate<? super Integer> filter)
+    {
+        return GraphSearch.getNeighborhood(this, origin, maxDepth, maxResults, filter);
+    } // end getNeighborhood
+
+    /** {@inheritDoc} */
+    public QueueInterface<Integer> getDepthFirstTraversal(Integer origin)
+    {
+        return GraphSearch.getDepthFirstTraversal(this, origin);
+    } // end getDepthFirstTraversal
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException if the graph is undirected.
+     * @throws IllegalStateException if the graph contains a cycle; the
+     *         message lists the vertices of one cycle.
+     */
+    public StackInterface<Integer> getTopologicalOrder()
+    {
+        if (!directed)
+            throw new UnsupportedOperationException("Topological sort is illegal in an undirected graph.");
+
+        return GraphSearch.getTopologicalOrder(this);
+    } // end getTopologicalOrder
+
+    /** {@inheritDoc} */
+    public int getShortestPath(Integer begin, Integer end, StackInterface<Integer> path)
+    {
+        return GraphSearch.getShortestPath(this, begin, end, path);
+    } // end getShortestPath
+
+    /** {@inheritDoc} */
+    public double getCheapestPath(Integer begin, Integer end, StackInterface<Integer> path)
+    {
+        return GraphSearch.getCheapestPath(this, begin, end, path);
+    } // end getCheapestPath
+
+    /**
+     * Intersects the neighbors of two vertices that are in the graph,
+     * choosing the method by their degrees.
+     *
+     * @param first  The id of one vertex.
+     * @param second The id of the other vertex.
+     * @param common The array for the common neighbors, or null to only count them.
+     * @return       The number of common neighbors.
+     */
+    private int intersectNeighbors(int first, int second, int[] common)
+    {
+        int shorter = first;
+        int longer = second;
+        if (outDegree[shorter] > outDegree[longer])
+        {
+            shorter = second;
+            longer = first;
+        } // end if
+
+        int shorterSize = outDegree[shorter];
+        int longerSize = outDegree[longer];
+        if (shorterSize == 0)
+            return 0;
+
+        long[] longerBits = getNeighborBits(longer);
+        if (longerBits != null)
+        {
+            // Two dense vertices may be cheaper to AND a word at a time
+            long[] shorterBits = getNeighborBits(shorter);
+            if ((shorterBits != null) && (Math.min(longerBits.length, shorterBits.length) < shorterSize))
+                return SortedIntersection.and(shorterBits, longerBits, common);
+            return SortedIntersection.probe(outNeighbors[shorter], shorterSize, longerBits, common);
+        } // end if
+
+        if (longerSize / shorterSize >= GALLOP_RATIO)
+            return SortedIntersection.gallop(outNeighbors[shorter], 0, shorterSize,
+                                             outNeighbors[longer], 0, longerSize, common);
+        return SortedIntersection.merge(outNeighbors[shorter], 0, shorterSize,
+                                        outNeighbors[longer], 0, longerSize, common);
+    } // end intersectNeighbors
+
+    /**
+     * Gets the bitset of a vertex's neighbors.
+     *
+     * @param id The id of a vertex in the graph.
+     * @return   The bitset, or null if the vertex is not dense.
+     */
+    private long[] getNeighborBits(int id)
+    {
+        return neighborBits[id];
+    } // end getNeighborBits
+
+    /**
+     * Builds the bitset of a vertex's neighbors once the vertex is dense
+     * enough to have one. Called after the vertex's list grows, so that
+     * the bitset is never built while the graph is only being read.
+     *
+     * @param id The id of a vertex in the graph.
+     */
+    private void buildNeighborBitsIfDense(int id)
+    {
+        int degree = outDegree[id];
+        if ((neighborBits[id] == null) && (degree >= MIN_DENSE_DEGREE)
+            && (degree >= indexCapacity / DENSE_FRACTION))
+        {
+            // The list is sorted, so its last id is the largest
+            int size = Math.max(indexCapacity, outNeighbors[id][degree - 1] + 1);
+            long[] bits = new long[(size + 63) >>> 6];
+            for (int i = 0; i < degree; i++)
+            {
+                int neighbor = outNeighbors[id][i];
+                bits[neighbor >>> 6] |= 1L << neighbor;
+            } // end for
+            neighborBits[id] = bits;
+        } // end if
+    } // end buildNeighborBitsIfDense
+
+    /**
+     * Sets or clears one bit of a vertex's neighbor bitset, if it has one.
+     *
+     * @param owner    The id of the vertex.
+     * @param neighbor The neighbor id whose bit changes.
+     * @param present  True to set the bit, false to clear it.
+     */
+    private void updateNeighborBit(int owner, int neighbor, boolean present)
+    {
+        long[] bits = neighborBits[owner];
+        if (bits != null)
+        {
+            int word = neighbor >>> 6;
+            if (word >= bits.length)
+            {
+                if (!present)
+                    return;
+                bits = Arrays.copyOf(bits, Math.max(word + 1, 2 * bits.length));
+                neighborBits[owner] = bits;
+            } // end if
+
+            if (present)
+                bits[word] |= 1L << neighbor;
+            else
+                bits[word] &= ~(1L << neighbor);
+        } // end if
+    } // end updateNeighborBit
+
+    /**
+     * Fills the incoming lists of a directed graph from its out-lists.
+     * Visiting the vertices in id order appends each incoming list in
+     * sorted order.
+     */
+    private void buildIncoming()
+    {
+        for (int id = 0; id < indexCapacity; id++)
+        {
+            for (int position = 0; position < outDegree[id]; position++)
+                inDegree[outNeighbors[id][position]]++;
+        } // end for
+
+        for (int id = 0; id < indexCapacity; id++)
+        {
+            if (outNeighbors[id] != null)
+                inNeighbors[id] = (inDegree[id] == 0) ? NO_NEIGHBORS : new int[inDegree[id]];
+        } // end for
+
+        int[] filled = new int[indexCapacity];
+        for (int id = 0; id < indexCapacity; id++)
+        {
+            for (int position = 0; position < outDegree[id]; position++)
+            {
+                int neighbor = outNeighbors[id][position];
+                inNeighbors[neighbor][filled[neighbor]++] = id;
+            } // end for
+        } // end for
+    } // end buildIncoming
+
+    /**
+     * Checks that every arc of an undirected graph has its reverse without
+     * looking up any other vertex's list, which would cost a cache miss per
+     * arc. Each arc from u to v adds a(u)b(v) - a(v)b(u) to a sum, where a
+     * and b mix the bits of an id; the terms of an arc and its reverse
+     * cancel, so the sum is 0 when every arc has its reverse, and a missing
+     * or damaged arc leaves it nonzero but for a 1 in 2^64 chance.
+     *
+     * @throws IllegalArgumentException if an arc's reverse is missing.
+     */
+    private void checkReverseArcs()
+    {
+        long sum = 0;
+        for (int id = 0; id < indexCapacity; id++)
+        {
+            long a = mix(id, 0x9E3779B97F4A7C15L);
+            long b = mix(id, 0xC2B2AE3D27D4EB4FL);
+            for (int position = 0; position < outDegree[id]; position++)
+            {
+                int neighbor = outNeighbors[id][position];
+                sum += a * mix(neighbor, 0xC2B2AE3D27D4EB4FL) - mix(neighbor, 0x9E3779B97F4A7C15L) * b;
+            } // end for
+        } // end for
+
+        if (sum != 0)
+            throw new IllegalArgumentException("Some arc has no reverse.");
+    } // end checkReverseArcs
+
+    /**
+     * Mixes the bits of an id with a seed (the finalizer of SplitMix64).
+     *
+     * @param id   The id.
+     * @param seed An odd constant that picks the mix.
+     * @return     The mixed bits.
+     */
+    private static long mix(int id, long seed)
+    {
+        long z = (id + 1) * seed;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    } // end mix
+
+    /**
+     * Appends an arc to a vertex's neighbors.
+     *
+     * @param begin  The id the arc begins at.
+     * @param end    The id the arc ends at.
+     * @param weight The arc's weight.
+     */
+    private void appendArc(int begin, int end, double weight)
+    {
+        append(outNeighbors, outWeights, outDegree, begin, end, weight);
+        updateNeighborBit(begin, end, true);
+        buildNeighborBitsIfDense(begin);
+        numberOfArcs.incrementAndGet();
+    } // end appendArc
+
+    /**
+     * Records that an arc of a directed graph ends at a vertex.
+     *
+     * @param end    The id the arc ends at.
+     * @param begin  The id the arc begins at.
+     * @param weight The arc's weight.
+     */
+    private void appendIncoming(int end, int begin, double weight)
+    {
+        append(inNeighbors, inWeights, inDegree, end, begin, weight);
+    } // end appendIncoming
+
+    /**
+     * Merges a batch of arcs into a set of sorted adjacency lists.
+     *
+     * @param lists     Id -> list of ids.
+     * @param weights   Id -> list of weights, or null entries.
+     * @param sizes     Id -> number of ids in use.
+     * @param owners    The ids whose lists the arcs go into.
+     * @param ids       The ids the arcs lead to, matched by position.
+     * @param bothWays  True to also merge each arc reversed.
+     * @param outgoing  True if the lists are the out-lists, whose bitsets
+     *                  must be kept up to date.
+     * @return          The number of arcs merged in.
+     */
+    private int mergeArcs(int[][] lists, double[][] weights, int[] sizes, int[] owners, int[] ids,
+                          boolean bothWays, boolean outgoing)
+    {
+        // Counts the valid arcs of each owner, then places them by owner
+        int[] offsets = new int[indexCapacity + 1];
+        for (int pair = 0; pair < owners.length; pair++)
+        {
+            if (isNewArcCandidate(owners[pair], ids[pair]))
+            {
+                offsets[owners[pair] + 1]++;
+                if (bothWays)
+                    offsets[ids[pair] + 1]++;
+            } // end if
+        } // end for
+        for (int owner = 0; owner < indexCapacity; owner++)
+            offsets[owner + 1] += offsets[owner];
+
+        int[] grouped = new int[offsets[indexCapacity]];
+        int[] next = Arrays.copyOf(offsets, indexCapacity);
+        for (int pair = 0; pair < owners.length; pair++)
+        {
+            if (isNewArcCandidate(owners[pair], ids[pair]))
+            {
+                grouped[next[owners[pair]]++] = ids[pair];
+                if (bothWays)
+                    grouped[next[ids[pair]]++] = owners[pair];
+            } // end if
+        } // end for
+
+        int added = 0;
+        for (int owner = 0; owner < indexCapacity; owner++)
+        {
+            int start = offsets[owner];
+            int end = offsets[owner + 1];
+            if (start < end)
+            {
+                Arrays.sort(grouped, start, end);
+                int merged = mergeInto(lists, weights, sizes, owner, grouped, start, end);
+                if (outgoing)
+                {
+                    for (int i = start; i < start + merged; i++)
+                        updateNeighborBit(owner, grouped[i], true);
+                    buildNeighborBitsIfDense(owner);
+                } // end if
+                added += merged;
+            } // end if
+        } // end for
+
+        return added;
+    } // end mergeArcs
+
+    /** Throws unless the graph is undirected, for the one-way arc methods. */
+    private void checkUndirected()
+    {
+        if (directed)
+            throw new IllegalStateException("Only an undirected graph's arcs can be added one way.");
+    } // end checkUndirected
+
+    /**
+     * Sees whether a pair of ids could be a new arc: both vertices exist
+     * and, in an undirected graph, they differ.
+     *
+     * @param begin The id the arc would begin at.
+     * @param end   The id the arc would end at.
+     * @return      True if the pair is worth merging.
+     */
+    private boolean isNewArcCandidate(int begin, int end)
+    {
+        return contains(begin) && contains(end) && (directed || (begin != end));
+    } // end isNewArcCandidate
+
+    /**
+     * Merges a sorted run of ids into one vertex's sorted list, skipping
+     * repeats within the run and ids already in the list. New arcs get
+     * weight 0.
+     *
+     * @param lists   Id -> list of ids.
+     * @param weights Id -> list of weights, or null entries.
+     * @param sizes   Id -> number of ids in use.
+     * @param owner   The id whose list grows.
+     * @param run     An array holding the sorted run.
+     * @param start   The position of the run's first id.
+     * @param end     The position just past its last id.
+     * @return        The number of ids added to the list, which are left
+     *                at the front of the run.
+     */
+    private static int mergeInto(int[][] lists, double[][] weights, int[] sizes, int owner,
+                                 int[] run, int start, int end)
+    {
+        int[] list = lists[owner];
+        int size = sizes[owner];
+
+        // Drops repeats and existing ids from the run, in place
+        int kept = start;
+        int position = 0;
+        for (int i = start; i < end; i++)
+        {
+            int id = run[i];
+            if ((kept > start) && (run[kept - 1] == id))
+                continue;
+            while ((position < size) && (list[position] < id))
+                position++;
+            if ((position == size) || (list[position] != id))
+                run[kept++] = id;
+        } // end for
+
+        int count = kept - start;
+        if (count == 0)
+            return 0;
+
+        // Grows the list once, then merges from the back
+        int newSize = size + count;
+        if (newSize > list.length)
+        {
+            int newLength = Math.max(newSize, 2 * list.length);
+            list = Arrays.copyOf(list, newLength);
+            lists[owner] = list;
+            if (weights[owner] != null)
+                weights[owner] = Arrays.copyOf(weights[owner], newLength);
+        } // end if
+
+        double[] weight = weights[owner];
+        int from = size - 1;
+        int fromRun = kept - 1;
+        for (int to = newSize - 1; fromRun >= start; to--)
+        {
+            if ((from >= 0) && (list[from] > run[fromRun]))
+            {
+                list[to] = list[from];
+                if (weight != null)
+                    weight[to] = weight[from];
+                from--;
+            }
+            else
+            {
+                list[to] = run[fromRun];
+                if (weight != null)
+                    weight[to] = 0;
+                fromRun--;
+            } // end if
+        } // end for
+
+        sizes[owner] = newSize;
+        return count;
+    } // end mergeInto
+
+    /**
+     * Inserts an id into one vertex's sorted list in a set of adjacency
+     * lists, growing the list if it is full. The weight list is created the
+     * first time a nonzero weight is inserted.
+     *
+     * @param lists   Id -> list of ids.
+     * @param weights Id -> list of weights, or null entries.
+     * @param sizes   Id -> number of ids in use.
+     * @param owner   The id whose list grows.
+     * @param id      The id to insert, which must not be in the list.
+     * @param weight  The weight to insert.
+     */
+    private static void append(int[][] lists, double[][] weights, int[] sizes, int owner, int id, double weight)
+    {
+        int size = sizes[owner];
+        if (size == lists[owner].length)
+        {
+            int newLength = Math.max(DEFAULT_DEGREE, 2 * size);
+            lists[owner] = Arrays.copyOf(lists[owner], newLength);
+            if (weights[owner] != null)
+                weights[owner] = Arrays.copyOf(weights[owner], newLength);
+        } // end if
+
+        if ((weight != 0) && (weights[owner] == null))
+            weights[owner] = new double[lists[owner].length];
+
+        // Shifts the larger ids up by one to make room
+        int position = -Arrays.binarySearch(lists[owner], 0, size, id) - 1;
+        System.arraycopy(lists[owner], position, lists[owner], position + 1, size - position);
+        lists[owner][position] = id;
+        if (weights[owner] != null)
+        {
+            System.arraycopy(weights[owner], position, weights[owner], position + 1, size - position);
+            weights[owner][position] = weight;
+        } // end if
+        sizes[owner] = size + 1;
+    } // end append
+
+    /**
+     * Removes an id from one vertex's sorted list by shifting the larger ids down.
+     *
+     * @param lists   Id -> list of ids.
+     * @param weights Id -> list of weights, or null entries.
+     * @param sizes   Id -> number of ids in use.
+     * @param owner   The id whose list shrinks.
+     * @param id      The id to remove.
+     * @return        True if the id was in the list.
+     */
+    private static boolean removeFrom(int[][] lists, double[][] weights, int[] sizes, int owner, int id)
+    {
+        int position = positionOf(lists[owner], sizes[owner], id);
+        if (position != -1)
+        {
+            int last = sizes[owner] - 1;
+            System.arraycopy(lists[owner], position + 1, lists[owner], position, last - position);
+            if (weights[owner] != null)
+                System.arraycopy(weights[owner], position + 1, weights[owner], position, last - position);
+            sizes[owner] = last;
+        } // end if
+
+        return position != -1;
+    } // end removeFrom
+
+    /**
+     * Finds an id in the first entries of a sorted list.
+     *
+     * @param list The list.
+     * @param size The number of entries in use.
+     * @param id   The id to find.
+     * @return     The id's position, or -1 if it is not there.
+     */
+    private static int positionOf(int[] list, int size, int id)
+    {
+        int position = Arrays.binarySearch(list, 0, size, id);
+        return (position >= 0) ? position : -1;
+    } // end positionOf
+
+    /**
+     * Grows the per-id arrays to hold at least a given number of ids.
+     *
+     * @param minimumCapacity The number of ids needed.
+     */
+    private void ensureCapacity(int minimumCapacity)
+    {
+        int newLength = Math.max(minimumCapacity, 2 * outNeighbors.length);
+        outNeighbors = Arrays.copyOf(outNeighbors, newLength);
+        outWeights = Arrays.copyOf(outWeights, newLength);
+        outDegree = Arrays.copyOf(outDegree, newLength);
+        neighborBits = Arrays.copyOf(neighborBits, newLength);
+        if (directed)
+        {
+            inNeighbors = Arrays.copyOf(inNeighbors, newLength);
+            inWeights = Arrays.copyOf(inWeights, newLength);
+            inDegree = Arrays.copyOf(inDegree, newLength);
+        } // end if
+    } // end ensureCapacity
+
+    /**
+     * Empties the graph and sizes the per-id arrays.
+     *
+     * @param capacity The number of ids to make room for.
+     */
+    private void initializeDataFields(int capacity)
+    {
+        outNeighbors = new int[capacity][];
+        outWeights = new double[capacity][];
+        outDegree = new int[capacity];
+        neighborBits = new long[capacity][];
+        if (directed)
+        {
+            inNeighbors = new int[capacity][];
+            inWeights = new double[capacity][];
+            inDegree = new int[capacity];
+        } // end if
+
+        indexCapacity = 0;
+        numberOfVertices = 0;
+        numberOfArcs.set(0);
+    } // end initializeDataFields
+} // end IntGraph
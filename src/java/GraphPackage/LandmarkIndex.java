@@ -0,0 +1,299 @@
+package GraphPackage;
+
+import ADTPackage.IndexedMinHeap;
+import ADTPackage.StackInterface;
+
+import java.util.Arrays;
+
+/**
+ * Answers repeated cheapest-path queries on a mostly static graph with A*
+ * search guided by landmarks (the ALT algorithm of Goldberg and Harrelson).
+ *
+ * Preprocessing picks K landmark vertices and stores, for each landmark L,
+ * the cheapest cost from L to every vertex and from every vertex to L. By
+ * the triangle inequality, the cost from v to t is at least
+ * cost(L, t) - cost(L, v) and at least cost(v, L) - cost(t, L). The largest
+ * of these over all landmarks is a consistent lower bound, which steers
+ * the search toward t so it settles far fewer vertices than Dijkstra's
+ * algorithm while still returning a cheapest path.
+ *
+ * Landmarks are picked farthest-first: each new landmark is the vertex
+ * whose cheapest cost from the landmarks already picked is largest, which
+ * spreads them around the edge of the graph where their bounds are tightest.
+ *
+ * The bounds describe the graph as it was when they were computed. After
+ * changing the graph's vertices, edges or weights, call refresh before the
+ * next query; until then the answers may not be the cheapest. Edge weights
+ * must not be negative. Queries may run in parallel with each other but not
+ * with refresh or with changes to the graph.
+ *
+ * @param <T> The data type for the vertex label.
+ */
+public final class LandmarkIndex<T>
+{
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+    private final IndexedGraph<T> graph;
+    private final int numberOfLandmarks;
+    private final GraphSearch.LowerBound bound = this::getLowerBound;
+    private int[] landmarks;
+    private double[][] costFrom;   // [landmark][vertex index] -> cost from the landmark to the vertex
+    private double[][] costTo;     // [landmark][vertex index] -> cost from the vertex to the landmark
+
+    /**
+     * Constructor that preprocesses a graph.
+     * Runtime: O(K (E log V)).
+     *
+     * @param graph             The graph to answer queries on.
+     * @param numberOfLandmarks The number of landmarks, K.
+     * @throws IllegalArgumentException if numberOfLandmarks is not positive.
+     */
+    public LandmarkIndex(DirectedGraph<T> graph, int numberOfLandmarks)
+    {
+        this((IndexedGraph<T>) graph, numberOfLandmarks);
+    } // end constructor
+
+    /**
+     * Constructor that preprocesses a snapshot.
+     * Runtime: O(K (E log V)).
+     *
+     * @param graph             The snapshot to answer queries on.
+     * @param numberOfLandmarks The number of landmarks, K.
+     * @throws IllegalArgumentException if numberOfLandmarks is not positive.
+     */
+    public LandmarkIndex(CompressedGraph<T> graph, int numberOfLandmarks)
+    {
+        this((IndexedGraph<T>) graph, numberOfLandmarks);
+    } // end constructor
+
+    /**
+     * Constructor for any indexed graph.
+     *
+     * @param graph             The graph to answer queries on.
+     * @param numberOfLandmarks The number of landmarks, K.
+     */
+    private LandmarkIndex(IndexedGraph<T> graph, int numberOfLandmarks)
+    {
+        if (numberOfLandmarks <= 0)
+            throw new IllegalArgumentException("The number of landmarks must be positive.");
+
+        this.graph = graph;
+        this.numberOfLandmarks = numberOfLandmarks;
+        refresh();
+    } // end constructor
+
+    /**
+     * Picks the landmarks again and recomputes their costs, for use after
+     * the graph has changed.
+     * Runtime: O(K (E log V)).
+     */
+    public void refresh()
+    {
+        int capacity = graph.getIndexCapacity();
+        int count = Math.min(numberOfLandmarks, graph.getNumberOfVertices());
+        int[] newLandmarks = new int[count];
+        double[][] newCostFrom = new double[count][];
+        double[][] newCostTo = new double[count][];
+
+        // Cost from the nearest landmark picked so far
+        double[] nearest = new double[capacity];
+        Arrays.fill(nearest, INFINITY);
+        int start = firstVertex();
+
+        for (int picked = 0; picked < count; picked++)
+        {
+            int landmark = (picked == 0) ? farthestFrom(start) : farthestVertex(nearest);
+            newLandmarks[picked] = landmark;
+            newCostFrom[picked] = computeCosts(landmark, true);
+            newCostTo[picked] = computeCosts(landmark, false);
+
+            for (int index = 0; index < capacity; index++)
+                nearest[index] = Math.min(nearest[index], newCostFrom[picked][index]);
+        } // end for
+
+        landmarks = newLandmarks;
+        costFrom = newCostFrom;
+        costTo = newCostTo;
+    } // end refresh
+
+    /**
+     * Gets the number of landmarks in use, which is K unless the graph has
+     * fewer vertices.
+     *
+     * @return The number of landmarks.
+     */
+    public int getNumberOfLandmarks()
+    {
+        return landmarks.length;
+    } // end getNumberOfLandmarks
+
+    /**
+     * Finds the least-cost path between two given vertices.
+     * Runtime: O(E log V), usually far less.
+     *
+     * @param begin An object that labels the path's origin vertex.
+     * @param end   An object that labels the path's destination vertex.
+     * @param path  A stack of labels that is empty initially; at the
+     *              completion of the method, this stack contains the labels
+     *              of the vertices along the cheapest path, with the label
+     *              of the origin vertex at the top.
+     * @return      The cost of the cheapest path, or 0 if there is none.
+     */
+    public double getCheapestPath(T begin, T end, StackInterface<T> path)
+    {
+        return GraphSearch.getCheapestPath(graph, begin, end, path, bound);
+    } // end getCheapestPath
+
+    /**
+     * Counts the vertices that a landmark-guided query settles.
+     *
+     * @param beginIndex The index of the path's origin vertex.
+     * @param endIndex   The index of the path's destination vertex.
+     * @return           The number of vertices settled.
+     */
+    int countSettled(int beginIndex, int endIndex)
+    {
+        TraversalContext context = TraversalContext.acquire(graph.getIndexCapacity());
+        int settled = GraphSearch.searchCheapest(graph, beginIndex, endIndex, bound, context);
+        context.release();
+        return settled;
+    } // end countSettled
+
+    /**
+     * Computes the landmark lower bound on the cost from one vertex to another.
+     *
+     * @param vertex The index of the path's origin vertex.
+     * @param target The index of the path's destination vertex.
+     * @return       The lower bound, or INFINITY if a landmark proves there
+     *               is no path.
+     */
+    private double getLowerBound(int vertex, int target)
+    {
+        double best = 0;
+        int computed = (landmarks.length == 0) ? 0 : costFrom[0].length;   // Newer indices have no costs
+        if ((vertex < computed) && (target < computed))
+        {
+            for (int landmark = 0; landmark < landmarks.length; landmark++)
+            {
+                // INFINITY - INFINITY is NaN, which fails both comparisons,
+                // so a landmark that reaches neither vertex is skipped
+                double ahead = costFrom[landmark][target] - costFrom[landmark][vertex];
+                if (ahead > best)
+                    best = ahead;
+
+                double behind = costTo[landmark][vertex] - costTo[landmark][target];
+                if (behind > best)
+                    best = behind;
+            } // end for
+        } // end if
+
+        return best;
+    } // end getLowerBound
+
+    /**
+     * Runs Dijkstra's algorithm over the whole graph from one vertex.
+     *
+     * @param source  The index of the vertex to start from.
+     * @param forward True to follow edges from the source, false to follow
+     *                them backward, giving costs to the source.
+     * @return        The cost of each vertex index, or INFINITY.
+     */
+    private double[] computeCosts(int source, boolean forward)
+    {
+        int capacity = graph.getIndexCapacity();
+        double[] cost = new double[capacity];
+        Arrays.fill(cost, INFINITY);
+        boolean[] settled = new boolean[capacity];
+        IndexedMinHeap heap = new IndexedMinHeap(capacity);
+
+        cost[source] = 0;
+        heap.add(source, 0);
+        while (!heap.isEmpty())
+        {
+            int vertex = heap.removeMin();
+            settled[vertex] = true;
+
+            int degree = forward ? graph.getOutDegree(vertex) : graph.getInDegree(vertex);
+            for (int position = 0; position < degree; position++)
+            {
+                int neighbor;
+                double weight;
+                if (forward)
+                {
+                    neighbor = graph.getOutNeighbor(vertex, position);
+                    weight = graph.getOutWeight(vertex, position);
+                }
+                else
+                {
+                    neighbor = graph.getInNeighbor(vertex, position);
+                    weight = graph.getInWeight(vertex, position);
+                } // end if
+
+                double nextCost = cost[vertex] + weight;
+                if (!settled[neighbor] && (nextCost < cost[neighbor]))
+                {
+                    if (heap.contains(neighbor))
+                        heap.decreaseKey(neighbor, nextCost);
+                    else
+                        heap.add(neighbor, nextCost);
+                    cost[neighbor] = nextCost;
+                } // end if
+            } // end for
+        } // end while
+
+        return cost;
+    } // end computeCosts
+
+    /**
+     * Finds the vertex whose cheapest cost from a given vertex is largest.
+     *
+     * @param source The index of the vertex to measure from.
+     * @return       The farthest reachable vertex.
+     */
+    private int farthestFrom(int source)
+    {
+        double[] cost = computeCosts(source, true);
+        int farthest = source;
+        for (int index = 0; index < cost.length; index++)
+        {
+            if ((cost[index] != INFINITY) && (cost[index] > cost[farthest]))
+                farthest = index;
+        } // end for
+
+        return farthest;
+    } // end farthestFrom
+
+    /**
+     * Finds the vertex farthest from the landmarks picked so far. A vertex
+     * that no landmark reaches counts as infinitely far, so every part of
+     * the graph gets a landmark before any part gets a second one.
+     *
+     * @param nearest The cost of each vertex from its nearest landmark.
+     * @return        The index of the farthest vertex.
+     */
+    private int farthestVertex(double[] nearest)
+    {
+        int farthest = -1;
+        for (int index = 0; index < nearest.length; index++)
+        {
+            if ((graph.getLabel(index) != null) && ((farthest == -1) || (nearest[index] > nearest[farthest])))
+                farthest = index;
+        } // end for
+
+        return farthest;
+    } // end farthestVertex
+
+    /**
+     * Finds the vertex with the smallest index.
+     *
+     * @return The index of the first vertex, or 0 if there is none.
+     */
+    private int firstVertex()
+    {
+        int index = 0;
+        while ((index < graph.getIndexCapacity()) && (graph.getLabel(index) == null))
+            index++;
+
+        return index;
+    } // end firstVertex
+} // end LandmarkIndex
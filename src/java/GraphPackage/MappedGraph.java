@@ -0,0 +1,816 @@
+package GraphPackage;
+
+import ADTPackage.DictionaryInterface;
+import ADTPackage.HashedDictionary;
+import ADTPackage.QueueInterface;
+import ADTPackage.StackInterface;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A read-only graph whose adjacency lives in a memory-mapped file in
+ * compressed sparse row (CSR) form, outside the Java heap.
+ *
+ * The file holds, after a header, the rows of each vertex's out-neighbors
+ * (and their weights if any edge is weighted) and, for a directed graph,
+ * the rows of each vertex's in-neighbors. Traversals read neighbor ids
+ * straight from the mapped pages, so a graph far larger than the heap can
+ * be searched without creating an object per vertex or per edge, and the
+ * garbage collector never scans it. Only the labels and the label -> index
+ * dictionary stay on the heap.
+ *
+ * File layout, big-endian, every section starting on an 8-byte boundary:
+ * <pre>
+ *   int MAGIC, int VERSION, int flags, int n (index capacity), long m (arcs)
+ *   long[n + 1] out-offsets, int[m] out-targets, double[m] out-weights (if weighted)
+ *   long[n + 1] in-offsets, int[m] in-sources, double[m] in-weights (directed and weighted)
+ * </pre>
+ * An undirected graph stores every edge in both directions, so it has no
+ * in-sections and reads its in-neighbors from the out-sections.
+ *
+ * A file can be written from a graph on the heap, or streamed from an
+ * EdgeSource so that a graph too large for the heap never has to be built.
+ *
+ * The file is mapped in segments of at most 1 GB, so it may be larger
+ * than the 2 GB that a single MappedByteBuffer can address. The mapping
+ * stays valid until the graph is garbage collected, even after close.
+ *
+ * @param <T> The data type for the vertex label.
+ */
+public final class MappedGraph<T> implements GraphAlgorithmsInterface<T>, IndexedGraph<T>, Closeable
+{
+    private static final int MAGIC = 0x47524150;     // "GRAP"
+    private static final int VERSION = 1;
+    private static final int DIRECTED = 1;           // Flag bits
+    private static final int WEIGHTED = 2;
+    private static final int HEADER_SIZE = 24;
+    private static final int SEGMENT_SHIFT = 30;     // 1 GB segments, a multiple of every element size
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final T[] labels;                        // Index -> label, or null if the index is unused
+    private final DictionaryInterface<T, Integer> indices;
+    private final int numberOfVertices;
+    private final long numberOfArcs;
+    private final boolean directed;
+    private final long outOffsets;                   // File positions of the sections, or -1 if absent
+    private final long outTargets;
+    private final long outWeights;
+    private final long inOffsets;
+    private final long inSources;
+    private final long inWeights;
+
+    /**
+     * Constructor that maps an open file.
+     *
+     * @param channel  The file, open for reading.
+     * @param labels   The label of each index, or null for unused indices.
+     * @throws IOException if the file cannot be mapped or is not a graph
+     *         file that matches the labels.
+     */
+    private MappedGraph(FileChannel channel, List<T> labels) throws IOException
+    {
+        this.channel = channel;
+        long size = channel.size();
+        segments = map(channel, FileChannel.MapMode.READ_ONLY, size);
+
+        if ((size < HEADER_SIZE) || (readInt(0) != MAGIC) || (readInt(4) != VERSION))
+            throw new IOException("Not a mapped graph file.");
+
+        int flags = readInt(8);
+        int capacity = readInt(12);
+        long arcs = readLong(16);
+        if (capacity != labels.size())
+            throw new IOException("The file has " + capacity + " vertex indices but " + labels.size() + " labels were given.");
+
+        directed = (flags & DIRECTED) != 0;
+        boolean weighted = (flags & WEIGHTED) != 0;
+        numberOfArcs = arcs;
+
+        outOffsets = HEADER_SIZE;
+        outTargets = outOffsets + 8L * (capacity + 1);
+        outWeights = weighted ? align(outTargets + 4L * arcs) : -1;
+        long end = weighted ? outWeights + 8L * arcs : align(outTargets + 4L * arcs);
+        if (directed)
+        {
+            inOffsets = end;
+            inSources = inOffsets + 8L * (capacity + 1);
+            inWeights = weighted ? align(inSources + 4L * arcs) : -1;
+            end = weighted ? inWeights + 8L * arcs : align(inSources + 4L * arcs);
+        }
+        else
+        {
+            inOffsets = outOffsets;
+            inSources = outTargets;
+            inWeights = outWeights;
+        } // end if
+
+        if (size < end)
+            throw new IOException("The mapped graph file is truncated.");
+
+        @SuppressWarnings("unchecked")
+        T[] tempLabels = (T[]) new Object[capacity];
+        this.labels = tempLabels;
+        indices = new HashedDictionary<>(capacity);
+        int vertexCount = 0;
+        for (int index = 0; index < capacity; index++)
+        {
+            T label = labels.get(index);
+            this.labels[index] = label;
+            if (label != null)
+            {
+                indices.add(label, index);
+                vertexCount++;
+            } // end if
+        } // end for
+
+        numberOfVertices = vertexCount;
+    } // end constructor
+
+    /**
+     * Writes the adjacency of a graph to a file and maps it. The file's
+     * vertex indices are the graph's, so the labels of the result are the
+     * labels of the graph.
+     * Runtime: O(V + E).
+     *
+     * @param graph The graph to write.
+     * @param file  The file to create or replace.
+     * @param <T>   The data type for the vertex label.
+     * @return      The mapped graph.
+     * @throws IOException if the file cannot be written or mapped.
+     */
+    public static <T> MappedGraph<T> create(DirectedGraph<T> graph, Path file) throws IOException
+    {
+        return create(graph, !(graph instanceof UndirectedGraph), file);
+    } // end create
+
+    /**
+     * Writes the adjacency of a snapshot to a file and maps it.
+     * Runtime: O(V + E).
+     *
+     * @param graph The snapshot to write.
+     * @param file  The file to create or replace.
+     * @param <T>   The data type for the vertex label.
+     * @return      The mapped graph.
+     * @throws IOException if the file cannot be written or mapped.
+     */
+    public static <T> MappedGraph<T> create(CompressedGraph<T> graph, Path file) throws IOException
+    {
+        return create(graph, graph.isDirected(), file);
+    } // end create
+
+    /**
+     * Writes the adjacency of an int graph to a file and maps it. Each
+     * vertex keeps its id as its label.
+     * Runtime: O(V + E).
+     *
+     * @param graph The graph to write.
+     * @param file  The file to create or replace.
+     * @return      The mapped graph.
+     * @throws IOException if the file cannot be written or mapped.
+     */
+    public static MappedGraph<Integer> create(IntGraph graph, Path file) throws IOException
+    {
+        return create(graph, graph.isDirected(), file);
+    } // end create
+
+    /**
+     * Writes a graph to a file straight from a stream of its edges and maps
+     * it, so that the graph is never held on the heap. The edges are read
+     * twice: once to count the degrees, and once to write each neighbor
+     * into its row of the mapped file. Only a few numbers per vertex index
+     * are kept on the heap meanwhile. The edges may come in any order, but
+     * the out-rows are written sequentially if they are sorted by their
+     * beginnings. The weights are stored only if one of them is nonzero.
+     * Runtime: O(V + E).
+     *
+     * @param edges    The edges, each given once and the same on both reads;
+     *                 an undirected edge is given in one direction only.
+     * @param labels   The label of each vertex index, with null for unused
+     *                 indices; the labels must be distinct.
+     * @param directed True if the edges are directed.
+     * @param file     The file to create or replace.
+     * @param <T>      The data type for the vertex label.
+     * @return         The mapped graph.
+     * @throws IllegalArgumentException if an edge ends at an unused or
+     *         out-of-range index.
+     * @throws IOException if the edges cannot be read, differ between the
+     *         two reads, or the file cannot be written or mapped.
+     */
+    public static <T> MappedGraph<T> create(EdgeSource edges, List<T> labels, boolean directed, Path file) throws IOException
+    {
+        int capacity = labels.size();
+        boolean[] used = new boolean[capacity];
+        for (int index = 0; index < capacity; index++)
+            used[index] = (labels.get(index) != null);
+
+        // Counts each row's degree, the arcs, and whether any weight must be stored
+        int[] outDegrees = new int[capacity];
+        int[] inDegrees = directed ? new int[capacity] : outDegrees;
+        long[] arcs = new long[1];
+        boolean[] weighted = new boolean[1];
+        edges.forEachEdge((begin, end, weight) ->
+        {
+            checkEnds(used, begin, end);
+            outDegrees[begin]++;
+            inDegrees[end]++;
+            arcs[0] += directed ? 1 : 2;
+            weighted[0] |= (weight != 0);
+        });
+
+        long outOffsets = HEADER_SIZE;
+        long outTargets = outOffsets + 8L * (capacity + 1);
+        long outWeights = weighted[0] ? align(outTargets + 4L * arcs[0]) : -1;
+        long size = weighted[0] ? outWeights + 8L * arcs[0] : align(outTargets + 4L * arcs[0]);
+        long inOffsets = outOffsets;
+        long inSources = outTargets;
+        long inWeights = outWeights;
+        if (directed)
+        {
+            inOffsets = size;
+            inSources = inOffsets + 8L * (capacity + 1);
+            inWeights = weighted[0] ? align(inSources + 4L * arcs[0]) : -1;
+            size = weighted[0] ? inWeights + 8L * arcs[0] : align(inSources + 4L * arcs[0]);
+        } // end if
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                   StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            MappedByteBuffer[] segments = map(channel, FileChannel.MapMode.READ_WRITE, size);
+            putInt(segments, 0, MAGIC);
+            putInt(segments, 4, VERSION);
+            putInt(segments, 8, (directed ? DIRECTED : 0) | (weighted[0] ? WEIGHTED : 0));
+            putInt(segments, 12, capacity);
+            putLong(segments, 16, arcs[0]);
+
+            // Turns the degrees into the offsets and the next free position of each row
+            long[] nextOut = writeOffsets(segments, outOffsets, outDegrees);
+            long[] nextIn = directed ? writeOffsets(segments, inOffsets, inDegrees) : nextOut;
+
+            // An undirected edge fills the out-rows in both directions
+            long reverseOffsets = inOffsets;
+            long reverseSources = inSources;
+            long reverseWeights = inWeights;
+            edges.forEachEdge((begin, end, weight) ->
+            {
+                checkEnds(used, begin, end);
+                long position = claim(segments, outOffsets, nextOut, begin);
+                putInt(segments, outTargets + 4L * position, end);
+                if (outWeights != -1)
+                    putDouble(segments, outWeights + 8L * position, weight);
+
+                position = claim(segments, reverseOffsets, nextIn, end);
+                putInt(segments, reverseSources + 4L * position, begin);
+                if (reverseWeights != -1)
+                    putDouble(segments, reverseWeights + 8L * position, weight);
+            });
+
+            for (int index = 0; index < capacity; index++)
+            {
+                if ((nextOut[index] != getLong(segments, outOffsets + 8L * (index + 1)))
+                    || (nextIn[index] != getLong(segments, inOffsets + 8L * (index + 1))))
+                    throw new IOException("The edges changed between the two reads.");
+            } // end for
+
+            for (MappedByteBuffer segment : segments)
+                segment.force();
+        } // end try
+
+        return open(file, labels);
+    } // end create
+
+    /**
+     * Maps a file that create wrote earlier.
+     *
+     * @param file   The file.
+     * @param labels The label of each vertex index in the file, with null
+     *               for unused indices; the labels must be distinct.
+     * @param <T>    The data type for the vertex label.
+     * @return       The mapped graph.
+     * @throws IOException if the file cannot be mapped, is not a graph file,
+     *         or has a different number of indices than labels.
+     */
+    public static <T> MappedGraph<T> open(Path file, List<T> labels) throws IOException
+    {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try
+        {
+            return new MappedGraph<>(channel, labels);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        } // end try
+    } // end open
+
+    /**
+     * Closes the file. The mapping stays readable until this graph is
+     * garbage collected.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    public void close() throws IOException
+    {
+        channel.close();
+    } // end close
+
+    /**
+     * Gets the number of edges in the graph.
+     *
+     * @return The number of edges; an undirected edge counts once.
+     */
+    public long getNumberOfEdges()
+    {
+        return directed ? numberOfArcs : numberOfArcs / 2;
+    } // end getNumberOfEdges
+
+    /**
+     * Sees whether the graph is directed.
+     *
+     * @return True if the graph is directed.
+     */
+    public boolean isDirected()
+    {
+        return directed;
+    } // end isDirected
+
+    /**
+     * Sees whether an edge exists between two given vertices.
+     * Runtime: O(out-degree of begin).
+     *
+     * @param begin An object that labels the origin vertex of the edge.
+     * @param end   An object that labels the end vertex of the edge.
+     * @return      True if an edge exists.
+     */
+    public boolean hasEdge(T begin, T end)
+    {
+        boolean found = false;
+        int beginIndex = getIndex(begin);
+        int endIndex = getIndex(end);
+
+        if ((beginIndex != -1) && (endIndex != -1))
+        {
+            int degree = getOutDegree(beginIndex);
+            for (int position = 0; !found && (position < degree); position++)
+                found = (getOutNeighbor(beginIndex, position) == endIndex);
+        } // end if
+
+        return found;
+    } // end hasEdge
+
+    /** {@inheritDoc} */
+    public int getIndexCapacity()
+    {
+        return labels.length;
+    } // end getIndexCapacity
+
+    /** {@inheritDoc} */
+    public int getNumberOfVertices()
+    {
+        return numberOfVertices;
+    } // end getNumberOfVertices
+
+    /** {@inheritDoc} */
+    public long getNumberOfArcs()
+    {
+        return numberOfArcs;
+    } // end getNumberOfArcs
+
+    /** {@inheritDoc} */
+    public int getIndex(T label)
+    {
+        Integer index = (label == null) ? null : indices.getValue(label);
+        return (index == null) ? -1 : index;
+    } // end getIndex
+
+    /** {@inheritDoc} */
+    public T getLabel(int index)
+    {
+        return labels[index];
+    } // end getLabel
+
+    /** {@inheritDoc} */
+    public int getOutDegree(int index)
+    {
+        return (int) (readLong(outOffsets + 8L * (index + 1)) - readLong(outOffsets + 8L * index));
+    } // end getOutDegree
+
+    /** {@inheritDoc} */
+    public int getOutNeighbor(int index, int position)
+    {
+        return readInt(outTargets + 4L * (readLong(outOffsets + 8L * index) + position));
+    } // end getOutNeighbor
+
+    /** {@inheritDoc} */
+    public double getOutWeight(int index, int position)
+    {
+        if (outWeights == -1)
+            return 0;
+
+        return readDouble(outWeights + 8L * (readLong(outOffsets + 8L * index) + position));
+    } // end getOutWeight
+
+    /** {@inheritDoc} */
+    public int getInDegree(int index)
+    {
+        return (int) (readLong(inOffsets + 8L * (index + 1)) - readLong(inOffsets + 8L * index));
+    } // end getInDegree
+
+    /** {@inheritDoc} */
+    public int getInNeighbor(int index, int position)
+    {
+        return readInt(inSources + 4L * (readLong(inOffsets + 8L * index) + position));
+    } // end getInNeighbor
+
+    /** {@inheritDoc} */
+    public double getInWeight(int index, int position)
+    {
+        if (inWeights == -1)
+            return 0;
+
+        return readDouble(inWeights + 8L * (readLong(inOffsets + 8L * index) + position));
+    } // end getInWeight
+
+    /**
+     * {@inheritDoc}
+     *
+     * On large graphs the traversal may expand a level bottom-up, which
+     * keeps the levels in order but can change the order within a level.
+     */
+    public QueueInterface<T> getBreadthFirstTraversal(T origin)
+    {
+        return GraphSearch.getBreadthFirstTraversal(this, origin);
+    } // end getBreadthFirstTraversal
+
+    /** {@inheritDoc} */
+    public Iterator<T> getNeighborhood(T origin, int maxDepth, int maxResults, Predicate<? super T> filter)
+    {
+        return GraphSearch.getNeighborhood(this, origin, maxDepth, maxResults, filter);
+    } // end getNeighborhood
+
+    /** {@inheritDoc} */
+    public QueueInterface<T> getDepthFirstTraversal(T origin)
+    {
+        return GraphSearch.getDepthFirstTraversal(this, origin);
+    } // end getDepthFirstTraversal
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException if the graph is undirected.
+     * @throws IllegalStateException if the graph contains a cycle; the
+     *         message lists the vertices of one cycle.
+     */
+    public StackInterface<T> getTopologicalOrder()
+    {
+        if (!directed)
+            throw new UnsupportedOperationException("Topological sort is illegal in an undirected graph.");
+
+        return GraphSearch.getTopologicalOrder(this);
+    } // end getTopologicalOrder
+
+    /** {@inheritDoc} */
+    public int getShortestPath(T begin, T end, StackInterface<T> path)
+    {
+        return GraphSearch.getShortestPath(this, begin, end, path);
+    } // end getShortestPath
+
+    /** {@inheritDoc} */
+    public double getCheapestPath(T begin, T end, StackInterface<T> path)
+    {
+        return GraphSearch.getCheapestPath(this, begin, end, path);
+    } // end getCheapestPath
+
+    /**
+     * Writes the adjacency of an indexed graph to a file and maps it.
+     *
+     * @param graph    The graph to write.
+     * @param directed False if every edge of the graph is stored in both directions.
+     * @param file     The file to create or replace.
+     * @param <T>      The data type for the vertex label.
+     * @return         The mapped graph.
+     * @throws IOException if the file cannot be written or mapped.
+     */
+    static <T> MappedGraph<T> create(IndexedGraph<T> graph, boolean directed, Path file) throws IOException
+    {
+        int capacity = graph.getIndexCapacity();
+        boolean weighted = isWeighted(graph);
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file))))
+        {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt((directed ? DIRECTED : 0) | (weighted ? WEIGHTED : 0));
+            output.writeInt(capacity);
+            output.writeLong(graph.getNumberOfArcs());
+
+            writeRows(graph, true, weighted, output);
+            if (directed)
+                writeRows(graph, false, weighted, output);
+        } // end try
+
+        List<T> labels = new ArrayList<>(capacity);
+        for (int index = 0; index < capacity; index++)
+            labels.add(graph.getLabel(index));
+
+        return open(file, labels);
+    } // end create
+
+    /**
+     * Writes one direction of the adjacency: the offsets, the neighbor
+     * ids and, if weighted, the weights, each padded to 8 bytes.
+     *
+     * @param graph    The graph to write.
+     * @param forward  True for out-neighbors, false for in-neighbors.
+     * @param weighted True to write the weights.
+     * @param output   The file's stream, positioned on an 8-byte boundary.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeRows(IndexedGraph<?> graph, boolean forward, boolean weighted,
+                                  DataOutputStream output) throws IOException
+    {
+        int capacity = graph.getIndexCapacity();
+
+        long offset = 0;
+        output.writeLong(offset);
+        for (int index = 0; index < capacity; index++)
+        {
+            offset += degree(graph, index, forward);
+            output.writeLong(offset);
+        } // end for
+
+        for (int index = 0; index < capacity; index++)
+        {
+            int degree = degree(graph, index, forward);
+            for (int position = 0; position < degree; position++)
+                output.writeInt(forward ? graph.getOutNeighbor(index, position) : graph.getInNeighbor(index, position));
+        } // end for
+        if (offset % 2 != 0)
+            output.writeInt(0);  // Pad to an 8-byte boundary
+
+        if (weighted)
+        {
+            for (int index = 0; index < capacity; index++)
+            {
+                int degree = degree(graph, index, forward);
+                for (int position = 0; position < degree; position++)
+                    output.writeDouble(forward ? graph.getOutWeight(index, position) : graph.getInWeight(index, position));
+            } // end for
+        } // end if
+    } // end writeRows
+
+    /**
+     * Gets a vertex's degree in one direction, or 0 for an unused index.
+     *
+     * @param graph   The graph.
+     * @param index   The vertex index.
+     * @param forward True for the out-degree, false for the in-degree.
+     * @return        The degree.
+     */
+    private static int degree(IndexedGraph<?> graph, int index, boolean forward)
+    {
+        if (graph.getLabel(index) == null)
+            return 0;
+
+        return forward ? graph.getOutDegree(index) : graph.getInDegree(index);
+    } // end degree
+
+    /**
+     * Sees whether any edge of a graph has a nonzero weight.
+     *
+     * @param graph The graph.
+     * @return      True if the weights must be stored.
+     */
+    private static boolean isWeighted(IndexedGraph<?> graph)
+    {
+        for (int index = 0; index < graph.getIndexCapacity(); index++)
+        {
+            int degree = degree(graph, index, true);
+            for (int position = 0; position < degree; position++)
+            {
+                if (graph.getOutWeight(index, position) != 0)
+                    return true;
+            } // end for
+        } // end for
+
+        return false;
+    } // end isWeighted
+
+    /**
+     * Checks that both ends of a streamed edge are vertices.
+     *
+     * @param used  Whether each index belongs to a vertex.
+     * @param begin The index where the edge begins.
+     * @param end   The index where the edge ends.
+     * @throws IllegalArgumentException if either end is not a vertex.
+     */
+    private static void checkEnds(boolean[] used, int begin, int end)
+    {
+        if ((begin < 0) || (begin >= used.length) || !used[begin]
+            || (end < 0) || (end >= used.length) || !used[end])
+            throw new IllegalArgumentException("The edge " + begin + " -> " + end + " does not join two vertices.");
+    } // end checkEnds
+
+    /**
+     * Writes the offsets of one direction's rows.
+     *
+     * @param segments The file's segments, mapped for writing.
+     * @param section  The file position of the offsets.
+     * @param degrees  The degree of each row.
+     * @return         The offset of each row, to be advanced as it is filled.
+     */
+    private static long[] writeOffsets(MappedByteBuffer[] segments, long section, int[] degrees)
+    {
+        long[] next = new long[degrees.length];
+        long offset = 0;
+        putLong(segments, section, offset);
+        for (int index = 0; index < degrees.length; index++)
+        {
+            next[index] = offset;
+            offset += degrees[index];
+            putLong(segments, section + 8L * (index + 1), offset);
+        } // end for
+
+        return next;
+    } // end writeOffsets
+
+    /**
+     * Takes the next free position of a row.
+     *
+     * @param segments The file's segments.
+     * @param section  The file position of the row offsets.
+     * @param next     The next free position of each row.
+     * @param index    The row.
+     * @return         The position, counted in elements.
+     * @throws IOException if the row is already full.
+     */
+    private static long claim(MappedByteBuffer[] segments, long section, long[] next, int index) throws IOException
+    {
+        if (next[index] == getLong(segments, section + 8L * (index + 1)))
+            throw new IOException("The edges changed between the two reads.");
+
+        return next[index]++;
+    } // end claim
+
+    /**
+     * Maps a file in segments of at most SEGMENT_SIZE bytes.
+     *
+     * @param channel The file.
+     * @param mode    The mapping mode.
+     * @param size    The number of bytes to map, which is also the file's size
+     *                afterwards if the mode is READ_WRITE.
+     * @return        The segments.
+     * @throws IOException if the file cannot be mapped.
+     */
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long size) throws IOException
+    {
+        int numberOfSegments = (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+        MappedByteBuffer[] segments = new MappedByteBuffer[numberOfSegments];
+        for (int segment = 0; segment < numberOfSegments; segment++)
+        {
+            long start = (long) segment << SEGMENT_SHIFT;
+            segments[segment] = channel.map(mode, start, Math.min(SEGMENT_SIZE, size - start));
+            segments[segment].order(ByteOrder.BIG_ENDIAN);
+        } // end for
+
+        return segments;
+    } // end map
+
+    /**
+     * Writes an int to a file mapped for writing.
+     *
+     * @param segments The file's segments.
+     * @param position A file position that is a multiple of 4.
+     * @param value    The int to write.
+     */
+    private static void putInt(MappedByteBuffer[] segments, long position, int value)
+    {
+        segments[(int) (position >>> SEGMENT_SHIFT)].putInt((int) (position & (SEGMENT_SIZE - 1)), value);
+    } // end putInt
+
+    /**
+     * Writes a long to a file mapped for writing.
+     *
+     * @param segments The file's segments.
+     * @param position A file position that is a multiple of 8.
+     * @param value    The long to write.
+     */
+    private static void putLong(MappedByteBuffer[] segments, long position, long value)
+    {
+        segments[(int) (position >>> SEGMENT_SHIFT)].putLong((int) (position & (SEGMENT_SIZE - 1)), value);
+    } // end putLong
+
+    /**
+     * Writes a double to a file mapped for writing.
+     *
+     * @param segments The file's segments.
+     * @param position A file position that is a multiple of 8.
+     * @param value    The double to write.
+     */
+    private static void putDouble(MappedByteBuffer[] segments, long position, double value)
+    {
+        segments[(int) (position >>> SEGMENT_SHIFT)].putDouble((int) (position & (SEGMENT_SIZE - 1)), value);
+    } // end putDouble
+
+    /**
+     * Reads back a long from a file mapped for writing.
+     *
+     * @param segments The file's segments.
+     * @param position A file position that is a multiple of 8.
+     * @return         The long there.
+     */
+    private static long getLong(MappedByteBuffer[] segments, long position)
+    {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & (SEGMENT_SIZE - 1)));
+    } // end getLong
+
+    /**
+     * Rounds a file position up to a multiple of 8.
+     *
+     * @param position The position.
+     * @return         The aligned position.
+     */
+    private static long align(long position)
+    {
+        return (position + 7) & ~7L;
+    } // end align
+
+    /**
+     * Reads an int from the mapped file.
+     *
+     * @param position A file position that is a multiple of 4.
+     * @return         The int there.
+     */
+    private int readInt(long position)
+    {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getInt((int) (position & (SEGMENT_SIZE - 1)));
+    } // end readInt
+
+    /**
+     * Reads a long from the mapped file.
+     *
+     * @param position A file position that is a multiple of 8.
+     * @return         The long there.
+     */
+    private long readLong(long position)
+    {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & (SEGMENT_SIZE - 1)));
+    } // end readLong
+
+    /**
+     * Reads a double from the mapped file.
+     *
+     * @param position A file position that is a multiple of 8.
+     * @return         The double there.
+     */
+    private double readDouble(long position)
+    {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getDouble((int) (position & (SEGMENT_SIZE - 1)));
+    } // end readDouble
+
+    /**
+     * A stream of edges that can be read more than once, such as a file of
+     * edges on disk.
+     */
+    @FunctionalInterface
+    public interface EdgeSource
+    {
+        /**
+         * Passes every edge to a visitor, in the same order each time.
+         *
+         * @param visitor The visitor.
+         * @throws IOException if the edges cannot be read.
+         */
+        void forEachEdge(EdgeVisitor visitor) throws IOException;
+    } // end EdgeSource
+
+    /** Receives the edges of an EdgeSource one at a time. */
+    @FunctionalInterface
+    public interface EdgeVisitor
+    {
+        /**
+         * Receives one edge.
+         *
+         * @param begin  The index where the edge begins.
+         * @param end    The index where the edge ends.
+         * @param weight The edge's weight.
+         * @throws IOException if the edge cannot be stored.
+         */
+        void visit(int begin, int end, double weight) throws IOException;
+    } // end EdgeVisitor
+} // end MappedGraph
@@ -0,0 +1,164 @@
+package GraphPackage;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * A lazy breadth-first iterator over the vertices within a given number of
+ * edges of an origin.
+ *
+ * The iterator keeps the search's state between calls: the queue of
+ * vertices still to expand and how far through the current vertex's
+ * neighbors it has looked. Each call to next scans only until it finds
+ * the next vertex that passes the filter, so a consumer that stops early
+ * never pays for the rest of the neighborhood. Vertices at the depth limit
+ * are returned but never expanded.
+ *
+ * The graph must not be modified while the iterator is in use.
+ *
+ * @param <T> The data type for the vertex label.
+ */
+class NeighborhoodIterator<T> implements Iterator<T>
+{
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final IndexedGraph<T> graph;
+    private final int maxDepth;
+    private final int maxResults;
+    private final Predicate<? super T> filter;
+    private final BitSet visited;      // Indices found so far; grows only as far as the largest one
+    private int[] queue;               // Found vertices that are closer than maxDepth
+    private int[] queueDepth;          // Their depths
+    private int queueFront;
+    private int queueBack;
+    private int vertex;                // The vertex whose neighbors are being scanned, or -1
+    private int vertexDepth;
+    private int position;              // The next neighbor position of vertex to look at
+    private T nextLabel;               // The next result, or null if not yet found
+    private int numberOfResults;
+
+    /**
+     * Constructor.
+     *
+     * @param graph       The graph to search.
+     * @param origin      The index of the origin vertex, or -1 for an empty iterator.
+     * @param maxDepth    The largest number of edges from the origin.
+     * @param maxResults  The largest number of labels to return.
+     * @param filter      A test that a vertex must pass to be returned, or
+     *                    null to return every vertex.
+     * @throws IllegalArgumentException if maxDepth or maxResults is negative.
+     */
+    NeighborhoodIterator(IndexedGraph<T> graph, int origin, int maxDepth, int maxResults, Predicate<? super T> filter)
+    {
+        if ((maxDepth < 0) || (maxResults < 0))
+            throw new IllegalArgumentException("Depth and result limits cannot be negative.");
+
+        this.graph = graph;
+        this.maxDepth = maxDepth;
+        this.maxResults = maxResults;
+        this.filter = filter;
+        visited = new BitSet();
+        queue = new int[DEFAULT_CAPACITY];
+        queueDepth = new int[DEFAULT_CAPACITY];
+        queueFront = 0;
+        queueBack = 0;
+        vertex = -1;
+        nextLabel = null;
+        numberOfResults = 0;
+
+        if (origin != -1)
+        {
+            visited.set(origin);
+            if (maxDepth > 0)
+                enqueue(origin, 0);
+        } // end if
+    } // end constructor
+
+    /** {@inheritDoc} */
+    public boolean hasNext()
+    {
+        if ((nextLabel == null) && (numberOfResults < maxResults))
+            nextLabel = findNext();
+
+        return nextLabel != null;
+    } // end hasNext
+
+    /** {@inheritDoc} */
+    public T next()
+    {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        T result = nextLabel;
+        nextLabel = null;
+        numberOfResults++;
+        return result;
+    } // end next
+
+    /**
+     * Scans onward until a newly found vertex passes the filter.
+     *
+     * @return The vertex's label, or null if the neighborhood is exhausted.
+     */
+    private T findNext()
+    {
+        while (true)
+        {
+            // Moves to the next vertex to expand once the current one is done
+            if ((vertex == -1) || (position == graph.getOutDegree(vertex)))
+            {
+                if (queueFront == queueBack)
+                    return null;
+
+                vertex = queue[queueFront];
+                vertexDepth = queueDepth[queueFront];
+                queueFront++;
+                position = 0;
+                continue;
+            } // end if
+
+            int neighbor = graph.getOutNeighbor(vertex, position);
+            position++;
+            if (!visited.get(neighbor))
+            {
+                visited.set(neighbor);
+                if (vertexDepth + 1 < maxDepth)
+                    enqueue(neighbor, vertexDepth + 1);
+
+                T label = graph.getLabel(neighbor);
+                if ((filter == null) || filter.test(label))
+                    return label;
+            } // end if
+        } // end while
+    } // end findNext
+
+    /**
+     * Adds a vertex to the back of the queue, growing it if full.
+     *
+     * @param index The vertex.
+     * @param depth Its number of edges from the origin.
+     */
+    private void enqueue(int index, int depth)
+    {
+        if (queueBack == queue.length)
+        {
+            // Reclaims the space in front of the queue before growing it
+            int size = queueBack - queueFront;
+            int newLength = (size < queue.length / 2) ? queue.length : 2 * queue.length;
+            int[] newQueue = new int[newLength];
+            int[] newDepth = new int[newLength];
+            System.arraycopy(queue, queueFront, newQueue, 0, size);
+            System.arraycopy(queueDepth, queueFront, newDepth, 0, size);
+            queue = newQueue;
+            queueDepth = newDepth;
+            queueFront = 0;
+            queueBack = size;
+        } // end if
+
+        queue[queueBack] = index;
+        queueDepth[queueBack] = depth;
+        queueBack++;
+    } // end enqueue
+} // end NeighborhoodIterator
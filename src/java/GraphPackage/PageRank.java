@@ -0,0 +1,490 @@
+package GraphPackage;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes PageRank and personalized PageRank scores by power iteration,
+ * on the threads of a ForkJoinPool.
+ *
+ * A score is the chance that a random walk is at a vertex. At each step,
+ * with probability equal to the damping factor, the walk follows one of
+ * the current vertex's edges, chosen uniformly, and otherwise it jumps to
+ * a vertex chosen from the teleport set: every vertex for PageRank, or
+ * the given sources for personalized PageRank. A walk at a vertex with no
+ * edges always jumps. Edge weights are ignored.
+ *
+ * The graph's incoming edges are copied once into compressed sparse row
+ * (CSR) form, so each iteration only reads int and double arrays. Each
+ * vertex's new score is pulled from its in-neighbors, so the vertices can
+ * be split into chunks that threads compute without locks. The iteration
+ * stops when the scores change by less than the tolerance in total.
+ *
+ * A job can start from the scores of an earlier job on the same graph
+ * (a warm start). After a small batch of changes the scores barely move,
+ * so a warm job needs far fewer iterations than one started from
+ * uniform scores.
+ *
+ * The graph must not be modified while a job runs on it.
+ */
+public final class PageRank
+{
+    private static final int MAX_ITERATIONS = 1000;
+    private static final int MIN_CHUNK_EDGES = 16384;  // In-edges per task, at least
+    private static final int CHUNKS_PER_THREAD = 4;    // Spare chunks so busy threads can steal work
+
+    private final double dampingFactor;
+    private final double tolerance;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor with its own pool of threads.
+     *
+     * @param dampingFactor The chance of following an edge rather than
+     *                      jumping, in [0, 1); 0.85 is usual.
+     * @param tolerance     The total change in scores below which the
+     *                      iteration stops; must be positive.
+     * @param parallelism   The number of threads to iterate with.
+     * @throws IllegalArgumentException if an argument is out of range.
+     */
+    public PageRank(double dampingFactor, double tolerance, int parallelism)
+    {
+        if (!(dampingFactor >= 0) || (dampingFactor >= 1))
+            throw new IllegalArgumentException("Damping factor must be in [0, 1).");
+        if (!(tolerance > 0))
+            throw new IllegalArgumentException("Tolerance must be positive.");
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("Parallelism must be positive.");
+
+        this.dampingFactor = dampingFactor;
+        this.tolerance = tolerance;
+        pool = new ForkJoinPool(parallelism);
+    } // end constructor
+
+    /**
+     * Gets the damping factor.
+     *
+     * @return The chance of following an edge rather than jumping.
+     */
+    public double getDampingFactor()
+    {
+        return dampingFactor;
+    } // end getDampingFactor
+
+    /**
+     * Gets the tolerance.
+     *
+     * @return The total change in scores below which the iteration stops.
+     */
+    public double getTolerance()
+    {
+        return tolerance;
+    } // end getTolerance
+
+    /**
+     * Gets the number of threads that jobs run on.
+     *
+     * @return The parallelism level.
+     */
+    public int getParallelism()
+    {
+        return pool.getParallelism();
+    } // end getParallelism
+
+    /**
+     * Computes the PageRank scores of a graph, directed or undirected.
+     * Runtime: O(V + E) per iteration, spread over the pool's threads.
+     *
+     * @param graph    The graph to rank.
+     * @param previous Scores from an earlier job on this graph to start
+     *                 from, or null to start from uniform scores.
+     * @param <T>      The data type for the vertex label.
+     * @return         The scores.
+     */
+    public <T> PageRankScores<T> rank(DirectedGraph<T> graph, PageRankScores<T> previous)
+    {
+        return rankIndexed(graph, null, previous);
+    } // end rank
+
+    /**
+     * Computes the PageRank scores of a snapshot.
+     * Runtime: O(V + E) per iteration, spread over the pool's threads.
+     *
+     * @param graph    The snapshot to rank.
+     * @param previous Scores from an earlier job on this snapshot to start
+     *                 from, or null to start from uniform scores.
+     * @param <T>      The data type for the vertex label.
+     * @return         The scores.
+     */
+    public <T> PageRankScores<T> rank(CompressedGraph<T> graph, PageRankScores<T> previous)
+    {
+        return rankIndexed(graph, null, previous);
+    } // end rank
+
+    /**
+     * Computes the PageRank scores of an int graph.
+     * Runtime: O(V + E) per iteration, spread over the pool's threads.
+     *
+     * @param graph    The graph to rank.
+     * @param previous Scores from an earlier job on this graph to start
+     *                 from, or null to start from uniform scores.
+     * @return         The scores, whose labels are the ids.
+     */
+    public PageRankScores<Integer> rank(IntGraph graph, PageRankScores<Integer> previous)
+    {
+        return rankIndexed(graph, null, previous);
+    } // end rank
+
+    /**
+     * Computes personalized PageRank scores, whose walks jump only to the
+     * given sources.
+     * Runtime: O(V + E) per iteration, spread over the pool's threads.
+     *
+     * @param graph    The graph to rank.
+     * @param sources  The labels of the vertices that walks jump to.
+     * @param previous Scores from an earlier job on this graph with the
+     *                 same sources to start from, or null.
+     * @param <T>      The data type for the vertex label.
+     * @return         The scores.
+     * @throws IllegalArgumentException if no source is in the graph.
+     */
+    public <T> PageRankScores<T> rankPersonalized(DirectedGraph<T> graph, List<T> sources, PageRankScores<T> previous)
+    {
+        return rankIndexed(graph, sources, previous);
+    } // end rankPersonalized
+
+    /**
+     * Computes personalized PageRank scores of a snapshot.
+     * Runtime: O(V + E) per iteration, spread over the pool's threads.
+     *
+     * @param graph    The snapshot to rank.
+     * @param sources  The labels of the vertices that walks jump to.
+     * @param previous Scores from an earlier job on this snapshot with the
+     *                 same sources to start from, or null.
+     * @param <T>      The data type for the vertex label.
+     * @return         The scores.
+     * @throws IllegalArgumentException if no source is in the snapshot.
+     */
+    public <T> PageRankScores<T> rankPersonalized(CompressedGraph<T> graph, List<T> sources, PageRankScores<T> previous)
+    {
+        return rankIndexed(graph, sources, previous);
+    } // end rankPersonalized
+
+    /**
+     * Computes personalized PageRank scores of an int graph.
+     * Runtime: O(V + E) per iteration, spread over the pool's threads.
+     *
+     * @param graph    The graph to rank.
+     * @param sources  The ids of the vertices that walks jump to.
+     * @param previous Scores from an earlier job on this graph with the
+     *                 same sources to start from, or null.
+     * @return         The scores, whose labels are the ids.
+     * @throws IllegalArgumentException if no source is in the graph.
+     */
+    public PageRankScores<Integer> rankPersonalized(IntGraph graph, List<Integer> sources,
+                                                    PageRankScores<Integer> previous)
+    {
+        return rankIndexed(graph, sources, previous);
+    } // end rankPersonalized
+
+    /** Stops the pool's threads once any running job finishes. */
+    public void shutdown()
+    {
+        pool.shutdown();
+    } // end shutdown
+
+    /**
+     * Runs a job on an indexed graph.
+     *
+     * @param graph    The graph to rank.
+     * @param sources  The labels that walks jump to, or null for every vertex.
+     * @param previous The scores to start from, or null.
+     * @param <T>      The data type for the vertex label.
+     * @return         The scores.
+     */
+    <T> PageRankScores<T> rankIndexed(IndexedGraph<T> graph, List<T> sources, PageRankScores<T> previous)
+    {
+        int capacity = graph.getIndexCapacity();
+
+        // Copies the labels and the incoming edges
+        @SuppressWarnings("unchecked")
+        T[] labels = (T[]) new Object[capacity];
+        int[] offsets = new int[capacity + 1];
+        double[] outShare = new double[capacity];    // 1 / out-degree, or 0 for no edges
+        boolean[] dangling = new boolean[capacity];
+        for (int index = 0; index < capacity; index++)
+        {
+            labels[index] = graph.getLabel(index);
+            int inDegree = 0;
+            if (labels[index] != null)
+            {
+                inDegree = graph.getInDegree(index);
+                int outDegree = graph.getOutDegree(index);
+                outShare[index] = (outDegree == 0) ? 0 : 1.0 / outDegree;
+                dangling[index] = (outDegree == 0);
+            } // end if
+            offsets[index + 1] = offsets[index] + inDegree;
+        } // end for
+
+        int[] sourcesOf = new int[offsets[capacity]];
+        for (int index = 0; index < capacity; index++)
+        {
+            int start = offsets[index];
+            for (int position = 0; position < offsets[index + 1] - start; position++)
+                sourcesOf[start + position] = graph.getInNeighbor(index, position);
+        } // end for
+
+        double[] teleport = getTeleport(graph, labels, sources);
+        double[] scores = getStart(labels, teleport, previous);
+        double[] next = new double[capacity];
+
+        // Cuts the vertices where each chunk's worth of in-edges ends
+        int chunkEdges = Math.max(MIN_CHUNK_EDGES, sourcesOf.length / (CHUNKS_PER_THREAD * pool.getParallelism()) + 1);
+        int[] bounds = new int[capacity + 1];
+        int numberOfChunks = 0;
+        int from = 0;
+        while (from < capacity)
+        {
+            int to = Arrays.binarySearch(offsets, from + 1, capacity + 1, offsets[from] + chunkEdges);
+            to = (to >= 0) ? to : Math.min(capacity, -to - 1);
+            bounds[numberOfChunks++] = from;
+            from = Math.max(to, from + 1);
+        } // end while
+        bounds[numberOfChunks] = capacity;
+        double[] chunkChange = new double[numberOfChunks];
+        double[] chunkDangling = new double[numberOfChunks];
+
+        double danglingScore = 0;
+        for (int index = 0; index < capacity; index++)
+        {
+            if (dangling[index])
+                danglingScore += scores[index];
+        } // end for
+
+        int iterations = 0;
+        boolean converged = (numberOfChunks == 0);
+        while (!converged && (iterations < MAX_ITERATIONS))
+        {
+            IterationTask task = new IterationTask(offsets, sourcesOf, outShare, dangling, teleport, scores, next,
+                                                   dampingFactor, danglingScore, bounds, 0, numberOfChunks,
+                                                   chunkChange, chunkDangling);
+
+            // A single chunk is not worth handing to the pool
+            if (numberOfChunks == 1)
+                task.compute();
+            else
+                pool.invoke(task);
+            iterations++;
+
+            // Adds the chunks' sums in a fixed order, so the result does not depend on the threads
+            double change = 0;
+            danglingScore = 0;
+            for (int chunk = 0; chunk < numberOfChunks; chunk++)
+            {
+                change += chunkChange[chunk];
+                danglingScore += chunkDangling[chunk];
+            } // end for
+
+            double[] swap = scores;
+            scores = next;
+            next = swap;
+            converged = (change < tolerance);
+        } // end while
+
+        return new PageRankScores<>(graph, labels, scores, iterations, converged);
+    } // end rankIndexed
+
+    /**
+     * Gets the chance that a jump lands on each index.
+     *
+     * @param graph   The graph being ranked.
+     * @param labels  Index -> label, or null.
+     * @param sources The labels that walks jump to, or null for every vertex.
+     * @param <T>     The data type for the vertex label.
+     * @return        The teleport distribution, which adds up to 1.
+     * @throws IllegalArgumentException if no source is in the graph.
+     */
+    private static <T> double[] getTeleport(IndexedGraph<T> graph, T[] labels, List<T> sources)
+    {
+        double[] teleport = new double[labels.length];
+        int targets = 0;
+        if (sources == null)
+        {
+            for (int index = 0; index < labels.length; index++)
+            {
+                if (labels[index] != null)
+                {
+                    teleport[index] = 1;
+                    targets++;
+                } // end if
+            } // end for
+        }
+        else
+        {
+            for (T source : sources)
+            {
+                int index = graph.getIndex(source);
+                if ((index != -1) && (teleport[index] == 0))
+                {
+                    teleport[index] = 1;
+                    targets++;
+                } // end if
+            } // end for
+
+            if (targets == 0)
+                throw new IllegalArgumentException("None of the sources is in the graph.");
+        } // end if
+
+        for (int index = 0; index < labels.length; index++)
+            teleport[index] /= targets;
+
+        return teleport;
+    } // end getTeleport
+
+    /**
+     * Gets the scores to start iterating from: an earlier job's score for
+     * each index that still has the same label, and the teleport chance
+     * for the rest, scaled to add up to 1.
+     *
+     * @param labels   Index -> label, or null.
+     * @param teleport Index -> teleport chance.
+     * @param previous The earlier scores, or null.
+     * @param <T>      The data type for the vertex label.
+     * @return         The starting scores.
+     */
+    private static <T> double[] getStart(T[] labels, double[] teleport, PageRankScores<T> previous)
+    {
+        double[] start = teleport.clone();
+        if (previous != null)
+        {
+            double total = 0;
+            for (int index = 0; index < labels.length; index++)
+            {
+                if ((labels[index] != null) && labels[index].equals(previous.getLabel(index)))
+                    start[index] = previous.getScore(index);
+                total += start[index];
+            } // end for
+
+            if (total > 0)
+            {
+                for (int index = 0; index < labels.length; index++)
+                    start[index] /= total;
+            }
+            else
+                start = teleport.clone();
+        } // end if
+
+        return start;
+    } // end getStart
+
+    /** Computes the next scores of a range of chunks of vertices. */
+    private static class IterationTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] offsets;
+        private final int[] sourcesOf;
+        private final double[] outShare;
+        private final boolean[] dangling;
+        private final double[] teleport;
+        private final double[] scores;
+        private final double[] next;
+        private final double damping;
+        private final double danglingScore;
+        private final int[] bounds;
+        private final int from;
+        private final int to;
+        private final double[] chunkChange;
+        private final double[] chunkDangling;
+
+        /**
+         * Constructor.
+         *
+         * @param offsets       Index -> start of its in-neighbors in sourcesOf.
+         * @param sourcesOf     The in-neighbor lists.
+         * @param outShare      Index -> 1 / out-degree, or 0.
+         * @param dangling      Index -> whether the vertex has no out-edges.
+         * @param teleport      Index -> teleport chance.
+         * @param scores        Index -> current score.
+         * @param next          Index -> next score, written by the task.
+         * @param damping       The chance of following an edge.
+         * @param danglingScore The total current score of vertices with no out-edges.
+         * @param bounds        Chunk -> its first index, followed by the capacity.
+         * @param from          The first chunk of the range.
+         * @param to            The chunk just past the range.
+         * @param chunkChange   Chunk -> total change in its scores, written by the task.
+         * @param chunkDangling Chunk -> its next dangling score, written by the task.
+         */
+        private IterationTask(int[] offsets, int[] sourcesOf, double[] outShare, boolean[] dangling,
+                              double[] teleport, double[] scores, double[] next, double damping,
+                              double danglingScore, int[] bounds, int from, int to, double[] chunkChange, double[] chunkDangling)
+        {
+            this.offsets = offsets;
+            this.sourcesOf = sourcesOf;
+            this.outShare = outShare;
+            this.dangling = dangling;
+            this.teleport = teleport;
+            this.scores = scores;
+            this.next = next;
+            this.damping = damping;
+            this.danglingScore = danglingScore;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.chunkChange = chunkChange;
+            this.chunkDangling = chunkDangling;
+        } // end constructor
+
+        /**
+         * Computes the chunks [from, to), splitting them in half as
+         * separate tasks until each task has one chunk.
+         */
+        protected void compute()
+        {
+            if (to - from > 1)
+            {
+                int middle = (from + to) >>> 1;
+                invokeAll(split(from, middle), split(middle, to));
+                return;
+            } // end if
+
+            // Every walk that doesn't follow an edge jumps by the teleport chances
+            double jumping = damping * danglingScore + (1 - damping);
+            double change = 0;
+            double danglingNext = 0;
+            for (int vertex = bounds[from]; vertex < bounds[to]; vertex++)
+            {
+                double pulled = 0;
+                for (int edge = offsets[vertex]; edge < offsets[vertex + 1]; edge++)
+                {
+                    int source = sourcesOf[edge];
+                    pulled += scores[source] * outShare[source];
+                } // end for
+
+                double score = damping * pulled + jumping * teleport[vertex];
+                change += Math.abs(score - scores[vertex]);
+                if (dangling[vertex])
+                    danglingNext += score;
+                next[vertex] = score;
+            } // end for
+
+            chunkChange[from] = change;
+            chunkDangling[from] = danglingNext;
+        } // end compute
+
+        /**
+         * Makes a task for part of this task's range.
+         *
+         * @param first The first chunk of the part.
+         * @param end   The chunk just past the part.
+         * @return      The task.
+         */
+        private IterationTask split(int first, int end)
+        {
+            return new IterationTask(offsets, sourcesOf, outShare, dangling, teleport, scores, next,
+                                     damping, danglingScore, bounds, first, end, chunkChange, chunkDangling);
+        } // end split
+    } // end IterationTask
+} // end PageRank
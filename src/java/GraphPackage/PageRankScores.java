@@ -0,0 +1,93 @@
+package GraphPackage;
+
+/**
+ * The PageRank scores that a PageRank job computed for a graph.
+ *
+ * The scores of all vertices add up to 1. The labels are kept by index
+ * along with the scores, so that a later job on the same graph can start
+ * from these scores (a warm start) for every vertex that still has the
+ * same index, even after the graph has changed.
+ *
+ * @param <T> The data type for the vertex label.
+ */
+public final class PageRankScores<T>
+{
+    private final IndexedGraph<T> graph;
+    private final T[] labels;          // Index -> label when the scores were computed, or null
+    private final double[] scores;     // Index -> score, 0 for unused indices
+    private final int numberOfIterations;
+    private final boolean converged;
+
+    /**
+     * Constructor.
+     *
+     * @param graph              The graph that was ranked.
+     * @param labels             The label of each index, or null for unused indices.
+     * @param scores             The score of each index.
+     * @param numberOfIterations The number of power iterations run.
+     * @param converged          Whether the scores met the tolerance.
+     */
+    PageRankScores(IndexedGraph<T> graph, T[] labels, double[] scores, int numberOfIterations, boolean converged)
+    {
+        this.graph = graph;
+        this.labels = labels;
+        this.scores = scores;
+        this.numberOfIterations = numberOfIterations;
+        this.converged = converged;
+    } // end constructor
+
+    /**
+     * Gets the score of a vertex.
+     *
+     * @param vertex An object that labels a vertex.
+     * @return       The vertex's score, or 0 if it was not ranked.
+     */
+    public double getScore(T vertex)
+    {
+        int index = graph.getIndex(vertex);
+        return vertex.equals(getLabel(index)) ? scores[index] : 0;
+    } // end getScore
+
+    /**
+     * Gets the number of power iterations that the job ran.
+     *
+     * @return The number of iterations.
+     */
+    public int getNumberOfIterations()
+    {
+        return numberOfIterations;
+    } // end getNumberOfIterations
+
+    /**
+     * Sees whether the scores changed by less than the tolerance in the
+     * last iteration, rather than the job stopping at its iteration limit.
+     *
+     * @return True if the scores converged.
+     */
+    public boolean hasConverged()
+    {
+        return converged;
+    } // end hasConverged
+
+    /**
+     * Gets the label that an index had when the scores were computed.
+     *
+     * @param index A vertex index.
+     * @return      The label, or null if the index was unused or out of range.
+     */
+    T getLabel(int index)
+    {
+        return ((index >= 0) && (index < labels.length)) ? labels[index] : null;
+    } // end getLabel
+
+    /**
+     * Gets the score at an index.
+     *
+     * @param index An index whose label is not null.
+     * @return      The score.
+     */
+    double getScore(int index)
+    {
+        return scores[index];
+    } // end getScore
+} // end PageRankScores
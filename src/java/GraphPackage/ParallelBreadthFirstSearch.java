@@ -0,0 +1,289 @@
+package GraphPackage;
+
+import ADTPackage.DictionaryInterface;
+import ADTPackage.HashedDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A level-synchronous breadth-first search that splits each frontier
+ * across the threads of a ForkJoinPool.
+ *
+ * Every level, the frontier is cut into chunks and each chunk is expanded
+ * by its own task. A task claims an unvisited neighbor by atomically
+ * changing the neighbor's level from UNREACHED to the next level, so each
+ * vertex joins exactly one frontier no matter which task sees it first.
+ * The chunks' discoveries are joined into the next frontier once the whole
+ * level is done.
+ *
+ * Which task claims a vertex can differ from run to run, but the set of
+ * reached vertices and the level of each one cannot: a vertex is claimed
+ * while the level before it is expanded, and only then.
+ *
+ * The graph must not be modified while a search runs on it.
+ */
+public final class ParallelBreadthFirstSearch
+{
+    private static final int UNREACHED = -1;
+    private static final int MIN_CHUNK_SIZE = 512;   // Frontier vertices per task, at least
+    private static final int CHUNKS_PER_THREAD = 4;  // Spare chunks so busy threads can steal work
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor with its own pool of threads.
+     *
+     * @param parallelism The number of threads to search with.
+     * @throws IllegalArgumentException if parallelism is not positive.
+     */
+    public ParallelBreadthFirstSearch(int parallelism)
+    {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("Parallelism must be positive.");
+
+        pool = new ForkJoinPool(parallelism);
+    } // end constructor
+
+    /**
+     * Gets the number of threads that searches run on.
+     *
+     * @return The parallelism level.
+     */
+    public int getParallelism()
+    {
+        return pool.getParallelism();
+    } // end getParallelism
+
+    /**
+     * Finds every vertex reachable from an origin and its distance in edges.
+     * Runtime: O(V + E) work, spread over the pool's threads.
+     *
+     * @param graph  The graph to search.
+     * @param origin An object that labels the origin vertex.
+     * @param <T>    The data type for the vertex label.
+     * @return       A dictionary from the label of each reached vertex to its
+     *               level, with the origin at level 0; empty if the origin is
+     *               not in the graph.
+     */
+    public <T> DictionaryInterface<T, Integer> getLevels(DirectedGraph<T> graph, T origin)
+    {
+        return search(graph, origin);
+    } // end getLevels
+
+    /**
+     * Finds every vertex of a snapshot reachable from an origin and its
+     * distance in edges.
+     * Runtime: O(V + E) work, spread over the pool's threads.
+     *
+     * @param graph  The snapshot to search.
+     * @param origin An object that labels the origin vertex.
+     * @param <T>    The data type for the vertex label.
+     * @return       A dictionary from the label of each reached vertex to its
+     *               level, with the origin at level 0; empty if the origin is
+     *               not in the snapshot.
+     */
+    public <T> DictionaryInterface<T, Integer> getLevels(CompressedGraph<T> graph, T origin)
+    {
+        return search(graph, origin);
+    } // end getLevels
+
+    /**
+     * Finds every vertex of an int graph reachable from an origin and its
+     * distance in edges, without boxing any id.
+     * Runtime: O(V + E) work, spread over the pool's threads.
+     *
+     * @param graph  The graph to search.
+     * @param origin The id of the origin vertex.
+     * @return       The level of each id below graph.getIndexCapacity(), with
+     *               the origin at level 0 and -1 for ids not reached; every
+     *               entry is -1 if the origin is not in the graph.
+     */
+    public int[] getLevels(IntGraph graph, int origin)
+    {
+        if (!graph.contains(origin))
+        {
+            int[] levels = new int[graph.getIndexCapacity()];
+            Arrays.fill(levels, UNREACHED);
+            return levels;
+        } // end if
+
+        return getLevelArray(graph, origin);
+    } // end getLevels
+
+    /** Stops the pool's threads once any running search finishes. */
+    public void shutdown()
+    {
+        pool.shutdown();
+    } // end shutdown
+
+    /**
+     * Runs the search on an indexed graph.
+     *
+     * @param graph  The graph to search.
+     * @param origin An object that labels the origin vertex.
+     * @param <T>    The data type for the vertex label.
+     * @return       A dictionary from reached labels to their levels.
+     */
+    <T> DictionaryInterface<T, Integer> search(IndexedGraph<T> graph, T origin)
+    {
+        DictionaryInterface<T, Integer> levels = new HashedDictionary<>();
+        int originIndex = graph.getIndex(origin);
+
+        if (originIndex != UNREACHED)
+        {
+            int[] reached = getLevelArray(graph, originIndex);
+            for (int index = 0; index < reached.length; index++)
+            {
+                if (reached[index] != UNREACHED)
+                    levels.add(graph.getLabel(index), reached[index]);
+            } // end for
+        } // end if
+
+        return levels;
+    } // end search
+
+    /**
+     * Runs the search and returns the levels by vertex index.
+     *
+     * @param graph       The graph to search.
+     * @param originIndex The index of the origin vertex.
+     * @return            The level of each index, or UNREACHED.
+     */
+    int[] getLevelArray(IndexedGraph<?> graph, int originIndex)
+    {
+        int capacity = graph.getIndexCapacity();
+        AtomicIntegerArray level = new AtomicIntegerArray(capacity);
+        for (int index = 0; index < capacity; index++)
+            level.set(index, UNREACHED);
+
+        level.set(originIndex, 0);
+        int[] frontier = { originIndex };
+        int depth = 0;
+
+        while (frontier.length > 0)
+        {
+            int chunkSize = Math.max(MIN_CHUNK_SIZE,
+                                     frontier.length / (CHUNKS_PER_THREAD * pool.getParallelism()) + 1);
+            FrontierTask task = new FrontierTask(graph, level, frontier, 0, frontier.length, depth + 1, chunkSize);
+
+            // A small frontier is not worth handing to the pool
+            if (frontier.length <= chunkSize)
+                frontier = task.compute();
+            else
+                frontier = pool.invoke(task);
+
+            depth++;
+        } // end while
+
+        int[] result = new int[capacity];
+        for (int index = 0; index < capacity; index++)
+            result[index] = level.get(index);
+
+        return result;
+    } // end getLevelArray
+
+    /** Expands part of a frontier, returning the vertices it claims. */
+    private static class FrontierTask extends RecursiveTask<int[]>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final IndexedGraph<?> graph;
+        private final AtomicIntegerArray level;
+        private final int[] frontier;
+        private final int from;
+        private final int to;
+        private final int nextLevel;
+        private final int chunkSize;
+
+        /**
+         * Constructor.
+         *
+         * @param graph     The graph being searched.
+         * @param level     The level of each vertex, or UNREACHED.
+         * @param frontier  The vertices of the current level.
+         * @param from      The first frontier position to expand.
+         * @param to        The position just past the last one to expand.
+         * @param nextLevel The level that claimed vertices get.
+         * @param chunkSize The number of positions one task expands itself.
+         */
+        private FrontierTask(IndexedGraph<?> graph, AtomicIntegerArray level, int[] frontier,
+                             int from, int to, int nextLevel, int chunkSize)
+        {
+            this.graph = graph;
+            this.level = level;
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.nextLevel = nextLevel;
+            this.chunkSize = chunkSize;
+        } // end constructor
+
+        /**
+         * Expands the positions [from, to), splitting them into chunks that
+         * run as separate tasks if there is more than one chunk.
+         *
+         * @return The claimed vertices, in chunk order.
+         */
+        protected int[] compute()
+        {
+            if (to - from <= chunkSize)
+                return expand();
+
+            List<FrontierTask> chunks = new ArrayList<>();
+            for (int start = from; start < to; start += chunkSize)
+                chunks.add(new FrontierTask(graph, level, frontier, start, Math.min(to, start + chunkSize),
+                                            nextLevel, chunkSize));
+            ForkJoinTask.invokeAll(chunks);
+
+            int total = 0;
+            for (FrontierTask chunk : chunks)
+                total += chunk.join().length;
+
+            int[] claimed = new int[total];
+            int position = 0;
+            for (FrontierTask chunk : chunks)
+            {
+                int[] part = chunk.join();
+                System.arraycopy(part, 0, claimed, position, part.length);
+                position += part.length;
+            } // end for
+
+            return claimed;
+        } // end compute
+
+        /**
+         * Expands the positions [from, to) in this thread.
+         *
+         * @return The claimed vertices.
+         */
+        private int[] expand()
+        {
+            int[] claimed = new int[16];
+            int count = 0;
+
+            for (int position = from; position < to; position++)
+            {
+                int vertex = frontier[position];
+                int degree = graph.getOutDegree(vertex);
+                for (int edge = 0; edge < degree; edge++)
+                {
+                    int neighbor = graph.getOutNeighbor(vertex, edge);
+                    if ((level.get(neighbor) == UNREACHED) && level.compareAndSet(neighbor, UNREACHED, nextLevel))
+                    {
+                        if (count == claimed.length)
+                            claimed = Arrays.copyOf(claimed, 2 * count);
+                        claimed[count++] = neighbor;
+                    } // end if
+                } // end for
+            } // end for
+
+            return Arrays.copyOf(claimed, count);
+        } // end expand
+    } // end FrontierTask
+} // end ParallelBreadthFirstSearch
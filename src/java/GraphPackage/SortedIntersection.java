@@ -0,0 +1,177 @@
+package GraphPackage;
+
+/**
+ * Intersects sets of int ids that are kept either as sorted arrays or as
+ * bitsets.
+ *
+ * Each method writes the common ids, in increasing order, to an output
+ * array if one is given, and returns how many there are; passing null
+ * only counts them. The caller picks the method that suits the sizes:
+ * a merge for lists of similar size, a galloping search when one list is
+ * much longer than the other, a probe when the longer set is a bitset,
+ * and a word-by-word AND when both are dense bitsets.
+ */
+final class SortedIntersection
+{
+    private SortedIntersection()
+    {
+    } // end default constructor
+
+    /**
+     * Intersects two sorted lists by walking them side by side.
+     * Runtime: O(length of both ranges).
+     *
+     * @param first       An array holding a sorted range of distinct ids.
+     * @param firstStart  The position of the range's first id.
+     * @param firstEnd    The position just past its last id.
+     * @param second      An array holding a sorted range of distinct ids.
+     * @param secondStart The position of the range's first id.
+     * @param secondEnd   The position just past its last id.
+     * @param common      The array for the common ids, or null to only count them.
+     * @return            The number of common ids.
+     */
+    static int merge(int[] first, int firstStart, int firstEnd,
+                     int[] second, int secondStart, int secondEnd, int[] common)
+    {
+        int count = 0;
+        int i = firstStart;
+        int j = secondStart;
+        while ((i < firstEnd) && (j < secondEnd))
+        {
+            int a = first[i];
+            int b = second[j];
+            if (a < b)
+                i++;
+            else if (a > b)
+                j++;
+            else
+            {
+                if (common != null)
+                    common[count] = a;
+                count++;
+                i++;
+                j++;
+            } // end if
+        } // end while
+
+        return count;
+    } // end merge
+
+    /**
+     * Intersects a short sorted list with a long one by searching the long
+     * list for each id of the short one. Each search doubles its step from
+     * where the last one stopped until it passes the id, then binary
+     * searches the last step.
+     * Runtime: O(s * log(l / s)) for ranges of length s and l.
+     *
+     * @param shorter      An array holding the short sorted range of distinct ids.
+     * @param shorterStart The position of the range's first id.
+     * @param shorterEnd   The position just past its last id.
+     * @param longer       An array holding the long sorted range of distinct ids.
+     * @param longerStart  The position of the range's first id.
+     * @param longerEnd    The position just past its last id.
+     * @param common       The array for the common ids, or null to only count them.
+     * @return             The number of common ids.
+     */
+    static int gallop(int[] shorter, int shorterStart, int shorterEnd,
+                      int[] longer, int longerStart, int longerEnd, int[] common)
+    {
+        int count = 0;
+        int low = longerStart;
+        for (int i = shorterStart; (i < shorterEnd) && (low < longerEnd); i++)
+        {
+            int id = shorter[i];
+
+            // Finds a step that ends at or past the id
+            int step = 1;
+            int high = low;
+            while ((high < longerEnd) && (longer[high] < id))
+            {
+                low = high + 1;
+                high = low + step - 1;
+                step *= 2;
+            } // end while
+
+            // Binary searches [low, high] for the first entry not below the id
+            high = Math.min(high, longerEnd - 1);
+            while (low < high)
+            {
+                int middle = (low + high) >>> 1;
+                if (longer[middle] < id)
+                    low = middle + 1;
+                else
+                    high = middle;
+            } // end while
+
+            if ((low < longerEnd) && (longer[low] == id))
+            {
+                if (common != null)
+                    common[count] = id;
+                count++;
+                low++;
+            } // end if
+        } // end for
+
+        return count;
+    } // end gallop
+
+    /**
+     * Intersects a sorted list with a bitset by testing each id's bit.
+     * Runtime: O(size).
+     *
+     * @param list   A sorted list of distinct ids.
+     * @param size   The number of ids in use in list.
+     * @param bits   A bitset, where bit (id % 64) of word (id / 64) is set if
+     *               id is in the set.
+     * @param common The array for the common ids, or null to only count them.
+     * @return       The number of common ids.
+     */
+    static int probe(int[] list, int size, long[] bits, int[] common)
+    {
+        int count = 0;
+        for (int i = 0; i < size; i++)
+        {
+            int id = list[i];
+            int word = id >>> 6;
+            if ((word < bits.length) && ((bits[word] & (1L << id)) != 0))
+            {
+                if (common != null)
+                    common[count] = id;
+                count++;
+            } // end if
+        } // end for
+
+        return count;
+    } // end probe
+
+    /**
+     * Intersects two bitsets a word at a time.
+     * Runtime: O(number of words).
+     *
+     * @param first  A bitset.
+     * @param second A bitset.
+     * @param common The array for the common ids, or null to only count them.
+     * @return       The number of common ids.
+     */
+    static int and(long[] first, long[] second, int[] common)
+    {
+        int count = 0;
+        int words = Math.min(first.length, second.length);
+        for (int word = 0; word < words; word++)
+        {
+            long both = first[word] & second[word];
+            if (common == null)
+                count += Long.bitCount(both);
+            else
+            {
+                while (both != 0)
+                {
+                    common[count++] = (word << 6) + Long.numberOfTrailingZeros(both);
+                    both &= both - 1;
+                } // end while
+            } // end if
+        } // end for
+
+        return count;
+    } // end and
+} // end SortedIntersection
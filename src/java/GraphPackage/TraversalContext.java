@@ -0,0 +1,161 @@
+package GraphPackage;
+
+import ADTPackage.IndexedMinHeap;
+
+import java.util.Arrays;
+
+/**
+ * The bookkeeping of one graph query: visited marks, path costs,
+ * predecessors and scratch space, all indexed by vertex index.
+ *
+ * Visited marks are epoch stamps. A vertex is visited in the current query
+ * only if its stamp equals the current epoch, so starting a new query is
+ * O(1) instead of an O(V) reset. Contexts are reused from a per-thread
+ * pool, which lets any number of threads run read-only queries on the same
+ * graph at once. A query that starts while its thread's pooled context is
+ * busy gets a fresh context of its own.
+ *
+ * A second set of marks lets a bidirectional search tell the vertices
+ * reached from the end apart from those reached from the origin.
+ *
+ * cost, predecessor, successor, nextPosition and depth hold stale values
+ * from earlier queries; a query must write an entry before it reads it.
+ */
+final class TraversalContext
+{
+    private static final ThreadLocal<TraversalContext> POOL = ThreadLocal.withInitial(TraversalContext::new);
+
+    private int[] visitMark;  // Vertex index -> epoch in which it was last visited
+    private int[] backwardMark; // Vertex index -> epoch in which it was last visited backward
+    private int epoch;
+    private boolean inUse;
+
+    double[] cost;            // Vertex index -> cost of the path to it
+    int[] predecessor;        // Vertex index -> previous vertex on the path to it
+    int[] successor;          // Vertex index -> next vertex on the path from it
+    int[] vertexQueue;        // Scratch queue or stack of vertex indices
+    int[] backwardQueue;      // Second scratch queue, for searches from the end
+    int[] nextPosition;       // Vertex index -> next neighbor position to examine
+    int[] depth;              // Vertex index -> number of edges from the origin
+    IndexedMinHeap heap;      // Vertex indices by tentative path cost; empty when acquired
+
+    /** Constructor for an empty context. */
+    private TraversalContext()
+    {
+        visitMark = new int[0];
+        backwardMark = new int[0];
+        cost = new double[0];
+        predecessor = new int[0];
+        successor = new int[0];
+        vertexQueue = new int[0];
+        backwardQueue = new int[0];
+        nextPosition = new int[0];
+        depth = new int[0];
+        heap = new IndexedMinHeap(0);
+        epoch = 0;
+        inUse = false;
+    } // end default constructor
+
+    /**
+     * Gets a context for a new query with no vertex visited.
+     * Runtime: O(1) unless the arrays must grow.
+     *
+     * @param capacity The index capacity of the graph being queried.
+     * @return         A context that the caller must release when done.
+     */
+    static TraversalContext acquire(int capacity)
+    {
+        TraversalContext context = POOL.get();
+        if (context.inUse)
+            context = new TraversalContext();
+
+        context.begin(capacity);
+        context.inUse = true;
+        return context;
+    } // end acquire
+
+    /** Returns this context to its thread's pool. */
+    void release()
+    {
+        inUse = false;
+    } // end release
+
+    /**
+     * Sees whether a vertex was visited in this query.
+     *
+     * @param index The vertex index.
+     * @return      True if the vertex is visited.
+     */
+    boolean isVisited(int index)
+    {
+        return visitMark[index] == epoch;
+    } // end isVisited
+
+    /**
+     * Marks a vertex as visited in this query.
+     *
+     * @param index The vertex index.
+     */
+    void visit(int index)
+    {
+        visitMark[index] = epoch;
+    } // end visit
+
+    /**
+     * Sees whether a vertex was visited backward, from the end of a path,
+     * in this query.
+     *
+     * @param index The vertex index.
+     * @return      True if the vertex is visited backward.
+     */
+    boolean isVisitedBackward(int index)
+    {
+        return backwardMark[index] == epoch;
+    } // end isVisitedBackward
+
+    /**
+     * Marks a vertex as visited backward in this query.
+     *
+     * @param index The vertex index.
+     */
+    void visitBackward(int index)
+    {
+        backwardMark[index] = epoch;
+    } // end visitBackward
+
+    /**
+     * Starts a new epoch, growing the arrays if the graph has grown.
+     *
+     * @param capacity The index capacity of the graph being queried.
+     */
+    private void begin(int capacity)
+    {
+        if (visitMark.length < capacity)
+        {
+            int newLength = Math.max(capacity, 2 * visitMark.length);
+            visitMark = new int[newLength];
+            backwardMark = new int[newLength];
+            cost = new double[newLength];
+            predecessor = new int[newLength];
+            successor = new int[newLength];
+            vertexQueue = new int[newLength];
+            backwardQueue = new int[newLength];
+            nextPosition = new int[newLength];
+            depth = new int[newLength];
+            heap = new IndexedMinHeap(newLength);
+            epoch = 0;
+        }
+        else
+            heap.clear();  // Drop whatever an earlier query left behind
+
+        if (epoch == Integer.MAX_VALUE)
+        {
+            // Stamps would repeat; clear them once every 2^31 queries
+            Arrays.fill(visitMark, 0);
+            Arrays.fill(backwardMark, 0);
+            epoch = 0;
+        } // end if
+
+        epoch++;
+    } // end begin
+} // end TraversalContext
@@ -0,0 +1,162 @@
+package GraphPackage;
+
+/**
+ * The triangles of an undirected graph, as counted by a TriangleCounter,
+ * and the clustering measures derived from them.
+ *
+ * A vertex's local clustering coefficient is the share of pairs of its
+ * neighbors that are themselves adjacent: its triangles divided by
+ * degree * (degree - 1) / 2. The graph's transitivity is the same share
+ * taken over every vertex at once: three times the number of triangles
+ * divided by the number of paths of two edges (wedges). A group of
+ * accounts that all befriend one another stands out with coefficients
+ * near 1.
+ *
+ * The counts are a snapshot. Vertices are looked up through the graph,
+ * so the graph should not be modified while the counts are in use.
+ *
+ * @param <T> The data type for the vertex label.
+ */
+public final class TriangleCounts<T>
+{
+    private final IndexedGraph<T> graph;
+    private final int[] degree;            // Index -> number of neighbors other than itself
+    private final long[] triangles;        // Index -> number of triangles the vertex is in
+    private final long numberOfTriangles;
+    private final long numberOfWedges;
+    private final double averageClustering;
+
+    /**
+     * Constructor.
+     *
+     * @param graph             The graph that was counted.
+     * @param degree            The degree of each index.
+     * @param triangles         The number of triangles at each index.
+     * @param numberOfTriangles The number of triangles in the graph.
+     */
+    TriangleCounts(IndexedGraph<T> graph, int[] degree, long[] triangles, long numberOfTriangles)
+    {
+        this.graph = graph;
+        this.degree = degree;
+        this.triangles = triangles;
+        this.numberOfTriangles = numberOfTriangles;
+
+        long wedges = 0;
+        double clusteringSum = 0;
+        int vertices = 0;
+        for (int index = 0; index < degree.length; index++)
+        {
+            if (graph.getLabel(index) != null)
+            {
+                wedges += pairs(degree[index]);
+                clusteringSum += getClusteringCoefficient(index);
+                vertices++;
+            } // end if
+        } // end for
+
+        numberOfWedges = wedges;
+        averageClustering = (vertices == 0) ? 0 : clusteringSum / vertices;
+    } // end constructor
+
+    /**
+     * Gets the number of triangles in the graph.
+     *
+     * @return The number of sets of three mutually adjacent vertices.
+     */
+    public long getNumberOfTriangles()
+    {
+        return numberOfTriangles;
+    } // end getNumberOfTriangles
+
+    /**
+     * Gets the number of paths of two edges in the graph.
+     *
+     * @return The number of wedges, each counted once at its middle vertex.
+     */
+    public long getNumberOfWedges()
+    {
+        return numberOfWedges;
+    } // end getNumberOfWedges
+
+    /**
+     * Gets the global clustering coefficient of the graph.
+     *
+     * @return 3 * triangles / wedges, or 0 if there are no wedges.
+     */
+    public double getTransitivity()
+    {
+        return (numberOfWedges == 0) ? 0 : 3.0 * numberOfTriangles / numberOfWedges;
+    } // end getTransitivity
+
+    /**
+     * Gets the mean of the local clustering coefficients of all vertices,
+     * counting those with fewer than two neighbors as 0.
+     *
+     * @return The average clustering coefficient, or 0 for an empty graph.
+     */
+    public double getAverageClusteringCoefficient()
+    {
+        return averageClustering;
+    } // end getAverageClusteringCoefficient
+
+    /**
+     * Gets the number of triangles that a vertex is in.
+     *
+     * @param vertex An object that labels a vertex.
+     * @return       The vertex's triangles, or 0 if it was not counted.
+     */
+    public long getTriangleCount(T vertex)
+    {
+        int index = indexOf(vertex);
+        return (index == -1) ? 0 : triangles[index];
+    } // end getTriangleCount
+
+    /**
+     * Gets the local clustering coefficient of a vertex.
+     *
+     * @param vertex An object that labels a vertex.
+     * @return       The share of pairs of its neighbors that are adjacent,
+     *               or 0 if it has fewer than two neighbors or was not counted.
+     */
+    public double getClusteringCoefficient(T vertex)
+    {
+        int index = indexOf(vertex);
+        return (index == -1) ? 0 : getClusteringCoefficient(index);
+    } // end getClusteringCoefficient
+
+    /**
+     * Gets the local clustering coefficient at an index.
+     *
+     * @param index The index of a counted vertex.
+     * @return      Its coefficient, or 0 if its degree is below 2.
+     */
+    private double getClusteringCoefficient(int index)
+    {
+        long possible = pairs(degree[index]);
+        return (possible == 0) ? 0 : (double) triangles[index] / possible;
+    } // end getClusteringCoefficient
+
+    /**
+     * Gets the index of a vertex that was counted.
+     *
+     * @param vertex An object that labels a vertex.
+     * @return       Its index, or -1 if it is not in the graph or was added
+     *               after the count.
+     */
+    private int indexOf(T vertex)
+    {
+        int index = graph.getIndex(vertex);
+        return (index < degree.length) ? index : -1;
+    } // end indexOf
+
+    /**
+     * Gets the number of unordered pairs among some items.
+     *
+     * @param items The number of items.
+     * @return      items * (items - 1) / 2.
+     */
+    private static long pairs(int items)
+    {
+        return (long) items * (items - 1) / 2;
+    } // end pairs
+} // end TriangleCounts
@@ -1,5 +1,6 @@
 package GraphPackage;
 
+import ADTPackage.DictionaryInterface;
 import ADTPackage.StackInterface;
 
 /**
@@ -15,6 +16,17 @@ public class UndirectedGraph<T> extends DirectedGraph<T> implements GraphInterfa
         super();
     } // end default constructor
 
+    /**
+     * Constructor with the dictionary that will hold the vertices.
+     *
+     * @param vertexDictionary An empty dictionary to store the vertices by label.
+     * @throws IllegalArgumentException if vertexDictionary is null or not empty.
+     */
+    public UndirectedGraph(DictionaryInterface<T, VertexInterface<T>> vertexDictionary)
+    {
+        super(vertexDictionary);
+    } // end constructor
+
     /** {@inheritDoc} */
     public boolean addEdge(T begin, T end, double edgeWeight)
     {
@@ -35,6 +47,12 @@ public class UndirectedGraph<T> extends DirectedGraph<T> implements GraphInterfa
         return super.getNumberOfEdges() / 2;
     } // end getNumberOfEdges
 
+    /** {@inheritDoc} */
+    public CompressedGraph<T> getSnapshot()
+    {
+        return new CompressedGraph<>(this, false);
+    } // end getSnapshot
+
     /**
      * {@inheritDoc}
      *
@@ -1,22 +1,39 @@
 package GraphPackage;
 
-import ADTPackage.LinkedListWithIterator;
-import ADTPackage.ListWithIteratorInterface;
+import ADTPackage.DictionaryInterface;
+import ADTPackage.HashedDictionary;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 /**
  * Implements a vertex.
  *
+ * The edges to neighbors are kept in an array, which the neighbor and
+ * weight iterators both walk, so the two always line up. Once a vertex
+ * has more than a few neighbors it also keeps a hashed index from
+ * neighbor to edge, which makes connect and hasNeighbor O(1) expected.
+ * The neighbors stay in the order they were connected, even after
+ * disconnect, so traversals visit them in a stable order; disconnecting
+ * shifts the later edges down by one.
+ *
+ * Each vertex also records the edges that end at it, so a graph can find
+ * every edge touching a vertex without scanning the other vertices.
+ *
  * @param <T> The data type for the vertex label.
  */
 class Vertex<T> implements VertexInterface<T>
 {
+    private static final int DEFAULT_CAPACITY = 4;  // Initial length of the edge array
+    private static final int INDEX_THRESHOLD = 8;   // Neighbor count above which edgeIndex is used
+
     private T label;
-    private ListWithIteratorInterface<Edge> edgeList; // Edges to neighbors
-    private boolean visited;                          // True if visited
-    private VertexInterface<T> previousVertex;        // On path to this vertex
-    private double cost;                              // Of path to this vertex
+    private EdgeArray outEdges;                               // Edges to neighbors
+    private EdgeArray inEdges;                                // Edges back to vertices that have this neighbor
+    private boolean visited;                                  // True if visited
+    private VertexInterface<T> previousVertex;                // On path to this vertex
+    private double cost;                                      // Of path to this vertex
+    private int index;                                        // Index given by the graph, or -1
 
     /**
      * Constructor.
@@ -26,7 +43,9 @@ class Vertex<T> implements VertexInterface<T>
     public Vertex(T vertexLabel)
     {
         label = vertexLabel;
-        edgeList = new LinkedListWithIterator<>();
+        outEdges = new EdgeArray();
+        inEdges = new EdgeArray();
+        index = -1;
         visited = false;
         previousVertex = null;
         cost = 0;
@@ -114,6 +133,112 @@ class Vertex<T> implements VertexInterface<T>
         cost = newCost;
     } // end setCost
 
+    /**
+     * Gets the index the graph gave this vertex.
+     *
+     * @return The index, or -1 if the vertex is not in a graph.
+     */
+    int getIndex()
+    {
+        return index;
+    } // end getIndex
+
+    /**
+     * Sets the index the graph gives this vertex.
+     *
+     * @param newIndex The index, or -1 when the vertex leaves the graph.
+     */
+    void setIndex(int newIndex)
+    {
+        index = newIndex;
+    } // end setIndex
+
+    /**
+     * Gets the number of edges that begin at this vertex.
+     *
+     * @return The number of neighbors.
+     */
+    int getNumberOfNeighbors()
+    {
+        return outEdges.numberOfEdges;
+    } // end getNumberOfNeighbors
+
+    /**
+     * Gets the neighbor at a position in the edge array.
+     *
+     * @param position A position in [0, getNumberOfNeighbors()).
+     * @return         The neighbor.
+     */
+    VertexInterface<T> getNeighbor(int position)
+    {
+        return outEdges.edges[position].getEndVertex();
+    } // end getNeighbor
+
+    /**
+     * Gets the index of the neighbor at a position in the edge array.
+     *
+     * @param position A position in [0, getNumberOfNeighbors()).
+     * @return         The index of the neighbor.
+     */
+    int getNeighborIndex(int position)
+    {
+        return ((Vertex<T>) outEdges.edges[position].getEndVertex()).index;
+    } // end getNeighborIndex
+
+    /**
+     * Gets the weight of the edge at a position in the edge array.
+     *
+     * @param position A position in [0, getNumberOfNeighbors()).
+     * @return         The weight of the edge.
+     */
+    double getNeighborWeight(int position)
+    {
+        return outEdges.edges[position].getWeight();
+    } // end getNeighborWeight
+
+    /**
+     * Gets the number of edges that end at this vertex.
+     *
+     * @return The number of vertices that have this vertex as a neighbor.
+     */
+    int getNumberOfIncoming()
+    {
+        return inEdges.numberOfEdges;
+    } // end getNumberOfIncoming
+
+    /**
+     * Gets the vertex at the beginning of an incoming edge.
+     *
+     * @param position A position in [0, getNumberOfIncoming()).
+     * @return         The vertex that the edge begins at.
+     */
+    Vertex<T> getIncoming(int position)
+    {
+        return (Vertex<T>) inEdges.edges[position].getEndVertex();
+    } // end getIncoming
+
+    /**
+     * Gets the index of the vertex at the beginning of an incoming edge.
+     *
+     * @param position A position in [0, getNumberOfIncoming()).
+     * @return         The index of the vertex that the edge begins at.
+     */
+    int getIncomingIndex(int position)
+    {
+        return getIncoming(position).index;
+    } // end getIncomingIndex
+
+    /**
+     * Gets the weight of an incoming edge.
+     *
+     * @param position A position in [0, getNumberOfIncoming()).
+     * @return         The weight of the edge.
+     */
+    double getIncomingWeight(int position)
+    {
+        return inEdges.edges[position].getWeight();
+    } // end getIncomingWeight
+
     /** {@inheritDoc} */
     public String toString()
     {
@@ -123,12 +248,12 @@ class Vertex<T> implements VertexInterface<T>
     /** Implements a weight iterator. */
     private class WeightIterator implements Iterator<Double>
     {
-        private Iterator<Edge> edges;
+        private int nextPosition;
 
         /** Constructor. */
         private WeightIterator()
         {
-            edges = edgeList.getIterator();
+            nextPosition = 0;
         } // end default constructor
 
         /**
@@ -138,7 +263,7 @@ class Vertex<T> implements VertexInterface<T>
          */
         public boolean hasNext()
         {
-            return edges.hasNext();
+            return nextPosition < outEdges.numberOfEdges;
         } // end hasNext
 
         /**
@@ -150,9 +275,10 @@ class Vertex<T> implements VertexInterface<T>
         public Double next()
         {
             Double edgeWeight = 0.0;
-            if (edges.hasNext())
+            if (hasNext())
             {
-                Edge edgeToNextNeighbor = edges.next();
+                Edge edgeToNextNeighbor = outEdges.edges[nextPosition];
+                nextPosition++;
                 edgeWeight = edgeToNextNeighbor.getWeight();
             }
             else
@@ -184,6 +310,7 @@ class Vertex<T> implements VertexInterface<T>
 
     /**
      * Connects the vertex to the provided end vertex using the provided weight.
+     * Runtime: O(1) expected (amortized over the growth of the edge array).
      *
      * @param endVertex   The end vertex to connect to.
      * @param edgeWeight  The weight of the edge.
@@ -193,23 +320,15 @@ class Vertex<T> implements VertexInterface<T>
     {
         boolean result = false;
 
-        if (!this.equals(endVertex))
-        {  // Vertices are distinct
-            Iterator<VertexInterface<T>> neighbors = getNeighborIterator();
-            boolean duplicateEdge = false;
+        if (!this.equals(endVertex) && (outEdges.find(endVertex) == null))
+        {  // Vertices are distinct and the edge is not a duplicate
+            outEdges.add(new Edge(endVertex, edgeWeight));
 
-            while (!duplicateEdge && neighbors.hasNext())
-            {
-                VertexInterface<T> nextNeighbor = neighbors.next();
-                if (endVertex.equals(nextNeighbor))
-                    duplicateEdge = true;
-            } // end while
+            // Record the edge at the other end, too
+            if (endVertex instanceof Vertex)
+                ((Vertex<T>) endVertex).inEdges.add(new Edge(this, edgeWeight));
 
-            if (!duplicateEdge)
-            {
-                edgeList.add(new Edge(endVertex, edgeWeight));
-                result = true;
-            } // end if
+            result = true;
         } // end if
 
         return result;
@@ -226,26 +345,32 @@ class Vertex<T> implements VertexInterface<T>
         return connect(endVertex, 0);
     } // end connect
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     *
+     * Runtime: O(1) expected to find the edge, plus O(number of edges after
+     * it) to close the gap; the other neighbors keep their order.
+     */
     public boolean disconnect(VertexInterface<T> endVertex) {
-        // If the vertex is not the same vertex as the end vertex
-        if (!this.equals(endVertex)) {
-            // Iterates through the edges list, starting at 1 instead of 0
-            // because edgeList is a ListWithIteratorInterface
-            // which starts the entry at 1
-            for (int i = 1; i <= edgeList.getLength(); i++) {
-                // If the edge's end vertex is equal to the provided end vertex
-                if (edgeList.getEntry(i).getEndVertex() == endVertex) {
-                    // Remove it and return true
-                    edgeList.remove(i);
-                    return true;
-                }
-            }
+        // If there is no edge to the end vertex, return false
+        if (!outEdges.remove(endVertex)) {
+            return false;
+        }
+
+        // Remove the record of the edge at the other end, too
+        if (endVertex instanceof Vertex) {
+            ((Vertex<T>) endVertex).inEdges.remove(this);
         }
-        // Otherwise return false
-        return false;
+
+        return true;
     }
 
+    /** {@inheritDoc} */
+    public boolean hasNeighbor(VertexInterface<T> vertex)
+    {
+        return outEdges.find(vertex) != null;
+    } // end hasNeighbor
+
     /**
      * Gets a neighbor iterator.
      *
@@ -263,7 +388,7 @@ class Vertex<T> implements VertexInterface<T>
      */
     public boolean hasNeighbor()
     {
-        return !edgeList.isEmpty();
+        return outEdges.numberOfEdges > 0;
     } // end hasNeighbor
 
     /**
@@ -309,15 +434,25 @@ class Vertex<T> implements VertexInterface<T>
         return result;
     } // end equals
 
+    /**
+     * Gets the hash code of the vertex, which is the hash code of its label.
+     *
+     * @return The hash code.
+     */
+    public int hashCode()
+    {
+        return label.hashCode();
+    } // end hashCode
+
     /** Implements a vertex neighbor iterator. */
     private class NeighborIterator implements Iterator<VertexInterface<T>>
     {
-        private Iterator<Edge> edges;
+        private int nextPosition;
 
         /** Constructor. */
         private NeighborIterator()
         {
-            edges = edgeList.getIterator();
+            nextPosition = 0;
         } // end default constructor
 
         /**
@@ -327,7 +462,7 @@ class Vertex<T> implements VertexInterface<T>
          */
         public boolean hasNext()
         {
-            return edges.hasNext();
+            return nextPosition < outEdges.numberOfEdges;
         } // end hasNext
 
         /**
@@ -340,9 +475,10 @@ class Vertex<T> implements VertexInterface<T>
         {
             VertexInterface<T> nextNeighbor = null;
 
-            if (edges.hasNext())
+            if (hasNext())
             {
-                Edge edgeToNextNeighbor = edges.next();
+                Edge edgeToNextNeighbor = outEdges.edges[nextPosition];
+                nextPosition++;
                 nextNeighbor = edgeToNextNeighbor.getEndVertex();
             }
             else
@@ -367,6 +503,7 @@ class Vertex<T> implements VertexInterface<T>
     {
         private VertexInterface<T> vertex; // Vertex at end of edge
         private double weight;
+        private int position;              // Index of this edge in its EdgeArray
 
         /**
          * Constructor with provided end vertex and edge weight.
@@ -412,6 +549,110 @@ class Vertex<T> implements VertexInterface<T>
         } // end getWeight
     } // end Edge
 
+    /**
+     * An array of edges in the order they were added, with a hashed index
+     * from end vertex to edge once there are more than INDEX_THRESHOLD edges.
+     */
+    private class EdgeArray
+    {
+        private Edge[] edges;
+        private int numberOfEdges;
+        private DictionaryInterface<VertexInterface<T>, Edge> edgeIndex; // End vertex -> edge, or null
+
+        /** Constructor for an empty edge array. */
+        private EdgeArray()
+        {
+            @SuppressWarnings("unchecked")
+            Edge[] tempEdges = (Edge[]) new Vertex<?>.Edge[DEFAULT_CAPACITY];
+            edges = tempEdges;
+            numberOfEdges = 0;
+            edgeIndex = null;
+        } // end default constructor
+
+        /**
+         * Adds an edge at the end of the array.
+         * Runtime: O(1) expected (amortized over the growth of the array).
+         *
+         * @param newEdge An edge whose end vertex is not yet in the array.
+         */
+        private void add(Edge newEdge)
+        {
+            if (numberOfEdges == edges.length)
+                edges = Arrays.copyOf(edges, 2 * edges.length);
+
+            newEdge.position = numberOfEdges;
+            edges[numberOfEdges] = newEdge;
+            numberOfEdges++;
+
+            if (edgeIndex != null)
+                edgeIndex.add(newEdge.getEndVertex(), newEdge);
+            else if (numberOfEdges > INDEX_THRESHOLD)
+                buildEdgeIndex();
+        } // end add
+
+        /**
+         * Removes the edge to a given vertex, shifting the later edges down
+         * so that the rest stay in the order they were added.
+         * Runtime: O(1) expected to find the edge, plus O(number of edges after it).
+         *
+         * @param endVertex The vertex at the end of the edge.
+         * @return          True if the edge was removed, false if there was no such edge.
+         */
+        private boolean remove(VertexInterface<T> endVertex)
+        {
+            Edge edgeToRemove = find(endVertex);
+
+            if (edgeToRemove != null)
+            {
+                int position = edgeToRemove.position;
+                numberOfEdges--;
+                System.arraycopy(edges, position + 1, edges, position, numberOfEdges - position);
+                edges[numberOfEdges] = null;
+                for (int later = position; later < numberOfEdges; later++)
+                    edges[later].position = later;
+
+                // Keep the index in step with the array
+                if (edgeIndex != null)
+                    edgeIndex.remove(endVertex);
+            } // end if
+
+            return edgeToRemove != null;
+        } // end remove
+
+        /**
+         * Finds the edge to a given vertex.
+         * Runtime: O(1) expected once there are more than INDEX_THRESHOLD edges.
+         *
+         * @param endVertex The vertex at the end of the edge.
+         * @return          The edge, or null if there is no edge to endVertex.
+         */
+        private Edge find(VertexInterface<T> endVertex)
+        {
+            Edge result = null;
+
+            if (edgeIndex != null)
+                result = edgeIndex.getValue(endVertex);
+            else
+            {
+                for (int position = 0; (result == null) && (position < numberOfEdges); position++)
+                {
+                    if (edges[position].getEndVertex().equals(endVertex))
+                        result = edges[position];
+                } // end for
+            } // end if
+
+            return result;
+        } // end find
+
+        /** Builds the index once the array has outgrown linear search. */
+        private void buildEdgeIndex()
+        {
+            edgeIndex = new HashedDictionary<>(2 * numberOfEdges);
+            for (int position = 0; position < numberOfEdges; position++)
+                edgeIndex.add(edges[position].getEndVertex(), edges[position]);
+        } // end buildEdgeIndex
+    } // end EdgeArray
+
     /** Displays the vertex. */
     public void display()
     {
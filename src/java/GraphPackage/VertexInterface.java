@@ -65,6 +65,12 @@ public interface VertexInterface<T>
      @return  True if the vertex has a neighbor. */
     public boolean hasNeighbor();
 
+    /** Sees whether a given vertex is a neighbor of this vertex, that is,
+     whether an edge begins at this vertex and ends at the given one.
+     @param vertex  A vertex in the graph.
+     @return  True if the edge exists. */
+    public boolean hasNeighbor(VertexInterface<T> vertex);
+
     /** Gets an unvisited neighbor, if any, of this vertex.
      @return  Either a vertex that is an unvisited neighbor or null
      if no such neighbor exists. */
@@ -1,4 +1,8 @@
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 /**
@@ -9,8 +13,11 @@ import java.util.*;
  */
 public class Main {
 
+    private static final Path SNAPSHOT_FILE = Paths.get("network.snapshot");
+    private static final Path LOG_FILE = Paths.get("network.wal");
+
     private static Profile currentProfile;
-    private static final ProfileManager profileManager = new ProfileManager();
+    private static ProfileManager profileManager = new ProfileManager();
 
     /**
      * Main method for running the program.
@@ -19,6 +26,21 @@ public class Main {
      */
     public static void main(String[] args) {
         System.out.println("Welcome to the social media system manager!\n");
+
+        // Restores the network as it was when the program last ended, if any,
+        // and logs every change from here on
+        boolean restoring = Files.exists(SNAPSHOT_FILE) || Files.exists(LOG_FILE);
+        try {
+            profileManager = ProfileManager.open(SNAPSHOT_FILE, LOG_FILE, WriteAheadLog.Durability.GROUP);
+            if (restoring) {
+                System.out.println("Loaded " + profileManager.getListOfProfiles().size() + " profiles from " + SNAPSHOT_FILE + " and " + LOG_FILE + ".\n");
+            }
+        } catch (IOException e) {
+            // Stops rather than starting empty, which would save over the network at logout
+            System.out.println("Unable to load " + SNAPSHOT_FILE + " and " + LOG_FILE + ": " + e.getMessage());
+            System.out.println("Move or repair them and start again; they have been left as they were.");
+            return;
+        }
         System.out.println("You must first create your profile.");
 
         // Create a profile for the initial user
@@ -73,6 +95,14 @@ public class Main {
                     break;
                 case 11:
                     System.out.println("Logging out...");
+                    try {
+                        // Also folds the write-ahead log into the snapshot
+                        profileManager.saveSnapshot(SNAPSHOT_FILE);
+                        profileManager.close();
+                        System.out.println("Saved the network to " + SNAPSHOT_FILE + ".");
+                    } catch (IOException e) {
+                        System.out.println("Unable to save " + SNAPSHOT_FILE + ": " + e.getMessage());
+                    }
                     exit = true;
             }
         }
@@ -110,7 +140,7 @@ public class Main {
         System.out.println("Enter 8 to delete a profile.");
         System.out.println("Enter 9 to add another profile.");
         System.out.println("Enter 10 to switch the current user.");
-        System.out.println("Enter 11 to logout (end program).");
+        System.out.println("Enter 11 to logout and save the network (end program).");
     }
 
     /**
@@ -395,7 +425,7 @@ public class Main {
             HashMap<Integer, Integer> choiceToProfilesIndexMap = new HashMap<>();
 
             // Get the current profile's friends list
-            List<Profile> currentFriends = currentProfile.getFriendProfiles();
+            List<Profile> currentFriends = profileManager.getFriends(currentProfile);
 
             // Initialize display index to 0
             int displayIndex = 0;
@@ -420,6 +450,12 @@ public class Main {
                     choicesStringBuilder.append(displayIndex);
                     choicesStringBuilder.append(". ");
                     choicesStringBuilder.append(profiles.get(i).getName());
+
+                    // Add the number of mutual friends, if any
+                    int mutualCount = profileManager.mutualFriendCount(currentProfile, profile);
+                    if (mutualCount > 0) {
+                        choicesStringBuilder.append(" (").append(mutualCount).append(" mutual)");
+                    }
                     choicesStringBuilder.append("\n");
                 }
             }
@@ -453,9 +489,9 @@ public class Main {
      */
     public static void viewFriendList() {
         // If it's not empty, display the name of the current profile's friend(s)
-        if (!currentProfile.getFriendProfiles().isEmpty()) {
+        List<Profile> friendProfiles = profileManager.getFriends(currentProfile);
+        if (!friendProfiles.isEmpty()) {
             System.out.println(currentProfile.getName() + "'s friends:");
-            List<Profile> friendProfiles = currentProfile.getFriendProfiles();
 
             // Display for each friend's name with an index number
             for (int i = 0; i < friendProfiles.size(); i++) {
@@ -472,7 +508,7 @@ public class Main {
      */
     private static void viewFriendOfFriendList() {
         // Get list of a current user's friend
-        List<Profile> friends = currentProfile.getFriendProfiles();
+        List<Profile> friends = profileManager.getFriends(currentProfile);
 
         if (friends.isEmpty()) {
             System.out.println("\n" + currentProfile.getName() + " has no friends to view.");
@@ -489,7 +525,7 @@ public class Main {
         Profile selectedFriend = friends.get(choice - 1);
 
         // show that friend's friend list
-        List<Profile> friendOfFriendList = selectedFriend.getFriendProfiles();
+        List<Profile> friendOfFriendList = profileManager.getFriends(selectedFriend);
 
         if (friendOfFriendList.isEmpty()) {
             System.out.println(currentProfile.getName() + " has no friends to view,");
@@ -499,6 +535,15 @@ public class Main {
                 System.out.println(i + 1 + ". " + friendOfFriendList.get(i).getName());
             }
         }
+
+        // Suggest the friends of friends the current user shares the most friends with
+        List<Profile> suggestions = profileManager.suggestFriends(currentProfile, 5, 1, 1);
+        if (!suggestions.isEmpty()) {
+            System.out.println("\nPeople " + currentProfile.getName() + " may know:");
+            for (int i = 0; i < suggestions.size(); i++) {
+                System.out.println(i + 1 + ". " + suggestions.get(i).getName());
+            }
+        }
     }
 
     /**
@@ -12,6 +12,27 @@ import java.util.List;
  */
 public class Profile {
 
+    /** The fields of a profile that its setters change. */
+    public enum Field {
+        NAME, STATUS, LOCATION, GENDER, RELATIONSHIP_STATUS, AGE,
+        OCCUPATION, ASTROLOGICAL_SIGN, COLLEGE, MAJOR, PROFILE_PIC
+    }
+
+    /** Is told about every change that a setter makes to a profile, before it is made. */
+    interface ChangeListener {
+        /**
+         * Called by a setter once the new value has been checked. The listener
+         * makes the change by running apply, and throws without running it if
+         * the change cannot be recorded.
+         *
+         * @param profile the profile to change
+         * @param field   the field to change
+         * @param value   the new value in the form that setField takes
+         * @param apply   sets the field to the new value
+         */
+        void fieldChanged(Profile profile, Field field, String value, Runnable apply);
+    }
+
     // Attributes
     private String name;
     private String status;
@@ -25,6 +46,7 @@ public class Profile {
     private String college;
     private String major;
     private File profilePic;
+    private ChangeListener listener;  // Told about every change, or null
 
     /**
      * Constructs a new Profile with the specified details.
@@ -213,8 +235,8 @@ public class Profile {
      * @throws IllegalArgumentException if the name is empty.
      */
     public void setName(String name) {
-        this.name = name;
         if (name.isEmpty()) throw new IllegalArgumentException("Error: Name cannot be empty.");
+        changed(Field.NAME, name, () -> this.name = name);
     }
 
     /**
@@ -223,7 +245,7 @@ public class Profile {
      * @param location the new location of the user
      */
     public void setLocation(String location) {
-        this.location = location;
+        changed(Field.LOCATION, location, () -> this.location = location);
     }
 
     /**
@@ -232,7 +254,7 @@ public class Profile {
      * @param gender the new gender of the user
      */
     public void setGender(String gender) {
-        this.gender = gender;
+        changed(Field.GENDER, gender, () -> this.gender = gender);
     }
 
     /**
@@ -241,7 +263,7 @@ public class Profile {
      * @param status the new status of the user
      */
     public void setStatus(String status) {
-        this.status = status;
+        changed(Field.STATUS, status, () -> this.status = status);
     }
 
     /**
@@ -250,7 +272,7 @@ public class Profile {
      * @param relationshipStatus the new relationship status of the user
      */
     public void setRelationshipStatus(String relationshipStatus) {
-        this.relationshipStatus = relationshipStatus;
+        changed(Field.RELATIONSHIP_STATUS, relationshipStatus, () -> this.relationshipStatus = relationshipStatus);
     }
 
     /**
@@ -264,7 +286,7 @@ public class Profile {
         if (22 > age) {
             throw new IllegalArgumentException("Error: Must be 22 and older to use this website.");
         }
-        this.age = age;
+        changed(Field.AGE, Integer.toString(age), () -> this.age = age);
     }
 
     /**
@@ -273,7 +295,7 @@ public class Profile {
      * @param occupation the new occupation of the user
      */
     public void setOccupation(String occupation) {
-        this.occupation = occupation;
+        changed(Field.OCCUPATION, occupation, () -> this.occupation = occupation);
     }
 
     /**
@@ -301,7 +323,7 @@ public class Profile {
         if (!astrologicalSigns.contains(astrologicalSign)) {
             throw new IllegalArgumentException("Not a valid astrological sign");
         }
-        this.astrologicalSign = astrologicalSign;
+        changed(Field.ASTROLOGICAL_SIGN, astrologicalSign, () -> this.astrologicalSign = astrologicalSign);
     }
 
     /**
@@ -310,7 +332,7 @@ public class Profile {
      * @param college the new college name of the user
      */
     public void setCollege(String college) {
-        this.college = college;
+        changed(Field.COLLEGE, college, () -> this.college = college);
     }
 
     /**
@@ -319,7 +341,7 @@ public class Profile {
      * @param major the new major of the user
      */
     public void setMajor(String major) {
-        this.major = major;
+        changed(Field.MAJOR, major, () -> this.major = major);
     }
 
     /**
@@ -333,6 +355,88 @@ public class Profile {
         if (!profilePicPath.endsWith(".jpg") && !profilePicPath.endsWith(".png") && !profilePicPath.endsWith(".jpeg")) {
                 throw new IllegalArgumentException("File MUST be a .jpg, .jpeg or .png");
         }
-        this.profilePic = profilePic;
+        changed(Field.PROFILE_PIC, profilePic.getPath(), () -> this.profilePic = profilePic);
+    }
+
+    /**
+     * Gets a field as a string: the age in decimal, or null if it was never
+     * set, and the profile picture's path.
+     *
+     * @param field the field to get
+     * @return the field's value
+     */
+    String getField(Field field) {
+        switch (field) {
+            case NAME: return name;
+            case STATUS: return status;
+            case LOCATION: return location;
+            case GENDER: return gender;
+            case RELATIONSHIP_STATUS: return relationshipStatus;
+            case AGE: return (age == 0) ? null : Integer.toString(age);
+            case OCCUPATION: return occupation;
+            case ASTROLOGICAL_SIGN: return astrologicalSign;
+            case COLLEGE: return college;
+            case MAJOR: return major;
+            default: return (profilePic == null) ? null : profilePic.getPath();
+        }
+    }
+
+    /**
+     * Sets a field from a string in the form that getField returns, through
+     * its setter. A null age, astrological sign or profile picture, which
+     * those setters don't accept, leaves the field unchanged.
+     *
+     * @param field the field to set
+     * @param value the new value
+     * @throws IllegalArgumentException if the setter rejects the value
+     */
+    void setField(Field field, String value) {
+        switch (field) {
+            case NAME: setName(value); break;
+            case STATUS: setStatus(value); break;
+            case LOCATION: setLocation(value); break;
+            case GENDER: setGender(value); break;
+            case RELATIONSHIP_STATUS: setRelationshipStatus(value); break;
+            case AGE: if (value != null) setAge(Integer.parseInt(value)); break;
+            case OCCUPATION: setOccupation(value); break;
+            case ASTROLOGICAL_SIGN: if (value != null) setAstrologicalSign(value); break;
+            case COLLEGE: setCollege(value); break;
+            case MAJOR: setMajor(value); break;
+            default: if (value != null) setProfilePic(new File(value)); break;
+        }
+    }
+
+    /**
+     * Sets the listener told about every change, replacing any earlier one.
+     *
+     * @param listener the listener, or null for none
+     */
+    void setChangeListener(ChangeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Gets the listener told about every change.
+     *
+     * @return the listener, or null if there is none
+     */
+    ChangeListener getChangeListener() {
+        return listener;
+    }
+
+    /**
+     * Makes a change that a setter has checked, through the listener if
+     * there is one.
+     *
+     * @param field the field to change
+     * @param value the new value in the form that setField takes
+     * @param apply sets the field to the new value
+     */
+    private void changed(Field field, String value, Runnable apply) {
+        if (listener == null) {
+            apply.run();
+        } else {
+            listener.fieldChanged(this, field, value, apply);
+        }
     }
 }
@@ -0,0 +1,539 @@
+import ADTPackage.DictionaryInterface;
+import ADTPackage.HashedDictionary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Streams profiles and friendships from CSV or JSON Lines files into a
+ * ProfileManager.
+ *
+ * The input is read one line at a time, so only the current batch of rows
+ * is held in memory besides the profiles themselves. Profiles are added in
+ * batches through ProfileManager.addProfiles, and friendships through
+ * ProfileManager.createFriendships, which merges each batch into the
+ * social graph's adjacency in one pass.
+ *
+ * Every row has an "id" that other rows use to refer to the profile; it is
+ * only known to the importer, not to the profile. A profile row needs an
+ * "id" and a "name", and may have "status", "location", "gender",
+ * "relationshipStatus", "age", "occupation", "astrologicalSign", "college"
+ * and "major". A friendship row needs an "id" and a "friendId". CSV files
+ * start with a header naming the columns, and quoted fields may hold
+ * commas and doubled quotes but not line breaks. JSON Lines files hold one
+ * flat object per line. Unknown columns and keys are ignored, as are blank
+ * lines.
+ */
+public class ProfileImporter {
+
+    /** The formats that the importer reads. */
+    public enum Format { CSV, JSONL }
+
+    /** The number of rows added to the ProfileManager at a time by default. */
+    public static final int DEFAULT_BATCH_SIZE = 1 << 16;
+
+    private static final String[] PROFILE_FIELDS = {"id", "name", "status", "location", "gender",
+            "relationshipStatus", "age", "occupation", "astrologicalSign", "college", "major"};
+    private static final String[] FRIENDSHIP_FIELDS = {"id", "friendId"};
+
+    private final ProfileManager profileManager;
+    private final int batchSize;
+    private final DictionaryInterface<String, Profile> profilesById;  // Imported id -> profile
+
+    /**
+     * Constructor.
+     *
+     * @param profileManager The manager to add the profiles to.
+     */
+    public ProfileImporter(ProfileManager profileManager) {
+        this(profileManager, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param profileManager The manager to add the profiles to.
+     * @param batchSize      The number of rows to add at a time.
+     * @throws IllegalArgumentException if the batch size is not positive.
+     */
+    public ProfileImporter(ProfileManager profileManager, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        this.profileManager = profileManager;
+        this.batchSize = batchSize;
+        this.profilesById = new HashedDictionary<>();
+    }
+
+    /**
+     * Reads profile rows and adds the profiles to the manager.
+     *
+     * @param in     The input, which is read to its end but not closed.
+     * @param format The input's format.
+     * @return a report of the rows read.
+     * @throws IOException if the input can't be read, or a row is malformed, repeats
+     *         an id or has a value that the profile rejects. The batches added before
+     *         the bad row stay in the manager.
+     */
+    public Report importProfiles(Reader in, Format format) throws IOException {
+        long start = System.nanoTime();
+        RowReader rows = new RowReader(in, format, PROFILE_FIELDS);
+        String[] values = new String[PROFILE_FIELDS.length];
+        ArrayList<Profile> batch = new ArrayList<>(batchSize);
+        long numberOfRows = 0;
+
+        while (rows.next(values)) {
+            String id = rows.require(values, 0);
+            if (profilesById.contains(id)) {
+                throw rows.error("Repeated id \"" + id + "\".");
+            }
+            Profile profile;
+            try {
+                profile = toProfile(values);
+            } catch (IllegalArgumentException e) {
+                // Includes a NumberFormatException from the age
+                throw rows.error(e.getMessage());
+            }
+            profilesById.add(id, profile);
+            batch.add(profile);
+            numberOfRows++;
+
+            if (batch.size() == batchSize) {
+                profileManager.addProfiles(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            profileManager.addProfiles(batch);
+        }
+        return new Report(numberOfRows, System.nanoTime() - start);
+    }
+
+    /**
+     * Reads friendship rows and creates the friendships between profiles
+     * imported earlier. Rows that repeat a friendship, or name an existing
+     * one, are read but change nothing.
+     *
+     * @param in     The input, which is read to its end but not closed.
+     * @param format The input's format.
+     * @return a report of the rows read.
+     * @throws IOException if the input can't be read, or a row is malformed or names
+     *         an id that wasn't imported. The batches added before the bad row stay
+     *         in the manager.
+     */
+    public Report importFriendships(Reader in, Format format) throws IOException {
+        long start = System.nanoTime();
+        RowReader rows = new RowReader(in, format, FRIENDSHIP_FIELDS);
+        String[] values = new String[FRIENDSHIP_FIELDS.length];
+        Profile[] profiles = new Profile[batchSize];
+        Profile[] friends = new Profile[batchSize];
+        int batch = 0;
+        long numberOfRows = 0;
+
+        while (rows.next(values)) {
+            profiles[batch] = getImported(rows, rows.require(values, 0));
+            friends[batch] = getImported(rows, rows.require(values, 1));
+            batch++;
+            numberOfRows++;
+
+            if (batch == batchSize) {
+                profileManager.createFriendships(profiles, friends);
+                batch = 0;
+            }
+        }
+        if (batch > 0) {
+            profileManager.createFriendships(Arrays.copyOf(profiles, batch), Arrays.copyOf(friends, batch));
+        }
+        return new Report(numberOfRows, System.nanoTime() - start);
+    }
+
+    /**
+     * Gets a profile by the id it was imported with.
+     *
+     * @param id The id from the input.
+     * @return the profile, or null if no row had the id.
+     */
+    public Profile getProfile(String id) {
+        return profilesById.getValue(id);
+    }
+
+    /**
+     * Gets a profile that an earlier row imported.
+     *
+     * @param rows The reader, for the error's line number.
+     * @param id   The id from the input.
+     * @return the profile.
+     * @throws IOException if no profile has the id.
+     */
+    private Profile getImported(RowReader rows, String id) throws IOException {
+        Profile profile = profilesById.getValue(id);
+        if (profile == null) {
+            throw rows.error("Unknown id \"" + id + "\".");
+        }
+        return profile;
+    }
+
+    /**
+     * Builds a profile from a row's values, which are in the order of
+     * PROFILE_FIELDS.
+     *
+     * @param values The row's values, null where missing.
+     * @return the profile.
+     * @throws IllegalArgumentException if the name is missing or a value is invalid.
+     */
+    private static Profile toProfile(String[] values) {
+        if (values[1] == null) {
+            throw new IllegalArgumentException("Missing \"name\".");
+        }
+        Profile profile = new Profile(values[1]);
+        profile.setName(values[1]);
+        if (values[2] != null) profile.setStatus(values[2]);
+        if (values[3] != null) profile.setLocation(values[3]);
+        if (values[4] != null) profile.setGender(values[4]);
+        if (values[5] != null) profile.setRelationshipStatus(values[5]);
+        if (values[6] != null) profile.setAge(Integer.parseInt(values[6].trim()));
+        if (values[7] != null) profile.setOccupation(values[7]);
+        if (values[8] != null) profile.setAstrologicalSign(values[8]);
+        if (values[9] != null) profile.setCollege(values[9]);
+        if (values[10] != null) profile.setMajor(values[10]);
+        return profile;
+    }
+
+    /**
+     * The number of rows that an import read and how long it took.
+     */
+    public static class Report {
+        private final long numberOfRows;
+        private final long elapsedNanos;
+
+        private Report(long numberOfRows, long elapsedNanos) {
+            this.numberOfRows = numberOfRows;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Gets the number of rows read, not counting blank lines or the CSV header.
+         *
+         * @return the number of rows.
+         */
+        public long getNumberOfRows() {
+            return numberOfRows;
+        }
+
+        /**
+         * Gets the time the import took, including adding the rows to the manager.
+         *
+         * @return the time in seconds.
+         */
+        public double getSeconds() {
+            return elapsedNanos / 1e9;
+        }
+
+        /**
+         * Gets the import's throughput.
+         *
+         * @return the number of rows per second.
+         */
+        public double getRowsPerSecond() {
+            return (elapsedNanos == 0) ? 0 : numberOfRows / getSeconds();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows in %.2f s (%.0f rows/s)", numberOfRows, getSeconds(), getRowsPerSecond());
+        }
+    }
+
+    /**
+     * Reads the rows of a CSV or JSON Lines input one line at a time, and
+     * puts each row's values in the order of a list of field names.
+     */
+    private static class RowReader {
+        private final BufferedReader reader;
+        private final Format format;
+        private final String[] fields;
+        private int[] columnFields;       // CSV column -> index in fields, or -1 if ignored
+        private long lineNumber;
+        private final ArrayList<String> parsed;
+        private final StringBuilder token;
+
+        /**
+         * Constructor. Reads the header of a CSV input.
+         *
+         * @param in     The input.
+         * @param format The input's format.
+         * @param fields The names of the fields to read.
+         * @throws IOException if the input can't be read or a CSV input has no header.
+         */
+        RowReader(Reader in, Format format, String[] fields) throws IOException {
+            this.reader = (in instanceof BufferedReader) ? (BufferedReader) in : new BufferedReader(in, 1 << 16);
+            this.format = format;
+            this.fields = fields;
+            this.lineNumber = 0;
+            this.parsed = new ArrayList<>();
+            this.token = new StringBuilder();
+
+            if (format == Format.CSV) {
+                String header = nextLine();
+                if (header == null) {
+                    throw error("Missing CSV header.");
+                }
+                splitCsv(header);
+                columnFields = new int[parsed.size()];
+                for (int i = 0; i < columnFields.length; i++) {
+                    columnFields[i] = fieldIndex(parsed.get(i).trim());
+                }
+            }
+        }
+
+        /**
+         * Reads the next row.
+         *
+         * @param values Gets the row's values in the order of the fields,
+         *               null where missing.
+         * @return true if a row was read, or false at the end of the input.
+         * @throws IOException if the input can't be read or the row is malformed.
+         */
+        boolean next(String[] values) throws IOException {
+            String line = nextLine();
+            if (line == null) {
+                return false;
+            }
+            Arrays.fill(values, null);
+
+            if (format == Format.CSV) {
+                splitCsv(line);
+                if (parsed.size() > columnFields.length) {
+                    throw error("Row has more columns than the header.");
+                }
+                for (int i = 0; i < parsed.size(); i++) {
+                    String value = parsed.get(i);
+                    if ((columnFields[i] != -1) && !value.isEmpty()) {
+                        values[columnFields[i]] = value;
+                    }
+                }
+            } else {
+                // The parsed list alternates keys and values; null values are missing
+                parseJsonObject(line);
+                for (int i = 0; i < parsed.size(); i += 2) {
+                    int field = fieldIndex(parsed.get(i));
+                    if (field != -1) {
+                        values[field] = parsed.get(i + 1);
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Gets a value that a row must have.
+         *
+         * @param values The row's values.
+         * @param field  The index of the field.
+         * @return the value.
+         * @throws IOException if the value is missing.
+         */
+        String require(String[] values, int field) throws IOException {
+            if (values[field] == null) {
+                throw error("Missing \"" + fields[field] + "\".");
+            }
+            return values[field];
+        }
+
+        /**
+         * Makes an exception for a problem in the line just read.
+         *
+         * @param message The problem.
+         * @return the exception.
+         */
+        IOException error(String message) {
+            return new IOException("Line " + lineNumber + ": " + message);
+        }
+
+        /**
+         * Reads the next line that isn't blank.
+         *
+         * @return the line, or null at the end of the input.
+         */
+        private String nextLine() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber++;
+            } while ((line != null) && line.trim().isEmpty());
+            return line;
+        }
+
+        private int fieldIndex(String name) {
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Splits a CSV line into the parsed list.
+         *
+         * @param line The line.
+         * @throws IOException if a quoted field isn't closed.
+         */
+        private void splitCsv(String line) throws IOException {
+            parsed.clear();
+            int i = 0;
+            while (true) {
+                token.setLength(0);
+                if ((i < line.length()) && (line.charAt(i) == '"')) {
+                    // A quoted field ends at a quote that isn't doubled
+                    i++;
+                    while (true) {
+                        if (i == line.length()) {
+                            throw error("Unclosed quote.");
+                        }
+                        char c = line.charAt(i++);
+                        if (c != '"') {
+                            token.append(c);
+                        } else if ((i < line.length()) && (line.charAt(i) == '"')) {
+                            token.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                    if ((i < line.length()) && (line.charAt(i) != ',')) {
+                        throw error("Text after a closing quote.");
+                    }
+                } else {
+                    int comma = line.indexOf(',', i);
+                    int end = (comma == -1) ? line.length() : comma;
+                    token.append(line, i, end);
+                    i = end;
+                }
+                parsed.add(token.toString());
+                if (i == line.length()) {
+                    return;
+                }
+                i++;  // Skips the comma
+            }
+        }
+
+        /**
+         * Parses a flat JSON object into the parsed list as key, value pairs.
+         * Strings, numbers, true and false are kept as text; null is missing.
+         *
+         * @param line The line holding the object.
+         * @throws IOException if the line isn't a flat JSON object.
+         */
+        private void parseJsonObject(String line) throws IOException {
+            parsed.clear();
+            int i = skipSpaces(line, 0);
+            i = expect(line, i, '{');
+            i = skipSpaces(line, i);
+            if ((i < line.length()) && (line.charAt(i) == '}')) {
+                i++;
+            } else {
+                while (true) {
+                    i = parseJsonString(line, skipSpaces(line, i));
+                    parsed.add(token.toString());
+                    i = expect(line, skipSpaces(line, i), ':');
+                    i = skipSpaces(line, i);
+                    if ((i < line.length()) && (line.charAt(i) == '"')) {
+                        i = parseJsonString(line, i);
+                        parsed.add(token.toString());
+                    } else {
+                        // A number or literal runs up to the next delimiter
+                        int end = i;
+                        while ((end < line.length()) && (",} \t".indexOf(line.charAt(end)) == -1)) {
+                            end++;
+                        }
+                        String literal = line.substring(i, end);
+                        if (literal.isEmpty() || (literal.charAt(0) == '[') || (literal.charAt(0) == '{')) {
+                            throw error("Expected a string, number or literal.");
+                        }
+                        parsed.add(literal.equals("null") ? null : literal);
+                        i = end;
+                    }
+                    i = skipSpaces(line, i);
+                    if ((i < line.length()) && (line.charAt(i) == ',')) {
+                        i++;
+                    } else {
+                        i = expect(line, i, '}');
+                        break;
+                    }
+                }
+            }
+            if (skipSpaces(line, i) != line.length()) {
+                throw error("Text after the object.");
+            }
+        }
+
+        /**
+         * Parses a JSON string into the token.
+         *
+         * @param line  The line.
+         * @param start The position of the opening quote.
+         * @return the position after the closing quote.
+         * @throws IOException if the string is malformed.
+         */
+        private int parseJsonString(String line, int start) throws IOException {
+            int i = expect(line, start, '"');
+            token.setLength(0);
+            while (true) {
+                if (i == line.length()) {
+                    throw error("Unclosed string.");
+                }
+                char c = line.charAt(i++);
+                if (c == '"') {
+                    return i;
+                }
+                if (c != '\\') {
+                    token.append(c);
+                    continue;
+                }
+                if (i == line.length()) {
+                    throw error("Unclosed string.");
+                }
+                char escaped = line.charAt(i++);
+                switch (escaped) {
+                    case '"': case '\\': case '/': token.append(escaped); break;
+                    case 'b': token.append('\b'); break;
+                    case 'f': token.append('\f'); break;
+                    case 'n': token.append('\n'); break;
+                    case 'r': token.append('\r'); break;
+                    case 't': token.append('\t'); break;
+                    case 'u':
+                        if (i + 4 > line.length()) {
+                            throw error("Bad unicode escape.");
+                        }
+                        try {
+                            token.append((char) Integer.parseInt(line.substring(i, i + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Bad unicode escape.");
+                        }
+                        i += 4;
+                        break;
+                    default:
+                        throw error("Bad escape \\" + escaped + ".");
+                }
+            }
+        }
+
+        private int expect(String line, int i, char expected) throws IOException {
+            if ((i == line.length()) || (line.charAt(i) != expected)) {
+                throw error("Expected '" + expected + "'.");
+            }
+            return i + 1;
+        }
+
+        private static int skipSpaces(String line, int i) {
+            while ((i < line.length()) && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
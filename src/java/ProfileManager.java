@@ -1,21 +1,399 @@
-import ADTPackage.QueueInterface;
-import GraphPackage.UndirectedGraph;
+import ADTPackage.DictionaryInterface;
+import ADTPackage.DisjointSets;
+import ADTPackage.HashedDictionary;
+import ADTPackage.IndexedMinHeap;
+import GraphPackage.ConcurrentAdjacencyList;
+import GraphPackage.IntGraph;
+import GraphPackage.PageRank;
+import GraphPackage.PageRankScores;
+import GraphPackage.ParallelBreadthFirstSearch;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
 
 /**
  * Implements a ProfileManager to manage profiles using an undirected graph.
  *
+ * Each profile is given a small int id, and the friendships are kept in an
+ * undirected IntGraph over those ids, so the graph holds no Profile
+ * references, vertex objects or edge objects. Ids of removed profiles are
+ * reused by later ones.
+ *
+ * The connected components ("community islands") of the graph are kept in
+ * a union-find structure over the ids, so asking whether two profiles are
+ * connected takes nearly constant time. Adding a friendship merges two
+ * components. Removing a profile can split its component, which union-find
+ * cannot undo, so the affected component is only marked stale, and a
+ * background thread rebuilds it from the removed profile's friends;
+ * several removals in a row share one rebuild. Meanwhile profiles in
+ * different components are still known not to be connected, so only
+ * questions about the stale component itself, and friendships that would
+ * join it, wait for its rebuild. The id of a removed profile is not given
+ * to another until its component has been rebuilt, so adding a profile
+ * waits for the rebuilds of earlier removals.
+ *
+ * The whole network can be saved to a binary snapshot and loaded back;
+ * see ProfileSnapshot for the file format. A manager opened with a
+ * write-ahead log also records every change (added and removed profiles,
+ * friendships and profile fields) in the log before the change returns,
+ * and compact folds the log into a fresh snapshot.
+ *
+ * A manager may be shared by many threads. No lock covers the whole
+ * manager. Profiles and ids are looked up in concurrent maps without
+ * locking, and each id's friendships are guarded by the lock of the id's
+ * stripe, so a lookup of one profile's friends waits only for writers in
+ * the same stripe. Creating a friendship locks the stripes of its two
+ * profiles, so friendships between unrelated profiles are created in
+ * parallel. Adding and removing profiles are serialized with each other
+ * and lock only the stripes they change, except when the id arrays must
+ * grow. Traversals of the graph read every stripe, so they wait for
+ * friendships under way but not for each other or for lookups. While
+ * other threads may change them, friend lists must be read through
+ * getFriends rather than from the profiles.
+ *
+ * A profile with HOT_DEGREE friends or more is hot, and a friendship with
+ * it locks the hot profile's stripe only for reading, so that many threads
+ * can befriend one popular profile at once. The friendship goes straight
+ * into the other profile's row of the graph. The hot profile's side is
+ * appended to a lock-free ConcurrentAdjacencyList, and merged into its
+ * sorted row and its friend list the next time they are read.
+ *
  * @author Aune Mitchell
  */
 public class ProfileManager {
-    private final UndirectedGraph<Profile> socialGraph;
-    private final ArrayList<Profile> profiles;
+    private final IntGraph socialGraph;
+    private final ArrayList<Profile> profiles;                       // In listing order; changed under structureLock and its own monitor
+    private final ConcurrentHashMap<Profile, Integer> profileIds;    // Profile -> id in the social graph
+    private volatile AtomicReferenceArray<Profile> profilesById;     // Id -> profile, or null if the id is free
+    private int numberOfIds;                                         // One past the largest id given out
+    private int[] freeIds;                                           // Ids of removed profiles
+    private int numberOfFreeIds;
+    private final DisjointSets components;                           // Id -> connected component; guarded by its own monitor
+    private int numberOfComponents;
+    private final ArrayList<Integer> staleRoots;                     // Roots of components awaiting a rebuild
+    private final ArrayList<Integer> rebuildSeeds;                   // Friends of profiles removed since the last rebuild
+    private final ArrayList<Integer> quarantinedIds;                 // Ids of removed profiles whose component is stale
+    private final ArrayList<Integer> releasedIds;                    // Ids that rebuilds have freed for reuse
+    private Thread rebuilder;                                        // The thread rebuilding stale components, or null
+    private final ConcurrentHashMap<Integer, ConcurrentAdjacencyList> pendingFriends;  // Hot id -> friends not yet in its row
+    private final ThreadLocal<SuggestionScratch> suggestionScratch;  // Each thread's working space for suggestFriends
+    private volatile PageRankScores<Integer> influence;              // The last influence scores, or null
+    private int generation;                                          // Generation of the snapshot the state came from
+    private volatile WriteAheadLog log;                              // Records every change, or null
+    private Path snapshotFile;                                       // Where compact saves the state, or null
+    private final Profile.ChangeListener changeListener = this::logFieldChange;
+    private final ReentrantLock structureLock;                       // Held to add or remove profiles
+    private final ReentrantReadWriteLock[] stripes;                  // Id % STRIPES -> lock on the id's friendships
+    private volatile int structureVersion;                           // Counts the profiles added and removed
+
+    /** The time between syncs of the write-ahead log in INTERVAL mode, unless another is given. */
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 100;
+
+    private static final int STRIPES = 64;                 // Number of friendship locks, a power of two
+    private static final long ALL_STRIPES = -1L;           // The mask of every stripe
+    private static final int INITIAL_IDS = 16;             // The length of the first id arrays
+    private static final int NEIGHBORHOOD_BATCH = 64;      // Profiles a neighborhood iterator reads per lock
+    private static final int HOT_DEGREE = 1024;            // Degree at which a profile's stripe is only read to befriend it
 
     /** Constructor. */
     public ProfileManager() {
-        socialGraph = new UndirectedGraph<>();
+        this(new IntGraph(false));
+    }
+
+    /**
+     * Constructor for a manager whose friendships start in a given graph;
+     * its profiles must be restored before it is used.
+     *
+     * @param socialGraph An undirected graph over the profile ids.
+     */
+    private ProfileManager(IntGraph socialGraph) {
+        this.socialGraph = socialGraph;
         profiles = new ArrayList<>();
+        profileIds = new ConcurrentHashMap<>();
+        profilesById = new AtomicReferenceArray<>(INITIAL_IDS);
+        socialGraph.ensureIndexCapacity(INITIAL_IDS);
+        numberOfIds = 0;
+        freeIds = new int[0];
+        numberOfFreeIds = 0;
+        components = new DisjointSets();
+        numberOfComponents = 0;
+        staleRoots = new ArrayList<>();
+        rebuildSeeds = new ArrayList<>();
+        quarantinedIds = new ArrayList<>();
+        releasedIds = new ArrayList<>();
+        rebuilder = null;
+        pendingFriends = new ConcurrentHashMap<>();
+        suggestionScratch = ThreadLocal.withInitial(SuggestionScratch::new);
+        influence = null;
+        generation = 0;
+        log = null;
+        snapshotFile = null;
+        structureLock = new ReentrantLock();
+        structureVersion = 0;
+        stripes = new ReentrantReadWriteLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Saves the whole network to a binary snapshot file, replacing the
+     * file only once the snapshot is complete. Saving over the snapshot
+     * of a manager with a write-ahead log compacts the log as well, since
+     * the new snapshot already holds its changes.
+     *
+     * @param file The file to create or replace.
+     * @throws IOException if the file cannot be written.
+     */
+    public void saveSnapshot(Path file) throws IOException {
+        structureLock.lock();
+        try {
+            if ((log != null) && file.equals(snapshotFile)) {
+                compact();
+            } else {
+                lockForSnapshot();
+                try {
+                    writeSnapshot(file);
+                } finally {
+                    unlockForTraversal();
+                }
+            }
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the whole network to a snapshot file, while lockForSnapshot
+     * holds it still. The snapshot holds every change in the write-ahead
+     * log, so it starts the log's next generation.
+     *
+     * @param file The file to create or replace.
+     * @throws IOException if the file cannot be written.
+     */
+    private void writeSnapshot(Path file) throws IOException {
+        int[] ids = new int[profiles.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = findId(profiles.get(i));
+        }
+
+        // Saves the components too, so loading doesn't redo a union per friendship
+        int[] componentRoots = new int[socialGraph.getIndexCapacity()];
+        synchronized (components) {
+            for (int id = 0; id < componentRoots.length; id++) {
+                componentRoots[id] = socialGraph.contains(id) ? components.find(id) : -1;
+            }
+        }
+        ProfileSnapshot.write(file, generation + 1, profiles, ids, componentRoots, socialGraph);
+    }
+
+    /**
+     * Loads a network that saveSnapshot saved. The profiles keep their
+     * order and each friend list holds the same friends, in the order of
+     * their ids.
+     *
+     * @param file The snapshot file.
+     * @return a manager holding the network.
+     * @throws IOException if the file cannot be read, or is not a snapshot
+     *         or is corrupt.
+     */
+    public static ProfileManager loadSnapshot(Path file) throws IOException {
+        ProfileSnapshot snapshot = ProfileSnapshot.read(file);
+        ProfileManager manager = new ProfileManager(snapshot.getGraph());
+        manager.restore(snapshot.getProfiles(), snapshot.getIds(), snapshot.getComponentRoots());
+        manager.generation = snapshot.getGeneration();
+        return manager;
+    }
+
+    /**
+     * Opens a network kept in a snapshot and a write-ahead log, syncing the
+     * log every DEFAULT_SYNC_INTERVAL_MILLIS in INTERVAL mode.
+     *
+     * @see #open(Path, Path, WriteAheadLog.Durability, long)
+     */
+    public static ProfileManager open(Path snapshotFile, Path logFile, WriteAheadLog.Durability durability)
+            throws IOException {
+        return open(snapshotFile, logFile, durability, DEFAULT_SYNC_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Opens a network kept in a snapshot and a write-ahead log: loads the
+     * snapshot if there is one, replays the changes logged since it, and
+     * goes on logging every change to the same log.
+     *
+     * @param snapshotFile       The snapshot, which need not exist yet.
+     * @param logFile            The log, which need not exist yet.
+     * @param durability         When a logged change must be on disk.
+     * @param syncIntervalMillis The time between syncs in INTERVAL mode.
+     * @return the manager.
+     * @throws IOException if either file cannot be read, or the log doesn't
+     *         continue the snapshot.
+     */
+    public static ProfileManager open(Path snapshotFile, Path logFile, WriteAheadLog.Durability durability,
+                                      long syncIntervalMillis) throws IOException {
+        ProfileManager manager = Files.exists(snapshotFile) ? loadSnapshot(snapshotFile) : new ProfileManager();
+        manager.snapshotFile = snapshotFile;
+        manager.log = WriteAheadLog.open(logFile, manager.generation, durability, syncIntervalMillis,
+                manager.new Replayer());
+        for (Profile profile : manager.profiles) {
+            profile.setChangeListener(manager.changeListener);
+        }
+        return manager;
+    }
+
+    /**
+     * Folds the write-ahead log into a fresh snapshot: saves the snapshot
+     * and then empties the log. A crash in between leaves a log that the
+     * new snapshot already holds, which open then skips. Lookups and
+     * traversals go on meanwhile; changes wait until the log is emptied.
+     *
+     * @throws IOException if the snapshot or the log cannot be written.
+     * @throws IllegalStateException if the manager wasn't opened with a log.
+     */
+    public void compact() throws IOException {
+        structureLock.lock();
+        try {
+            if (log == null) {
+                throw new IllegalStateException("Only a manager opened with a write-ahead log can be compacted.");
+            }
+            lockForSnapshot();
+            try {
+                writeSnapshot(snapshotFile);
+                generation++;
+                log.reset(generation);
+            } finally {
+                unlockForTraversal();
+            }
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    /**
+     * Closes the write-ahead log, once every change in it is on disk, and
+     * stops logging. Does nothing for a manager without a log.
+     *
+     * @throws IOException if the log cannot be written or closed.
+     */
+    public void close() throws IOException {
+        WriteAheadLog closing;
+        structureLock.lock();
+        lockStripes(ALL_STRIPES);
+        try {
+            closing = log;
+            if (closing == null) {
+                return;
+            }
+            for (Profile profile : profiles) {
+                profile.setChangeListener(null);
+            }
+            log = null;
+        } finally {
+            unlockStripes(ALL_STRIPES);
+            structureLock.unlock();
+        }
+        closing.close();
+    }
+
+    /**
+     * Gets the lock held to add or remove profiles, so that tests can hold it.
+     *
+     * @return the lock.
+     */
+    ReentrantLock getStructureLock() {
+        return structureLock;
+    }
+
+    /**
+     * Gets the lock on an id's friendships, so that tests can hold it.
+     *
+     * @param id The id, which need not be in use.
+     * @return the lock of the id's stripe.
+     */
+    ReentrantReadWriteLock getStripe(int id) {
+        return stripe(id);
+    }
+
+    /**
+     * Gets the write-ahead log, so that tests can make it fail.
+     *
+     * @return the log, or null if there is none.
+     */
+    WriteAheadLog getLog() {
+        return log;
+    }
+
+    /**
+     * Fills in the profiles of a manager whose graph was loaded from a
+     * snapshot: their ids, their friend lists and the components.
+     *
+     * @param loadedProfiles The profiles, without friends, in listing order.
+     * @param ids            The id of each profile, matched by position.
+     * @param componentRoots Id -> root of its component, or -1 for free ids.
+     */
+    private void restore(List<Profile> loadedProfiles, int[] ids, int[] componentRoots) {
+        int capacity = socialGraph.getIndexCapacity();
+        profilesById = new AtomicReferenceArray<>(Math.max(capacity, INITIAL_IDS));
+        socialGraph.ensureIndexCapacity(profilesById.length());
+        numberOfIds = capacity;
+        profiles.ensureCapacity(loadedProfiles.size());
+        for (int i = 0; i < ids.length; i++) {
+            Profile profile = loadedProfiles.get(i);
+            profilesById.set(ids[i], profile);
+            profileIds.put(profile, ids[i]);
+            profiles.add(profile);
+        }
+
+        // The ids between the profiles' ids are free
+        freeIds = new int[capacity - ids.length];
+        for (int id = capacity - 1; id >= 0; id--) {
+            if (profilesById.get(id) == null) {
+                freeIds[numberOfFreeIds++] = id;
+            }
+        }
+
+        // Joins each id to its saved root, which gets its own set first
+        for (int id = 0; id < capacity; id++) {
+            if (componentRoots[id] == id) {
+                components.makeSet(id);
+                numberOfComponents++;
+            }
+        }
+        for (int id = 0; id < capacity; id++) {
+            if ((componentRoots[id] != -1) && (componentRoots[id] != id)) {
+                components.makeSet(id);
+                components.union(id, componentRoots[id]);
+            }
+        }
+
+        // Fills each friend list from the graph's sorted row, growing it once
+        Profile[] friends = new Profile[0];
+        for (int id = 0; id < capacity; id++) {
+            Profile profile = profilesById.get(id);
+            int degree = socialGraph.getOutDegree(id);
+            if ((profile == null) || (degree == 0)) {
+                continue;
+            }
+            if (degree > friends.length) {
+                friends = new Profile[Math.max(degree, 2 * friends.length)];
+            }
+            for (int position = 0; position < degree; position++) {
+                friends[position] = profilesById.get(socialGraph.getOutNeighbor(id, position));
+            }
+            profile.getFriendProfiles().addAll(Arrays.asList(friends).subList(0, degree));
+        }
     }
 
     /**
@@ -25,25 +403,223 @@ public class ProfileManager {
      * @throws IllegalArgumentException if the profile already exists in the graph.
      */
     public void addProfile(Profile profile) {
-        // Checks if the profile already exists in the graph
-        // If so, throws an IllegalArgumentException
-        if (profiles.contains(profile)) {
-            throw new IllegalArgumentException("Unable to add as profile already exists.");
+        long sequenceNumber;
+        structureLock.lock();
+        try {
+            // Checks if the profile already exists in the graph
+            // If so, throws an IllegalArgumentException
+            if (findId(profile) != -1) {
+                throw new IllegalArgumentException("Unable to add as profile already exists.");
+            }
+
+            // Logs the profile before adding it, so a failed append changes nothing
+            int id = nextFreeId();
+            sequenceNumber = record(wal -> wal.logAddProfile(id, profile));
+            addWithId(profile, id);
+
+            // If the profile already has friends in its friends list,
+            // adds the friendship (connection) to the graph
+            List<Profile> friendsCopy = new ArrayList<>(profile.getFriendProfiles());
+            for (Profile friend : friendsCopy) {
+                sequenceNumber = Math.max(sequenceNumber, addFriendship(profile, friend));
+            }
+        } finally {
+            structureLock.unlock();
+        }
+        commit(sequenceNumber);
+    }
+
+    /**
+     * Adds many profiles at once, for bulk imports. Every profile is checked
+     * before anything changes. Friends already in the profiles' friend lists
+     * may be other profiles of the same batch; those friendships are added
+     * together once the whole batch is in the graph.
+     *
+     * @param newProfiles The profiles to add.
+     * @throws IllegalArgumentException if a profile already exists in the graph or
+     *         appears twice, or a friend is neither in the graph nor in the batch.
+     */
+    public void addProfiles(List<Profile> newProfiles) {
+        long sequenceNumber = 0;
+        structureLock.lock();
+        try {
+            // Checks the whole batch first, so a bad profile leaves the graph unchanged
+            DictionaryInterface<Profile, Boolean> batch = new HashedDictionary<>();
+            for (Profile profile : newProfiles) {
+                if ((findId(profile) != -1) || batch.contains(profile)) {
+                    throw new IllegalArgumentException("Unable to add as profile already exists.");
+                }
+                batch.add(profile, Boolean.TRUE);
+            }
+            int numberOfFriendships = 0;
+            for (Profile profile : newProfiles) {
+                for (Profile friend : profile.getFriendProfiles()) {
+                    if ((findId(friend) == -1) && !batch.contains(friend)) {
+                        throw new IllegalArgumentException("Profiles must first be added to the social graph before creating a friendship.");
+                    }
+                    numberOfFriendships++;
+                }
+            }
+
+            // Takes the friendships out of the friend lists before the profiles can be
+            // seen, so that addFriendships refills both sides without repeats
+            Profile[] firsts = new Profile[numberOfFriendships];
+            Profile[] seconds = new Profile[numberOfFriendships];
+            int next = 0;
+            for (Profile profile : newProfiles) {
+                for (Profile friend : profile.getFriendProfiles()) {
+                    firsts[next] = profile;
+                    seconds[next] = friend;
+                    next++;
+                }
+            }
+
+            for (Profile profile : newProfiles) {
+                int id = nextFreeId();
+                sequenceNumber = record(wal -> wal.logAddProfile(id, profile));
+                profile.getFriendProfiles().clear();
+                addWithId(profile, id);
+            }
+
+            // Adds the friendships from the friend lists in one bulk merge
+            if (numberOfFriendships > 0) {
+                int[] ids = new int[numberOfFriendships];
+                int[] friendIds = new int[numberOfFriendships];
+                for (int i = 0; i < numberOfFriendships; i++) {
+                    ids[i] = findId(firsts[i]);
+                    friendIds[i] = findId(seconds[i]);
+                }
+                addFriendships(ids, friendIds, numberOfFriendships);
+            }
+        } finally {
+            structureLock.unlock();
+        }
+        commit(sequenceNumber);
+    }
+
+    /**
+     * Gets the id that the next added profile gets: the id of the most
+     * recently removed profile, or one past the ids in use. Called while
+     * structureLock is held; waits for the rebuilds that release the ids
+     * of removed profiles.
+     *
+     * @return the id.
+     */
+    private int nextFreeId() {
+        synchronized (components) {
+            while (!quarantinedIds.isEmpty()) {
+                waitForRebuild();
+            }
+        }
+        takeReleasedIds();
+        return (numberOfFreeIds > 0) ? freeIds[numberOfFreeIds - 1] : numberOfIds;
+    }
+
+    /**
+     * Adds a profile under a given id as a component of its own, leaving
+     * its friend list alone, while structureLock is held. The id of a
+     * removed profile is free only once its component has been rebuilt.
+     * Replaying a log uses it to give each profile its logged id.
+     *
+     * @param profile A profile that isn't in the graph.
+     * @param id      A free id, or one past the ids in use.
+     * @throws IllegalArgumentException if the id is in use.
+     */
+    private void addWithId(Profile profile, int id) {
+        takeReleasedIds();
+        if (id >= numberOfIds) {
+            for (int free = numberOfIds; free < id; free++) {
+                pushFreeId(free);
+            }
+            numberOfIds = id + 1;
+        } else {
+            // The id is usually the most recently freed one
+            int position = numberOfFreeIds - 1;
+            while ((position >= 0) && (freeIds[position] != id)) {
+                position--;
+            }
+            if (position == -1) {
+                throw new IllegalArgumentException("Id " + id + " is already in use.");
+            }
+            numberOfFreeIds--;
+            freeIds[position] = freeIds[numberOfFreeIds];
+        }
+        ensureIdCapacity(id + 1);
+
+        long mask = stripeBit(id);
+        lockStripes(mask);
+        try {
+            profilesById.set(id, profile);
+            structureVersion++;
+            if (log != null) {
+                profile.setChangeListener(changeListener);
+            }
+
+            // Adds the profile to the graph as a component of its own
+            socialGraph.addVertex(id);
+            synchronized (components) {
+                components.makeSet(id);
+                numberOfComponents++;
+            }
+
+            // Adds the profile to the list of profiles, and lets lookups find it once it is complete
+            synchronized (profiles) {
+                profiles.add(profile);
+            }
+            profileIds.put(profile, id);
+        } finally {
+            unlockStripes(mask);
         }
+    }
 
-        // Adds the profile to the graph
-        socialGraph.addVertex(profile);
+    /**
+     * Makes room for ids below a given capacity, while structureLock is
+     * held. Moving the per-id arrays would disturb every reader, so every
+     * stripe is locked while they grow; they double each time, so this is rare.
+     *
+     * @param capacity The number of ids to make room for.
+     */
+    private void ensureIdCapacity(int capacity) {
+        AtomicReferenceArray<Profile> byId = profilesById;
+        if (capacity <= byId.length()) {
+            return;
+        }
+        lockStripes(ALL_STRIPES);
+        try {
+            AtomicReferenceArray<Profile> grown = new AtomicReferenceArray<>(Math.max(capacity, 2 * byId.length()));
+            for (int id = 0; id < byId.length(); id++) {
+                grown.set(id, byId.get(id));
+            }
+            socialGraph.ensureIndexCapacity(grown.length());
+            profilesById = grown;
+        } finally {
+            unlockStripes(ALL_STRIPES);
+        }
+    }
 
-        // Adds the profile to the list of profiles
-        profiles.add(profile);
+    /**
+     * Adds an id to the stack of free ids.
+     *
+     * @param id An id that no profile has.
+     */
+    private void pushFreeId(int id) {
+        if (numberOfFreeIds == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, Math.max(4, 2 * numberOfFreeIds));
+        }
+        freeIds[numberOfFreeIds] = id;
+        numberOfFreeIds++;
+    }
 
-        // If the profile already has friends in its friends list,
-        // adds the friendship (connection) to the graph
-        List<Profile> friendsCopy = profile.getFriendProfiles();
-        for (Profile friend : friendsCopy) {
-            if (!socialGraph.hasEdge(profile, friend)) {
-                createFriendship(profile, friend);
+    /**
+     * Moves the ids that rebuilds have released onto the stack of free
+     * ids, while structureLock is held.
+     */
+    private void takeReleasedIds() {
+        synchronized (components) {
+            for (int id : releasedIds) {
+                pushFreeId(id);
             }
+            releasedIds.clear();
         }
     }
 
@@ -54,21 +630,94 @@ public class ProfileManager {
      * @throws IllegalArgumentException if the profile doesn't exist in the graph.
      */
     public void removeProfile(Profile profile) {
+        long sequenceNumber;
+        structureLock.lock();
+        try {
+            sequenceNumber = removeExisting(profile);
+        } finally {
+            structureLock.unlock();
+        }
+        commit(sequenceNumber);
+    }
+
+    /**
+     * Removes a profile from the graph, as removeProfile does, while
+     * structureLock is held. Locks the stripes of the profile and of its
+     * friends.
+     *
+     * @param profile The profile to remove.
+     * @return the sequence number of the removal's log record, or 0.
+     * @throws IllegalArgumentException if the profile doesn't exist in the graph.
+     */
+    private long removeExisting(Profile profile) {
         // Checks if the profiles list doesn't contain the profile
         // If so, throws an IllegalArgumentException
-        if (!profiles.contains(profile)) {
+        int id = findId(profile);
+        if (id == -1) {
             throw new IllegalArgumentException("Unable to remove profile as it does not exist.");
         }
 
-        // Removes the profile from the list
-        profiles.remove(profile);
+        // The profile can gain friends until its own stripe is locked, so the
+        // friends' stripes are added until they are all held
+        long mask = stripeBit(id);
+        lockStripes(mask);
+        while (true) {
+            mergePendingFriends(id);
+            long needed = stripeBit(id);
+            for (int friendId : socialGraph.getNeighbors(id)) {
+                needed |= stripeBit(friendId);
+            }
+            if ((needed & ~mask) == 0) {
+                break;
+            }
+            unlockStripes(mask);
+            mask |= needed;
+            lockStripes(mask);
+        }
+
+        try {
+            // Completes the rows of hot friends, so that the whole edge is removed
+            for (int friendId : socialGraph.getNeighbors(id)) {
+                mergePendingFriends(friendId);
+            }
+            long sequenceNumber = record(wal -> wal.logRemoveProfile(id));
+
+            // Removes the profile from the list
+            profileIds.remove(profile);
+            synchronized (profiles) {
+                profiles.remove(profile);
+            }
+            structureVersion++;
+
+            // Marks the profile's component as stale, and keeps the id out of
+            // use until the rebuild, since the old component still holds it
+            int[] friendIds = socialGraph.getNeighbors(id);
+            synchronized (components) {
+                markStale(components.find(id));
+                for (int friendId : friendIds) {
+                    rebuildSeeds.add(friendId);
+                }
+                quarantinedIds.add(id);
+            }
+
+            // Removes the profile from the graph
+            socialGraph.removeVertex(id);
+            profilesById.set(id, null);
+            pendingFriends.remove(id);
 
-        // Removes the profile from the graph
-        socialGraph.removeVertex(profile);
+            // Removes the profile from its friends' friend lists
+            // (friendships are always created in both directions,
+            // so only the profile's own friends can list it)
+            for (Profile friend : profile.getFriendProfiles()) {
+                friend.getFriendProfiles().remove(profile);
+            }
 
-        // Removes the profile from other profile's friend lists
-        for (Profile otherProfile: profiles) {
-            otherProfile.getFriendProfiles().remove(profile);
+            if (profile.getChangeListener() == changeListener) {
+                profile.setChangeListener(null);
+            }
+            return sequenceNumber;
+        } finally {
+            unlockStripes(mask);
         }
     }
 
@@ -80,14 +729,111 @@ public class ProfileManager {
      * @throws IllegalArgumentException if either or both of the profiles provided don't exist on the graph.
      */
     public void createFriendship(Profile profile, Profile friend) {
-        // Checks if the profile list doesn't contain either of the profiles
-        // If so, throws an IllegalArgumentException
-        if (!profiles.contains(profile) || !profiles.contains(friend)) {
-            throw new IllegalArgumentException("Profiles must first be added to the social graph before creating a friendship.");
+        commit(addFriendship(profile, friend));
+    }
+
+    /**
+     * Creates a friendship between two profiles, as createFriendship does.
+     * Only the stripes of the two ids are locked, so friendships between
+     * other profiles can be created at the same time. A hot profile's
+     * stripe is only locked for reading, unless both profiles are hot or
+     * share a stripe.
+     *
+     * @param profile The first profile.
+     * @param friend  The second profile.
+     * @return the sequence number of the friendship's log record, or 0.
+     * @throws IllegalArgumentException if either or both of the profiles provided don't exist on the graph.
+     */
+    private long addFriendship(Profile profile, Profile friend) {
+        while (true) {
+            // Checks if the profile list doesn't contain either of the profiles
+            // If so, throws an IllegalArgumentException
+            int id = findId(profile);
+            int friendId = findId(friend);
+            if ((id == -1) || (friendId == -1)) {
+                throw new IllegalArgumentException("Profiles must first be added to the social graph before creating a friendship.");
+            }
+
+            // Picks the hot profile, if just one is hot; a profile stays hot until it is removed
+            int hotId = -1;
+            if (stripe(id) != stripe(friendId)) {
+                boolean hot = pendingFriends.containsKey(id);
+                if (hot != pendingFriends.containsKey(friendId)) {
+                    hotId = hot ? id : friendId;
+                }
+            }
+            int rowId = (hotId == id) ? friendId : id;
+            int endId = (rowId == id) ? friendId : id;
+            long writeMask = (hotId == -1) ? stripeBit(id) | stripeBit(friendId) : stripeBit(rowId);
+            long readMask = (hotId == -1) ? 0 : stripeBit(hotId);
+
+            int staleRoot;
+            lockStripes(writeMask, readMask);
+            try {
+                // Either profile may have been removed before its stripe was locked
+                if (!isAt(profile, id) || !isAt(friend, friendId)) {
+                    continue;
+                }
+                if (id == friendId) {
+                    return 0;
+                }
+
+                // The row checked for the edge must be complete
+                mergePendingFriends(rowId);
+                if (hotId == -1) {
+                    mergePendingFriends(endId);
+                }
+                if (socialGraph.hasEdge(rowId, endId)) {
+                    return 0;
+                }
+
+                // Merges their components first, unless a removal has left one stale
+                staleRoot = joinComponents(id, friendId);
+                if (staleRoot == -1) {
+                    // Logs the friendship before adding the edge, so a failed append changes nothing
+                    long sequenceNumber;
+                    try {
+                        sequenceNumber = record(wal -> wal.logFriendship(id, friendId));
+                    } catch (RuntimeException e) {
+                        unjoinComponents(id, friendId);
+                        throw e;
+                    }
+                    if (hotId == -1) {
+                        addEdge(profile, id, friend, friendId);
+                    } else {
+                        // Adds the hot profile's side to its pending friends, which other
+                        // threads append to at the same time under the same read lock
+                        socialGraph.addArc(rowId, hotId);
+                        pendingFriends.get(hotId).add(rowId);
+                        Profile rowProfile = (rowId == id) ? profile : friend;
+                        Profile hotProfile = (rowId == id) ? friend : profile;
+                        if (!rowProfile.getFriendProfiles().contains(hotProfile)) {
+                            rowProfile.addFriend(hotProfile);
+                        }
+                    }
+                    return sequenceNumber;
+                }
+            } finally {
+                unlockStripes(writeMask, readMask);
+            }
+            awaitRebuilt(staleRoot);
         }
+    }
 
-        // Adds an edge between the profile and the friend
-        socialGraph.addEdge(profile, friend);
+    /**
+     * Adds the edge of a new friendship and updates both friend lists,
+     * while both stripes are locked for writing. A profile that reaches
+     * HOT_DEGREE friends becomes hot.
+     *
+     * @param profile  The first profile.
+     * @param id       Its id.
+     * @param friend   The second profile.
+     * @param friendId Its id.
+     */
+    private void addEdge(Profile profile, int id, Profile friend, int friendId) {
+        // Adds an edge between the profile and the friend; the graph's
+        // arc count is atomic, so only the two stripes need locking
+        socialGraph.addEdge(id, friendId);
 
         // If the friend isn't already in the friend list for the profile, add it
         if (!profile.getFriendProfiles().contains(friend)) {
@@ -98,26 +844,183 @@ public class ProfileManager {
         if (!friend.getFriendProfiles().contains(profile)) {
             friend.addFriend(profile);
         }
+
+        for (int end : new int[] {id, friendId}) {
+            if (socialGraph.getOutDegree(end) >= HOT_DEGREE) {
+                pendingFriends.putIfAbsent(end, new ConcurrentAdjacencyList());
+            }
+        }
+    }
+
+    /**
+     * Merges a hot profile's pending friends into its row and its friend
+     * list, while its stripe is locked for writing. Does nothing for a
+     * profile that isn't hot or has nothing pending.
+     *
+     * @param id The profile's id.
+     */
+    private void mergePendingFriends(int id) {
+        ConcurrentAdjacencyList pending = pendingFriends.get(id);
+        if ((pending == null) || (pending.size() == 0)) {
+            return;
+        }
+
+        // The list cannot be emptied, so a fresh one takes its place
+        int[] friendIds = pending.toArray();
+        pendingFriends.put(id, new ConcurrentAdjacencyList());
+        socialGraph.addArcs(id, friendIds);
+        List<Profile> friends = profilesById.get(id).getFriendProfiles();
+        for (int friendId : friendIds) {
+            friends.add(profilesById.get(friendId));
+        }
+    }
+
+    /**
+     * Sees whether a hot profile has friends waiting to be merged into its row.
+     *
+     * @param id The profile's id.
+     * @return true if mergePendingFriends has work to do.
+     */
+    private boolean hasPendingFriends(int id) {
+        ConcurrentAdjacencyList pending = pendingFriends.get(id);
+        return (pending != null) && (pending.size() > 0);
+    }
+
+    /**
+     * Creates many friendships at once, for bulk imports. Every profile is
+     * checked before anything changes. Repeated pairs and existing
+     * friendships are dropped by sorting the pairs once, and the new
+     * friendships are merged into the graph in one pass.
+     *
+     * @param profiles The first profile of each friendship.
+     * @param friends  The second profile of each friendship, matched by position.
+     * @return the number of friendships created.
+     * @throws IllegalArgumentException if the arrays differ in length, or any
+     *         profile doesn't exist in the graph.
+     */
+    public int createFriendships(Profile[] profiles, Profile[] friends) {
+        if (profiles.length != friends.length) {
+            throw new IllegalArgumentException("Every friendship needs two profiles.");
+        }
+
+        structureLock.lock();
+        try {
+            int[] ids = new int[profiles.length];
+            int[] friendIds = new int[profiles.length];
+            for (int i = 0; i < profiles.length; i++) {
+                ids[i] = findId(profiles[i]);
+                friendIds[i] = findId(friends[i]);
+                if ((ids[i] == -1) || (friendIds[i] == -1)) {
+                    throw new IllegalArgumentException("Profiles must first be added to the social graph before creating a friendship.");
+                }
+            }
+            return addFriendships(ids, friendIds, ids.length);
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    /**
+     * Creates friendships between profiles given by id, as createFriendships
+     * does, while structureLock is held. Locks the stripes of every id in the
+     * batch, and once they are unlocked waits for the log as commit does.
+     *
+     * @param ids       The first profile id of each friendship.
+     * @param friendIds The second profile id of each friendship, matched by position.
+     * @param count     The number of friendships.
+     * @return the number of friendships created.
+     */
+    private int addFriendships(int[] ids, int[] friendIds, int count) {
+        long mask = 0;
+        for (int i = 0; i < count; i++) {
+            mask |= stripeBit(ids[i]) | stripeBit(friendIds[i]);
+        }
+        lockWithFreshComponents(mask);
+
+        long sequenceNumber = 0;
+        int numberOfEdges = 0;
+        try {
+            // Completes the rows of hot profiles before checking them for edges
+            for (int i = 0; i < count; i++) {
+                mergePendingFriends(ids[i]);
+                mergePendingFriends(friendIds[i]);
+            }
+
+            // Encodes each new pair as one long, smaller id first, so sorting groups repeats
+            long[] pairs = new long[count];
+            int numberOfPairs = 0;
+            for (int i = 0; i < count; i++) {
+                int id = ids[i];
+                int friendId = friendIds[i];
+                if ((id != friendId) && !socialGraph.hasEdge(id, friendId)) {
+                    pairs[numberOfPairs++] = ((long) Math.min(id, friendId) << 32) | Math.max(id, friendId);
+                }
+            }
+            Arrays.sort(pairs, 0, numberOfPairs);
+
+            int[] begins = new int[numberOfPairs];
+            int[] ends = new int[numberOfPairs];
+            for (int i = 0; i < numberOfPairs; i++) {
+                if ((i == 0) || (pairs[i] != pairs[i - 1])) {
+                    begins[numberOfEdges] = (int) (pairs[i] >>> 32);
+                    ends[numberOfEdges] = (int) pairs[i];
+                    numberOfEdges++;
+                }
+            }
+            begins = Arrays.copyOf(begins, numberOfEdges);
+            ends = Arrays.copyOf(ends, numberOfEdges);
+
+            // Logs every friendship before adding any, so a failed append changes nothing
+            for (int i = 0; i < numberOfEdges; i++) {
+                int id = begins[i];
+                int friendId = ends[i];
+                sequenceNumber = record(wal -> wal.logFriendship(id, friendId));
+            }
+
+            // Adds the edges and merges the components
+            socialGraph.addEdges(begins, ends);
+            synchronized (components) {
+                for (int i = 0; i < numberOfEdges; i++) {
+                    if (components.union(begins[i], ends[i])) {
+                        numberOfComponents--;
+                    }
+                }
+            }
+
+            // The friend lists of added profiles match the graph, so a pair
+            // without an edge is in neither list and needs no contains check
+            for (int i = 0; i < numberOfEdges; i++) {
+                Profile profile = profilesById.get(begins[i]);
+                Profile friend = profilesById.get(ends[i]);
+                profile.getFriendProfiles().add(friend);
+                friend.getFriendProfiles().add(profile);
+            }
+        } finally {
+            unlockStripes(mask);
+        }
+        commit(sequenceNumber);
+        return numberOfEdges;
     }
 
     /** Displays all profiles. */
     public void displayProfiles() {
         // StringBuilder object for displaying the profiles
         StringBuilder profilesStringBuilder = new StringBuilder();
+        ArrayList<Profile> listed = getListOfProfiles();
 
         // If the list isn't empty, build the string
-        if (!profiles.isEmpty()) {
+        if (!listed.isEmpty()) {
             // Add a header
             profilesStringBuilder.append("Profiles:\n");
 
             // For each profile in the list
-            for (int i = 0; i < profiles.size(); i++) {
+            for (int i = 0; i < listed.size(); i++) {
                 // Number the profile
                 profilesStringBuilder.append(i + 1);
                 profilesStringBuilder.append(". ");
 
                 // Add the profile name
-                profilesStringBuilder.append(profiles.get(i).getName());
+                profilesStringBuilder.append(listed.get(i).getName());
                 profilesStringBuilder.append("\n");
             }
 
@@ -137,42 +1040,1139 @@ public class ProfileManager {
      */
     public void displayProfileDetailsBFSTraversal(Profile profile) {
 
-        // Get the breadth first traversal results as a queue
-        QueueInterface<Profile> BFSQueue = socialGraph.getBreadthFirstTraversal(profile);
+        // Get the breadth first traversal results as an array of ids
+        lockForTraversal();
+        try {
+            displayBreadthFirstOrder(profile, socialGraph.getBreadthFirstOrder(findId(profile)));
+        } finally {
+            unlockForTraversal();
+        }
+    }
+
+    /**
+     * Displays the profiles in breadth first order, while locked for the traversal.
+     *
+     * @param profile  The profile the traversal started from.
+     * @param BFSOrder The ids in the order the traversal reached them.
+     */
+    private void displayBreadthFirstOrder(Profile profile, int[] BFSOrder) {
 
-        // If the queue isn't empty
-        if (!BFSQueue.isEmpty()) {
+        // If the traversal reached any profile
+        if (BFSOrder.length > 0) {
 
             // Print the header
             System.out.println("Profile details using breadth first search traversal, starting with profile: " + profile.getName());
 
-            // Keep track of the profile number
-            int i = 0;
-
-            // While the queue is empty
-            while (!BFSQueue.isEmpty()) {
-                // Increment and print the profile number
-                i++;
-                System.out.print(i + ". ");
-
-                // Dequeue the next profile
-                Profile dequeuedProfile = BFSQueue.dequeue();
+            // For each profile in traversal order
+            for (int i = 0; i < BFSOrder.length; i++) {
+                // Print the profile number
+                System.out.print((i + 1) + ". ");
 
                 // Print the profile details
-                System.out.print(dequeuedProfile);
+                System.out.print(profilesById.get(BFSOrder[i]));
             }
         } else {
-            // Otherwise, queue is empty so the profile doesn't exist in the social graph
+            // Otherwise, nothing was reached so the profile doesn't exist in the social graph
             System.out.println("Profile not found in social graph.");
         }
     }
 
     /**
-     * Gets the list of profiles.
+     * Gets the degrees of separation from the given profile to every
+     * profile it can reach, splitting the search across threads.
      *
-     * @return the list of profiles in the graph.
+     * @param profile The profile to start from.
+     * @param search  The parallel search to run, which sets the number of threads.
+     * @return a dictionary from each reachable profile to its number of hops
+     *         from the given profile (0 for the profile itself); empty if the
+     *         profile doesn't exist in the graph.
      */
-    public ArrayList<Profile> getListOfProfiles() {
-        return profiles;
+    public DictionaryInterface<Profile, Integer> getDegreesOfSeparation(Profile profile, ParallelBreadthFirstSearch search) {
+        DictionaryInterface<Profile, Integer> degrees = new HashedDictionary<>();
+        lockForTraversal();
+        try {
+            int[] levels = search.getLevels(socialGraph, findId(profile));
+
+            // Translates each reached id back to its profile
+            for (int id = 0; id < levels.length; id++) {
+                if (levels[id] >= 0) {
+                    degrees.add(profilesById.get(id), levels[id]);
+                }
+            }
+        } finally {
+            unlockForTraversal();
+        }
+        return degrees;
+    }
+
+    /**
+     * Lists the profiles within a number of friendships of a profile,
+     * nearest first. The search runs only as far as the iterator is
+     * advanced, so asking for the first few does not visit the whole
+     * network. The profiles are found a batch at a time, each batch under
+     * one lock of the graph, so friendships created between batches may or
+     * may not be seen, but the iterator fails at its next batch once a
+     * profile has been added or removed.
+     *
+     * @param profile    The profile to start from.
+     * @param maxHops    The largest number of friendships away to look.
+     * @param maxResults The largest number of profiles to return.
+     * @param filter     A test that a profile must pass to be returned, or null to return all.
+     * @return an iterator over the matching profiles other than the given one;
+     *         empty if the profile doesn't exist in the graph.
+     * @throws IllegalArgumentException if maxHops or maxResults is negative.
+     * @throws ConcurrentModificationException from the iterator, if a profile
+     *         was added or removed since the iterator was made and another
+     *         batch is needed.
+     */
+    public Iterator<Profile> getProfilesWithinHops(Profile profile, int maxHops, int maxResults,
+                                                   Predicate<? super Profile> filter) {
+        Predicate<Integer> idFilter = (filter == null) ? null : id -> filter.test(profilesById.get(id));
+        Iterator<Integer> ids;
+        int version;
+        lockForTraversal();
+        try {
+            ids = socialGraph.getNeighborhood(findId(profile), maxHops, maxResults, idFilter);
+            version = structureVersion;
+        } finally {
+            unlockForTraversal();
+        }
+
+        // Translates the ids back to profiles a batch at a time, locking once per batch
+        return new Iterator<Profile>() {
+            private final Profile[] batch = new Profile[NEIGHBORHOOD_BATCH];
+            private int batchSize = 0;
+            private int position = 0;
+            private boolean exhausted = false;
+
+            public boolean hasNext() {
+                if ((position == batchSize) && !exhausted) {
+                    fill();
+                }
+                return position < batchSize;
+            }
+
+            public Profile next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Profile profile = batch[position];
+                batch[position++] = null;
+                return profile;
+            }
+
+            private void fill() {
+                lockForTraversal();
+                try {
+                    if (structureVersion != version) {
+                        throw new ConcurrentModificationException("Profiles were added or removed during the search.");
+                    }
+                    batchSize = 0;
+                    position = 0;
+                    while ((batchSize < batch.length) && ids.hasNext()) {
+                        batch[batchSize++] = profilesById.get(ids.next());
+                    }
+                    exhausted = !ids.hasNext();
+                } finally {
+                    unlockForTraversal();
+                }
+            }
+        };
+    }
+
+    /**
+     * Gets an influence score for every profile: its PageRank in the
+     * friendship graph. Each call starts from the scores of the previous
+     * call, so recomputing after a few new friendships takes only a few
+     * iterations.
+     *
+     * @param pageRank The job to run, which sets the damping factor,
+     *                 tolerance and number of threads.
+     * @return a dictionary from each profile to its score; the scores add up to 1.
+     */
+    public DictionaryInterface<Profile, Double> getInfluenceScores(PageRank pageRank) {
+        DictionaryInterface<Profile, Double> scores = new HashedDictionary<>();
+        lockForTraversal();
+        try {
+            // Concurrent calls may each start from the same previous scores; either result will do
+            PageRankScores<Integer> ranked = pageRank.rank(socialGraph, influence);
+            influence = ranked;
+            for (int id = 0; id < profilesById.length(); id++) {
+                Profile profile = profilesById.get(id);
+                if (profile != null) {
+                    scores.add(profile, ranked.getScore(id));
+                }
+            }
+        } finally {
+            unlockForTraversal();
+        }
+        return scores;
+    }
+
+    /**
+     * Checks whether two profiles are connected by a chain of friendships.
+     *
+     * @param profile The first profile.
+     * @param other   The second profile.
+     * @return true if the profiles are in the same connected component.
+     * @throws IllegalArgumentException if either profile doesn't exist in the graph.
+     */
+    public boolean areConnected(Profile profile, Profile other) {
+        while (true) {
+            int id = getExistingId(profile);
+            int otherId = getExistingId(other);
+            long mask = stripeBit(id) | stripeBit(otherId);
+            int staleRoot;
+            lockStripesForReading(mask);
+            try {
+                // Either profile may have been removed before its stripe was locked
+                if (!isAt(profile, id) || !isAt(other, otherId)) {
+                    continue;
+                }
+
+                // A stale component can only split, so profiles in different
+                // components are not connected; only a shared stale one is in doubt
+                synchronized (components) {
+                    int root = components.find(id);
+                    if (root != components.find(otherId)) {
+                        return false;
+                    }
+                    if (!staleRoots.contains(root)) {
+                        return true;
+                    }
+                    staleRoot = root;
+                }
+            } finally {
+                unlockStripesForReading(mask);
+            }
+            awaitRebuilt(staleRoot);
+        }
+    }
+
+    /**
+     * Gets the number of profiles connected to a profile, including itself.
+     *
+     * @param profile The profile.
+     * @return the size of the profile's connected component.
+     * @throws IllegalArgumentException if the profile doesn't exist in the graph.
+     */
+    public int componentSize(Profile profile) {
+        while (true) {
+            int id = lockForReading(profile);
+            int staleRoot;
+            try {
+                synchronized (components) {
+                    staleRoot = components.find(id);
+                    if (!staleRoots.contains(staleRoot)) {
+                        return components.getSize(id);
+                    }
+                }
+            } finally {
+                stripe(id).readLock().unlock();
+            }
+            awaitRebuilt(staleRoot);
+        }
+    }
+
+    /**
+     * Gets the number of connected components in the graph.
+     *
+     * @return the number of components; a profile without friends is one on its own.
+     */
+    public int componentCount() {
+        while (true) {
+            synchronized (components) {
+                if (staleRoots.isEmpty()) {
+                    return numberOfComponents;
+                }
+            }
+            awaitFreshComponents();
+        }
+    }
+
+    /**
+     * Gets a profile's friends. Unlike the profile's own friend list, the
+     * copy is safe to read while other threads create friendships.
+     *
+     * @param profile The profile.
+     * @return a copy of the profile's friend list.
+     * @throws IllegalArgumentException if the profile doesn't exist in the graph.
+     */
+    public ArrayList<Profile> getFriends(Profile profile) {
+        int id = lockForReading(profile);
+        try {
+            return new ArrayList<>(profile.getFriendProfiles());
+        } finally {
+            stripe(id).readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the friends that two profiles have in common.
+     *
+     * @param profile The first profile.
+     * @param other   The second profile.
+     * @return the mutual friends, in the order they were added to the graph
+     *         unless ids have been reused.
+     * @throws IllegalArgumentException if either profile doesn't exist in the graph.
+     */
+    public ArrayList<Profile> mutualFriends(Profile profile, Profile other) {
+        while (true) {
+            int id = getExistingId(profile);
+            int otherId = getExistingId(other);
+            long mask = stripeBit(id) | stripeBit(otherId);
+            lockRowsForReading(mask, id, otherId);
+            try {
+                // Either profile may have been removed before its stripe was locked
+                if (!isAt(profile, id) || !isAt(other, otherId)) {
+                    continue;
+                }
+
+                // Removing a mutual friend locks both stripes, so every id still has its profile
+                int[] commonIds = socialGraph.getCommonNeighbors(id, otherId);
+                ArrayList<Profile> mutual = new ArrayList<>(commonIds.length);
+                for (int commonId : commonIds) {
+                    mutual.add(profilesById.get(commonId));
+                }
+                return mutual;
+            } finally {
+                unlockStripesForReading(mask);
+            }
+        }
+    }
+
+    /**
+     * Counts the friends that two profiles have in common, without building a list.
+     *
+     * @param profile The first profile.
+     * @param other   The second profile.
+     * @return the number of mutual friends.
+     * @throws IllegalArgumentException if either profile doesn't exist in the graph.
+     */
+    public int mutualFriendCount(Profile profile, Profile other) {
+        while (true) {
+            int id = getExistingId(profile);
+            int otherId = getExistingId(other);
+            long mask = stripeBit(id) | stripeBit(otherId);
+            lockRowsForReading(mask, id, otherId);
+            try {
+                // Either profile may have been removed before its stripe was locked
+                if (isAt(profile, id) && isAt(other, otherId)) {
+                    return socialGraph.getCommonNeighborCount(id, otherId);
+                }
+            } finally {
+                unlockStripesForReading(mask);
+            }
+        }
+    }
+
+    /**
+     * Suggests profiles that a profile may know, ranked by the number of
+     * friends they have in common.
+     *
+     * @param profile The profile to suggest friends for.
+     * @param limit   The largest number of suggestions to return.
+     * @return up to limit profiles that aren't friends with the profile but
+     *         share at least one friend with it, most mutual friends first.
+     * @throws IllegalArgumentException if the profile doesn't exist in the graph or limit is negative.
+     */
+    public ArrayList<Profile> suggestFriends(Profile profile, int limit) {
+        return suggestFriends(profile, limit, 0, 0);
+    }
+
+    /**
+     * Suggests profiles that a profile may know, ranked by the number of
+     * friends they have in common plus a boost for each attribute they share.
+     * Only profiles two friendships away are considered, so the work is
+     * the sum of the degrees of the profile's friends, no matter how large
+     * the graph is.
+     *
+     * @param profile      The profile to suggest friends for.
+     * @param limit        The largest number of suggestions to return.
+     * @param collegeBoost The score added for going to the same college.
+     * @param majorBoost   The score added for having the same major.
+     * @return up to limit profiles that aren't friends with the profile but
+     *         share at least one friend with it, highest score first.
+     * @throws IllegalArgumentException if the profile doesn't exist in the graph or limit is negative.
+     */
+    public ArrayList<Profile> suggestFriends(Profile profile, int limit, double collegeBoost, double majorBoost) {
+        int id = lockForReading(profile);
+        int[] friendIds;
+        try {
+            friendIds = socialGraph.getNeighbors(id);
+        } finally {
+            stripe(id).readLock().unlock();
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("The number of suggestions cannot be negative.");
+        }
+
+        // Grows this thread's scratch arrays to cover every id given out so far
+        SuggestionScratch scratch = suggestionScratch.get();
+        scratch.ensureCapacity(profilesById.length());
+        int[] mutualCounts = scratch.mutualCounts;
+        int[] touchedIds = scratch.touchedIds;
+
+        // Marks the profile and its friends with -1 so they are never counted
+        int numberOfTouched = 0;
+        mutualCounts[id] = -1;
+        touchedIds[numberOfTouched++] = id;
+        for (int friendId : friendIds) {
+            mutualCounts[friendId] = -1;
+            touchedIds[numberOfTouched++] = friendId;
+        }
+
+        // Counts, for each friend of a friend, the friends it shares with the profile,
+        // locking one friend's stripe at a time
+        int firstCandidate = numberOfTouched;
+        for (int friendId : friendIds) {
+            ReentrantReadWriteLock.ReadLock stripeLock = stripe(friendId).readLock();
+            lockRowsForReading(stripeBit(friendId), friendId, friendId);
+            try {
+                int friendDegree = socialGraph.getOutDegree(friendId);
+                for (int j = 0; j < friendDegree; j++) {
+                    int candidateId = socialGraph.getOutNeighbor(friendId, j);
+
+                    // A profile added since the arrays were sized may have a larger id
+                    if (candidateId >= mutualCounts.length) {
+                        scratch.ensureCapacity(profilesById.length());
+                        mutualCounts = scratch.mutualCounts;
+                        touchedIds = scratch.touchedIds;
+                    }
+                    if (mutualCounts[candidateId] == 0) {
+                        touchedIds[numberOfTouched++] = candidateId;
+                    }
+                    if (mutualCounts[candidateId] >= 0) {
+                        mutualCounts[candidateId]++;
+                    }
+                }
+            } finally {
+                stripeLock.unlock();
+            }
+        }
+
+        // Keeps the limit best candidates in a min-heap, whose root is the one to beat,
+        // skipping any removed since its friend was read
+        IndexedMinHeap bestSuggestions = scratch.bestSuggestions;
+        for (int i = firstCandidate; i < numberOfTouched; i++) {
+            int candidateId = touchedIds[i];
+            Profile candidate = profilesById.get(candidateId);
+            if (candidate == null) {
+                continue;
+            }
+            double score = mutualCounts[candidateId] + getBoost(profile, candidate, collegeBoost, majorBoost);
+            if (bestSuggestions.getSize() < limit) {
+                bestSuggestions.add(candidateId, score);
+            } else if ((limit > 0) && (score > bestSuggestions.getMinKey())) {
+                bestSuggestions.removeMin();
+                bestSuggestions.add(candidateId, score);
+            }
+        }
+
+        // Resets the counts for the next call
+        for (int i = 0; i < numberOfTouched; i++) {
+            mutualCounts[touchedIds[i]] = 0;
+        }
+
+        // Empties the heap from the lowest score up, filling the list from the back
+        Profile[] suggestions = new Profile[bestSuggestions.getSize()];
+        for (int i = suggestions.length - 1; i >= 0; i--) {
+            suggestions[i] = profilesById.get(bestSuggestions.removeMin());
+        }
+        ArrayList<Profile> suggested = new ArrayList<>(suggestions.length);
+        for (Profile suggestion : suggestions) {
+            if (suggestion != null) {
+                suggested.add(suggestion);
+            }
+        }
+        return suggested;
+    }
+
+    /**
+     * Gets the score a suggestion gets for what it has in common with a profile.
+     *
+     * @param profile      The profile that suggestions are for.
+     * @param candidate    The suggested profile.
+     * @param collegeBoost The score added for going to the same college.
+     * @param majorBoost   The score added for having the same major.
+     * @return the sum of the boosts for the attributes both profiles have and share.
+     */
+    private static double getBoost(Profile profile, Profile candidate, double collegeBoost, double majorBoost) {
+        double boost = 0;
+        if ((profile.getCollege() != null) && profile.getCollege().equals(candidate.getCollege())) {
+            boost += collegeBoost;
+        }
+        if ((profile.getMajor() != null) && profile.getMajor().equals(candidate.getMajor())) {
+            boost += majorBoost;
+        }
+        return boost;
+    }
+
+    /**
+     * Gets the id of a profile that must exist in the graph.
+     *
+     * @param profile The profile.
+     * @return the profile's id.
+     * @throws IllegalArgumentException if the profile doesn't exist in the graph.
+     */
+    private int getExistingId(Profile profile) {
+        int id = findId(profile);
+        if (id == -1) {
+            throw new IllegalArgumentException("Profile does not exist in the social graph.");
+        }
+        return id;
+    }
+
+    /**
+     * Marks a component as stale, counting it once however many of its
+     * profiles are removed before the rebuild, and starts a rebuild if
+     * none is under way. Called while the components' monitor is held.
+     *
+     * @param root The component's root.
+     */
+    private void markStale(int root) {
+        if (!staleRoots.contains(root)) {
+            staleRoots.add(root);
+            numberOfComponents--;
+        }
+        if (rebuilder == null) {
+            rebuilder = new Thread(this::rebuildComponents, "ProfileManager component rebuild");
+            rebuilder.setDaemon(true);
+            rebuilder.start();
+        }
+    }
+
+    /**
+     * Merges the components of two profiles about to become friends, while
+     * their stripes are locked for writing. A stale component is left
+     * alone, since its members may not all be connected any more.
+     *
+     * @param id       The first profile's id.
+     * @param friendId The second profile's id.
+     * @return -1 once the components are merged, or the root of a stale
+     *         component, so nothing was merged.
+     */
+    private int joinComponents(int id, int friendId) {
+        synchronized (components) {
+            int root = components.find(id);
+            int friendRoot = components.find(friendId);
+            if (staleRoots.contains(root)) {
+                return root;
+            }
+            if (staleRoots.contains(friendRoot)) {
+                return friendRoot;
+            }
+            if (components.union(id, friendId)) {
+                numberOfComponents--;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Undoes joinComponents for a friendship that could not be logged.
+     * Union-find cannot split the merged component, so it is marked stale
+     * and rebuilt from the two profiles.
+     *
+     * @param id       The first profile's id.
+     * @param friendId The second profile's id.
+     */
+    private void unjoinComponents(int id, int friendId) {
+        synchronized (components) {
+            rebuildSeeds.add(id);
+            rebuildSeeds.add(friendId);
+            markStale(components.find(id));
+        }
+    }
+
+    /**
+     * Waits until a component has been rebuilt. The caller must hold no
+     * stripe lock, since the rebuild reads the graph.
+     *
+     * @param root The component's root, as marked stale.
+     */
+    private void awaitRebuilt(int root) {
+        synchronized (components) {
+            while (staleRoots.contains(root)) {
+                waitForRebuild();
+            }
+        }
+    }
+
+    /** Waits until no component is stale, as awaitRebuilt does. */
+    private void awaitFreshComponents() {
+        synchronized (components) {
+            while (!staleRoots.isEmpty()) {
+                waitForRebuild();
+            }
+        }
+    }
+
+    /**
+     * Waits for the next rebuild to finish, while the components' monitor
+     * is held. A rebuild is short, so an interrupt is kept for the caller
+     * rather than given up on.
+     */
+    private void waitForRebuild() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                components.wait();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Rebuilds the stale components on the rebuild thread until none is
+     * left. Every profile left in a stale component is still connected to
+     * one of the removed profiles' friends, so a traversal from each of
+     * those friends finds each new component exactly once.
+     *
+     * The traversal holds no lock but that of the row it is reading, so
+     * friendships and lookups go on meanwhile. A stale component cannot
+     * gain friendships, so its rows stay the same unless another of its
+     * profiles is removed; the traversal is then redone.
+     */
+    private void rebuildComponents() {
+        while (true) {
+            int[] roots;
+            int[] seeds;
+            synchronized (components) {
+                if (staleRoots.isEmpty()) {
+                    rebuilder = null;
+                    return;
+                }
+                roots = toArray(staleRoots);
+                seeds = toArray(rebuildSeeds);
+            }
+
+            // Waits out the friendships that merged into a component just
+            // before it was marked stale, so that their edges are in the graph
+            for (ReentrantReadWriteLock stripeLock : stripes) {
+                stripeLock.readLock().lock();
+                stripeLock.readLock().unlock();
+            }
+
+            ArrayList<int[]> rebuilt = new ArrayList<>();
+            boolean[] reached = new boolean[profilesById.length()];
+            for (int seed : seeds) {
+                // Skips friends that an earlier traversal reached
+                if (!reached[seed]) {
+                    int[] component = collectComponent(seed, reached);
+                    if (component.length > 0) {
+                        rebuilt.add(component);
+                    }
+                }
+            }
+
+            synchronized (components) {
+                // A profile removed from one of the components meanwhile may have cut it
+                boolean cut = false;
+                for (int i = seeds.length; (i < rebuildSeeds.size()) && !cut; i++) {
+                    cut = contains(roots, components.find(rebuildSeeds.get(i)));
+                }
+                if (cut) {
+                    continue;
+                }
+
+                // Releases the removed profiles' ids before their old components are taken apart
+                for (int i = 0; i < quarantinedIds.size(); ) {
+                    if (contains(roots, components.find(quarantinedIds.get(i)))) {
+                        releasedIds.add(quarantinedIds.remove(i));
+                    } else {
+                        i++;
+                    }
+                }
+                for (int[] component : rebuilt) {
+                    for (int id : component) {
+                        components.makeSet(id);
+                    }
+                    for (int id : component) {
+                        components.union(component[0], id);
+                    }
+                }
+                numberOfComponents += rebuilt.size();
+                for (int root : roots) {
+                    staleRoots.remove(Integer.valueOf(root));
+                }
+                rebuildSeeds.subList(0, seeds.length).clear();
+                components.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Collects the profiles connected to a seed for a rebuild, locking one
+     * profile's stripe at a time to read its friends. Stale components
+     * gain no friends, so every id reached is below the length that the
+     * reached array had when the rebuild began.
+     *
+     * @param seed    A friend of a removed profile.
+     * @param reached Id -> whether a traversal of this rebuild has reached it.
+     * @return the ids of the seed's component, or none if the seed was removed too.
+     */
+    private int[] collectComponent(int seed, boolean[] reached) {
+        int[] queue = new int[16];
+        int size = 0;
+        reached[seed] = true;
+        queue[size++] = seed;
+        for (int head = 0; head < size; head++) {
+            int id = queue[head];
+            int[] friendIds;
+            ReentrantReadWriteLock.ReadLock stripeLock = stripe(id).readLock();
+            stripeLock.lock();
+            try {
+                if ((id == seed) && !socialGraph.contains(seed)) {
+                    return new int[0];
+                }
+
+                // A hot profile's friends may still be pending, and merging them would need the write lock
+                friendIds = socialGraph.getNeighbors(id);
+                ConcurrentAdjacencyList pending = pendingFriends.get(id);
+                if ((pending != null) && (pending.size() > 0)) {
+                    int[] pendingIds = pending.toArray();
+                    int rowLength = friendIds.length;
+                    friendIds = Arrays.copyOf(friendIds, rowLength + pendingIds.length);
+                    System.arraycopy(pendingIds, 0, friendIds, rowLength, pendingIds.length);
+                }
+            } finally {
+                stripeLock.unlock();
+            }
+
+            for (int friendId : friendIds) {
+                if (!reached[friendId]) {
+                    reached[friendId] = true;
+                    if (size == queue.length) {
+                        queue = Arrays.copyOf(queue, 2 * size);
+                    }
+                    queue[size++] = friendId;
+                }
+            }
+        }
+        return Arrays.copyOf(queue, size);
+    }
+
+    /** Copies a list of ids into an array. */
+    private static int[] toArray(ArrayList<Integer> ids) {
+        int[] array = new int[ids.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = ids.get(i);
+        }
+        return array;
+    }
+
+    /** Sees whether an array of ids holds an id. */
+    private static boolean contains(int[] ids, int id) {
+        for (int candidate : ids) {
+            if (candidate == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the id that the social graph uses for a profile.
+     *
+     * @param profile The profile.
+     * @return the profile's id, or -1 if the profile doesn't exist in the graph.
+     */
+    public int getProfileId(Profile profile) {
+        return findId(profile);
+    }
+
+    /**
+     * Gets the id of a profile, without locking.
+     *
+     * @param profile The profile.
+     * @return the profile's id, or -1 if the profile doesn't exist in the graph.
+     */
+    private int findId(Profile profile) {
+        Integer id = (profile == null) ? null : profileIds.get(profile);
+        return (id == null) ? -1 : id;
+    }
+
+    /**
+     * Sees whether a profile still has an id, once the id's stripe is
+     * locked; a profile may be removed, and its id given to another,
+     * between finding the id and locking the stripe.
+     *
+     * @param profile The profile.
+     * @param id      The id found for it.
+     * @return true if the profile has the id.
+     */
+    private boolean isAt(Profile profile, int id) {
+        return profilesById.get(id) == profile;
+    }
+
+    /**
+     * Finds the id of a profile that must exist in the graph and locks its
+     * stripe for reading, as lockRowsForReading does, so that the profile
+     * stays in the graph until the stripe is unlocked.
+     *
+     * @param profile The profile.
+     * @return the profile's id.
+     * @throws IllegalArgumentException if the profile doesn't exist in the graph.
+     */
+    private int lockForReading(Profile profile) {
+        while (true) {
+            int id = getExistingId(profile);
+            lockRowsForReading(stripeBit(id), id, id);
+            if (isAt(profile, id)) {
+                return id;
+            }
+            stripe(id).readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the profile with the given id in the social graph.
+     *
+     * @param id The id.
+     * @return the profile with that id, or null if no profile has it.
+     */
+    public Profile getProfile(int id) {
+        AtomicReferenceArray<Profile> byId = profilesById;
+        return ((id >= 0) && (id < byId.length())) ? byId.get(id) : null;
+    }
+
+    /**
+     * Gets the list of profiles.
+     *
+     * @return a copy of the list of profiles in the graph.
+     */
+    public ArrayList<Profile> getListOfProfiles() {
+        synchronized (profiles) {
+            return new ArrayList<>(profiles);
+        }
+    }
+
+    /**
+     * Gets the lock on an id's friendships.
+     *
+     * @param id The id.
+     * @return the lock of the id's stripe.
+     */
+    private ReentrantReadWriteLock stripe(int id) {
+        return stripes[id & (STRIPES - 1)];
+    }
+
+    /**
+     * Gets an id's stripe as a one-bit mask, for the stripe locking methods.
+     *
+     * @param id The id.
+     * @return the mask with the bit of the id's stripe set.
+     */
+    private static long stripeBit(int id) {
+        return 1L << (id & (STRIPES - 1));
+    }
+
+    /**
+     * Locks the stripes in two disjoint masks, those in the first for
+     * writing and those in the second for reading, the lowest stripe first
+     * so that two threads locking overlapping stripes never wait on each other.
+     */
+    private void lockStripes(long writeMask, long readMask) {
+        for (long left = writeMask | readMask; left != 0; left &= left - 1) {
+            int stripe = Long.numberOfTrailingZeros(left);
+            if ((writeMask & (1L << stripe)) != 0) {
+                stripes[stripe].writeLock().lock();
+            } else {
+                stripes[stripe].readLock().lock();
+            }
+        }
+    }
+
+    /** Unlocks the stripes that lockStripes locked. */
+    private void unlockStripes(long writeMask, long readMask) {
+        for (long left = writeMask; left != 0; left &= left - 1) {
+            stripes[Long.numberOfTrailingZeros(left)].writeLock().unlock();
+        }
+        for (long left = readMask; left != 0; left &= left - 1) {
+            stripes[Long.numberOfTrailingZeros(left)].readLock().unlock();
+        }
+    }
+
+    /** Locks the stripes in a mask for writing, as lockStripes does. */
+    private void lockStripes(long mask) {
+        lockStripes(mask, 0);
+    }
+
+    /** Unlocks the stripes that lockStripes(mask) locked. */
+    private void unlockStripes(long mask) {
+        unlockStripes(mask, 0);
+    }
+
+    /** Locks the stripes in a mask for reading, in the same order as lockStripes. */
+    private void lockStripesForReading(long mask) {
+        lockStripes(0, mask);
+    }
+
+    /** Unlocks the stripes that lockStripesForReading locked. */
+    private void unlockStripesForReading(long mask) {
+        unlockStripes(0, mask);
+    }
+
+    /**
+     * Turns the write locks on the stripes in a mask into read locks,
+     * without letting a writer in between.
+     */
+    private void downgradeStripes(long mask) {
+        for (long left = mask; left != 0; left &= left - 1) {
+            ReentrantReadWriteLock stripeLock = stripes[Long.numberOfTrailingZeros(left)];
+            stripeLock.readLock().lock();
+            stripeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Locks the stripes in a mask for reading, as lockStripesForReading
+     * does, once the rows of two ids in it hold their pending friends.
+     * Merging the pending friends of a hot profile needs its stripe's
+     * write lock, which is then downgraded.
+     */
+    private void lockRowsForReading(long mask, int id, int otherId) {
+        lockStripesForReading(mask);
+        if (!hasPendingFriends(id) && !hasPendingFriends(otherId)) {
+            return;
+        }
+        unlockStripesForReading(mask);
+        lockStripes(mask);
+        mergePendingFriends(id);
+        mergePendingFriends(otherId);
+        downgradeStripes(mask);
+    }
+
+    /**
+     * Locks every stripe for reading, for a traversal that may read any
+     * profile's friendships. Traversals don't block one another or
+     * lookups, but they wait for friendships under way and hold off new
+     * ones, and no profile can be added or removed meanwhile. The pending
+     * friends of hot profiles are merged first.
+     */
+    private void lockForTraversal() {
+        lockStripesForReading(ALL_STRIPES);
+        for (ConcurrentAdjacencyList pending : pendingFriends.values()) {
+            if (pending.size() > 0) {
+                // Merges every hot profile's pending friends, so that each row is complete
+                unlockStripesForReading(ALL_STRIPES);
+                lockStripes(ALL_STRIPES);
+                for (int id : pendingFriends.keySet()) {
+                    mergePendingFriends(id);
+                }
+                downgradeStripes(ALL_STRIPES);
+                return;
+            }
+        }
+    }
+
+    /** Unlocks what lockForTraversal locked. */
+    private void unlockForTraversal() {
+        unlockStripesForReading(ALL_STRIPES);
+    }
+
+    /**
+     * Locks every stripe for reading, as lockForTraversal does, once no
+     * component is stale, so that a snapshot can be written while only
+     * lookups and traversals go on. Called while structureLock is held.
+     */
+    private void lockForSnapshot() {
+        while (true) {
+            awaitFreshComponents();
+            lockForTraversal();
+            synchronized (components) {
+                if (staleRoots.isEmpty()) {
+                    return;
+                }
+            }
+            unlockForTraversal();
+        }
+    }
+
+    /**
+     * Locks the stripes in a mask for writing once no component is stale,
+     * for a bulk change that merges components. Called while structureLock
+     * is held, so only a failed append can leave a component stale again.
+     */
+    private void lockWithFreshComponents(long mask) {
+        while (true) {
+            awaitFreshComponents();
+            lockStripes(mask);
+            synchronized (components) {
+                if (staleRoots.isEmpty()) {
+                    return;
+                }
+            }
+            unlockStripes(mask);
+        }
+    }
+
+    /** The working arrays of one thread's suggestFriends calls. */
+    private static class SuggestionScratch {
+        private int[] mutualCounts = new int[0];  // Id -> mutual friends while suggesting, else 0
+        private int[] touchedIds = new int[0];    // Ids whose mutual count must be reset
+        private IndexedMinHeap bestSuggestions = new IndexedMinHeap(0);  // The top suggestions found so far
+
+        private void ensureCapacity(int capacity) {
+            // Keeps the counts, since the arrays may grow partway through a call
+            if (mutualCounts.length < capacity) {
+                mutualCounts = Arrays.copyOf(mutualCounts, capacity);
+                touchedIds = Arrays.copyOf(touchedIds, capacity);
+                bestSuggestions = new IndexedMinHeap(capacity);
+            }
+        }
+    }
+
+    /** One append to the write-ahead log. */
+    private interface LogAppend {
+        long appendTo(WriteAheadLog log) throws IOException;
+    }
+
+    /**
+     * Appends a change to the write-ahead log, if there is one, while the
+     * locks that order the change are held. Every change is appended before
+     * it is made, so that when the append fails the change is not made.
+     *
+     * @param append The append.
+     * @return the sequence number to commit, or 0 without a log.
+     * @throws UncheckedIOException if the log cannot be written.
+     */
+    private long record(LogAppend append) {
+        if (log == null) {
+            return 0;
+        }
+        try {
+            return append.appendTo(log);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Waits until the logged changes up to a sequence number are as durable
+     * as the log's mode promises. Called after the locks are released, so
+     * that other writers can join the same sync.
+     *
+     * @param sequenceNumber A sequence number from record.
+     * @throws UncheckedIOException if the log cannot be synced.
+     */
+    private void commit(long sequenceNumber) {
+        WriteAheadLog wal = log;
+        if ((wal != null) && (sequenceNumber > 0)) {
+            try {
+                wal.commit(sequenceNumber);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Logs a change to a field of a profile in the social graph and then
+     * makes it; profiles call it through their change listener.
+     */
+    private void logFieldChange(Profile profile, Profile.Field field, String value, Runnable apply) {
+        int id = findId(profile);
+        if (id == -1) {
+            apply.run();
+            return;
+        }
+
+        // Holds the stripe while appending so that the id can't pass to another
+        // profile first, and for writing so that no compaction comes between the
+        // append and the change
+        long sequenceNumber = 0;
+        ReentrantReadWriteLock.WriteLock stripeLock = stripe(id).writeLock();
+        stripeLock.lock();
+        try {
+            if (isAt(profile, id)) {
+                sequenceNumber = record(wal -> wal.logFieldChange(id, field, value));
+            }
+            apply.run();
+        } finally {
+            stripeLock.unlock();
+        }
+        commit(sequenceNumber);
+    }
+
+    /**
+     * Applies the changes read back from a write-ahead log. Friendships in a
+     * row are gathered and created in bulk.
+     */
+    private class Replayer implements WriteAheadLog.Handler {
+        private final int[] ids = new int[1 << 16];
+        private final int[] friendIds = new int[1 << 16];
+        private int numberOfFriendships = 0;
+
+        @Override
+        public void addProfile(int id, Profile profile) {
+            flush();
+            if (id < 0) {
+                throw new IllegalArgumentException("Bad profile id " + id + ".");
+            }
+            structureLock.lock();
+            try {
+                // The logged id may have been freed by a removal whose rebuild is under way
+                awaitFreshComponents();
+                addWithId(profile, id);
+            } finally {
+                structureLock.unlock();
+            }
+        }
+
+        @Override
+        public void removeProfile(int id) {
+            flush();
+            ProfileManager.this.removeProfile(existing(id));
+        }
+
+        @Override
+        public void createFriendship(int id, int friendId) {
+            existing(id);
+            existing(friendId);
+            if (numberOfFriendships == ids.length) {
+                flush();
+            }
+            ids[numberOfFriendships] = id;
+            friendIds[numberOfFriendships] = friendId;
+            numberOfFriendships++;
+        }
+
+        @Override
+        public void setField(int id, Profile.Field field, String value) {
+            flush();
+            existing(id).setField(field, value);
+        }
+
+        @Override
+        public void finish() {
+            flush();
+        }
+
+        private void flush() {
+            if (numberOfFriendships > 0) {
+                structureLock.lock();
+                try {
+                    addFriendships(ids, friendIds, numberOfFriendships);
+                } finally {
+                    structureLock.unlock();
+                }
+                numberOfFriendships = 0;
+            }
+        }
+
+        private Profile existing(int id) {
+            Profile profile = getProfile(id);
+            if (profile == null) {
+                throw new IllegalArgumentException("No profile has id " + id + ".");
+            }
+            return profile;
+        }
     }
 }
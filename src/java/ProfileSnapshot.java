@@ -0,0 +1,546 @@
+import ADTPackage.DictionaryInterface;
+import ADTPackage.HashedDictionary;
+import GraphPackage.IntGraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads and writes the binary snapshot of a ProfileManager's network.
+ *
+ * File layout, big-endian, every section starting on an 8-byte boundary:
+ * <pre>
+ *   int MAGIC, int VERSION, int capacity (ids), int profiles, int strings, int generation,
+ *   long string bytes, long arcs
+ *   int[strings + 1] string offsets, byte[string bytes] UTF-8 strings
+ *   int[profiles * RECORD_INTS] profile records
+ *   int[capacity] component root of each id (-1 if unused)
+ *   int[capacity + 1] row offsets, int[arcs] friend ids
+ *   long CRC-32C of everything before it
+ * </pre>
+ * Each distinct string is stored once in the string table, and a profile
+ * record is a fixed row of ints: the profile's id, the table index of each
+ * of its strings (-1 for null) and its age. The friendships are the
+ * social graph's sorted adjacency rows, one per id, so loading copies them
+ * straight into the graph. The connected components are saved too, so
+ * loading joins each id to its root instead of every friendship's ends.
+ * The generation numbers the snapshots of a network, so that a
+ * write-ahead log can tell which snapshot its changes follow.
+ *
+ * Loading memory-maps the file, checks the checksum and copies each
+ * section into an array with one bulk read, so no record is parsed field
+ * by field from a stream. Saving writes to a temporary file that replaces
+ * the old snapshot only once it is complete and synced to the disk, and
+ * then syncs the directory so the replacement itself survives a crash.
+ */
+final class ProfileSnapshot {
+    private static final int MAGIC = 0x50524F46;     // "PROF"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final int RECORD_INTS = 12;
+    private static final int WINDOW_SIZE = 1 << 30;  // Largest piece of the file mapped at once
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Positions of the fields in a profile record
+    private static final int ID = 0;
+    private static final int NAME = 1;
+    private static final int STATUS = 2;
+    private static final int LOCATION = 3;
+    private static final int GENDER = 4;
+    private static final int RELATIONSHIP_STATUS = 5;
+    private static final int AGE = 6;
+    private static final int OCCUPATION = 7;
+    private static final int ASTROLOGICAL_SIGN = 8;
+    private static final int COLLEGE = 9;
+    private static final int MAJOR = 10;
+    private static final int PROFILE_PIC = 11;
+
+    private final int generation;
+    private final List<Profile> profiles;
+    private final int[] ids;
+    private final int[] componentRoots;
+    private final IntGraph graph;
+
+    private ProfileSnapshot(int generation, List<Profile> profiles, int[] ids, int[] componentRoots, IntGraph graph) {
+        this.generation = generation;
+        this.profiles = profiles;
+        this.ids = ids;
+        this.componentRoots = componentRoots;
+        this.graph = graph;
+    }
+
+    /**
+     * Gets the generation of the snapshot.
+     *
+     * @return the generation.
+     */
+    int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Gets the profiles, without friends, in the order they were listed.
+     *
+     * @return the profiles.
+     */
+    List<Profile> getProfiles() {
+        return profiles;
+    }
+
+    /**
+     * Gets the id of each profile, matched by position.
+     *
+     * @return the ids.
+     */
+    int[] getIds() {
+        return ids;
+    }
+
+    /**
+     * Gets the root of each id's connected component, which is an id whose
+     * root is itself.
+     *
+     * @return id -> root, or -1 for ids without a profile.
+     */
+    int[] getComponentRoots() {
+        return componentRoots;
+    }
+
+    /**
+     * Gets the friendships as an undirected graph over the ids.
+     *
+     * @return the graph.
+     */
+    IntGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Writes a snapshot. The file is replaced only after the new snapshot
+     * has been written in full.
+     *
+     * @param file           The file to create or replace.
+     * @param generation     The generation of the snapshot.
+     * @param profiles       The profiles, in the order to list them.
+     * @param ids            The id of each profile, matched by position.
+     * @param componentRoots Id -> root of its connected component, or -1
+     *                       for ids without a profile; at least as long as
+     *                       the graph's index capacity.
+     * @param graph          The friendships as an undirected graph over the ids.
+     * @throws IOException if the file cannot be written, or the strings
+     *         are too large for one snapshot.
+     */
+    static void write(Path file, int generation, List<Profile> profiles, int[] ids, int[] componentRoots, IntGraph graph)
+            throws IOException {
+        // Gives each distinct string an index in the string table
+        DictionaryInterface<String, Integer> stringIndices = new HashedDictionary<>();
+        ArrayList<byte[]> strings = new ArrayList<>();
+        int[] records = new int[profiles.size() * RECORD_INTS];
+        long stringBytes = 0;
+        for (int i = 0; i < profiles.size(); i++) {
+            Profile profile = profiles.get(i);
+            File profilePic = profile.getProfilePic();
+            String[] fields = new String[RECORD_INTS];
+            fields[NAME] = profile.getName();
+            fields[STATUS] = profile.getStatus();
+            fields[LOCATION] = profile.getLocation();
+            fields[GENDER] = profile.getGender();
+            fields[RELATIONSHIP_STATUS] = profile.getRelationshipStatus();
+            fields[OCCUPATION] = profile.getOccupation();
+            fields[ASTROLOGICAL_SIGN] = profile.getAstrologicalSign();
+            fields[COLLEGE] = profile.getCollege();
+            fields[MAJOR] = profile.getMajor();
+            fields[PROFILE_PIC] = (profilePic == null) ? null : profilePic.getPath();
+
+            int record = i * RECORD_INTS;
+            records[record + ID] = ids[i];
+            records[record + AGE] = profile.getAge();
+            for (int field = NAME; field < RECORD_INTS; field++) {
+                if (field == AGE) {
+                    continue;
+                }
+                int index = -1;
+                if (fields[field] != null) {
+                    Integer known = stringIndices.getValue(fields[field]);
+                    if (known == null) {
+                        byte[] bytes = fields[field].getBytes(StandardCharsets.UTF_8);
+                        known = strings.size();
+                        stringIndices.add(fields[field], known);
+                        strings.add(bytes);
+                        stringBytes += bytes.length;
+                    }
+                    index = known;
+                }
+                records[record + field] = index;
+            }
+        }
+        if (stringBytes > Integer.MAX_VALUE) {
+            throw new IOException("The profiles' strings are too large for one snapshot.");
+        }
+
+        int capacity = graph.getIndexCapacity();
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Output output = new Output(FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+                output.putInt(MAGIC);
+                output.putInt(VERSION);
+                output.putInt(capacity);
+                output.putInt(profiles.size());
+                output.putInt(strings.size());
+                output.putInt(generation);
+                output.putLong(stringBytes);
+                output.putLong(graph.getNumberOfArcs());
+
+                int offset = 0;
+                output.putInt(0);
+                for (byte[] string : strings) {
+                    offset += string.length;
+                    output.putInt(offset);
+                }
+                output.align();
+                for (byte[] string : strings) {
+                    output.putBytes(string);
+                }
+                output.align();
+                output.putInts(records, records.length);
+                output.putInts(componentRoots, capacity);
+                output.align();
+
+                offset = 0;
+                output.putInt(0);
+                for (int id = 0; id < capacity; id++) {
+                    offset += graph.getOutDegree(id);
+                    output.putInt(offset);
+                }
+                output.align();
+                int[] row = new int[0];
+                for (int id = 0; id < capacity; id++) {
+                    int degree = graph.getOutDegree(id);
+                    if (degree > row.length) {
+                        row = new int[Math.max(degree, 2 * row.length)];
+                    }
+                    for (int position = 0; position < degree; position++) {
+                        row[position] = graph.getOutNeighbor(id, position);
+                    }
+                    output.putInts(row, degree);
+                }
+                output.align();
+                output.putChecksum();
+                output.sync();
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        // The rename must reach the disk too, or a crash could bring back the old snapshot
+        // after the caller has emptied the log that led past it
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Forces a directory's entries to the disk. Some platforms cannot open
+     * a directory to sync it; there the rename is left to the file system.
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Reads a snapshot that write created.
+     *
+     * @param file The file.
+     * @return the snapshot.
+     * @throws IOException if the file cannot be read, is not a snapshot, or
+     *         is truncated or corrupt.
+     */
+    static ProfileSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + 8) {
+                throw new IOException("Not a profile snapshot.");
+            }
+            ByteBuffer header = map(channel, 0, HEADER_SIZE);
+            if ((header.getInt() != MAGIC) || (header.getInt() != VERSION)) {
+                throw new IOException("Not a profile snapshot.");
+            }
+            int capacity = header.getInt();
+            int numberOfProfiles = header.getInt();
+            int numberOfStrings = header.getInt();
+            int generation = header.getInt();
+            long stringBytes = header.getLong();
+            long arcs = header.getLong();
+            if ((capacity < 0) || (numberOfProfiles < 0) || (numberOfProfiles > capacity) || (numberOfStrings < 0)
+                    || (stringBytes < 0) || (stringBytes > Integer.MAX_VALUE)
+                    || (arcs < 0) || (arcs > Integer.MAX_VALUE)) {
+                throw new IOException("The profile snapshot's header is corrupt.");
+            }
+
+            long stringOffsetsAt = HEADER_SIZE;
+            long stringsAt = align(stringOffsetsAt + 4L * (numberOfStrings + 1));
+            long recordsAt = align(stringsAt + stringBytes);
+            long rootsAt = recordsAt + 4L * RECORD_INTS * numberOfProfiles;
+            long rowOffsetsAt = align(rootsAt + 4L * capacity);
+            long neighborsAt = align(rowOffsetsAt + 4L * (capacity + 1));
+            long checksumAt = align(neighborsAt + 4L * arcs);
+            if (size != checksumAt + 8) {
+                throw new IOException("The profile snapshot is truncated or corrupt.");
+            }
+            if (checksum(channel, checksumAt) != map(channel, checksumAt, 8).getLong()) {
+                throw new IOException("The profile snapshot's checksum does not match.");
+            }
+
+            // Decodes the string table once; the profiles share its strings
+            int[] stringOffsets = readInts(channel, stringOffsetsAt, numberOfStrings + 1);
+            byte[] bytes = new byte[(int) stringBytes];
+            map(channel, stringsAt, bytes.length).get(bytes);
+            String[] strings = new String[numberOfStrings];
+            for (int i = 0; i < numberOfStrings; i++) {
+                int start = stringOffsets[i];
+                int end = stringOffsets[i + 1];
+                if ((start < 0) || (end < start) || (end > bytes.length)) {
+                    throw new IOException("The profile snapshot's string table is corrupt.");
+                }
+                strings[i] = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+            }
+
+            int[] records = readInts(channel, recordsAt, RECORD_INTS * numberOfProfiles);
+            ArrayList<Profile> profiles = new ArrayList<>(numberOfProfiles);
+            int[] ids = new int[numberOfProfiles];
+            boolean[] vertices = new boolean[capacity];
+            for (int i = 0; i < numberOfProfiles; i++) {
+                int record = i * RECORD_INTS;
+                int id = records[record + ID];
+                if ((id < 0) || (id >= capacity) || vertices[id]) {
+                    throw new IOException("The profile snapshot's records are corrupt.");
+                }
+                vertices[id] = true;
+                ids[i] = id;
+                profiles.add(toProfile(records, record, strings));
+            }
+
+            int[] componentRoots = readInts(channel, rootsAt, capacity);
+            for (int id = 0; id < capacity; id++) {
+                int root = componentRoots[id];
+                if (vertices[id] ? ((root < 0) || (root >= capacity) || (componentRoots[root] != root)) : (root != -1)) {
+                    throw new IOException("The profile snapshot's components are corrupt.");
+                }
+            }
+
+            int[] rowOffsets = readInts(channel, rowOffsetsAt, capacity + 1);
+            int[] neighbors = readInts(channel, neighborsAt, (int) arcs);
+            IntGraph graph;
+            try {
+                graph = IntGraph.fromCompressedRows(false, vertices, rowOffsets, neighbors);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("The profile snapshot's friendships are corrupt: " + e.getMessage(), e);
+            }
+            return new ProfileSnapshot(generation, profiles, ids, componentRoots, graph);
+        }
+    }
+
+    /**
+     * Builds a profile from its record.
+     *
+     * @param records The records.
+     * @param record  The position of the profile's record.
+     * @param strings The string table.
+     * @return the profile, without friends.
+     * @throws IOException if the record is corrupt.
+     */
+    private static Profile toProfile(int[] records, int record, String[] strings) throws IOException {
+        String[] fields = new String[RECORD_INTS];
+        for (int field = NAME; field < RECORD_INTS; field++) {
+            if (field == AGE) {
+                continue;
+            }
+            int index = records[record + field];
+            if ((index < -1) || (index >= strings.length)) {
+                throw new IOException("The profile snapshot's records are corrupt.");
+            }
+            fields[field] = (index == -1) ? null : strings[index];
+        }
+
+        try {
+            Profile profile = new Profile(fields[NAME]);
+            profile.setStatus(fields[STATUS]);
+            profile.setLocation(fields[LOCATION]);
+            profile.setGender(fields[GENDER]);
+            profile.setRelationshipStatus(fields[RELATIONSHIP_STATUS]);
+            profile.setOccupation(fields[OCCUPATION]);
+            profile.setCollege(fields[COLLEGE]);
+            profile.setMajor(fields[MAJOR]);
+
+            // These setters check their values, and their defaults aren't valid values
+            if (records[record + AGE] != 0) profile.setAge(records[record + AGE]);
+            if (fields[ASTROLOGICAL_SIGN] != null) profile.setAstrologicalSign(fields[ASTROLOGICAL_SIGN]);
+            if (fields[PROFILE_PIC] != null) profile.setProfilePic(new File(fields[PROFILE_PIC]));
+            return profile;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("The profile snapshot's records are corrupt: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Computes the checksum of the start of a file, mapping it a window at a time.
+     *
+     * @param channel The file.
+     * @param length  The number of bytes to check.
+     * @return the CRC-32C of those bytes.
+     */
+    private static long checksum(FileChannel channel, long length) throws IOException {
+        CRC32C crc = new CRC32C();
+        for (long position = 0; position < length; position += WINDOW_SIZE) {
+            crc.update(map(channel, position, (int) Math.min(WINDOW_SIZE, length - position)));
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Copies ints from a file into a new array, mapping it a window at a time.
+     *
+     * @param channel  The file.
+     * @param position The position of the first int.
+     * @param count    The number of ints.
+     * @return the ints.
+     */
+    private static int[] readInts(FileChannel channel, long position, int count) throws IOException {
+        int[] values = new int[count];
+        int windowInts = WINDOW_SIZE / 4;
+        for (int start = 0; start < count; start += windowInts) {
+            int length = Math.min(windowInts, count - start);
+            map(channel, position + 4L * start, 4 * length).asIntBuffer().get(values, start, length);
+        }
+        return values;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, int length) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        return buffer;
+    }
+
+    /**
+     * Rounds a file position up to an 8-byte boundary.
+     *
+     * @param position The position.
+     * @return the aligned position.
+     */
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * Writes big-endian values through a buffer, keeping a checksum of
+     * every byte written and the number of bytes for alignment.
+     */
+    private static final class Output implements AutoCloseable {
+        private final FileChannel out;
+        private final ByteBuffer buffer;
+        private final CRC32C crc;
+        private long position;
+
+        Output(FileChannel out) {
+            this.out = out;
+            this.buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.BIG_ENDIAN);
+            this.crc = new CRC32C();
+            this.position = 0;
+        }
+
+        void putInt(int value) throws IOException {
+            ensureRoom(4);
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        void putLong(long value) throws IOException {
+            ensureRoom(8);
+            buffer.putLong(value);
+            position += 8;
+        }
+
+        /** Writes the first count ints of an array in buffer-sized pieces. */
+        void putInts(int[] values, int count) throws IOException {
+            for (int start = 0; start < count; ) {
+                ensureRoom(4);
+                int length = Math.min(count - start, buffer.remaining() / 4);
+                buffer.asIntBuffer().put(values, start, length);
+                buffer.position(buffer.position() + 4 * length);
+                start += length;
+            }
+            position += 4L * count;
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            for (int start = 0; start < bytes.length; ) {
+                ensureRoom(1);
+                int length = Math.min(bytes.length - start, buffer.remaining());
+                buffer.put(bytes, start, length);
+                start += length;
+            }
+            position += bytes.length;
+        }
+
+        /** Pads with zeros to an 8-byte boundary. */
+        void align() throws IOException {
+            while ((position & 7) != 0) {
+                ensureRoom(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+        }
+
+        /** Writes the checksum of everything written so far. */
+        void putChecksum() throws IOException {
+            flush();
+            putLong(crc.getValue());
+            flush();
+        }
+
+        private void ensureRoom(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            crc.update(buffer.array(), 0, buffer.position());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /** Forces everything written to the disk. */
+        void sync() throws IOException {
+            out.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
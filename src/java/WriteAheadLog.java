@@ -0,0 +1,606 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only log of the changes made to a ProfileManager since its
+ * last snapshot, so that they survive a crash.
+ *
+ * File layout, big-endian:
+ * <pre>
+ *   int MAGIC, int VERSION, int generation, int 0
+ *   then records: int payload length, int CRC-32C of the payload, payload
+ * </pre>
+ * A payload is a record type byte, the profile id and the type's fields.
+ * The generation ties the log to the snapshot it continues: compaction
+ * saves a snapshot of the next generation before emptying the log, so a
+ * crash in between leaves a log older than the snapshot, which is then
+ * known to be folded in already and is skipped.
+ *
+ * Records are appended to a buffer in memory, and commit waits until a
+ * record is on disk as the durability mode asks:
+ * <ul>
+ *   <li>EVERY_OPERATION writes and syncs each record on its own.</li>
+ *   <li>GROUP (group commit) lets the first waiting writer write and sync
+ *       every record buffered so far while the others wait; writers that
+ *       append meanwhile are covered by the next sync, so concurrent
+ *       writers share syncs.</li>
+ *   <li>INTERVAL writes and syncs from a background thread at a fixed
+ *       interval, and commit does not wait, so a crash can lose the
+ *       changes of the last interval.</li>
+ * </ul>
+ * Replay reads the file in large blocks and stops at the first torn or
+ * damaged record, which marks the end of what reached the disk; the file
+ * is cut back to that point before new records are appended.
+ */
+public class WriteAheadLog implements Closeable {
+
+    /** When a committed record must be on disk. */
+    public enum Durability { EVERY_OPERATION, GROUP, INTERVAL }
+
+    /** Applies the records of a log as it is replayed. */
+    interface Handler {
+        void addProfile(int id, Profile profile);
+        void removeProfile(int id);
+        void createFriendship(int id, int friendId);
+        void setField(int id, Profile.Field field, String value);
+
+        /** Called once every record has been applied. */
+        void finish();
+    }
+
+    private static final int MAGIC = 0x5057414C;         // "PWAL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_PAYLOAD = 1 << 24;
+    private static final int BLOCK_SIZE = 1 << 20;       // Bytes read at a time during replay
+
+    // Record types
+    private static final byte ADD_PROFILE = 1;
+    private static final byte REMOVE_PROFILE = 2;
+    private static final byte CREATE_FRIENDSHIP = 3;
+    private static final byte SET_FIELD = 4;
+
+    private static final Profile.Field[] FIELDS = Profile.Field.values();
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private final Object lock = new Object();
+    private final CRC32C crc = new CRC32C();    // Guarded by lock
+    private ByteBuffer pending;                 // Records appended but not written; guarded by lock
+    private ByteBuffer spare;                   // The other buffer, written by the syncing writer
+    private long appended;                      // Bytes appended, as a record's sequence number
+    private long durable;                       // Bytes known to be on disk
+    private boolean syncing;                    // Whether a writer is writing and syncing
+    private long numberOfSyncs;
+    private IOException failure;                // The error that stopped the log, or null
+    private final Thread syncer;                // The INTERVAL thread, or null
+    private boolean closed;
+
+    private WriteAheadLog(FileChannel channel, Durability durability, long syncIntervalMillis) {
+        this.channel = channel;
+        this.durability = durability;
+        this.pending = ByteBuffer.allocate(1 << 16).order(ByteOrder.BIG_ENDIAN);
+        this.spare = ByteBuffer.allocate(1 << 16).order(ByteOrder.BIG_ENDIAN);
+
+        if (durability == Durability.INTERVAL) {
+            syncer = new Thread(() -> syncEvery(syncIntervalMillis), "WriteAheadLog syncer");
+            syncer.setDaemon(true);
+            syncer.start();
+        } else {
+            syncer = null;
+        }
+    }
+
+    /**
+     * Opens a log, replaying its records into a handler if it continues
+     * the given generation, and creating or emptying it otherwise.
+     *
+     * @param file               The log file.
+     * @param generation         The generation of the snapshot the state came from.
+     * @param durability         When committed records must be on disk.
+     * @param syncIntervalMillis The time between syncs in INTERVAL mode.
+     * @param handler            Applies the replayed records.
+     * @return the log, ready for appending.
+     * @throws IOException if the file cannot be read or written, is not a
+     *         log, continues a later snapshot than the given generation, or
+     *         holds a record that the handler cannot apply.
+     * @throws IllegalArgumentException if the interval is not positive.
+     */
+    static WriteAheadLog open(Path file, int generation, Durability durability, long syncIntervalMillis,
+                              Handler handler) throws IOException {
+        if (syncIntervalMillis <= 0) {
+            throw new IllegalArgumentException("The sync interval must be positive.");
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+            while (header.hasRemaining() && (channel.read(header, header.position()) > 0)) {
+                // Reads the whole header
+            }
+            header.flip();
+
+            long end = HEADER_SIZE;
+            if ((header.remaining() == HEADER_SIZE) && (header.getInt(0) == MAGIC)) {
+                if (header.getInt(4) != VERSION) {
+                    throw new IOException("Unsupported write-ahead log version.");
+                }
+                int logGeneration = header.getInt(8);
+                if (logGeneration > generation) {
+                    throw new IOException("The write-ahead log continues a later snapshot than the one loaded.");
+                }
+                if (logGeneration == generation) {
+                    end = replay(channel, handler);
+                } else {
+                    writeHeader(channel, generation);  // Already folded into the snapshot
+                }
+            } else if (channel.size() < HEADER_SIZE) {
+                writeHeader(channel, generation);      // New, or torn while being created
+            } else {
+                throw new IOException("Not a write-ahead log.");
+            }
+
+            // Cuts off a torn tail before appending after it
+            channel.truncate(end);
+            channel.position(end);
+            channel.force(true);
+            return new WriteAheadLog(channel, durability, syncIntervalMillis);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the log's durability mode.
+     *
+     * @return the mode.
+     */
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Gets the number of times the log has synced the file to disk.
+     *
+     * @return the number of syncs.
+     */
+    long getNumberOfSyncs() {
+        synchronized (lock) {
+            return numberOfSyncs;
+        }
+    }
+
+    /**
+     * Appends a record of a profile being added.
+     *
+     * @param id      The profile's id.
+     * @param profile The profile, whose fields are recorded.
+     * @return the record's sequence number, for commit.
+     */
+    long logAddProfile(int id, Profile profile) throws IOException {
+        synchronized (lock) {
+            int start = beginRecord(ADD_PROFILE, id);
+            for (Profile.Field field : FIELDS) {
+                putString(profile.getField(field));
+            }
+            return finishRecord(start);
+        }
+    }
+
+    /**
+     * Appends a record of a profile being removed.
+     *
+     * @param id The profile's id.
+     * @return the record's sequence number, for commit.
+     */
+    long logRemoveProfile(int id) throws IOException {
+        synchronized (lock) {
+            return finishRecord(beginRecord(REMOVE_PROFILE, id));
+        }
+    }
+
+    /**
+     * Appends a record of a friendship being created.
+     *
+     * @param id       The first profile's id.
+     * @param friendId The second profile's id.
+     * @return the record's sequence number, for commit.
+     */
+    long logFriendship(int id, int friendId) throws IOException {
+        synchronized (lock) {
+            int start = beginRecord(CREATE_FRIENDSHIP, id);
+            ensureRoom(4);
+            pending.putInt(friendId);
+            return finishRecord(start);
+        }
+    }
+
+    /**
+     * Appends a record of a profile's field being changed.
+     *
+     * @param id    The profile's id.
+     * @param field The field.
+     * @param value The new value, in the form that Profile.setField takes.
+     * @return the record's sequence number, for commit.
+     */
+    long logFieldChange(int id, Profile.Field field, String value) throws IOException {
+        synchronized (lock) {
+            int start = beginRecord(SET_FIELD, id);
+            ensureRoom(1);
+            pending.put((byte) field.ordinal());
+            putString(value);
+            return finishRecord(start);
+        }
+    }
+
+    /**
+     * Waits until a record is as durable as the mode asks. In GROUP mode,
+     * the caller either waits for a sync already under way or writes and
+     * syncs every record buffered so far, its own and other writers'.
+     *
+     * @param sequenceNumber The sequence number that appending the record returned.
+     * @throws IOException if the log could not be written.
+     */
+    void commit(long sequenceNumber) throws IOException {
+        if (durability == Durability.GROUP) {
+            sync(sequenceNumber);
+        } else {
+            synchronized (lock) {
+                checkFailure();
+            }
+        }
+    }
+
+    /**
+     * Empties the log and starts a new generation, once a snapshot holds
+     * every change recorded so far.
+     *
+     * @param generation The generation of that snapshot.
+     * @throws IOException if the file cannot be written.
+     */
+    void reset(int generation) throws IOException {
+        synchronized (lock) {
+            // Waits out a sync under way so that its write can't land after the reset
+            while (syncing) {
+                waitForSync();
+            }
+            checkFailure();
+            pending.clear();
+            writeHeader(channel, generation);
+            channel.truncate(HEADER_SIZE);
+            channel.position(HEADER_SIZE);
+            channel.force(true);
+            durable = appended;
+        }
+    }
+
+    /**
+     * Writes and syncs every buffered record, then closes the file.
+     *
+     * @throws IOException if the records cannot be written or the file closed.
+     */
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            // Interrupting the thread could close the channel under it, so it is only woken
+            if (syncer != null) {
+                syncer.join();
+            }
+            long last;
+            synchronized (lock) {
+                last = (failure == null) ? appended : 0;
+            }
+            sync(last);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing the write-ahead log.");
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Makes the records up to a sequence number durable, writing and
+     * syncing the buffered records unless another writer already is.
+     *
+     * @param sequenceNumber The sequence number to wait for.
+     * @throws IOException if the log could not be written.
+     */
+    private void sync(long sequenceNumber) throws IOException {
+        ByteBuffer batch;
+        long batchEnd;
+        synchronized (lock) {
+            while (true) {
+                checkFailure();
+                if (durable >= sequenceNumber) {
+                    return;
+                }
+                if (!syncing) {
+                    break;
+                }
+                waitForSync();
+            }
+
+            // Becomes the writer for everything buffered so far
+            syncing = true;
+            batch = pending;
+            pending = spare;
+            spare = null;
+            batchEnd = appended;
+        }
+
+        IOException error = null;
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        }
+
+        synchronized (lock) {
+            batch.clear();
+            spare = batch;
+            syncing = false;
+            if (error == null) {
+                durable = batchEnd;
+                numberOfSyncs++;
+            } else {
+                failure = error;
+            }
+            lock.notifyAll();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /** Runs on the INTERVAL thread until the log is closed. */
+    private void syncEvery(long intervalMillis) {
+        try {
+            while (true) {
+                long last;
+                synchronized (lock) {
+                    if (!closed) {
+                        lock.wait(intervalMillis);
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    last = appended;
+                }
+                sync(last);
+            }
+        } catch (InterruptedException | IOException e) {
+            // A write error is kept in failure, for the next commit to report
+        }
+    }
+
+    private void waitForSync() throws IOException {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the write-ahead log.");
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("The write-ahead log failed earlier.", failure);
+        }
+    }
+
+    /**
+     * Starts a record in the pending buffer, leaving room for its length and checksum.
+     *
+     * @return the position of the record in the buffer.
+     */
+    private int beginRecord(byte type, int id) throws IOException {
+        checkFailure();
+        if (closed) {
+            throw new IOException("The write-ahead log is closed.");
+        }
+        ensureRoom(RECORD_HEADER_SIZE + 5);
+        int start = pending.position();
+        pending.position(start + RECORD_HEADER_SIZE);
+        pending.put(type);
+        pending.putInt(id);
+        return start;
+    }
+
+    /**
+     * Fills in a record's length and checksum. In EVERY_OPERATION mode,
+     * also writes and syncs the record while holding the lock, so that no
+     * two records share a sync.
+     *
+     * @param start The position of the record in the buffer.
+     * @return the record's sequence number.
+     * @throws IOException if the record must be written now and cannot be.
+     */
+    private long finishRecord(int start) throws IOException {
+        int payloadStart = start + RECORD_HEADER_SIZE;
+        int length = pending.position() - payloadStart;
+        crc.reset();
+        crc.update(pending.array(), payloadStart, length);
+        pending.putInt(start, length);
+        pending.putInt(start + 4, (int) crc.getValue());
+        appended += RECORD_HEADER_SIZE + length;
+
+        if (durability == Durability.EVERY_OPERATION) {
+            try {
+                pending.flip();
+                while (pending.hasRemaining()) {
+                    channel.write(pending);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            } finally {
+                pending.clear();
+            }
+            durable = appended;
+            numberOfSyncs++;
+        }
+        return appended;
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            ensureRoom(4);
+            pending.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureRoom(4 + bytes.length);
+        pending.putInt(bytes.length);
+        pending.put(bytes);
+    }
+
+    /** Grows the pending buffer, keeping what it holds, to fit more bytes. */
+    private void ensureRoom(int bytes) {
+        if (pending.remaining() < bytes) {
+            int newCapacity = Math.max(pending.capacity() * 2, pending.position() + bytes);
+            ByteBuffer grown = ByteBuffer.allocate(newCapacity).order(ByteOrder.BIG_ENDIAN);
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+    }
+
+    private static void writeHeader(FileChannel channel, int generation) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(generation).putInt(0).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * Reads the records after the header and applies them.
+     *
+     * @param channel The log file.
+     * @param handler Applies the records.
+     * @return the position just past the last whole, undamaged record.
+     * @throws IOException if the file cannot be read or a record cannot be applied.
+     */
+    private static long replay(FileChannel channel, Handler handler) throws IOException {
+        CRC32C checksum = new CRC32C();
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE).order(ByteOrder.BIG_ENDIAN);
+        long position = HEADER_SIZE;        // Start of the next record in the file
+        long readTo = HEADER_SIZE;          // File position just past the block's contents
+        block.flip();
+
+        while (true) {
+            // Reads on until the block holds the next record's header and payload
+            int needed = RECORD_HEADER_SIZE;
+            if (block.remaining() >= RECORD_HEADER_SIZE) {
+                int length = block.getInt(block.position());
+                if ((length <= 0) || (length > MAX_PAYLOAD)) {
+                    break;
+                }
+                needed += length;
+            }
+            if (block.remaining() < needed) {
+                if (needed > block.capacity()) {
+                    ByteBuffer grown = ByteBuffer.allocate(needed).order(ByteOrder.BIG_ENDIAN);
+                    grown.put(block).flip();
+                    block = grown;
+                }
+                block.compact();
+                int read = channel.read(block, readTo);
+                block.flip();
+                if (read <= 0) {
+                    break;  // A torn record at the end
+                }
+                readTo += read;
+                continue;
+            }
+
+            int length = block.getInt();
+            int expected = block.getInt();
+            int payloadStart = block.position();
+            checksum.reset();
+            checksum.update(block.array(), payloadStart, length);
+            if ((int) checksum.getValue() != expected) {
+                break;
+            }
+            try {
+                apply(block, handler);
+            } catch (RuntimeException e) {
+                throw new IOException("The write-ahead log record at " + position + " cannot be applied: "
+                        + e.getMessage(), e);
+            }
+            block.position(payloadStart + length);
+            position += RECORD_HEADER_SIZE + length;
+        }
+
+        handler.finish();
+        return position;
+    }
+
+    /**
+     * Decodes one record's payload and applies it.
+     *
+     * @param payload The buffer, positioned at the payload.
+     * @param handler Applies the record.
+     */
+    private static void apply(ByteBuffer payload, Handler handler) {
+        byte type = payload.get();
+        int id = payload.getInt();
+        switch (type) {
+            case ADD_PROFILE:
+                Profile profile = new Profile(getString(payload));
+                for (int field = 1; field < FIELDS.length; field++) {
+                    String value = getString(payload);
+                    profile.setField(FIELDS[field], value);
+                }
+                handler.addProfile(id, profile);
+                break;
+            case REMOVE_PROFILE:
+                handler.removeProfile(id);
+                break;
+            case CREATE_FRIENDSHIP:
+                handler.createFriendship(id, payload.getInt());
+                break;
+            case SET_FIELD:
+                int field = payload.get();
+                if ((field < 0) || (field >= FIELDS.length)) {
+                    throw new IllegalArgumentException("Unknown field " + field + ".");
+                }
+                handler.setField(id, FIELDS[field], getString(payload));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown record type " + type + ".");
+        }
+    }
+
+    private static String getString(ByteBuffer payload) {
+        int length = payload.getInt();
+        if (length == -1) {
+            return null;
+        }
+        String value = new String(payload.array(), payload.position(), length, StandardCharsets.UTF_8);
+        payload.position(payload.position() + length);
+        return value;
+    }
+}
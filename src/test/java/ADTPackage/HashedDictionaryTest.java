@@ -0,0 +1,185 @@
+package ADTPackage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedDictionaryTest {
+    /** A key whose hash code is chosen, so that tests can place it in the table. */
+    private static final class Key {
+        private final String name;
+        private final int hash;
+
+        Key(String name, int hash) {
+            this.name = name;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return (other instanceof Key) && name.equals(((Key) other).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static <K> List<K> keysOf(DictionaryInterface<K, ?> dictionary) {
+        List<K> keys = new ArrayList<>();
+        Iterator<K> iterator = dictionary.getKeyIterator();
+        while (iterator.hasNext()) {
+            keys.add(iterator.next());
+        }
+        return keys;
+    }
+
+    private static <V> List<V> valuesOf(DictionaryInterface<?, V> dictionary) {
+        List<V> values = new ArrayList<>();
+        Iterator<V> iterator = dictionary.getValueIterator();
+        while (iterator.hasNext()) {
+            values.add(iterator.next());
+        }
+        return values;
+    }
+
+    @Test
+    void addReplaceAndRemoveAcrossResizes() {
+        HashedDictionary<Integer, String> dictionary = new HashedDictionary<>();
+        for (int key = 0; key < 1000; key++) {
+            assertNull(dictionary.add(key, "v" + key));
+        }
+        assertEquals(1000, dictionary.getSize());
+
+        for (int key = 0; key < 1000; key += 3) {
+            assertEquals("v" + key, dictionary.add(key, "w" + key));
+        }
+        assertEquals(1000, dictionary.getSize());
+
+        for (int key = 0; key < 1000; key += 2) {
+            assertEquals(((key % 3 == 0) ? "w" : "v") + key, dictionary.remove(key));
+        }
+        assertEquals(500, dictionary.getSize());
+
+        // Adding more grows the table again, reusing the freed entries first
+        for (int key = 1000; key < 3000; key++) {
+            dictionary.add(key, "v" + key);
+        }
+        assertEquals(2500, dictionary.getSize());
+        for (int key = 0; key < 3000; key++) {
+            boolean present = (key >= 1000) || (key % 2 != 0);
+            assertEquals(present, dictionary.contains(key), "key " + key);
+            String expected = present ? (((key < 1000) && (key % 3 == 0)) ? "w" : "v") + key : null;
+            assertEquals(expected, dictionary.getValue(key));
+        }
+
+        dictionary.clear();
+        assertTrue(dictionary.isEmpty());
+        assertNull(dictionary.getValue(1));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.add(null, "v"));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.add(1, null));
+    }
+
+    @Test
+    void removingInsideAWrappedClusterShiftsTheRestBack() {
+        // The default table has 16 slots. These keys fill slots 14, 15, 0, 1 and 2,
+        // so the cluster wraps around the end of the table
+        HashedDictionary<Key, Integer> dictionary = new HashedDictionary<>();
+        Key a = new Key("a", 14);
+        Key b = new Key("b", 14);
+        Key c = new Key("c", 0);
+        Key d = new Key("d", 14);
+        Key e = new Key("e", 1);
+        Key[] keys = { a, b, c, d, e };
+        for (int i = 0; i < keys.length; i++) {
+            dictionary.add(keys[i], i);
+        }
+
+        // b, d and e move back over the wrap; c is already at home and stays
+        assertEquals(0, dictionary.remove(a));
+        assertNull(dictionary.getValue(a));
+        assertEquals(1, dictionary.getValue(b));
+        assertEquals(2, dictionary.getValue(c));
+        assertEquals(3, dictionary.getValue(d));
+        assertEquals(4, dictionary.getValue(e));
+
+        // A key that probes the same cluster but isn't in it is still missing
+        assertFalse(dictionary.contains(new Key("x", 14)));
+        assertNull(dictionary.remove(new Key("x", 15)));
+
+        assertEquals(2, dictionary.remove(c));
+        assertEquals(1, dictionary.getValue(b));
+        assertEquals(3, dictionary.getValue(d));
+        assertEquals(4, dictionary.getValue(e));
+        assertEquals(1, dictionary.remove(b));
+        assertEquals(3, dictionary.getValue(d));
+        assertEquals(4, dictionary.getValue(e));
+        assertEquals(2, dictionary.getSize());
+
+        // The emptied slots can be filled again
+        dictionary.add(a, 5);
+        dictionary.add(c, 6);
+        assertEquals(5, dictionary.getValue(a));
+        assertEquals(6, dictionary.getValue(c));
+        assertEquals(3, dictionary.getValue(d));
+    }
+
+    @Test
+    void iteratorsListNewestFirstAfterRemovals() {
+        HashedDictionary<String, Integer> dictionary = new HashedDictionary<>();
+        for (String key : new String[] { "a", "b", "c", "d", "e" }) {
+            dictionary.add(key, key.charAt(0) - 'a');
+        }
+        dictionary.remove("c");
+        dictionary.remove("a");
+        dictionary.add("f", 5);       // Takes a freed entry but is still the newest
+        dictionary.add("b", 10);      // Replacing a value keeps its place
+
+        assertEquals(List.of("f", "e", "d", "b"), keysOf(dictionary));
+        assertEquals(List.of(5, 4, 3, 10), valuesOf(dictionary));
+
+        // A resize keeps the order
+        for (int i = 0; i < 20; i++) {
+            dictionary.add("k" + i, 100 + i);
+        }
+        List<String> keys = keysOf(dictionary);
+        assertEquals("k19", keys.get(0));
+        assertEquals(List.of("f", "e", "d", "b"), keys.subList(20, 24));
+
+        Iterator<String> iterator = dictionary.getKeyIterator();
+        assertThrows(UnsupportedOperationException.class, iterator::remove);
+        Iterator<Integer> empty = new HashedDictionary<String, Integer>().getValueIterator();
+        assertFalse(empty.hasNext());
+        assertThrows(NoSuchElementException.class, empty::next);
+    }
+
+    @Test
+    void missingKeys() {
+        HashedDictionary<String, Integer> dictionary = new HashedDictionary<>();
+        assertNull(dictionary.getValue("a"));
+        assertNull(dictionary.remove("a"));
+        assertTrue(dictionary.isEmpty());
+
+        dictionary.add("a", 1);
+        assertNull(dictionary.getValue("b"));
+        assertNull(dictionary.remove("b"));
+        assertEquals(1, dictionary.getSize());
+
+        assertEquals(1, dictionary.remove("a"));
+        assertNull(dictionary.remove("a"));
+        assertNull(dictionary.getValue("a"));
+        assertFalse(dictionary.contains("a"));
+        assertEquals(0, dictionary.getSize());
+    }
+}
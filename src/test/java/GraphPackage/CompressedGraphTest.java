@@ -0,0 +1,140 @@
+package GraphPackage;
+
+import ADTPackage.LinkedStack;
+import ADTPackage.QueueInterface;
+import ADTPackage.StackInterface;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedGraphTest {
+    private DirectedGraph<String> graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new DirectedGraph<>();
+        graph.addVertex("A");
+        graph.addVertex("B");
+        graph.addVertex("C");
+        graph.addVertex("D");
+        graph.addVertex("E");
+        graph.addVertex("F");
+        graph.addEdge("A", "B", 5.0);
+        graph.addEdge("B", "C", 3.0);
+        graph.addEdge("C", "F", 2.0);
+        graph.addEdge("A", "D", 1.0);
+        graph.addEdge("D", "F", 2.0);
+    }
+
+    @Test
+    void sizesAndEdges() {
+        CompressedGraph<String> snapshot = graph.getSnapshot();
+
+        assertTrue(snapshot.isDirected());
+        assertEquals(6, snapshot.getNumberOfVertices());
+        assertEquals(5, snapshot.getNumberOfEdges());
+        assertTrue(snapshot.hasEdge("A", "B"));
+        assertFalse(snapshot.hasEdge("B", "A"));
+        assertFalse(snapshot.hasEdge("A", "Z"));
+
+        int index = snapshot.getIndex("A");
+        assertEquals("A", snapshot.getLabel(index));
+        assertEquals(2, snapshot.getOutDegree(index));
+        assertEquals("B", snapshot.getLabel(snapshot.getOutNeighbor(index, 0)));
+        assertEquals(5.0, snapshot.getOutWeight(index, 0));
+        assertEquals(-1, snapshot.getIndex("Z"));
+    }
+
+    @Test
+    void snapshotIsIndependentOfGraph() {
+        CompressedGraph<String> snapshot = graph.getSnapshot();
+        graph.removeEdge("A", "B");
+        graph.addVertex("G");
+
+        assertTrue(snapshot.hasEdge("A", "B"));
+        assertEquals(6, snapshot.getNumberOfVertices());
+    }
+
+    @Test
+    void traversalsMatchGraph() {
+        CompressedGraph<String> snapshot = graph.getSnapshot();
+
+        QueueInterface<String> expected = graph.getBreadthFirstTraversal("A");
+        QueueInterface<String> actual = snapshot.getBreadthFirstTraversal("A");
+        while (!expected.isEmpty()) {
+            assertEquals(expected.dequeue(), actual.dequeue());
+        }
+        assertTrue(actual.isEmpty());
+
+        expected = graph.getDepthFirstTraversal("A");
+        actual = snapshot.getDepthFirstTraversal("A");
+        while (!expected.isEmpty()) {
+            assertEquals(expected.dequeue(), actual.dequeue());
+        }
+        assertTrue(actual.isEmpty());
+
+        assertTrue(snapshot.getBreadthFirstTraversal("Z").isEmpty());
+    }
+
+    @Test
+    void getTopologicalOrder() {
+        StackInterface<String> order = graph.getSnapshot().getTopologicalOrder();
+        String sequence = "";
+        while (!order.isEmpty()) {
+            sequence += order.pop();
+        }
+
+        assertEquals(6, sequence.length());
+        assertTrue(sequence.indexOf("A") < sequence.indexOf("B"));
+        assertTrue(sequence.indexOf("B") < sequence.indexOf("C"));
+        assertTrue(sequence.indexOf("C") < sequence.indexOf("F"));
+        assertTrue(sequence.indexOf("D") < sequence.indexOf("F"));
+
+        UndirectedGraph<String> undirectedGraph = new UndirectedGraph<>();
+        CompressedGraph<String> undirectedSnapshot = undirectedGraph.getSnapshot();
+        assertThrows(UnsupportedOperationException.class, () -> undirectedSnapshot.getTopologicalOrder());
+    }
+
+    @Test
+    void getShortestPath() {
+        CompressedGraph<String> snapshot = graph.getSnapshot();
+        StackInterface<String> path = new LinkedStack<>();
+
+        assertEquals(2, snapshot.getShortestPath("A", "F", path));
+        assertEquals("A", path.pop());
+        assertEquals("D", path.pop());
+        assertEquals("F", path.pop());
+        assertTrue(path.isEmpty());
+
+        assertEquals(0, snapshot.getShortestPath("A", "Z", path));
+        assertTrue(path.isEmpty());
+    }
+
+    @Test
+    void getCheapestPath() {
+        CompressedGraph<String> snapshot = graph.getSnapshot();
+        StackInterface<String> path = new LinkedStack<>();
+
+        assertEquals(3.0, snapshot.getCheapestPath("A", "F", path), 0.001);
+        assertEquals("A", path.pop());
+        assertEquals("D", path.pop());
+        assertEquals("F", path.pop());
+    }
+
+    @Test
+    void undirectedSnapshot() {
+        UndirectedGraph<Integer> undirectedGraph = new UndirectedGraph<>();
+        undirectedGraph.addVertex(1);
+        undirectedGraph.addVertex(2);
+        undirectedGraph.addVertex(3);
+        undirectedGraph.addEdge(1, 2);
+        undirectedGraph.addEdge(2, 3);
+
+        CompressedGraph<Integer> snapshot = undirectedGraph.getSnapshot();
+        assertFalse(snapshot.isDirected());
+        assertEquals(2, snapshot.getNumberOfEdges());
+        assertTrue(snapshot.hasEdge(3, 2));
+        assertEquals(0.0, snapshot.getOutWeight(snapshot.getIndex(1), 0));
+    }
+}
@@ -0,0 +1,124 @@
+package GraphPackage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentAdjacencyListTest {
+
+    @Test
+    void addKeepsOrderAndRejectsDuplicates() {
+        ConcurrentAdjacencyList list = new ConcurrentAdjacencyList();
+        assertEquals(0, list.size());
+        assertTrue(list.add(7));
+        assertTrue(list.add(0));
+        assertTrue(list.add(3));
+        assertFalse(list.add(7));
+        assertFalse(list.add(0));
+
+        assertEquals(3, list.size());
+        assertArrayEquals(new int[] {7, 0, 3}, list.toArray());
+        assertEquals(0, list.get(1));
+        assertTrue(list.contains(3));
+        assertFalse(list.contains(4));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(3));
+        assertThrows(IllegalArgumentException.class, () -> list.add(-1));
+    }
+
+    @Test
+    void growsAcrossChunksAndTables() {
+        ConcurrentAdjacencyList list = new ConcurrentAdjacencyList();
+        int count = 100_000;
+        for (int i = 0; i < count; i++) {
+            assertTrue(list.add(i * 31));
+        }
+        for (int i = 0; i < count; i += 7) {
+            assertFalse(list.add(i * 31));
+        }
+
+        assertEquals(count, list.size());
+        int[] ids = list.toArray();
+        for (int i = 0; i < count; i++) {
+            assertEquals(i * 31, ids[i]);
+            assertEquals(i * 31, list.get(i));
+            assertTrue(list.contains(i * 31));
+        }
+        assertFalse(list.contains(count * 31));
+        assertFalse(list.contains(1));
+    }
+
+    @Test
+    void concurrentAddsToOneVertex() throws Exception {
+        ConcurrentAdjacencyList list = new ConcurrentAdjacencyList();
+        int numberOfThreads = 8;
+        int idsPerThread = 20_000;
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        // A reader checks that every prefix it sees is fully written and free of duplicates
+        Thread reader = new Thread(() -> {
+            try {
+                while (writing.get()) {
+                    int[] ids = list.toArray();
+                    Set<Integer> seen = new HashSet<>();
+                    for (int id : ids) {
+                        assertTrue(id >= 0);
+                        assertTrue(seen.add(id));
+                        assertTrue(list.contains(id));
+                    }
+                    assertTrue(list.size() >= ids.length);
+                }
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+        reader.start();
+
+        // Each thread's ids overlap the next thread's by half, so every shared id is raced for
+        int[] added = new int[numberOfThreads];
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < numberOfThreads; t++) {
+            int thread = t;
+            Thread writer = new Thread(() -> {
+                try {
+                    int first = thread * idsPerThread / 2;
+                    for (int id = first; id < first + idsPerThread; id++) {
+                        if (list.add(id)) {
+                            added[thread]++;
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            threads.add(writer);
+            writer.start();
+        }
+        for (Thread writer : threads) {
+            writer.join();
+        }
+        writing.set(false);
+        reader.join();
+        assertTrue(failures.isEmpty(), failures.toString());
+
+        // Every id from 0 up is there exactly once, added by exactly one thread
+        int expected = (numberOfThreads + 1) * idsPerThread / 2;
+        assertEquals(expected, Arrays.stream(added).sum());
+        assertEquals(expected, list.size());
+        int[] ids = list.toArray();
+        Arrays.sort(ids);
+        for (int i = 0; i < expected; i++) {
+            assertEquals(i, ids[i]);
+            assertTrue(list.contains(i));
+        }
+        assertFalse(list.contains(expected));
+    }
+}
@@ -1,10 +1,21 @@
 package GraphPackage;
 
+import ADTPackage.DictionaryInterface;
+import ADTPackage.HashedDictionary;
 import ADTPackage.LinkedStack;
 import ADTPackage.QueueInterface;
 import ADTPackage.StackInterface;
+import ADTPackage.UnsortedLinkedDictionary;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class DirectedGraphTest {
@@ -16,6 +27,21 @@ class DirectedGraphTest {
     }
 
 
+    @Test
+    void constructorWithDictionary() {
+        DirectedGraph<String> linkedGraph = new DirectedGraph<>(new UnsortedLinkedDictionary<>());
+        linkedGraph.addVertex("A");
+        linkedGraph.addVertex("B");
+        assertTrue(linkedGraph.addEdge("A", "B"));
+        assertTrue(linkedGraph.hasEdge("A", "B"));
+        assertEquals(2, linkedGraph.getNumberOfVertices());
+
+        DictionaryInterface<String, VertexInterface<String>> usedDictionary = new HashedDictionary<>();
+        usedDictionary.add("A", new Vertex<>("A"));
+        assertThrows(IllegalArgumentException.class, () -> new DirectedGraph<>(usedDictionary));
+        assertThrows(IllegalArgumentException.class, () -> new DirectedGraph<String>(null));
+    }
+
     @Test
     void addVertex() {
         assertTrue(graph.addVertex("A"));
@@ -39,6 +65,31 @@ class DirectedGraphTest {
 
         // Verify that "A" is removed and "B" remains
         assertEquals(1, graph.getNumberOfVertices());
+        assertEquals(0, graph.getNumberOfEdges());
+    }
+
+    @Test
+    void removeVertexWithIncomingEdges() {
+        for (int i = 0; i < 20; i++) {
+            graph.addVertex("V" + i);
+        }
+        for (int i = 1; i < 20; i++) {
+            graph.addEdge("V" + i, "V0");
+            graph.addEdge("V0", "V" + i);
+            graph.addEdge("V" + i, "V" + ((i % 19) + 1));
+        }
+        assertEquals(57, graph.getNumberOfEdges());
+
+        assertTrue(graph.removeVertex("V0"));
+        assertEquals(19, graph.getNumberOfEdges());
+        for (int i = 1; i < 20; i++) {
+            assertFalse(graph.hasEdge("V" + i, "V0"));
+            assertTrue(graph.hasEdge("V" + i, "V" + ((i % 19) + 1)));
+        }
+
+        assertTrue(graph.removeVertex("V1"));
+        assertEquals(17, graph.getNumberOfEdges());
+        assertFalse(graph.hasEdge("V19", "V1"));
     }
 
     @Test
@@ -173,13 +224,56 @@ class DirectedGraphTest {
         graph.addEdge("C", "D");
 
         StackInterface<String> topoOrder = graph.getTopologicalOrder();
+        String sequence = "";
+        while (!topoOrder.isEmpty()) {
+            sequence += topoOrder.pop();
+        }
+
+        // Any order is correct as long as every edge points forward
+        assertEquals(6, sequence.length());
+        assertTrue(sequence.indexOf("F") < sequence.indexOf("A"));
+        assertTrue(sequence.indexOf("E") < sequence.indexOf("A"));
+        assertTrue(sequence.indexOf("E") < sequence.indexOf("B"));
+        assertTrue(sequence.indexOf("D") < sequence.indexOf("B"));
+        assertTrue(sequence.indexOf("F") < sequence.indexOf("C"));
+        assertTrue(sequence.indexOf("C") < sequence.indexOf("D"));
+    }
 
-        assertEquals("E",topoOrder.pop());
-        assertEquals("F",topoOrder.pop());
-        assertEquals("A",topoOrder.pop());
-        assertEquals("C",topoOrder.pop());
-        assertEquals("D",topoOrder.pop());
-        assertEquals("B",topoOrder.pop());
+    @Test
+    void getTopologicalOrderReportsCycle() {
+        graph.addVertex("A");
+        graph.addVertex("B");
+        graph.addVertex("C");
+        graph.addVertex("D");
+        graph.addEdge("D", "A");
+        graph.addEdge("A", "B");
+        graph.addEdge("B", "C");
+        graph.addEdge("C", "A");
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> graph.getTopologicalOrder());
+        String message = exception.getMessage();
+        assertTrue(message.contains("A -> B -> C -> A") || message.contains("B -> C -> A -> B")
+                || message.contains("C -> A -> B -> C"));
+
+        graph.removeEdge("C", "A");
+        assertEquals("D", graph.getTopologicalOrder().pop());
+    }
+
+    @Test
+    void getTopologicalOrderOnLongChain() {
+        DirectedGraph<Integer> chain = new DirectedGraph<>();
+        for (int i = 0; i < 100000; i++) {
+            chain.addVertex(i);
+        }
+        for (int i = 0; i < 99999; i++) {
+            chain.addEdge(i, i + 1);
+        }
+
+        StackInterface<Integer> order = chain.getTopologicalOrder();
+        for (int i = 0; i < 100000; i++) {
+            assertEquals(i, order.pop());
+        }
+        assertTrue(order.isEmpty());
     }
 
     @Test
@@ -203,6 +297,49 @@ class DirectedGraphTest {
         assertEquals(2, pathLength);  // Path length should be 2 (A -> B -> C)
     }
 
+    @Test
+    void getShortestPathBidirectional() {
+        DirectedGraph<Integer> randomGraph = new DirectedGraph<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 3000; i++) {
+            randomGraph.addVertex(i);
+        }
+        for (int i = 0; i < 9000; i++) {
+            randomGraph.addEdge(random.nextInt(3000), random.nextInt(3000));
+        }
+
+        ParallelBreadthFirstSearch levelSearch = new ParallelBreadthFirstSearch(1);
+        for (int query = 0; query < 50; query++) {
+            int begin = random.nextInt(3000);
+            int end = random.nextInt(3000);
+            Integer expected = levelSearch.getLevels(randomGraph, begin).getValue(end);
+
+            StackInterface<Integer> path = new LinkedStack<>();
+            int pathLength = randomGraph.getShortestPath(begin, end, path);
+            if (expected == null) {
+                assertEquals(0, pathLength);
+                assertEquals(end, path.pop());
+            } else {
+                assertEquals(expected, pathLength);
+                int previous = path.pop();
+                assertEquals(begin, previous);
+                for (int step = 0; step < pathLength; step++) {
+                    int next = path.pop();
+                    assertTrue(randomGraph.hasEdge(previous, next));
+                    previous = next;
+                }
+                assertEquals(end, previous);
+            }
+            assertTrue(path.isEmpty());
+        }
+        levelSearch.shutdown();
+
+        StackInterface<Integer> path = new LinkedStack<>();
+        assertEquals(0, randomGraph.getShortestPath(7, 7, path));
+        assertEquals(7, path.pop());
+        assertTrue(path.isEmpty());
+    }
+
     @Test
     void getCheapestPath() {
         graph.addVertex("A");
@@ -224,6 +361,114 @@ class DirectedGraphTest {
 
     }
 
+    @Test
+    void concurrentQueries() throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            graph.addVertex("V" + i);
+        }
+        for (int i = 0; i < 500; i++) {
+            graph.addEdge("V" + i, "V" + ((i * 7 + 1) % 500), i % 5);
+            graph.addEdge("V" + i, "V" + ((i * 13 + 3) % 500), 1);
+        }
+
+        String expectedOrder = drain(graph.getBreadthFirstTraversal("V0"));
+        int expectedLength = graph.getShortestPath("V0", "V250", new LinkedStack<>());
+        double expectedCost = graph.getCheapestPath("V0", "V250", new LinkedStack<>());
+
+        AtomicBoolean mismatch = new AtomicBoolean(false);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int round = 0; round < 50; round++) {
+                    if (!expectedOrder.equals(drain(graph.getBreadthFirstTraversal("V0")))
+                            || expectedLength != graph.getShortestPath("V0", "V250", new LinkedStack<>())
+                            || expectedCost != graph.getCheapestPath("V0", "V250", new LinkedStack<>())) {
+                        mismatch.set(true);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertFalse(mismatch.get());
+    }
+
+    @Test
+    void removedVertexIndexIsReused() {
+        graph.addVertex("A");
+        graph.addVertex("B");
+        graph.addVertex("C");
+        graph.addEdge("A", "B");
+        graph.addEdge("B", "C");
+        graph.removeVertex("B");
+        graph.addVertex("D");
+        graph.addEdge("A", "D");
+        graph.addEdge("D", "C");
+
+        assertEquals("ADC", drain(graph.getBreadthFirstTraversal("A")));
+        assertEquals(3, graph.getIndexCapacity());
+        assertFalse(graph.addVertex("D"));
+        assertTrue(graph.hasEdge("A", "D"));
+    }
+
+    /** Empties a traversal queue into a string. */
+    private static String drain(QueueInterface<String> queue) {
+        StringBuilder result = new StringBuilder();
+        while (!queue.isEmpty()) {
+            result.append(queue.dequeue());
+        }
+        return result.toString();
+    }
+
+    @Test
+    void getCheapestPathOnLargeGraph() {
+        // More relaxations than the old entry-per-edge heap could hold
+        DirectedGraph<Integer> randomGraph = new DirectedGraph<>();
+        Random random = new Random(9);
+        int numberOfVertices = 2000;
+        for (int i = 0; i < numberOfVertices; i++) {
+            randomGraph.addVertex(i);
+        }
+        int[][] edges = new int[30000][];
+        double[] weights = new double[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = new int[] { random.nextInt(numberOfVertices), random.nextInt(numberOfVertices) };
+            weights[i] = 1 + random.nextInt(20);
+            if (!randomGraph.addEdge(edges[i][0], edges[i][1], weights[i])) {
+                weights[i] = Double.NaN;  // Duplicate edge; the graph keeps the first weight
+            }
+        }
+
+        // Bellman-Ford from vertex 0 as the reference
+        double[] expected = new double[numberOfVertices];
+        java.util.Arrays.fill(expected, Double.POSITIVE_INFINITY);
+        expected[0] = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < edges.length; i++) {
+                if (!Double.isNaN(weights[i]) && expected[edges[i][0]] + weights[i] < expected[edges[i][1]]) {
+                    expected[edges[i][1]] = expected[edges[i][0]] + weights[i];
+                    changed = true;
+                }
+            }
+        }
+
+        for (int end = 0; end < numberOfVertices; end += 37) {
+            StackInterface<Integer> path = new LinkedStack<>();
+            double cost = randomGraph.getCheapestPath(0, end, path);
+            if (expected[end] == Double.POSITIVE_INFINITY) {
+                assertEquals(0, cost, 0.001);
+            } else {
+                assertEquals(expected[end], cost, 0.001);
+                assertEquals(0, path.peek());
+            }
+        }
+    }
+
     @Test
     void displayEdges() {
         graph.addVertex("A");
@@ -232,4 +477,54 @@ class DirectedGraphTest {
 
         graph.displayEdges();  // Manually inspect the output to ensure correct display of edges
     }
-}
\ No newline at end of file
+
+    @Test
+    void getNeighborhood() {
+        // A -> B -> C -> D, and A -> E -> F
+        DirectedGraph<String> graph = new DirectedGraph<>();
+        for (String label : new String[] { "A", "B", "C", "D", "E", "F" }) {
+            graph.addVertex(label);
+        }
+        graph.addEdge("A", "B");
+        graph.addEdge("B", "C");
+        graph.addEdge("C", "D");
+        graph.addEdge("A", "E");
+        graph.addEdge("E", "F");
+        graph.addEdge("F", "A");
+
+        assertEquals(List.of("B", "E", "C", "F"), toList(graph.getNeighborhood("A", 2, 10, null)));
+        assertEquals(List.of("B", "E"), toList(graph.getNeighborhood("A", 1, 10, null)));
+        assertEquals(List.of("B", "E", "C"), toList(graph.getNeighborhood("A", 3, 3, null)));
+        assertEquals(List.of("C", "F", "D"), toList(graph.getNeighborhood("A", 3, 10, label -> !label.equals("B") && !label.equals("E"))));
+        assertFalse(graph.getNeighborhood("A", 0, 10, null).hasNext());
+        assertFalse(graph.getNeighborhood("Z", 2, 10, null).hasNext());
+        assertThrows(IllegalArgumentException.class, () -> graph.getNeighborhood("A", -1, 10, null));
+    }
+
+    @Test
+    void getNeighborhoodIsLazy() {
+        // A star whose center has 100,000 leaves
+        UndirectedGraph<Integer> graph = new UndirectedGraph<>();
+        graph.addVertex(0);
+        for (int i = 1; i <= 100000; i++) {
+            graph.addVertex(i);
+            graph.addEdge(0, i);
+        }
+
+        AtomicInteger tested = new AtomicInteger();
+        Iterator<Integer> neighborhood = graph.getNeighborhood(0, 2, 1000, label -> {
+            tested.incrementAndGet();
+            return label % 2 == 0;
+        });
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, neighborhood.next() % 2);
+        }
+        assertTrue(tested.get() <= 10);
+    }
+
+    private static <T> List<T> toList(Iterator<T> iterator) {
+        List<T> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+}
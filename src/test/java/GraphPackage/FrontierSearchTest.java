@@ -0,0 +1,122 @@
+package GraphPackage;
+
+import ADTPackage.QueueInterface;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrontierSearchTest {
+
+    /** Builds a random graph large enough for bottom-up levels to run. */
+    private static UndirectedGraph<Integer> randomGraph(int numberOfVertices, int edgesPerVertex, long seed) {
+        UndirectedGraph<Integer> graph = new UndirectedGraph<>();
+        Random random = new Random(seed);
+        for (int i = 0; i < numberOfVertices; i++) {
+            graph.addVertex(i);
+        }
+        for (int i = 0; i < numberOfVertices; i++) {
+            for (int j = 0; j < edgesPerVertex; j++) {
+                graph.addEdge(i, random.nextInt(numberOfVertices));
+            }
+        }
+        return graph;
+    }
+
+    /** Computes distances from the origin with a plain queue-based search. */
+    private static int[] plainDistances(IndexedGraph<Integer> graph, int origin) {
+        int[] distance = new int[graph.getIndexCapacity()];
+        java.util.Arrays.fill(distance, -1);
+        int[] queue = new int[graph.getIndexCapacity()];
+        int front = 0;
+        int back = 0;
+        distance[origin] = 0;
+        queue[back++] = origin;
+        while (front < back) {
+            int vertex = queue[front++];
+            for (int edge = 0; edge < graph.getOutDegree(vertex); edge++) {
+                int neighbor = graph.getOutNeighbor(vertex, edge);
+                if (distance[neighbor] == -1) {
+                    distance[neighbor] = distance[vertex] + 1;
+                    queue[back++] = neighbor;
+                }
+            }
+        }
+        return distance;
+    }
+
+    @Test
+    void levelsMatchPlainSearch() {
+        UndirectedGraph<Integer> graph = randomGraph(3000, 8, 7);
+        int origin = graph.getIndex(0);
+        int[] expected = plainDistances(graph, origin);
+
+        TraversalContext context = TraversalContext.acquire(graph.getIndexCapacity());
+        int count = FrontierSearch.search(graph, origin, context);
+
+        int reachable = 0;
+        for (int vertex = 0; vertex < expected.length; vertex++) {
+            if (expected[vertex] != -1) {
+                reachable++;
+                assertTrue(context.isVisited(vertex));
+                assertEquals(expected[vertex], context.depth[vertex]);
+            } else {
+                assertFalse(context.isVisited(vertex));
+            }
+        }
+        assertEquals(reachable, count);
+
+        // Levels come out in order
+        for (int position = 1; position < count; position++) {
+            assertTrue(context.depth[context.vertexQueue[position - 1]] <= context.depth[context.vertexQueue[position]]);
+        }
+        context.release();
+    }
+
+    @Test
+    void directedGraphUsesIncomingEdges() {
+        DirectedGraph<Integer> graph = new DirectedGraph<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            graph.addVertex(i);
+        }
+        for (int i = 0; i < 20000; i++) {
+            graph.addEdge(random.nextInt(2000), random.nextInt(2000));
+        }
+
+        int[] expected = plainDistances(graph, graph.getIndex(0));
+        QueueInterface<Integer> order = graph.getBreadthFirstTraversal(0);
+        int previousDistance = 0;
+        int count = 0;
+        while (!order.isEmpty()) {
+            int distance = expected[graph.getIndex(order.dequeue())];
+            assertTrue(distance >= previousDistance);
+            previousDistance = distance;
+            count++;
+        }
+
+        int reachable = 0;
+        for (int distance : expected) {
+            if (distance != -1) {
+                reachable++;
+            }
+        }
+        assertEquals(reachable, count);
+    }
+
+    @Test
+    void snapshotMatchesGraph() {
+        UndirectedGraph<Integer> graph = randomGraph(1000, 6, 11);
+        CompressedGraph<Integer> snapshot = graph.getSnapshot();
+
+        QueueInterface<Integer> expected = graph.getBreadthFirstTraversal(5);
+        QueueInterface<Integer> actual = snapshot.getBreadthFirstTraversal(5);
+        int[] graphDistances = plainDistances(graph, graph.getIndex(5));
+        while (!expected.isEmpty()) {
+            assertEquals(graphDistances[graph.getIndex(expected.dequeue())],
+                    graphDistances[graph.getIndex(actual.dequeue())]);
+        }
+        assertTrue(actual.isEmpty());
+    }
+}
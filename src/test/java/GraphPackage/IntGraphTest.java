@@ -0,0 +1,345 @@
+package GraphPackage;
+
+import ADTPackage.LinkedStack;
+import ADTPackage.QueueInterface;
+import ADTPackage.StackInterface;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntGraphTest {
+
+    @Test
+    void addAndRemoveVertices() {
+        IntGraph graph = new IntGraph();
+        assertTrue(graph.isEmpty());
+        assertTrue(graph.addVertex(0));
+        assertTrue(graph.addVertex(5));
+        assertFalse(graph.addVertex(5));
+        assertThrows(IllegalArgumentException.class, () -> graph.addVertex(-1));
+        assertEquals(2, graph.getNumberOfVertices());
+        assertEquals(6, graph.getIndexCapacity());
+        assertFalse(graph.contains(3));
+
+        assertTrue(graph.removeVertex(5));
+        assertFalse(graph.removeVertex(5));
+        assertEquals(1, graph.getNumberOfVertices());
+        assertEquals(1, graph.getIndexCapacity());
+    }
+
+    @Test
+    void directedEdges() {
+        IntGraph graph = new IntGraph(true);
+        for (int i = 0; i < 4; i++) {
+            graph.addVertex(i);
+        }
+        assertTrue(graph.addEdge(0, 1, 2.5));
+        assertTrue(graph.addEdge(0, 2));
+        assertTrue(graph.addEdge(2, 1));
+        assertFalse(graph.addEdge(0, 1));
+        assertFalse(graph.addEdge(0, 9));
+
+        assertTrue(graph.hasEdge(0, 1));
+        assertFalse(graph.hasEdge(1, 0));
+        assertEquals(3, graph.getNumberOfEdges());
+        assertArrayEquals(new int[] { 1, 2 }, graph.getNeighbors(0));
+        assertEquals(2, graph.getInDegree(1));
+        assertEquals(2.5, graph.getOutWeight(0, 0), 0.0001);
+        assertEquals(0, graph.getOutWeight(0, 1), 0.0001);
+
+        assertTrue(graph.removeVertex(1));
+        assertEquals(1, graph.getNumberOfEdges());
+        assertArrayEquals(new int[] { 2 }, graph.getNeighbors(0));
+        assertEquals(0, graph.getDegree(2));
+
+        assertEquals(0, graph.getTopologicalOrder().pop());
+    }
+
+    @Test
+    void undirectedEdges() {
+        IntGraph graph = new IntGraph(false);
+        for (int i = 0; i < 4; i++) {
+            graph.addVertex(i);
+        }
+        assertTrue(graph.addEdge(0, 1));
+        assertTrue(graph.addEdge(1, 2));
+        assertFalse(graph.addEdge(2, 1));
+        assertFalse(graph.addEdge(3, 3));
+        assertTrue(graph.hasEdge(1, 0));
+        assertEquals(2, graph.getNumberOfEdges());
+
+        assertTrue(graph.removeEdge(1, 0));
+        assertFalse(graph.hasEdge(0, 1));
+        assertEquals(1, graph.getNumberOfEdges());
+        assertThrows(UnsupportedOperationException.class, () -> graph.getTopologicalOrder());
+    }
+
+    @Test
+    void traversalsAndPaths() {
+        IntGraph graph = new IntGraph(false);
+        for (int i = 0; i < 6; i++) {
+            graph.addVertex(i);
+        }
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(0, 3, 5);
+        graph.addEdge(3, 2, 1);
+        graph.addEdge(2, 4, 1);
+
+        assertArrayEquals(new int[] { 0, 1, 3, 2, 4 }, graph.getBreadthFirstOrder(0));
+        assertEquals(0, graph.getBreadthFirstOrder(5).length - 1);
+        assertEquals(0, graph.getBreadthFirstOrder(9).length);
+
+        QueueInterface<Integer> order = graph.getBreadthFirstTraversal(0);
+        assertEquals(0, order.dequeue());
+        assertEquals(1, order.dequeue());
+
+        StackInterface<Integer> path = new LinkedStack<>();
+        assertEquals(3, graph.getShortestPath(0, 4, path));
+        path.clear();
+        assertEquals(3, graph.getCheapestPath(0, 4, path), 0.0001);
+        assertEquals(0, path.pop());
+        assertEquals(1, path.pop());
+        assertEquals(2, path.pop());
+        assertEquals(4, path.pop());
+    }
+
+    @Test
+    void clear() {
+        IntGraph graph = new IntGraph();
+        graph.addVertex(1);
+        graph.addVertex(2);
+        graph.addEdge(1, 2);
+        graph.clear();
+        assertTrue(graph.isEmpty());
+        assertEquals(0, graph.getNumberOfEdges());
+        assertFalse(graph.contains(1));
+    }
+
+    @Test
+    void neighborsStaySorted() {
+        IntGraph graph = new IntGraph(false);
+        for (int i = 0; i < 6; i++) {
+            graph.addVertex(i);
+        }
+        graph.addEdge(0, 4, 2.5);
+        graph.addEdge(0, 1);
+        graph.addEdge(0, 5);
+        graph.addEdge(0, 3, 1.5);
+
+        assertArrayEquals(new int[] { 1, 3, 4, 5 }, graph.getNeighbors(0));
+        graph.removeEdge(3, 0);
+        assertArrayEquals(new int[] { 1, 4, 5 }, graph.getNeighbors(0));
+
+        // Weights move with their neighbors
+        assertEquals(0, graph.getOutWeight(0, 0));
+        assertEquals(2.5, graph.getOutWeight(0, 1));
+        assertEquals(0, graph.getOutWeight(0, 2));
+    }
+
+    @Test
+    void commonNeighbors() {
+        IntGraph graph = new IntGraph(false);
+        for (int i = 0; i < 8; i++) {
+            graph.addVertex(i);
+        }
+        graph.addEdge(0, 2);
+        graph.addEdge(0, 3);
+        graph.addEdge(0, 5);
+        graph.addEdge(1, 3);
+        graph.addEdge(1, 5);
+        graph.addEdge(1, 6);
+
+        assertArrayEquals(new int[] { 3, 5 }, graph.getCommonNeighbors(0, 1));
+        assertEquals(2, graph.getCommonNeighborCount(1, 0));
+        assertEquals(0, graph.getCommonNeighborCount(0, 7));
+        assertEquals(0, graph.getCommonNeighbors(0, 9).length);
+    }
+
+    @Test
+    void commonNeighborsMatchBruteForce() {
+        // Vertex 0 and 1 are dense, the rest have a range of degrees
+        int n = 4000;
+        Random random = new Random(16);
+        IntGraph graph = new IntGraph(false);
+        boolean[][] adjacent = new boolean[n][n];
+        for (int i = 0; i < n; i++) {
+            graph.addVertex(i);
+        }
+        for (int hub = 0; hub < 2; hub++) {
+            for (int i = 2; i < n; i++) {
+                if (random.nextInt(3) == 0) {
+                    connect(graph, adjacent, hub, i);
+                }
+            }
+        }
+        for (int i = 2; i < n; i++) {
+            int degree = (i % 50 == 0) ? 300 : random.nextInt(8);
+            for (int j = 0; j < degree; j++) {
+                connect(graph, adjacent, i, 2 + random.nextInt(n - 2));
+            }
+        }
+
+        // Removing edges must keep the hubs' bitsets up to date
+        graph.getCommonNeighborCount(0, 1);
+        for (int i = 2; i < n; i += 7) {
+            graph.removeEdge(0, i);
+            adjacent[0][i] = false;
+            adjacent[i][0] = false;
+        }
+
+        int[][] pairs = { { 0, 1 }, { 0, 2 }, { 1, 100 }, { 100, 150 }, { 3, 4 }, { 5, 200 }, { 7, 0 } };
+        for (int[] pair : pairs) {
+            int expected = 0;
+            for (int k = 0; k < n; k++) {
+                if (adjacent[pair[0]][k] && adjacent[pair[1]][k]) {
+                    expected++;
+                }
+            }
+            int[] common = graph.getCommonNeighbors(pair[0], pair[1]);
+            assertEquals(expected, common.length);
+            assertEquals(expected, graph.getCommonNeighborCount(pair[0], pair[1]));
+            for (int k = 0; k < common.length; k++) {
+                assertTrue(adjacent[pair[0]][common[k]] && adjacent[pair[1]][common[k]]);
+                assertTrue((k == 0) || (common[k - 1] < common[k]));
+            }
+        }
+    }
+
+    private static void connect(IntGraph graph, boolean[][] adjacent, int a, int b) {
+        if (graph.addEdge(a, b)) {
+            adjacent[a][b] = true;
+            adjacent[b][a] = true;
+        }
+    }
+
+    @Test
+    void addEdgesInBulk() {
+        IntGraph graph = new IntGraph(false);
+        for (int i = 0; i < 6; i++) {
+            graph.addVertex(i);
+        }
+        graph.addEdge(0, 1, 2.5);
+
+        // Repeats, reversed repeats, an existing edge, a self-loop and a missing vertex are skipped
+        int[] begins = { 0, 3, 2, 3, 1, 4, 4, 0 };
+        int[] ends   = { 2, 0, 0, 0, 0, 4, 9, 5 };
+        assertEquals(3, graph.addEdges(begins, ends));
+        assertEquals(4, graph.getNumberOfEdges());
+        assertArrayEquals(new int[] { 1, 2, 3, 5 }, graph.getNeighbors(0));
+        assertArrayEquals(new int[] { 0 }, graph.getNeighbors(3));
+        assertEquals(2.5, graph.getOutWeight(0, 0));
+        assertEquals(0, graph.getOutWeight(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> graph.addEdges(new int[1], new int[2]));
+    }
+
+    @Test
+    void addEdgesMatchesAddEdge() {
+        int n = 3000;
+        Random random = new Random(20);
+        IntGraph bulk = new IntGraph(true);
+        IntGraph single = new IntGraph(true);
+        for (int i = 0; i < n; i++) {
+            bulk.addVertex(i);
+            single.addVertex(i);
+        }
+
+        // A dense hub has a bitset that must see the new edges
+        for (int i = 1; i < 2000; i++) {
+            bulk.addEdge(0, i);
+            single.addEdge(0, i);
+            bulk.addEdge(1, i);
+            single.addEdge(1, i);
+        }
+        bulk.getCommonNeighborCount(0, 1);
+
+        int[] begins = new int[20000];
+        int[] ends = new int[20000];
+        for (int i = 0; i < begins.length; i++) {
+            begins[i] = (i % 10 == 0) ? 0 : random.nextInt(n);
+            ends[i] = random.nextInt(n);
+            single.addEdge(begins[i], ends[i]);
+        }
+        bulk.addEdges(begins, ends);
+
+        assertEquals(single.getNumberOfEdges(), bulk.getNumberOfEdges());
+        for (int i = 0; i < n; i++) {
+            assertArrayEquals(single.getNeighbors(i), bulk.getNeighbors(i));
+            assertEquals(single.getInDegree(i), bulk.getInDegree(i));
+        }
+        assertEquals(single.getCommonNeighborCount(0, 1), bulk.getCommonNeighborCount(0, 1));
+    }
+
+    @Test
+    void fromCompressedRows() {
+        // 0 - 1, 0 - 3, 1 - 3; id 2 is unused and 4 has no friends
+        boolean[] vertices = { true, true, false, true, true };
+        int[] offsets = { 0, 2, 4, 4, 6, 6 };
+        int[] neighbors = { 1, 3, 0, 3, 0, 1 };
+        IntGraph graph = IntGraph.fromCompressedRows(false, vertices, offsets, neighbors);
+        assertEquals(4, graph.getNumberOfVertices());
+        assertEquals(3, graph.getNumberOfEdges());
+        assertFalse(graph.contains(2));
+        assertTrue(graph.hasEdge(3, 1));
+        assertArrayEquals(new int[] { 0, 1 }, graph.getNeighbors(3));
+        assertEquals(0, graph.getDegree(4));
+
+        // The copied rows grow like any other
+        assertTrue(graph.addEdge(4, 0));
+        assertTrue(graph.removeEdge(0, 1));
+        assertArrayEquals(new int[] { 3, 4 }, graph.getNeighbors(0));
+
+        IntGraph directed = IntGraph.fromCompressedRows(true, vertices, new int[] { 0, 2, 3, 3, 3, 4 },
+                                                        new int[] { 1, 4, 4, 0 });
+        assertEquals(4, directed.getNumberOfEdges());
+        assertEquals(2, directed.getInDegree(4));
+        assertEquals(0, directed.getInNeighbor(4, 0));
+        assertEquals(1, directed.getInNeighbor(4, 1));
+        assertTrue(directed.removeVertex(4));
+        assertEquals(1, directed.getNumberOfEdges());
+    }
+
+    @Test
+    void fromCompressedRowsRejectsBadRows() {
+        boolean[] vertices = { true, true, true };
+        // An arc without its reverse
+        assertThrows(IllegalArgumentException.class,
+            () -> IntGraph.fromCompressedRows(false, vertices, new int[] { 0, 1, 1, 1 }, new int[] { 1 }));
+        // An unsorted row
+        assertThrows(IllegalArgumentException.class,
+            () -> IntGraph.fromCompressedRows(true, vertices, new int[] { 0, 2, 2, 2 }, new int[] { 2, 1 }));
+        // A self-loop in an undirected graph
+        assertThrows(IllegalArgumentException.class,
+            () -> IntGraph.fromCompressedRows(false, vertices, new int[] { 0, 1, 1, 1 }, new int[] { 0 }));
+        // A row for an unused id, and offsets that miss the end
+        assertThrows(IllegalArgumentException.class,
+            () -> IntGraph.fromCompressedRows(true, new boolean[] { true, false }, new int[] { 0, 0, 1 }, new int[] { 0 }));
+        assertThrows(IllegalArgumentException.class,
+            () -> IntGraph.fromCompressedRows(true, vertices, new int[] { 0, 1, 1, 1 }, new int[] { 1, 2 }));
+    }
+
+    @Test
+    void oneWayArcsCompleteAnEdge() {
+        IntGraph graph = new IntGraph(false);
+        for (int id = 0; id < 4; id++) {
+            graph.addVertex(id);
+        }
+        assertTrue(graph.addArc(0, 1));
+        assertFalse(graph.addArc(0, 1));
+        assertTrue(graph.hasEdge(0, 1));
+        assertFalse(graph.hasEdge(1, 0));
+        assertEquals(0, graph.getNumberOfEdges());
+
+        // Repeats, missing vertices, self-loops and existing arcs are skipped
+        assertTrue(graph.addArc(2, 1));
+        assertEquals(2, graph.addArcs(1, new int[] { 2, 0, 2, 9, 1 }));
+        assertEquals(0, graph.addArcs(1, new int[] { 0 }));
+        assertArrayEquals(new int[] { 0, 2 }, graph.getNeighbors(1));
+        assertEquals(2, graph.getNumberOfEdges());
+        assertEquals(1, graph.getCommonNeighborCount(0, 2));
+
+        assertThrows(IllegalStateException.class, () -> new IntGraph(true).addArc(0, 1));
+    }
+}
@@ -0,0 +1,109 @@
+package GraphPackage;
+
+import ADTPackage.LinkedStack;
+import ADTPackage.StackInterface;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LandmarkIndexTest {
+
+    /** Builds a grid with random weights, where goal direction pays off. */
+    private static UndirectedGraph<Integer> weightedGrid(int side, long seed) {
+        UndirectedGraph<Integer> graph = new UndirectedGraph<>();
+        Random random = new Random(seed);
+        for (int i = 0; i < side * side; i++) {
+            graph.addVertex(i);
+        }
+        for (int row = 0; row < side; row++) {
+            for (int column = 0; column < side; column++) {
+                int vertex = row * side + column;
+                if (column + 1 < side) {
+                    graph.addEdge(vertex, vertex + 1, 1 + random.nextInt(5));
+                }
+                if (row + 1 < side) {
+                    graph.addEdge(vertex, vertex + side, 1 + random.nextInt(5));
+                }
+            }
+        }
+        return graph;
+    }
+
+    @Test
+    void constructorRejectsBadLandmarkCount() {
+        assertThrows(IllegalArgumentException.class, () -> new LandmarkIndex<>(new DirectedGraph<String>(), 0));
+    }
+
+    @Test
+    void matchesDijkstraAndSettlesFewerVertices() {
+        UndirectedGraph<Integer> graph = weightedGrid(40, 1);
+        LandmarkIndex<Integer> index = new LandmarkIndex<>(graph, 8);
+        assertEquals(8, index.getNumberOfLandmarks());
+
+        Random random = new Random(2);
+        long landmarkSettled = 0;
+        long dijkstraSettled = 0;
+        for (int query = 0; query < 40; query++) {
+            int begin = random.nextInt(1600);
+            int end = random.nextInt(1600);
+
+            StackInterface<Integer> expectedPath = new LinkedStack<>();
+            StackInterface<Integer> path = new LinkedStack<>();
+            double expected = graph.getCheapestPath(begin, end, expectedPath);
+            assertEquals(expected, index.getCheapestPath(begin, end, path), 0.0001);
+            assertEquals(begin, path.peek());
+
+            landmarkSettled += index.countSettled(graph.getIndex(begin), graph.getIndex(end));
+            TraversalContext context = TraversalContext.acquire(graph.getIndexCapacity());
+            dijkstraSettled += GraphSearch.searchCheapest(graph, graph.getIndex(begin), graph.getIndex(end), null, context);
+            context.release();
+        }
+        assertTrue(landmarkSettled * 2 < dijkstraSettled);
+    }
+
+    @Test
+    void directedGraphAndUnreachableEnd() {
+        DirectedGraph<String> graph = new DirectedGraph<>();
+        graph.addVertex("A");
+        graph.addVertex("B");
+        graph.addVertex("C");
+        graph.addVertex("D");
+        graph.addEdge("A", "B", 2);
+        graph.addEdge("B", "C", 2);
+        graph.addEdge("A", "C", 5);
+        LandmarkIndex<String> index = new LandmarkIndex<>(graph, 2);
+
+        StackInterface<String> path = new LinkedStack<>();
+        assertEquals(4, index.getCheapestPath("A", "C", path), 0.0001);
+        assertEquals("A", path.pop());
+        assertEquals("B", path.pop());
+        assertEquals("C", path.pop());
+
+        assertEquals(0, index.getCheapestPath("C", "A", path), 0.0001);
+        assertEquals("A", path.pop());
+        assertTrue(path.isEmpty());
+
+        assertEquals(0, index.getCheapestPath("A", "D", path), 0.0001);
+        assertEquals("D", path.pop());
+        assertTrue(path.isEmpty());
+    }
+
+    @Test
+    void refreshAfterChanges() {
+        UndirectedGraph<Integer> graph = weightedGrid(10, 3);
+        LandmarkIndex<Integer> index = new LandmarkIndex<>(graph, 4);
+
+        graph.addVertex(100);
+        graph.addEdge(0, 100, 1);
+        graph.addEdge(100, 99, 1);
+        index.refresh();
+
+        StackInterface<Integer> path = new LinkedStack<>();
+        assertEquals(2, index.getCheapestPath(0, 99, path), 0.0001);
+        assertEquals(0, path.pop());
+        assertEquals(100, path.pop());
+        assertEquals(99, path.pop());
+    }
+}
@@ -0,0 +1,216 @@
+package GraphPackage;
+
+import ADTPackage.LinkedStack;
+import ADTPackage.QueueInterface;
+import ADTPackage.StackInterface;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedGraphTest {
+    @TempDir
+    Path directory;
+
+    private static String drain(QueueInterface<String> queue) {
+        StringBuilder result = new StringBuilder();
+        while (!queue.isEmpty()) {
+            result.append(queue.dequeue());
+        }
+        return result.toString();
+    }
+
+    private static DirectedGraph<String> sampleGraph() {
+        DirectedGraph<String> graph = new DirectedGraph<>();
+        for (String label : new String[] { "A", "B", "C", "D", "E", "F" }) {
+            graph.addVertex(label);
+        }
+        graph.addEdge("A", "B", 2);
+        graph.addEdge("A", "D", 1);
+        graph.addEdge("B", "C", 1);
+        graph.addEdge("C", "F", 1);
+        graph.addEdge("D", "F", 4);
+        graph.addEdge("E", "F", 1);
+        return graph;
+    }
+
+    @Test
+    void directedGraphMatchesSource() throws IOException {
+        DirectedGraph<String> graph = sampleGraph();
+        try (MappedGraph<String> mapped = MappedGraph.create(graph, directory.resolve("graph.bin"))) {
+            assertTrue(mapped.isDirected());
+            assertEquals(6, mapped.getNumberOfVertices());
+            assertEquals(6, mapped.getNumberOfEdges());
+            assertTrue(mapped.hasEdge("A", "D"));
+            assertFalse(mapped.hasEdge("D", "A"));
+
+            assertEquals(drain(graph.getBreadthFirstTraversal("A")), drain(mapped.getBreadthFirstTraversal("A")));
+            assertEquals(drain(graph.getDepthFirstTraversal("A")), drain(mapped.getDepthFirstTraversal("A")));
+
+            StackInterface<String> path = new LinkedStack<>();
+            assertEquals(4, mapped.getCheapestPath("A", "F", path), 0.0001);
+            assertEquals("A", path.pop());
+            assertEquals("B", path.pop());
+            assertEquals("C", path.pop());
+            assertEquals("F", path.pop());
+
+            assertEquals(2, mapped.getShortestPath("A", "F", path));
+            assertEquals(6, drainStack(mapped.getTopologicalOrder()).length());
+        }
+    }
+
+    private static String drainStack(StackInterface<String> stack) {
+        StringBuilder result = new StringBuilder();
+        while (!stack.isEmpty()) {
+            result.append(stack.pop());
+        }
+        return result.toString();
+    }
+
+    @Test
+    void reopenWithLabels() throws IOException {
+        Path file = directory.resolve("graph.bin");
+        DirectedGraph<String> graph = sampleGraph();
+        String[] labels = new String[graph.getIndexCapacity()];
+        for (int index = 0; index < labels.length; index++) {
+            labels[index] = graph.getLabel(index);
+        }
+        MappedGraph.create(graph, file).close();
+
+        try (MappedGraph<String> mapped = MappedGraph.open(file, Arrays.asList(labels))) {
+            assertEquals(drain(graph.getBreadthFirstTraversal("A")), drain(mapped.getBreadthFirstTraversal("A")));
+        }
+
+        assertThrows(IOException.class, () -> MappedGraph.open(file, Arrays.asList("A", "B")));
+        Path notAGraph = directory.resolve("other.bin");
+        Files.write(notAGraph, new byte[64]);
+        assertThrows(IOException.class, () -> MappedGraph.open(notAGraph, Arrays.asList(labels)));
+    }
+
+    @Test
+    void undirectedIntGraphWithUnusedIds() throws IOException {
+        IntGraph graph = new IntGraph(false);
+        Random random = new Random(4);
+        for (int id = 0; id < 1000; id += 2) {
+            graph.addVertex(id);
+        }
+        for (int i = 0; i < 3000; i++) {
+            graph.addEdge(2 * random.nextInt(500), 2 * random.nextInt(500));
+        }
+
+        try (MappedGraph<Integer> mapped = MappedGraph.create(graph, directory.resolve("ints.bin"))) {
+            assertFalse(mapped.isDirected());
+            assertEquals(graph.getNumberOfVertices(), mapped.getNumberOfVertices());
+            assertEquals(graph.getNumberOfEdges(), mapped.getNumberOfEdges());
+            assertEquals(-1, mapped.getIndex(1));
+            for (int id = 0; id < 1000; id += 2) {
+                assertEquals(graph.getDegree(id), mapped.getOutDegree(id));
+                assertEquals(graph.getDegree(id), mapped.getInDegree(id));
+            }
+
+            StackInterface<Integer> expected = new LinkedStack<>();
+            StackInterface<Integer> actual = new LinkedStack<>();
+            assertEquals(graph.getShortestPath(0, 998, expected), mapped.getShortestPath(0, 998, actual));
+            assertThrows(UnsupportedOperationException.class, () -> mapped.getTopologicalOrder());
+        }
+    }
+
+    @Test
+    void streamedEdgesMatchTheHeapGraph() throws IOException {
+        DirectedGraph<String> graph = sampleGraph();
+        List<String> labels = new ArrayList<>();
+        for (int index = 0; index < graph.getIndexCapacity(); index++) {
+            labels.add(graph.getLabel(index));
+        }
+        MappedGraph.EdgeSource edges = visitor -> {
+            // Backwards, so the rows are not filled in order
+            for (int index = graph.getIndexCapacity() - 1; index >= 0; index--) {
+                for (int position = 0; position < graph.getOutDegree(index); position++) {
+                    visitor.visit(index, graph.getOutNeighbor(index, position), graph.getOutWeight(index, position));
+                }
+            }
+        };
+
+        try (MappedGraph<String> mapped = MappedGraph.create(edges, labels, true, directory.resolve("streamed.bin"))) {
+            assertEquals(6L, mapped.getNumberOfArcs());
+            assertEquals(6L, mapped.getNumberOfEdges());
+            for (String label : labels) {
+                int index = mapped.getIndex(label);
+                assertEquals(graph.getOutDegree(index), mapped.getOutDegree(index));
+                assertEquals(graph.getInDegree(index), mapped.getInDegree(index));
+            }
+            assertTrue(mapped.hasEdge("D", "F"));
+            assertFalse(mapped.hasEdge("F", "D"));
+
+            StackInterface<String> path = new LinkedStack<>();
+            assertEquals(4, mapped.getCheapestPath("A", "F", path), 0.0001);
+            assertEquals(6, drainStack(mapped.getTopologicalOrder()).length());
+        }
+    }
+
+    @Test
+    void streamedUndirectedEdgesAreStoredBothWays() throws IOException {
+        IntGraph graph = new IntGraph(false);
+        List<Integer> labels = new ArrayList<>();
+        for (int id = 0; id < 200; id++) {
+            graph.addVertex(id);
+            labels.add(id);
+        }
+        List<int[]> pairs = new ArrayList<>();
+        Random random = new Random(13);
+        while (pairs.size() < 600) {
+            int begin = random.nextInt(200);
+            int end = random.nextInt(200);
+            if (graph.addEdge(begin, end)) {
+                pairs.add(new int[] { begin, end });
+            }
+        }
+        MappedGraph.EdgeSource edges = visitor -> {
+            for (int[] pair : pairs) {
+                visitor.visit(pair[0], pair[1], 0);
+            }
+        };
+
+        try (MappedGraph<Integer> mapped = MappedGraph.create(edges, labels, false, directory.resolve("undirected.bin"))) {
+            assertFalse(mapped.isDirected());
+            assertEquals(600L, mapped.getNumberOfEdges());
+            assertEquals(0, mapped.getOutWeight(pairs.get(0)[0], 0), 0);
+            for (int id = 0; id < 200; id++) {
+                assertEquals(graph.getDegree(id), mapped.getOutDegree(id));
+                assertEquals(graph.getDegree(id), mapped.getInDegree(id));
+            }
+
+            StackInterface<Integer> expected = new LinkedStack<>();
+            StackInterface<Integer> actual = new LinkedStack<>();
+            assertEquals(graph.getShortestPath(0, 199, expected), mapped.getShortestPath(0, 199, actual));
+        }
+    }
+
+    @Test
+    void streamedEdgesAreChecked() {
+        List<String> labels = Arrays.asList("A", null, "C");
+        Path file = directory.resolve("checked.bin");
+        assertThrows(IllegalArgumentException.class,
+                () -> MappedGraph.create(visitor -> visitor.visit(0, 1, 0), labels, true, file));
+        assertThrows(IllegalArgumentException.class,
+                () -> MappedGraph.create(visitor -> visitor.visit(0, 3, 0), labels, true, file));
+
+        int[] reads = new int[1];
+        MappedGraph.EdgeSource changing = visitor -> {
+            reads[0]++;
+            visitor.visit(0, 2, 0);
+            if (reads[0] > 1) {
+                visitor.visit(2, 0, 0);
+            }
+        };
+        assertThrows(IOException.class, () -> MappedGraph.create(changing, labels, true, file));
+    }
+}
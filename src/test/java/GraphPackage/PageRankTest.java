@@ -0,0 +1,153 @@
+package GraphPackage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageRankTest {
+    private PageRank pageRank;
+
+    @BeforeEach
+    void setUp() {
+        pageRank = new PageRank(0.85, 1e-10, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pageRank.shutdown();
+    }
+
+    @Test
+    void constructorRejectsBadArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new PageRank(1, 1e-6, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PageRank(-0.1, 1e-6, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PageRank(0.85, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PageRank(0.85, 1e-6, 0));
+        assertEquals(0.85, pageRank.getDampingFactor());
+        assertEquals(4, pageRank.getParallelism());
+    }
+
+    @Test
+    void directedGraphMatchesReference() {
+        // D has no out-edges, so its walks jump
+        DirectedGraph<String> graph = new DirectedGraph<>();
+        for (String label : new String[] { "A", "B", "C", "D" }) {
+            graph.addVertex(label);
+        }
+        graph.addEdge("A", "B");
+        graph.addEdge("A", "C");
+        graph.addEdge("B", "C");
+        graph.addEdge("C", "A");
+        graph.addEdge("C", "D");
+
+        PageRankScores<String> scores = pageRank.rank(graph, null);
+        double[] expected = reference(graph, new double[] { 0.25, 0.25, 0.25, 0.25 });
+        String[] labels = { "A", "B", "C", "D" };
+        double total = 0;
+        for (int i = 0; i < labels.length; i++) {
+            assertEquals(expected[graph.getIndex(labels[i])], scores.getScore(labels[i]), 1e-9);
+            total += scores.getScore(labels[i]);
+        }
+        assertEquals(1, total, 1e-9);
+        assertTrue(scores.hasConverged());
+        assertEquals(0, scores.getScore("Z"));
+    }
+
+    @Test
+    void undirectedCycleIsUniform() {
+        UndirectedGraph<Integer> graph = new UndirectedGraph<>();
+        for (int i = 0; i < 5; i++) {
+            graph.addVertex(i);
+        }
+        for (int i = 0; i < 5; i++) {
+            graph.addEdge(i, (i + 1) % 5);
+        }
+
+        PageRankScores<Integer> scores = pageRank.rank(graph, null);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0.2, scores.getScore(i), 1e-9);
+        }
+    }
+
+    @Test
+    void personalizedScoresStayNearSources() {
+        IntGraph graph = new IntGraph(false);
+        for (int i = 0; i < 6; i++) {
+            graph.addVertex(i);
+        }
+        graph.addEdge(0, 1);
+        graph.addEdge(1, 2);
+        graph.addEdge(3, 4);
+        graph.addEdge(4, 5);
+
+        PageRankScores<Integer> scores = pageRank.rankPersonalized(graph, List.of(0), null);
+        assertTrue(scores.getScore(0) > scores.getScore(2));
+        assertEquals(0, scores.getScore(3));
+        assertEquals(1, scores.getScore(0) + scores.getScore(1) + scores.getScore(2), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> pageRank.rankPersonalized(graph, List.of(9), null));
+    }
+
+    @Test
+    void warmStartAfterSmallChangesNeedsFewerIterations() {
+        int n = 20000;
+        Random random = new Random(18);
+        IntGraph graph = new IntGraph(true);
+        for (int i = 0; i < n; i++) {
+            graph.addVertex(i);
+        }
+        for (int i = 0; i < 100000; i++) {
+            graph.addEdge(random.nextInt(n), random.nextInt(n));
+        }
+
+        PageRankScores<Integer> before = pageRank.rank(graph, null);
+        for (int i = 0; i < 20; i++) {
+            graph.addEdge(random.nextInt(n), random.nextInt(n));
+        }
+        graph.removeVertex(7);
+
+        PageRankScores<Integer> cold = pageRank.rank(graph, null);
+        PageRankScores<Integer> warm = pageRank.rank(graph, before);
+        assertTrue(warm.getNumberOfIterations() < cold.getNumberOfIterations());
+        assertEquals(0, warm.getScore(7));
+        for (int i = 0; i < n; i++) {
+            assertEquals(cold.getScore(i), warm.getScore(i), 1e-9);
+        }
+
+        // One thread gives the same scores
+        PageRank single = new PageRank(0.85, 1e-10, 1);
+        PageRankScores<Integer> singleScores = single.rank(graph, null);
+        single.shutdown();
+        for (int i = 0; i < n; i += 97) {
+            assertEquals(cold.getScore(i), singleScores.getScore(i), 1e-12);
+        }
+    }
+
+    /** Runs plain power iteration, pushing each score along the out-edges. */
+    private static double[] reference(IndexedGraph<?> graph, double[] teleport) {
+        int n = graph.getIndexCapacity();
+        double[] scores = teleport.clone();
+        for (int iteration = 0; iteration < 500; iteration++) {
+            double[] next = new double[n];
+            double dangling = 0;
+            for (int u = 0; u < n; u++) {
+                int degree = graph.getOutDegree(u);
+                if (degree == 0) {
+                    dangling += scores[u];
+                }
+                for (int i = 0; i < degree; i++) {
+                    next[graph.getOutNeighbor(u, i)] += 0.85 * scores[u] / degree;
+                }
+            }
+            for (int v = 0; v < n; v++) {
+                next[v] += (0.85 * dangling + 0.15) * teleport[v];
+            }
+            scores = next;
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,105 @@
+package GraphPackage;
+
+import ADTPackage.DictionaryInterface;
+import ADTPackage.QueueInterface;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelBreadthFirstSearchTest {
+    private ParallelBreadthFirstSearch search;
+
+    @BeforeEach
+    void setUp() {
+        search = new ParallelBreadthFirstSearch(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        search.shutdown();
+    }
+
+    @Test
+    void constructorRejectsBadParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelBreadthFirstSearch(0));
+        assertEquals(4, search.getParallelism());
+    }
+
+    @Test
+    void smallGraphLevels() {
+        UndirectedGraph<String> graph = new UndirectedGraph<>();
+        graph.addVertex("A");
+        graph.addVertex("B");
+        graph.addVertex("C");
+        graph.addVertex("D");
+        graph.addVertex("E");
+        graph.addEdge("A", "B");
+        graph.addEdge("B", "C");
+        graph.addEdge("A", "D");
+
+        DictionaryInterface<String, Integer> levels = search.getLevels(graph, "A");
+        assertEquals(4, levels.getSize());
+        assertEquals(0, levels.getValue("A"));
+        assertEquals(1, levels.getValue("B"));
+        assertEquals(1, levels.getValue("D"));
+        assertEquals(2, levels.getValue("C"));
+        assertFalse(levels.contains("E"));
+    }
+
+    @Test
+    void missingOrigin() {
+        DirectedGraph<String> graph = new DirectedGraph<>();
+        graph.addVertex("A");
+        assertTrue(search.getLevels(graph, "Z").isEmpty());
+    }
+
+    @Test
+    void largeGraphMatchesSequentialSearch() {
+        DirectedGraph<Integer> graph = new DirectedGraph<>();
+        Random random = new Random(17);
+        for (int i = 0; i < 20000; i++) {
+            graph.addVertex(i);
+        }
+        for (int i = 0; i < 160000; i++) {
+            graph.addEdge(random.nextInt(20000), random.nextInt(20000));
+        }
+
+        // Breadth-first order lists each level after the one before it,
+        // so the sequential levels can be read off with the edges
+        int[] expected = new int[graph.getIndexCapacity()];
+        java.util.Arrays.fill(expected, -1);
+        expected[graph.getIndex(0)] = 0;
+        QueueInterface<Integer> order = graph.getBreadthFirstTraversal(0);
+        int reached = 0;
+        while (!order.isEmpty()) {
+            int vertex = graph.getIndex(order.dequeue());
+            reached++;
+            for (int edge = 0; edge < graph.getOutDegree(vertex); edge++) {
+                int neighbor = graph.getOutNeighbor(vertex, edge);
+                if (expected[neighbor] == -1) {
+                    expected[neighbor] = expected[vertex] + 1;
+                }
+            }
+        }
+
+        for (int run = 0; run < 3; run++) {
+            DictionaryInterface<Integer, Integer> levels = search.getLevels(graph, 0);
+            assertEquals(reached, levels.getSize());
+            for (int label = 0; label < 20000; label++) {
+                int index = graph.getIndex(label);
+                if (expected[index] == -1) {
+                    assertFalse(levels.contains(label));
+                } else {
+                    assertEquals(expected[index], levels.getValue(label));
+                }
+            }
+        }
+
+        DictionaryInterface<Integer, Integer> snapshotLevels = search.getLevels(graph.getSnapshot(), 0);
+        assertEquals(reached, snapshotLevels.getSize());
+    }
+}
@@ -0,0 +1,122 @@
+package GraphPackage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TriangleCounterTest {
+    private TriangleCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        counter = new TriangleCounter(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        counter.shutdown();
+    }
+
+    @Test
+    void constructorRejectsBadParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new TriangleCounter(0));
+        assertEquals(4, counter.getParallelism());
+    }
+
+    @Test
+    void smallGraph() {
+        // A, B, C and D form a complete graph, E hangs off D and F is alone
+        UndirectedGraph<String> graph = new UndirectedGraph<>();
+        for (String label : new String[] { "A", "B", "C", "D", "E", "F" }) {
+            graph.addVertex(label);
+        }
+        graph.addEdge("A", "B");
+        graph.addEdge("A", "C");
+        graph.addEdge("A", "D");
+        graph.addEdge("B", "C");
+        graph.addEdge("B", "D");
+        graph.addEdge("C", "D");
+        graph.addEdge("D", "E");
+
+        TriangleCounts<String> counts = counter.count(graph);
+        assertEquals(4, counts.getNumberOfTriangles());
+        assertEquals(3, counts.getTriangleCount("A"));
+        assertEquals(3, counts.getTriangleCount("D"));
+        assertEquals(0, counts.getTriangleCount("E"));
+        assertEquals(0, counts.getTriangleCount("Z"));
+        assertEquals(1.0, counts.getClusteringCoefficient("A"));
+        assertEquals(0.5, counts.getClusteringCoefficient("D"));
+        assertEquals(0.0, counts.getClusteringCoefficient("F"));
+
+        // Wedges: 3 at each of A, B and C, 6 at D
+        assertEquals(15, counts.getNumberOfWedges());
+        assertEquals(12.0 / 15, counts.getTransitivity(), 1e-12);
+        assertEquals(3.5 / 6, counts.getAverageClusteringCoefficient(), 1e-12);
+
+        assertEquals(4, counter.count(graph.getSnapshot()).getNumberOfTriangles());
+    }
+
+    @Test
+    void directedGraphsAreRejected() {
+        IntGraph graph = new IntGraph(true);
+        assertThrows(IllegalArgumentException.class, () -> counter.count(graph));
+    }
+
+    @Test
+    void randomGraphMatchesBruteForce() {
+        int n = 3000;
+        Random random = new Random(17);
+        IntGraph graph = new IntGraph(false);
+        boolean[][] adjacent = new boolean[n][n];
+        for (int i = 0; i < n; i++) {
+            graph.addVertex(i);
+        }
+
+        // A few hubs among many low-degree vertices, as in a social graph
+        for (int i = 0; i < 40000; i++) {
+            int a = (random.nextInt(10) == 0) ? random.nextInt(20) : random.nextInt(n);
+            int b = random.nextInt(n);
+            if (graph.addEdge(a, b)) {
+                adjacent[a][b] = true;
+                adjacent[b][a] = true;
+            }
+        }
+        graph.removeVertex(n - 1);
+        adjacent[n - 1] = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            adjacent[i][n - 1] = false;
+        }
+
+        long[] expected = new long[n];
+        long total = 0;
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                if (adjacent[a][b]) {
+                    for (int c = b + 1; c < n; c++) {
+                        if (adjacent[a][c] && adjacent[b][c]) {
+                            expected[a]++;
+                            expected[b]++;
+                            expected[c]++;
+                            total++;
+                        }
+                    }
+                }
+            }
+        }
+
+        TriangleCounts<Integer> counts = counter.count(graph);
+        assertEquals(total, counts.getNumberOfTriangles());
+        for (int i = 0; i < n - 1; i++) {
+            assertEquals(expected[i], counts.getTriangleCount(i));
+        }
+
+        // A single thread finds the same count
+        TriangleCounter single = new TriangleCounter(1);
+        assertEquals(total, single.count(graph).getNumberOfTriangles());
+        single.shutdown();
+    }
+}
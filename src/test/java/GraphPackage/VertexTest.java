@@ -148,6 +148,70 @@ class VertexTest {
         assertFalse(vertex1.disconnect(vertex2));
     }
 
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void testDisconnectManyNeighbors() {
+        Vertex<Integer> vertex = new Vertex<>(0);
+        Vertex<Integer>[] neighbors = new Vertex[20];
+        for (int i = 1; i < neighbors.length; i++) {
+            neighbors[i] = new Vertex<>(i);
+            assertTrue(vertex.connect(neighbors[i], i));
+        }
+        assertFalse(vertex.connect(new Vertex<>(5)));
+
+        assertTrue(vertex.disconnect(neighbors[3]));
+        assertFalse(vertex.disconnect(neighbors[3]));
+        assertFalse(vertex.hasNeighbor(neighbors[3]));
+        assertTrue(vertex.hasNeighbor(new Vertex<>(19)));
+
+        assertTrue(vertex.disconnect(neighbors[19]));
+        assertTrue(vertex.disconnect(neighbors[1]));
+
+        // The other neighbors keep the order they were connected in and weights stay aligned
+        Iterator<VertexInterface<Integer>> neighborIterator = vertex.getNeighborIterator();
+        Iterator<Double> weightIterator = vertex.getWeightIterator();
+        int expected = 2;
+        while (neighborIterator.hasNext()) {
+            VertexInterface<Integer> neighbor = neighborIterator.next();
+            assertEquals(expected, neighbor.getLabel());
+            assertEquals(neighbor.getLabel().doubleValue(), weightIterator.next());
+            expected += (expected == 2) ? 2 : 1;
+        }
+        assertEquals(19, expected);
+        assertEquals(16, vertex.getNumberOfNeighbors());
+        assertTrue(vertex.hasNeighbor(neighbors[18]));
+        assertTrue(vertex.disconnect(neighbors[10]));
+        assertEquals(11, vertex.getNeighbor(7).getLabel());
+    }
+
+    @Test
+    void incomingEdges() {
+        Vertex<Integer> vertex1 = new Vertex<>(1);
+        Vertex<Integer> vertex2 = new Vertex<>(2);
+        Vertex<Integer> vertex3 = new Vertex<>(3);
+        vertex1.connect(vertex3, 4);
+        vertex2.connect(vertex3, 7);
+
+        assertEquals(2, vertex3.getNumberOfIncoming());
+        assertEquals(0, vertex1.getNumberOfIncoming());
+        assertEquals(vertex1, vertex3.getIncoming(0));
+        assertEquals(7, vertex3.getIncomingWeight(1));
+
+        vertex1.disconnect(vertex3);
+        assertEquals(1, vertex3.getNumberOfIncoming());
+        assertEquals(vertex2, vertex3.getIncoming(0));
+    }
+
+    @Test
+    void testHasNeighbor() {
+        Vertex<Integer> vertex1 = new Vertex<>(1);
+        Vertex<Integer> vertex2 = new Vertex<>(2);
+        assertFalse(vertex1.hasNeighbor(vertex2));
+        vertex1.connect(vertex2);
+        assertTrue(vertex1.hasNeighbor(vertex2));
+        assertFalse(vertex2.hasNeighbor(vertex1));
+    }
+
     @Test
     void getNeighborIterator() {
         Vertex<Integer> vertex = new Vertex<>(1);
@@ -0,0 +1,149 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfileImporterTest {
+
+    @Test
+    void importCsv() throws IOException {
+        ProfileManager profileManager = new ProfileManager();
+        ProfileImporter importer = new ProfileImporter(profileManager, 2);
+
+        String profiles = "id,name,age,location,unused\n"
+                + "a,Aune,30,\"Pomona, CA\",x\n"
+                + "\n"
+                + "b,\"Psy \"\"P\"\" Cisneros\",,,\n"
+                + "c,Cole\n";
+        ProfileImporter.Report report = importer.importProfiles(new StringReader(profiles), ProfileImporter.Format.CSV);
+        assertEquals(3, report.getNumberOfRows());
+        assertEquals(3, profileManager.getListOfProfiles().size());
+
+        Profile aune = importer.getProfile("a");
+        Profile psy = importer.getProfile("b");
+        Profile cole = importer.getProfile("c");
+        assertEquals("Aune", aune.getName());
+        assertEquals(30, aune.getAge());
+        assertEquals("Pomona, CA", aune.getLocation());
+        assertEquals("Psy \"P\" Cisneros", psy.getName());
+        assertEquals("Unknown", psy.getLocation());
+        assertNull(importer.getProfile("d"));
+
+        // Repeats and reversed pairs create one friendship each
+        String friendships = "friendId,id\nb,a\na,b\nc,a\nc,c\n";
+        report = importer.importFriendships(new StringReader(friendships), ProfileImporter.Format.CSV);
+        assertEquals(4, report.getNumberOfRows());
+        assertTrue(report.getRowsPerSecond() > 0);
+        assertEquals(List.of(cole, psy), sortByName(aune.getFriendProfiles()));
+        assertEquals(List.of(aune), psy.getFriendProfiles());
+        assertEquals(List.of(aune), cole.getFriendProfiles());
+        assertTrue(profileManager.areConnected(psy, cole));
+        assertEquals(1, profileManager.componentCount());
+    }
+
+    @Test
+    void importJsonLines() throws IOException {
+        ProfileManager profileManager = new ProfileManager();
+        ProfileImporter importer = new ProfileImporter(profileManager);
+
+        String profiles = "{\"id\": \"1\", \"name\": \"Aune\", \"age\": 41, \"major\": null, \"extra\": true}\n"
+                + "  { \"name\" : \"Line\\nBreak \\u00e9\", \"id\":\"2\" }  \n"
+                + "{\"id\":\"3\",\"name\":\"Cole\",\"astrologicalSign\":\"Leo\"}\n";
+        importer.importProfiles(new StringReader(profiles), ProfileImporter.Format.JSONL);
+        assertEquals(41, importer.getProfile("1").getAge());
+        assertNull(importer.getProfile("1").getMajor());
+        assertEquals("Line\nBreak \u00e9", importer.getProfile("2").getName());
+        assertEquals("Leo", importer.getProfile("3").getAstrologicalSign());
+
+        String friendships = "{\"id\":\"1\",\"friendId\":\"2\"}\n{\"id\":\"3\",\"friendId\":\"2\"}\n";
+        importer.importFriendships(new StringReader(friendships), ProfileImporter.Format.JSONL);
+        assertEquals(2, importer.getProfile("2").getFriendProfiles().size());
+        assertTrue(profileManager.areConnected(importer.getProfile("1"), importer.getProfile("3")));
+    }
+
+    @Test
+    void badRowsReportTheirLine() {
+        ProfileImporter importer = new ProfileImporter(new ProfileManager());
+        assertLineError(3, () -> importer.importProfiles(
+                new StringReader("id,name\na,Aune\na,Again\n"), ProfileImporter.Format.CSV));
+        assertLineError(2, () -> importer.importProfiles(
+                new StringReader("id,name,age\nb,Young,12\n"), ProfileImporter.Format.CSV));
+        assertLineError(2, () -> importer.importProfiles(
+                new StringReader("id,name,age\nb,Old,old\n"), ProfileImporter.Format.CSV));
+        assertLineError(2, () -> importer.importProfiles(
+                new StringReader("id,name\n\"b,Unclosed\n"), ProfileImporter.Format.CSV));
+        assertLineError(1, () -> importer.importProfiles(
+                new StringReader("{\"id\":\"b\"}\n"), ProfileImporter.Format.JSONL));
+        assertLineError(1, () -> importer.importProfiles(
+                new StringReader("{\"id\":\"b\",\"name\":\"Trailing\"} x\n"), ProfileImporter.Format.JSONL));
+        assertLineError(2, () -> importer.importFriendships(
+                new StringReader("id,friendId\na,missing\n"), ProfileImporter.Format.CSV));
+
+        assertThrows(IllegalArgumentException.class, () -> new ProfileImporter(new ProfileManager(), 0));
+    }
+
+    @Test
+    void importManyRowsInBatches() throws IOException {
+        ProfileManager profileManager = new ProfileManager();
+        ProfileImporter importer = new ProfileImporter(profileManager, 100);
+
+        // A ring of 1000 profiles, each also friends with the profile 10 ahead
+        StringBuilder profiles = new StringBuilder("id,name\n");
+        StringBuilder friendships = new StringBuilder("id,friendId\n");
+        for (int i = 0; i < 1000; i++) {
+            profiles.append("p").append(i).append(",Person ").append(i).append('\n');
+            friendships.append("p").append(i).append(",p").append((i + 1) % 1000).append('\n');
+            friendships.append("p").append(i).append(",p").append((i + 10) % 1000).append('\n');
+        }
+        importer.importProfiles(new StringReader(profiles.toString()), ProfileImporter.Format.CSV);
+        importer.importFriendships(new StringReader(friendships.toString()), ProfileImporter.Format.CSV);
+
+        assertEquals(1000, profileManager.getListOfProfiles().size());
+        assertEquals(1, profileManager.componentCount());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(4, importer.getProfile("p" + i).getFriendProfiles().size());
+        }
+    }
+
+    @Test
+    void addProfilesWithFriendsInTheBatch() {
+        ProfileManager profileManager = new ProfileManager();
+        Profile aune = new Profile("Aune");
+        profileManager.addProfile(aune);
+
+        Profile psy = new Profile("Psy");
+        Profile cole = new Profile("Cole");
+        psy.addFriend(cole);
+        psy.addFriend(aune);
+        cole.addFriend(psy);
+        profileManager.addProfiles(List.of(psy, cole));
+
+        assertEquals(List.of(aune, cole), sortByName(psy.getFriendProfiles()));
+        assertEquals(List.of(psy), cole.getFriendProfiles());
+        assertEquals(List.of(psy), aune.getFriendProfiles());
+        assertEquals(1, profileManager.componentCount());
+
+        // A stranger as a friend rejects the whole batch
+        Profile dana = new Profile("Dana");
+        dana.addFriend(new Profile("Stranger"));
+        assertThrows(IllegalArgumentException.class, () -> profileManager.addProfiles(List.of(dana)));
+        assertThrows(IllegalArgumentException.class, () -> profileManager.addProfiles(List.of(cole)));
+        assertEquals(3, profileManager.getListOfProfiles().size());
+    }
+
+    private static void assertLineError(int line, Executable executable) {
+        IOException e = assertThrows(IOException.class, executable);
+        assertTrue(e.getMessage().startsWith("Line " + line + ": "), e.getMessage());
+    }
+
+    private static List<Profile> sortByName(List<Profile> profiles) {
+        List<Profile> sorted = new ArrayList<>(profiles);
+        sorted.sort((first, second) -> first.getName().compareTo(second.getName()));
+        return sorted;
+    }
+}
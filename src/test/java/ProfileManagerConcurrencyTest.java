@@ -0,0 +1,379 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfileManagerConcurrencyTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void concurrentChangesLeaveTheNetworkConsistent() throws Exception {
+        Path snapshotFile = directory.resolve("network.snapshot");
+        Path logFile = directory.resolve("network.wal");
+        ProfileManager profileManager = ProfileManager.open(snapshotFile, logFile, WriteAheadLog.Durability.INTERVAL, 5);
+
+        List<Profile> candidates = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 300; i++) {
+            Profile profile = new Profile("Person " + i);
+            profileManager.addProfile(profile);
+            candidates.add(profile);
+        }
+
+        // Each thread mostly creates friendships, and also removes, adds and reads profiles
+        AtomicInteger nextName = new AtomicInteger(300);
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Random random = new Random(t);
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 3000; i++) {
+                        Profile profile = candidates.get(random.nextInt(candidates.size()));
+                        Profile other = candidates.get(random.nextInt(candidates.size()));
+                        int operation = random.nextInt(20);
+                        try {
+                            if (operation == 0) {
+                                profileManager.removeProfile(profile);
+                            } else if (operation == 1) {
+                                Profile added = new Profile("Person " + nextName.getAndIncrement());
+                                profileManager.addProfile(added);
+                                candidates.add(added);
+                            } else if (operation < 14) {
+                                profileManager.createFriendship(profile, other);
+                            } else if (operation < 19) {
+                                profileManager.getFriends(profile);
+                                profileManager.mutualFriendCount(profile, other);
+                                profileManager.suggestFriends(profile, 3);
+                                profileManager.areConnected(profile, other);
+                            } else {
+                                Iterator<Profile> nearby = profileManager.getProfilesWithinHops(profile, 2, 50, null);
+                                while (nearby.hasNext()) {
+                                    assertNotNull(nearby.next());
+                                }
+                            }
+                        } catch (IllegalArgumentException | ConcurrentModificationException e) {
+                            // The profile was removed, or a profile added or removed during the search
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.isEmpty(), failures.toString());
+
+        Map<String, Set<String>> friendships = checkConsistent(profileManager);
+        profileManager.close();
+
+        // The log replays to the same network
+        ProfileManager reopened = ProfileManager.open(snapshotFile, logFile, WriteAheadLog.Durability.INTERVAL, 5);
+        assertEquals(friendships, checkConsistent(reopened));
+        reopened.close();
+    }
+
+    @Test
+    void concurrentFriendshipsWithOneProfile() throws Exception {
+        ProfileManager profileManager = new ProfileManager();
+        Profile celebrity = new Profile("Celebrity");
+        profileManager.addProfile(celebrity);
+        List<Profile> fans = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            Profile fan = new Profile("Fan " + i);
+            profileManager.addProfile(fan);
+            fans.add(fan);
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int first = t;
+            Thread thread = new Thread(() -> {
+                for (int i = first; i < fans.size(); i += 8) {
+                    profileManager.createFriendship(fans.get(i), celebrity);
+                    profileManager.createFriendship(celebrity, fans.get(i));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(fans.size(), profileManager.getFriends(celebrity).size());
+        assertEquals(1, profileManager.componentCount());
+        checkConsistent(profileManager);
+    }
+
+    @Test
+    void lookupsDoNotWaitWhileProfilesAreAddedOrRemoved() throws Exception {
+        ProfileManager profileManager = new ProfileManager();
+        Profile alice = new Profile("Alice");
+        Profile bob = new Profile("Bob");
+        Profile carol = new Profile("Carol");
+        profileManager.addProfile(alice);
+        profileManager.addProfile(bob);
+        profileManager.addProfile(carol);
+        profileManager.createFriendship(alice, bob);
+        profileManager.createFriendship(bob, carol);
+
+        // Another thread holds the lock that adding and removing profiles take
+        ReentrantLock structureLock = profileManager.getStructureLock();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            structureLock.lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                structureLock.unlock();
+            }
+        });
+        writer.start();
+        locked.await();
+
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        Thread reader = new Thread(() -> {
+            try {
+                assertEquals(List.of(bob), profileManager.getFriends(alice));
+                assertEquals(1, profileManager.mutualFriendCount(alice, carol));
+                assertEquals(List.of(carol), profileManager.suggestFriends(alice, 5));
+                assertTrue(profileManager.areConnected(alice, carol));
+                assertEquals(3, profileManager.componentSize(alice));
+                assertEquals(alice, profileManager.getProfile(profileManager.getProfileId(alice)));
+                Iterator<Profile> nearby = profileManager.getProfilesWithinHops(alice, 2, 10, null);
+                assertEquals(bob, nearby.next());
+                assertEquals(carol, nearby.next());
+                assertFalse(nearby.hasNext());
+                profileManager.createFriendship(alice, carol);
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+        reader.start();
+        reader.join(10000);
+        boolean finished = !reader.isAlive();
+        release.countDown();
+        writer.join();
+        reader.join();
+
+        assertTrue(finished, "A lookup waited for the structural writer");
+        assertTrue(failures.isEmpty(), failures.toString());
+        assertEquals(2, profileManager.getFriends(alice).size());
+    }
+
+    @Test
+    void queriesOutsideAStaleComponentDoNotWaitForItsRebuild() throws Exception {
+        ProfileManager profileManager = new ProfileManager();
+        Profile alice = new Profile("Alice");
+        Profile bob = new Profile("Bob");
+        Profile carol = new Profile("Carol");
+        Profile dave = new Profile("Dave");
+        Profile erin = new Profile("Erin");
+        for (Profile profile : List.of(alice, bob, carol, dave, erin)) {
+            profileManager.addProfile(profile);
+        }
+        profileManager.createFriendship(alice, bob);
+        profileManager.createFriendship(bob, carol);
+        profileManager.createFriendship(dave, erin);
+
+        // Another thread holds a stripe that no profile uses, which the rebuild must pass;
+        // the profiles have ids 0 to 4, so id 63 shares none of their stripes
+        ReentrantReadWriteLock unused = profileManager.getStripe(63);
+        for (Profile profile : List.of(alice, bob, carol, dave, erin)) {
+            assertNotSame(unused, profileManager.getStripe(profileManager.getProfileId(profile)));
+        }
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            unused.writeLock().lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                unused.writeLock().unlock();
+            }
+        });
+        holder.start();
+        locked.await();
+        profileManager.removeProfile(bob);
+
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        Thread reader = new Thread(() -> {
+            try {
+                assertFalse(profileManager.areConnected(alice, dave));
+                assertTrue(profileManager.areConnected(dave, erin));
+                assertEquals(2, profileManager.componentSize(erin));
+                assertEquals(List.of(erin), profileManager.getFriends(dave));
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+        reader.start();
+        reader.join(10000);
+        boolean finished = !reader.isAlive();
+        release.countDown();
+        holder.join();
+        reader.join();
+
+        assertTrue(finished, "A query outside the stale component waited for its rebuild");
+        assertTrue(failures.isEmpty(), failures.toString());
+        assertFalse(profileManager.areConnected(alice, carol));
+        assertEquals(1, profileManager.componentSize(carol));
+        assertEquals(3, profileManager.componentCount());
+    }
+
+    @Test
+    void befriendingAHotProfileOnlyReadsItsStripe() throws Exception {
+        ProfileManager profileManager = new ProfileManager();
+        Profile celebrity = new Profile("Celebrity");
+        profileManager.addProfile(celebrity);
+        List<Profile> fans = new ArrayList<>();
+        for (int i = 0; i < 1100; i++) {
+            Profile fan = new Profile("Fan " + i);
+            profileManager.addProfile(fan);
+            fans.add(fan);
+        }
+        for (int i = 0; i < 1024; i++) {
+            profileManager.createFriendship(fans.get(i), celebrity);
+        }
+
+        // Another thread reads the celebrity's stripe, which a write lock would wait for
+        ReentrantReadWriteLock celebrityStripe = profileManager.getStripe(profileManager.getProfileId(celebrity));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            celebrityStripe.readLock().lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                celebrityStripe.readLock().unlock();
+            }
+        });
+        holder.start();
+        locked.await();
+
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 1024; i < fans.size(); i++) {
+                    if (profileManager.getStripe(profileManager.getProfileId(fans.get(i))) != celebrityStripe) {
+                        profileManager.createFriendship(celebrity, fans.get(i));
+                    }
+                }
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+        writer.start();
+        writer.join(10000);
+        boolean finished = !writer.isAlive();
+        release.countDown();
+        holder.join();
+        writer.join();
+        assertTrue(finished, "A friendship with a hot profile waited for its stripe");
+        assertTrue(failures.isEmpty(), failures.toString());
+
+        // Reading the celebrity's friends merges the pending ones
+        Set<Profile> expected = new HashSet<>();
+        for (Profile fan : fans) {
+            if (profileManager.getFriends(fan).contains(celebrity)) {
+                expected.add(fan);
+            }
+        }
+        assertTrue(expected.size() > 1024);
+        assertEquals(expected, new HashSet<>(profileManager.getFriends(celebrity)));
+        assertEquals(1, profileManager.mutualFriendCount(fans.get(0), fans.get(fans.size() - 1)));
+
+        // Removing a fan takes it out of the celebrity's friends too
+        profileManager.removeProfile(fans.get(fans.size() - 1));
+        assertFalse(profileManager.getFriends(celebrity).contains(fans.get(fans.size() - 1)));
+        checkConsistent(profileManager);
+    }
+
+    /**
+     * Checks that the friend lists are symmetric and match the graph and the
+     * components, and returns each profile's friends by name.
+     */
+    private static Map<String, Set<String>> checkConsistent(ProfileManager profileManager) {
+        List<Profile> profiles = profileManager.getListOfProfiles();
+        Set<Profile> present = new HashSet<>(profiles);
+        Map<String, Set<String>> friendships = new HashMap<>();
+        for (Profile profile : profiles) {
+            List<Profile> friends = profile.getFriendProfiles();
+            Set<Profile> distinct = new HashSet<>(friends);
+            assertEquals(friends.size(), distinct.size());
+            assertFalse(distinct.contains(profile));
+
+            Set<String> names = new HashSet<>();
+            for (Profile friend : friends) {
+                assertTrue(present.contains(friend), profile.getName() + " lists a removed friend");
+                assertTrue(friend.getFriendProfiles().contains(profile));
+                names.add(friend.getName());
+            }
+            friendships.put(profile.getName(), names);
+
+            // The graph holds the same friendships as the lists
+            Set<Profile> neighbors = new HashSet<>();
+            Iterator<Profile> nearby = profileManager.getProfilesWithinHops(profile, 1, Integer.MAX_VALUE, null);
+            while (nearby.hasNext()) {
+                neighbors.add(nearby.next());
+            }
+            assertEquals(distinct, neighbors);
+        }
+
+        // Finds the components from the friend lists
+        Set<Profile> reached = new HashSet<>();
+        int numberOfComponents = 0;
+        for (Profile profile : profiles) {
+            if (reached.add(profile)) {
+                numberOfComponents++;
+                List<Profile> component = new ArrayList<>();
+                component.add(profile);
+                for (int i = 0; i < component.size(); i++) {
+                    for (Profile friend : component.get(i).getFriendProfiles()) {
+                        if (reached.add(friend)) {
+                            component.add(friend);
+                        }
+                    }
+                }
+                for (Profile member : component) {
+                    assertEquals(component.size(), profileManager.componentSize(member));
+                    assertTrue(profileManager.areConnected(profile, member));
+                }
+            }
+        }
+        assertEquals(numberOfComponents, profileManager.componentCount());
+        return friendships;
+    }
+}
@@ -1,11 +1,24 @@
+import ADTPackage.DictionaryInterface;
+import GraphPackage.PageRank;
+import GraphPackage.ParallelBreadthFirstSearch;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class ProfileManagerTest {
+    @TempDir
+    Path directory;
 
     @Test
     void addProfile() {
@@ -356,4 +369,381 @@ class ProfileManagerTest {
                 "Friends: \n" +
                 " - Psy\n", byteArrayOutputStream.toString());
     }
+
+    @Test
+    void getDegreesOfSeparation() {
+        ProfileManager profileManager = new ProfileManager();
+        Profile aune = new Profile("Aune");
+        Profile eric = new Profile("Eric");
+        Profile sam = new Profile("Sam");
+        Profile lee = new Profile("Lee");
+        profileManager.addProfile(aune);
+        profileManager.addProfile(eric);
+        profileManager.addProfile(sam);
+        profileManager.addProfile(lee);
+        profileManager.createFriendship(aune, eric);
+        profileManager.createFriendship(eric, sam);
+
+        ParallelBreadthFirstSearch search = new ParallelBreadthFirstSearch(2);
+        DictionaryInterface<Profile, Integer> degrees = profileManager.getDegreesOfSeparation(aune, search);
+        search.shutdown();
+
+        assertEquals(3, degrees.getSize());
+        assertEquals(0, degrees.getValue(aune));
+        assertEquals(1, degrees.getValue(eric));
+        assertEquals(2, degrees.getValue(sam));
+        assertFalse(degrees.contains(lee));
+    }
+
+    @Test
+    void profileIds() {
+        ProfileManager profileManager = new ProfileManager();
+        Profile aune = new Profile("Aune");
+        Profile eric = new Profile("Eric");
+        Profile sam = new Profile("Sam");
+        profileManager.addProfile(aune);
+        profileManager.addProfile(eric);
+
+        int auneId = profileManager.getProfileId(aune);
+        assertSame(aune, profileManager.getProfile(auneId));
+        assertSame(eric, profileManager.getProfile(profileManager.getProfileId(eric)));
+        assertEquals(-1, profileManager.getProfileId(sam));
+        assertEquals(-1, profileManager.getProfileId(null));
+        assertNull(profileManager.getProfile(99));
+
+        // A removed profile's id goes to the next new profile
+        profileManager.removeProfile(aune);
+        assertEquals(-1, profileManager.getProfileId(aune));
+        assertNull(profileManager.getProfile(auneId));
+        profileManager.addProfile(sam);
+        assertEquals(auneId, profileManager.getProfileId(sam));
+        assertSame(sam, profileManager.getProfile(auneId));
+    }
+
+    @Test
+    void connectedComponents() {
+        ProfileManager profileManager = new ProfileManager();
+        Profile aune = new Profile("Aune");
+        Profile eric = new Profile("Eric");
+        Profile sam = new Profile("Sam");
+        Profile lee = new Profile("Lee");
+        Profile kim = new Profile("Kim");
+        profileManager.addProfile(aune);
+        profileManager.addProfile(eric);
+        profileManager.addProfile(sam);
+        profileManager.addProfile(lee);
+        assertEquals(4, profileManager.componentCount());
+
+        // aune - eric - sam form one island, lee another
+        profileManager.createFriendship(aune, eric);
+        profileManager.createFriendship(eric, sam);
+        profileManager.createFriendship(sam, aune);
+        assertEquals(2, profileManager.componentCount());
+        assertTrue(profileManager.areConnected(aune, sam));
+        assertFalse(profileManager.areConnected(aune, lee));
+        assertEquals(3, profileManager.componentSize(eric));
+        assertEquals(1, profileManager.componentSize(lee));
+
+        // Removing a profile on the cycle keeps the island whole
+        profileManager.removeProfile(sam);
+        assertEquals(2, profileManager.componentCount());
+        assertEquals(2, profileManager.componentSize(aune));
+
+        // Removing the bridge splits it, and the freed id starts alone
+        profileManager.createFriendship(eric, lee);
+        assertEquals(1, profileManager.componentCount());
+        profileManager.removeProfile(eric);
+        profileManager.addProfile(kim);
+        assertEquals(3, profileManager.componentCount());
+        assertFalse(profileManager.areConnected(aune, lee));
+        assertEquals(1, profileManager.componentSize(kim));
+        assertEquals(1, profileManager.componentSize(aune));
+
+        assertThrows(IllegalArgumentException.class, () -> profileManager.areConnected(aune, eric));
+    }
+
+    @Test
+    void connectedComponentsAfterSeveralRemovals() {
+        ProfileManager profileManager = new ProfileManager();
+        Profile[] chain = new Profile[10];
+        for (int i = 0; i < chain.length; i++) {
+            chain[i] = new Profile("Profile " + i);
+            profileManager.addProfile(chain[i]);
+            if (i > 0) {
+                profileManager.createFriendship(chain[i - 1], chain[i]);
+            }
+        }
+        assertEquals(1, profileManager.componentCount());
+
+        // Removing 3 and 6 before any query leaves 0-2, 4-5 and 7-9
+        profileManager.removeProfile(chain[3]);
+        profileManager.removeProfile(chain[6]);
+        assertEquals(3, profileManager.componentCount());
+        assertEquals(3, profileManager.componentSize(chain[0]));
+        assertEquals(2, profileManager.componentSize(chain[5]));
+        assertTrue(profileManager.areConnected(chain[7], chain[9]));
+        assertFalse(profileManager.areConnected(chain[2], chain[4]));
+    }
+
+    @Test
+    void suggestFriends() {
+        ProfileManager profileManager = new ProfileManager();
+        Profile aune = new Profile("Aune");
+        Profile eric = new Profile("Eric");
+        Profile sam = new Profile("Sam");
+        Profile lee = new Profile("Lee");
+        Profile kim = new Profile("Kim");
+        Profile max = new Profile("Max");
+        for (Profile profile : new Profile[] { aune, eric, sam, lee, kim, max }) {
+            profileManager.addProfile(profile);
+        }
+
+        // lee shares eric and sam with aune, kim shares only sam, max shares nobody
+        profileManager.createFriendship(aune, eric);
+        profileManager.createFriendship(aune, sam);
+        profileManager.createFriendship(eric, sam);
+        profileManager.createFriendship(eric, lee);
+        profileManager.createFriendship(sam, lee);
+        profileManager.createFriendship(sam, kim);
+
+        assertEquals(List.of(lee, kim), profileManager.suggestFriends(aune, 5));
+        assertEquals(List.of(lee), profileManager.suggestFriends(aune, 1));
+        assertTrue(profileManager.suggestFriends(aune, 0).isEmpty());
+
+        // A shared college outweighs one mutual friend
+        aune.setCollege("State");
+        kim.setCollege("State");
+        assertEquals(List.of(kim, lee), profileManager.suggestFriends(aune, 5, 1.5, 0));
+
+        assertThrows(IllegalArgumentException.class, () -> profileManager.suggestFriends(aune, -1));
+        assertThrows(IllegalArgumentException.class, () -> profileManager.suggestFriends(new Profile("Nobody"), 1));
+    }
+
+    @Test
+    void suggestFriendsForLargeFriendList() {
+        ProfileManager profileManager = new ProfileManager();
+        Profile hub = new Profile("Hub");
+        profileManager.addProfile(hub);
+        Profile[] friends = new Profile[5000];
+        Profile[] strangers = new Profile[100];
+        for (int i = 0; i < friends.length; i++) {
+            friends[i] = new Profile("Friend " + i);
+            profileManager.addProfile(friends[i]);
+            profileManager.createFriendship(hub, friends[i]);
+        }
+        for (int i = 0; i < strangers.length; i++) {
+            strangers[i] = new Profile("Stranger " + i);
+            profileManager.addProfile(strangers[i]);
+        }
+
+        // Stranger i is a friend of the first 10 * (i + 1) friends
+        for (int i = 0; i < strangers.length; i++) {
+            for (int j = 0; j < 10 * (i + 1); j++) {
+                profileManager.createFriendship(strangers[i], friends[j]);
+            }
+        }
+
+        List<Profile> suggestions = profileManager.suggestFriends(hub, 3);
+        assertEquals(List.of(strangers[99], strangers[98], strangers[97]), suggestions);
+
+        // Repeated calls reuse the scratch space and give the same answer
+        assertEquals(suggestions, profileManager.suggestFriends(hub, 3));
+    }
+
+    @Test
+    void mutualFriends() {
+        ProfileManager profileManager = new ProfileManager();
+        Profile aune = new Profile("Aune");
+        Profile eric = new Profile("Eric");
+        Profile sam = new Profile("Sam");
+        Profile lee = new Profile("Lee");
+        Profile kim = new Profile("Kim");
+        for (Profile profile : new Profile[] { aune, eric, sam, lee, kim }) {
+            profileManager.addProfile(profile);
+        }
+        profileManager.createFriendship(aune, sam);
+        profileManager.createFriendship(aune, lee);
+        profileManager.createFriendship(eric, lee);
+        profileManager.createFriendship(eric, sam);
+        profileManager.createFriendship(eric, kim);
+
+        assertEquals(List.of(sam, lee), profileManager.mutualFriends(aune, eric));
+        assertEquals(2, profileManager.mutualFriendCount(eric, aune));
+        assertEquals(0, profileManager.mutualFriendCount(aune, kim));
+        assertTrue(profileManager.mutualFriends(sam, kim).contains(eric));
+
+        profileManager.removeProfile(lee);
+        assertEquals(List.of(sam), profileManager.mutualFriends(aune, eric));
+        assertThrows(IllegalArgumentException.class, () -> profileManager.mutualFriendCount(aune, lee));
+    }
+
+    @Test
+    void getInfluenceScores() {
+        ProfileManager profileManager = new ProfileManager();
+        Profile aune = new Profile("Aune");
+        Profile eric = new Profile("Eric");
+        Profile sam = new Profile("Sam");
+        Profile lee = new Profile("Lee");
+        for (Profile profile : new Profile[] { aune, eric, sam, lee }) {
+            profileManager.addProfile(profile);
+        }
+        profileManager.createFriendship(aune, eric);
+        profileManager.createFriendship(aune, sam);
+        profileManager.createFriendship(aune, lee);
+
+        PageRank pageRank = new PageRank(0.85, 1e-10, 2);
+        DictionaryInterface<Profile, Double> scores = profileManager.getInfluenceScores(pageRank);
+        assertEquals(4, scores.getSize());
+        assertTrue(scores.getValue(aune) > scores.getValue(eric));
+        assertEquals(scores.getValue(eric), scores.getValue(sam), 1e-12);
+
+        // A new friendship lifts both ends, starting from the last scores
+        profileManager.createFriendship(eric, sam);
+        DictionaryInterface<Profile, Double> updated = profileManager.getInfluenceScores(pageRank);
+        pageRank.shutdown();
+        assertTrue(updated.getValue(eric) > updated.getValue(lee));
+        assertEquals(1, updated.getValue(aune) + updated.getValue(eric) + updated.getValue(sam)
+                + updated.getValue(lee), 1e-9);
+    }
+
+    @Test
+    void getProfilesWithinHops() {
+        ProfileManager profileManager = new ProfileManager();
+        Profile aune = new Profile("Aune");
+        Profile eric = new Profile("Eric");
+        Profile sam = new Profile("Sam");
+        Profile lee = new Profile("Lee");
+        for (Profile profile : new Profile[] { aune, eric, sam, lee }) {
+            profileManager.addProfile(profile);
+        }
+        profileManager.createFriendship(aune, eric);
+        profileManager.createFriendship(eric, sam);
+        profileManager.createFriendship(sam, lee);
+        sam.setMajor("History");
+
+        Iterator<Profile> withinTwo = profileManager.getProfilesWithinHops(aune, 2, 100, null);
+        assertSame(eric, withinTwo.next());
+        assertSame(sam, withinTwo.next());
+        assertFalse(withinTwo.hasNext());
+
+        Iterator<Profile> historyMajors = profileManager.getProfilesWithinHops(aune, 3, 100,
+                profile -> "History".equals(profile.getMajor()));
+        assertSame(sam, historyMajors.next());
+        assertFalse(historyMajors.hasNext());
+
+        assertFalse(profileManager.getProfilesWithinHops(new Profile("Nobody"), 2, 100, null).hasNext());
+    }
+
+    @Test
+    void createFriendships() {
+        ProfileManager profileManager = new ProfileManager();
+        Profile aune = new Profile("Aune");
+        Profile eric = new Profile("Eric");
+        Profile sam = new Profile("Sam");
+        Profile lee = new Profile("Lee");
+        for (Profile profile : new Profile[] { aune, eric, sam, lee }) {
+            profileManager.addProfile(profile);
+        }
+        profileManager.createFriendship(aune, eric);
+
+        // The existing friendship and the repeat in reverse are dropped
+        Profile[] profiles = { aune, eric, sam, eric };
+        Profile[] friends = { eric, sam, eric, aune };
+        assertEquals(1, profileManager.createFriendships(profiles, friends));
+        assertEquals(List.of(eric), aune.getFriendProfiles());
+        assertEquals(List.of(aune, sam), eric.getFriendProfiles());
+        assertEquals(List.of(eric), sam.getFriendProfiles());
+        assertTrue(profileManager.areConnected(aune, sam));
+        assertEquals(2, profileManager.componentCount());
+
+        // Nothing changes if any profile is missing
+        Profile[] withStranger = { lee, new Profile("Nobody") };
+        assertThrows(IllegalArgumentException.class,
+                () -> profileManager.createFriendships(withStranger, new Profile[] { aune, aune }));
+        assertTrue(lee.getFriendProfiles().isEmpty());
+    }
+
+    @Test
+    void saveAndLoadSnapshot() throws IOException {
+        ProfileManager profileManager = new ProfileManager();
+        Profile aune = new Profile("Aune");
+        aune.setAge(30);
+        aune.setAstrologicalSign("Leo");
+        aune.setCollege("Cal Poly Pomona");
+        aune.setProfilePic(new File("aune.png"));
+        Profile eric = new Profile("Eric");
+        eric.setCollege("Cal Poly Pomona");
+        eric.setStatus(null);
+        Profile sam = new Profile("Sam \u00e9");
+        Profile gone = new Profile("Gone");
+        Profile lee = new Profile("Lee");
+        for (Profile profile : new Profile[] { aune, gone, eric, sam, lee }) {
+            profileManager.addProfile(profile);
+        }
+        profileManager.createFriendship(sam, aune);
+        profileManager.createFriendship(eric, sam);
+        profileManager.createFriendship(gone, lee);
+        profileManager.removeProfile(gone);
+
+        Path file = directory.resolve("network.snapshot");
+        profileManager.saveSnapshot(file);
+        ProfileManager loaded = ProfileManager.loadSnapshot(file);
+
+        List<Profile> profiles = loaded.getListOfProfiles();
+        assertEquals(4, profiles.size());
+        Profile loadedAune = profiles.get(0);
+        Profile loadedEric = profiles.get(1);
+        Profile loadedSam = profiles.get(2);
+        Profile loadedLee = profiles.get(3);
+        assertEquals(aune.toString(), loadedAune.toString());
+        assertEquals(eric.toString(), loadedEric.toString());
+        assertEquals("Sam \u00e9", loadedSam.getName());
+        assertEquals(30, loadedAune.getAge());
+        assertEquals("aune.png", loadedAune.getProfilePic().getName());
+        assertNull(loadedEric.getStatus());
+        // Equal strings share one table entry
+        assertSame(loadedAune.getCollege(), loadedEric.getCollege());
+
+        assertEquals(List.of(loadedSam), loadedAune.getFriendProfiles());
+        assertEquals(2, loadedSam.getFriendProfiles().size());
+        assertTrue(loadedLee.getFriendProfiles().isEmpty());
+        assertTrue(loaded.areConnected(loadedAune, loadedEric));
+        assertFalse(loaded.areConnected(loadedAune, loadedLee));
+        assertEquals(2, loaded.componentCount());
+        assertEquals(profileManager.getProfileId(sam), loaded.getProfileId(loadedSam));
+
+        // The freed id is reused, and the loaded manager can be changed and saved again
+        Profile newcomer = new Profile("Newcomer");
+        loaded.addProfile(newcomer);
+        assertEquals(profileManager.getProfileId(aune) + 1, loaded.getProfileId(newcomer));
+        loaded.createFriendship(newcomer, loadedLee);
+        loaded.saveSnapshot(file);
+        assertEquals(1, ProfileManager.loadSnapshot(file).getListOfProfiles().get(4).getFriendProfiles().size());
+    }
+
+    @Test
+    void loadSnapshotRejectsDamagedFiles() throws IOException {
+        ProfileManager profileManager = new ProfileManager();
+        Profile aune = new Profile("Aune");
+        Profile eric = new Profile("Eric");
+        profileManager.addProfile(aune);
+        profileManager.addProfile(eric);
+        profileManager.createFriendship(aune, eric);
+        Path file = directory.resolve("network.snapshot");
+        profileManager.saveSnapshot(file);
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 12] ^= 1;
+        Path damaged = directory.resolve("damaged.snapshot");
+        Files.write(damaged, bytes);
+        assertThrows(IOException.class, () -> ProfileManager.loadSnapshot(damaged));
+
+        Path truncated = directory.resolve("truncated.snapshot");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 8));
+        assertThrows(IOException.class, () -> ProfileManager.loadSnapshot(truncated));
+
+        Path other = directory.resolve("other.txt");
+        Files.write(other, new byte[64]);
+        assertThrows(IOException.class, () -> ProfileManager.loadSnapshot(other));
+    }
 }
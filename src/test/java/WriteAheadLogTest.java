@@ -0,0 +1,339 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayChangesInEveryMode() throws IOException {
+        for (WriteAheadLog.Durability durability : WriteAheadLog.Durability.values()) {
+            Path snapshotFile = directory.resolve(durability + ".snapshot");
+            Path logFile = directory.resolve(durability + ".wal");
+            ProfileManager profileManager = ProfileManager.open(snapshotFile, logFile, durability, 5);
+
+            Profile aune = new Profile("Aune");
+            Profile psy = new Profile("Psy");
+            Profile cole = new Profile("Cole");
+            profileManager.addProfile(aune);
+            profileManager.addProfile(psy);
+            profileManager.addProfile(cole);
+            profileManager.createFriendship(aune, psy);
+            profileManager.createFriendship(psy, cole);
+            aune.setLocation("Pomona, CA");
+            aune.setAge(30);
+            int psyId = profileManager.getProfileId(psy);
+            profileManager.removeProfile(psy);
+
+            // The new profile reuses the removed profile's id
+            Profile dana = new Profile("Dana");
+            dana.addFriend(aune);
+            profileManager.addProfile(dana);
+            assertEquals(psyId, profileManager.getProfileId(dana));
+            profileManager.close();
+
+            // Changes after closing are no longer logged
+            cole.setMajor("Physics");
+
+            ProfileManager reopened = ProfileManager.open(snapshotFile, logFile, durability, 5);
+            Profile reopenedAune = findByName(reopened, "Aune");
+            Profile reopenedCole = findByName(reopened, "Cole");
+            Profile reopenedDana = findByName(reopened, "Dana");
+            assertEquals(3, reopened.getListOfProfiles().size());
+            assertNull(findByName(reopened, "Psy"));
+            assertEquals("Pomona, CA", reopenedAune.getLocation());
+            assertEquals(30, reopenedAune.getAge());
+            assertNull(reopenedCole.getMajor());
+            assertEquals(psyId, reopened.getProfileId(reopenedDana));
+            assertEquals(List.of(reopenedDana), reopenedAune.getFriendProfiles());
+            assertTrue(reopenedCole.getFriendProfiles().isEmpty());
+            assertEquals(2, reopened.componentCount());
+            reopened.close();
+        }
+    }
+
+    @Test
+    void committedChangesSurviveWithoutClosing() throws IOException {
+        Path snapshotFile = directory.resolve("network.snapshot");
+        Path logFile = directory.resolve("network.wal");
+        ProfileManager profileManager = ProfileManager.open(snapshotFile, logFile, WriteAheadLog.Durability.GROUP);
+        Profile aune = new Profile("Aune");
+        Profile psy = new Profile("Psy");
+        profileManager.addProfile(aune);
+        profileManager.addProfile(psy);
+        profileManager.createFriendships(new Profile[] {aune}, new Profile[] {psy});
+        psy.setStatus("Online");
+
+        // Opens the log a second time as if the first manager had crashed
+        Path copy = directory.resolve("crashed.wal");
+        Files.copy(logFile, copy);
+        ProfileManager recovered = ProfileManager.open(snapshotFile, copy, WriteAheadLog.Durability.GROUP);
+        assertEquals(List.of(findByName(recovered, "Psy")), findByName(recovered, "Aune").getFriendProfiles());
+        assertEquals("Online", findByName(recovered, "Psy").getStatus());
+        recovered.close();
+        profileManager.close();
+    }
+
+    @Test
+    void tornTailIsCutOff() throws IOException {
+        Path snapshotFile = directory.resolve("network.snapshot");
+        Path logFile = directory.resolve("network.wal");
+        ProfileManager profileManager = ProfileManager.open(snapshotFile, logFile, WriteAheadLog.Durability.EVERY_OPERATION);
+        profileManager.addProfile(new Profile("Aune"));
+        long sizeBefore = Files.size(logFile);
+        profileManager.addProfile(new Profile("Psy"));
+        profileManager.close();
+
+        // Loses the end of the last record, as a crash in the middle of a write would
+        try (RandomAccessFile file = new RandomAccessFile(logFile.toFile(), "rw")) {
+            file.setLength(Files.size(logFile) - 3);
+        }
+        ProfileManager reopened = ProfileManager.open(snapshotFile, logFile, WriteAheadLog.Durability.EVERY_OPERATION);
+        assertEquals(1, reopened.getListOfProfiles().size());
+        assertEquals(sizeBefore, Files.size(logFile));
+
+        // Appends after the last good record
+        reopened.addProfile(new Profile("Cole"));
+        reopened.close();
+        reopened = ProfileManager.open(snapshotFile, logFile, WriteAheadLog.Durability.EVERY_OPERATION);
+        assertNotNull(findByName(reopened, "Aune"));
+        assertNotNull(findByName(reopened, "Cole"));
+        reopened.close();
+    }
+
+    @Test
+    void corruptRecordEndsReplay() throws IOException {
+        Path snapshotFile = directory.resolve("network.snapshot");
+        Path logFile = directory.resolve("network.wal");
+        ProfileManager profileManager = ProfileManager.open(snapshotFile, logFile, WriteAheadLog.Durability.GROUP);
+        profileManager.addProfile(new Profile("Aune"));
+        long corruptAt = Files.size(logFile) + 12;
+        profileManager.addProfile(new Profile("Psy"));
+        profileManager.addProfile(new Profile("Cole"));
+        profileManager.close();
+
+        try (RandomAccessFile file = new RandomAccessFile(logFile.toFile(), "rw")) {
+            file.seek(corruptAt);
+            int value = file.read();
+            file.seek(corruptAt);
+            file.write(value ^ 0x20);
+        }
+        ProfileManager reopened = ProfileManager.open(snapshotFile, logFile, WriteAheadLog.Durability.GROUP);
+        assertEquals(1, reopened.getListOfProfiles().size());
+        assertNotNull(findByName(reopened, "Aune"));
+        reopened.close();
+
+        // Anything else is rejected rather than emptied
+        Path notALog = directory.resolve("other.wal");
+        Files.write(notALog, new byte[64]);
+        assertThrows(IOException.class,
+                () -> ProfileManager.open(snapshotFile, notALog, WriteAheadLog.Durability.GROUP));
+    }
+
+    @Test
+    void groupCommitSharesSyncs() throws Exception {
+        Path logFile = directory.resolve("group.wal");
+        CountingHandler handler = new CountingHandler();
+        WriteAheadLog log = WriteAheadLog.open(logFile, 0, WriteAheadLog.Durability.GROUP, 100, handler);
+
+        int numberOfThreads = 8;
+        int recordsPerThread = 500;
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < numberOfThreads; t++) {
+            int first = t * recordsPerThread;
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = first; i < first + recordsPerThread; i++) {
+                        log.commit(log.logFriendship(i, i + 1));
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        log.close();
+        assertTrue(failures.isEmpty(), failures.toString());
+        assertTrue(log.getNumberOfSyncs() < numberOfThreads * recordsPerThread);
+
+        WriteAheadLog reopened = WriteAheadLog.open(logFile, 0, WriteAheadLog.Durability.GROUP, 100, handler);
+        reopened.close();
+        assertEquals(numberOfThreads * recordsPerThread, handler.friendships.get());
+        assertEquals(1, handler.finishes.get());
+    }
+
+    @Test
+    void compactFoldsTheLogIntoTheSnapshot() throws IOException {
+        Path snapshotFile = directory.resolve("network.snapshot");
+        Path logFile = directory.resolve("network.wal");
+        ProfileManager profileManager = ProfileManager.open(snapshotFile, logFile, WriteAheadLog.Durability.GROUP);
+        Profile aune = new Profile("Aune");
+        Profile psy = new Profile("Psy");
+        profileManager.addProfile(aune);
+        profileManager.addProfile(psy);
+        profileManager.createFriendship(aune, psy);
+        long emptySize = 16;
+        assertTrue(Files.size(logFile) > emptySize);
+
+        Path folded = directory.resolve("folded.wal");
+        Files.copy(logFile, folded);
+        profileManager.compact();
+        assertEquals(emptySize, Files.size(logFile));
+
+        // Changes after compacting go to the emptied log
+        psy.setOccupation("Engineer");
+        profileManager.addProfile(new Profile("Cole"));
+        profileManager.close();
+
+        ProfileManager reopened = ProfileManager.open(snapshotFile, logFile, WriteAheadLog.Durability.GROUP);
+        assertEquals(3, reopened.getListOfProfiles().size());
+        assertEquals("Engineer", findByName(reopened, "Psy").getOccupation());
+        assertEquals(1, findByName(reopened, "Aune").getFriendProfiles().size());
+        reopened.close();
+
+        // A log already folded into the snapshot, left by a crash during compaction, is skipped
+        Files.copy(folded, logFile, StandardCopyOption.REPLACE_EXISTING);
+        reopened = ProfileManager.open(snapshotFile, logFile, WriteAheadLog.Durability.GROUP);
+        assertEquals(2, reopened.getListOfProfiles().size());
+        assertEquals(emptySize, Files.size(logFile));
+        reopened.compact();
+        reopened.compact();
+        reopened.close();
+
+        // A log newer than the snapshot cannot be replayed onto it
+        Files.delete(snapshotFile);
+        assertThrows(IOException.class,
+                () -> ProfileManager.open(snapshotFile, logFile, WriteAheadLog.Durability.GROUP));
+        assertThrows(IllegalStateException.class, () -> new ProfileManager().compact());
+    }
+
+    @Test
+    void failedAppendChangesNothing() throws IOException {
+        Path snapshotFile = directory.resolve("network.snapshot");
+        Path logFile = directory.resolve("network.wal");
+        ProfileManager profileManager = ProfileManager.open(snapshotFile, logFile, WriteAheadLog.Durability.GROUP);
+        Profile aune = new Profile("Aune");
+        Profile psy = new Profile("Psy");
+        Profile cole = new Profile("Cole");
+        profileManager.addProfile(aune);
+        profileManager.addProfile(psy);
+        profileManager.addProfile(cole);
+        profileManager.createFriendship(aune, psy);
+
+        // Closes the log under the manager, so every later append fails
+        profileManager.getLog().close();
+
+        assertThrows(UncheckedIOException.class, () -> profileManager.createFriendship(psy, cole));
+        assertThrows(UncheckedIOException.class,
+                () -> profileManager.createFriendships(new Profile[] {aune}, new Profile[] {cole}));
+        assertEquals(List.of(aune), profileManager.getFriends(psy));
+        assertTrue(cole.getFriendProfiles().isEmpty());
+        assertFalse(profileManager.areConnected(psy, cole));
+        assertEquals(2, profileManager.componentCount());
+
+        assertThrows(UncheckedIOException.class, () -> profileManager.removeProfile(psy));
+        assertEquals(List.of(aune, psy, cole), profileManager.getListOfProfiles());
+        assertEquals(List.of(psy), profileManager.getFriends(aune));
+
+        Profile dana = new Profile("Dana");
+        assertThrows(UncheckedIOException.class, () -> profileManager.addProfile(dana));
+        assertEquals(-1, profileManager.getProfileId(dana));
+        assertEquals(3, profileManager.getListOfProfiles().size());
+        assertEquals(2, profileManager.componentCount());
+        profileManager.close();
+
+        // The log holds exactly the changes that were made
+        ProfileManager reopened = ProfileManager.open(snapshotFile, logFile, WriteAheadLog.Durability.GROUP);
+        assertEquals(3, reopened.getListOfProfiles().size());
+        assertEquals(List.of(findByName(reopened, "Psy")), findByName(reopened, "Aune").getFriendProfiles());
+        assertTrue(findByName(reopened, "Cole").getFriendProfiles().isEmpty());
+        reopened.close();
+    }
+
+    @Test
+    void failedAppendLeavesFieldsUnchanged() throws IOException {
+        Path snapshotFile = directory.resolve("network.snapshot");
+        Path logFile = directory.resolve("network.wal");
+        ProfileManager profileManager = ProfileManager.open(snapshotFile, logFile, WriteAheadLog.Durability.GROUP);
+        Profile aune = new Profile("Aune");
+        profileManager.addProfile(aune);
+        aune.setOccupation("Engineer");
+        aune.setAge(30);
+
+        profileManager.getLog().close();
+
+        assertThrows(UncheckedIOException.class, () -> aune.setOccupation("Artist"));
+        assertThrows(UncheckedIOException.class, () -> aune.setAge(40));
+        assertThrows(UncheckedIOException.class, () -> aune.setName("Cole"));
+        assertEquals("Engineer", aune.getOccupation());
+        assertEquals(30, aune.getAge());
+        assertEquals("Aune", aune.getName());
+        profileManager.close();
+
+        ProfileManager reopened = ProfileManager.open(snapshotFile, logFile, WriteAheadLog.Durability.GROUP);
+        Profile reloaded = findByName(reopened, "Aune");
+        assertEquals("Engineer", reloaded.getOccupation());
+        assertEquals(30, reloaded.getAge());
+        reopened.close();
+    }
+
+    private static Profile findByName(ProfileManager profileManager, String name) {
+        for (Profile profile : profileManager.getListOfProfiles()) {
+            if (profile.getName().equals(name)) {
+                return profile;
+            }
+        }
+        return null;
+    }
+
+    private static class CountingHandler implements WriteAheadLog.Handler {
+        final AtomicInteger friendships = new AtomicInteger();
+        final AtomicInteger finishes = new AtomicInteger();
+
+        @Override
+        public void addProfile(int id, Profile profile) {
+            throw new AssertionError("Unexpected profile");
+        }
+
+        @Override
+        public void removeProfile(int id) {
+            throw new AssertionError("Unexpected removal");
+        }
+
+        @Override
+        public void createFriendship(int id, int friendId) {
+            assertEquals(id + 1, friendId);
+            friendships.incrementAndGet();
+        }
+
+        @Override
+        public void setField(int id, Profile.Field field, String value) {
+            throw new AssertionError("Unexpected field");
+        }
+
+        @Override
+        public void finish() {
+            finishes.incrementAndGet();
+        }
+    }
+}